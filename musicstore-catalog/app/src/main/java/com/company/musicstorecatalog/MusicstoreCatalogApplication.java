@@ -1,13 +1,51 @@
 package com.company.musicstorecatalog;
 
+import com.company.musicstorecatalog.model.ImportProgress;
+import com.company.musicstorecatalog.service.CatalogImportService;
+import com.company.musicstorecatalog.service.ImportFormat;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 @SpringBootApplication
 public class MusicstoreCatalogApplication {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 2 && (args[0].equals("import") || args[0].equals("reconcile"))) {
+			System.exit(importCatalog(args));
+		}
 		SpringApplication.run(MusicstoreCatalogApplication.class, args);
 	}
 
+	// java -jar musicstore-catalog.jar import <file.csv|file.ndjson> [--spring.options...]
+	// java -jar musicstore-catalog.jar reconcile <file.csv|file.ndjson> [--dry-run] [--spring.options...]
+	// loads (or reconciles) a supplier catalog file without starting the web server; exits 1 if it failed
+	static int importCatalog(String[] args) throws IOException {
+		Path file = Paths.get(args[1]);
+		boolean reconcile = args[0].equals("reconcile");
+		boolean dryRun = Arrays.asList(args).subList(2, args.length).contains("--dry-run");
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(MusicstoreCatalogApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(Arrays.stream(args, 2, args.length).filter(arg -> !arg.equals("--dry-run")).toArray(String[]::new));
+		ImportProgress progress;
+		try (InputStream in = Files.newInputStream(file)) {
+			CatalogImportService importService = context.getBean(CatalogImportService.class);
+			ImportFormat format = ImportFormat.of(file.getFileName().toString());
+			progress = reconcile
+					? importService.reconcile(in, format, file.toString(), dryRun)
+					: importService.importCatalog(in, format, file.toString());
+		}
+		System.out.println(progress);
+		return SpringApplication.exit(context, () -> progress.getFailure() == null ? 0 : 1);
+	}
+
 }
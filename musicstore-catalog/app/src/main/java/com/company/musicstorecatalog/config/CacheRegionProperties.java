@@ -0,0 +1,56 @@
+package com.company.musicstorecatalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Size and TTL per cache region, e.g. catalog.cache.regions.artist.max-size=10000.
+// refresh only applies to the application lookup caches (see LookupCacheConfig).
+@ConfigurationProperties(prefix = "catalog.cache")
+public class CacheRegionProperties {
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    public Map<String, Region> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(Map<String, Region> regions) {
+        this.regions = regions;
+    }
+
+    public Region region(String name) {
+        return regions.getOrDefault(name, new Region());
+    }
+
+    public static class Region {
+        private long maxSize = 10_000;
+        private Duration ttl = Duration.ofHours(1);
+        private Duration refresh;
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getRefresh() {
+            return refresh;
+        }
+
+        public void setRefresh(Duration refresh) {
+            this.refresh = refresh;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.company.musicstorecatalog.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+import java.util.function.UnaryOperator;
+
+// A CaffeineCache that never shares an instance with its callers: values are copied on the way in
+// and on the way out, so the entity a repository call returned (managed, and possibly changed again
+// later in the same transaction) is never the one the next request reads, and no reader can change
+// what the next one sees. Still a CaffeineCache, so the cache metrics keep binding to it.
+class CopyingCaffeineCache extends CaffeineCache {
+    private final UnaryOperator<Object> copier;
+
+    CopyingCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+                         UnaryOperator<Object> copier) {
+        super(name, cache, allowNullValues);
+        this.copier = copier;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return copy(super.lookup(key));
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) copy(super.get(key, valueLoader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, copy(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = super.putIfAbsent(key, copy(value));
+        return existing == null ? null : toValueWrapper(copy(existing.get()));
+    }
+
+    private Object copy(Object value) {
+        return value == null ? null : copier.apply(value);
+    }
+}
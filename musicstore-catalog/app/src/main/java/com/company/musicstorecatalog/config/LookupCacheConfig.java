@@ -0,0 +1,73 @@
+package com.company.musicstorecatalog.config;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.TrackRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+// Read-through caches for the hot album and track lookups (findById on AlbumRepository and
+// TrackRepository). Caffeine gives a size-bounded W-TinyLFU cache; entries older than the
+// region's refresh interval are reloaded in the background on their next read, so hot keys
+// never fall out and stall a request. Writes go through @CachePut/@CacheEvict on the repositories;
+// the manager is transaction-aware, so those puts and evictions wait for the write to commit (a
+// rolled back save never reaches the cache), and the caches hold copies, see CopyingCaffeineCache.
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheRegionProperties.class)
+public class LookupCacheConfig {
+    public static final String ALBUM_CACHE = "album";
+    public static final String TRACK_CACHE = "track";
+
+    @Bean
+    public CacheManager cacheManager(CacheRegionProperties properties,
+                                     ObjectProvider<AlbumRepository> albumRepository,
+                                     ObjectProvider<TrackRepository> trackRepository) {
+        Map<String, UnaryOperator<Object>> copiers = new HashMap<>();
+        copiers.put(ALBUM_CACHE, album -> new Album((Album) album));
+        copiers.put(TRACK_CACHE, track -> new Track((Track) track));
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+                return new CopyingCaffeineCache(name, cache, isAllowNullValues(), copiers.get(name));
+            }
+        };
+        // the loaders use the uncached finders, going through findById would just return the cached value;
+        // the row they load may be managed by the caller's persistence context, so they keep a copy
+        cacheManager.registerCustomCache(ALBUM_CACHE, buildCache(properties.region(ALBUM_CACHE),
+                id -> albumRepository.getObject().findByAlbumId(id).map(Album::new)));
+        cacheManager.registerCustomCache(TRACK_CACHE, buildCache(properties.region(TRACK_CACHE),
+                id -> trackRepository.getObject().findByTrackId(id).map(Track::new)));
+        // put and evict run after commit; outside a transaction they run at once
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private <T> LoadingCache<Object, Object> buildCache(CacheRegionProperties.Region region,
+                                                        Function<Integer, Optional<T>> loader) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(region.getMaxSize())
+                .expireAfterWrite(region.getTtl())
+                .recordStats();
+        if (region.getRefresh() != null) {
+            builder.refreshAfterWrite(region.getRefresh());
+        }
+        // a null value means "not found" and is never stored
+        return builder.build(key -> loader.apply((Integer) key).orElse(null));
+    }
+}
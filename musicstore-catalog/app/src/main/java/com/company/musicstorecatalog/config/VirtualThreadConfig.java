@@ -0,0 +1,88 @@
+package com.company.musicstorecatalog.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Virtual-thread mode (catalog.virtual-threads.enabled=true, on a Java 21 runtime; build with
+// mvn -Pjava21). Tomcat hands every request to a new virtual thread instead of its bounded worker pool,
+// and so does Spring MVC for async results (StreamingResponseBody exports, SseEmitter); the controllers
+// and repositories stay blocking and simply run on those threads. Database access is then bounded by
+// ConnectionAdmissionDataSource rather than by the number of request threads.
+@Configuration
+@ConditionalOnProperty(name = "catalog.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+    private final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandler() {
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+    }
+
+    // permits default to the Hikari pool size, so a request that gets one also gets a connection at once
+    @Bean
+    public static BeanPostProcessor connectionAdmission(Environment environment) {
+        int permits = environment.getProperty("catalog.virtual-threads.connection-permits", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        Duration wait = environment.getProperty("catalog.virtual-threads.connection-wait", Duration.class,
+                Duration.ofSeconds(30));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ConnectionAdmissionDataSource) return bean;
+                return new ConnectionAdmissionDataSource((DataSource) bean, permits, wait);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionAdmissionMetrics(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof ConnectionAdmissionDataSource)) return;
+            ConnectionAdmissionDataSource admission = (ConnectionAdmissionDataSource) dataSource;
+            Gauge.builder("catalog.db.admission.waiting", admission, ConnectionAdmissionDataSource::getWaiting)
+                    .description("Requests waiting for a database connection permit")
+                    .register(registry);
+            Gauge.builder("catalog.db.admission.available", admission, ConnectionAdmissionDataSource::getAvailablePermits)
+                    .description("Database connection permits not in use")
+                    .register(registry);
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    // looked up reflectively, so that the default Java 8 build still compiles this class
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("catalog.virtual-threads.enabled needs a Java 21 runtime, this is Java "
+                    + System.getProperty("java.version"));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.company.musicstorecatalog.config;
+
+import com.company.musicstorecatalog.controller.IdempotencyFilter;
+import com.company.musicstorecatalog.controller.SnapshotVersionInterceptor;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    @Autowired
+    CatalogSnapshotService snapshots;
+    @Autowired
+    IdempotencyService idempotency;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SnapshotVersionInterceptor(snapshots));
+    }
+
+    // only the single-item creates; PUT and DELETE are idempotent already, and batches report per item
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(ObjectMapper mapper) {
+        FilterRegistrationBean<IdempotencyFilter> registration =
+                new FilterRegistrationBean<>(new IdempotencyFilter(idempotency, mapper));
+        registration.addUrlPatterns("/album", "/track", "/artist", "/label");
+        return registration;
+    }
+}
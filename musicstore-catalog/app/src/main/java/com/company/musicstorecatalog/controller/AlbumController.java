@@ -1,49 +1,207 @@
 package com.company.musicstorecatalog.controller;
 
 import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumDetail;
+import com.company.musicstorecatalog.model.AlbumFilter;
+import com.company.musicstorecatalog.model.AlbumSummary;
+import com.company.musicstorecatalog.model.BatchResult;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.WriteTicket;
 import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.TableWritesRepository;
+import com.company.musicstorecatalog.repository.AlbumSpecifications;
+import com.company.musicstorecatalog.repository.TrackRepository;
+import com.company.musicstorecatalog.service.AlbumListingProjector;
+import com.company.musicstorecatalog.service.BatchWriteService;
+import com.company.musicstorecatalog.service.CatalogOutbox;
+import com.company.musicstorecatalog.service.CatalogPurgeService;
+import com.company.musicstorecatalog.service.CatalogSnapshot;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.NdjsonExportService;
+import com.company.musicstorecatalog.service.SearchService;
+import com.company.musicstorecatalog.service.WriteBehindService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.net.URI;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/album")
 public class AlbumController {
         @Autowired
         AlbumRepository albumRepository;
+        @Autowired
+        TableWritesRepository tableWritesRepository;
+        @Autowired
+        TrackRepository trackRepository;
+        @Autowired
+        NdjsonExportService exportService;
+        @Autowired
+        CatalogSnapshotService snapshots;
+        @Autowired
+        CatalogStatsService statsService;
+        @Autowired
+        AlbumListingProjector listingProjector;
+        @Autowired
+        SearchService searchService;
+        @Autowired
+        BatchWriteService batchWriteService;
+        @Autowired
+        CatalogPurgeService purgeService;
+        @Autowired
+        WriteBehindService writeBehind;
+        @Autowired
+        CatalogOutbox outbox;
+        @Autowired
+        ObjectMapper mapper;
+        @Autowired
+        Validator validator;
 
         @GetMapping()
-        public List<Album> getAlbums() {
-            List<Album> albumList = albumRepository.findAll();
+        public List<Album> getAlbums(WebRequest request, AlbumFilter filter) {
+            if (!filter.isEmpty()) {
+                AlbumSpecifications.check(filter, false);
+                // filtered lists always come from MySQL, through the indexes listed in AlbumSpecifications
+                if (request.checkNotModified(ETags.forTable(tableWritesRepository.findWrites(CatalogOutbox.ALBUM)))) return null;
+                return albumRepository.findFiltered(filter);
+            }
+            List<Album> albumList;
+            if (snapshots.isServing()) {
+                CatalogSnapshot snapshot = snapshots.current();
+                if (request.checkNotModified(ETags.forSnapshot(snapshot.getVersion()))) return null;
+                albumList = snapshot.getAlbums().all();
+            } else {
+                // counter first, so a write racing with findAll() can only make the ETag look stale
+                if (request.checkNotModified(ETags.forTable(tableWritesRepository.findWrites(CatalogOutbox.ALBUM)))) return null;
+                albumList = albumRepository.findAll();
+            }
             if (albumList.isEmpty() || albumList == null) {
                 throw new IllegalArgumentException("Albums data is empty!");
             }
             return albumList; }
 
+        @GetMapping(params = "limit")
+        public CursorPage<Album> getAlbumPage(@RequestParam(required = false) String after,
+                                               @RequestParam int limit,
+                                               AlbumFilter filter) {
+            int pageSize = CursorPage.checkLimit(limit);
+            if (!filter.isEmpty()) {
+                AlbumSpecifications.check(filter, after);
+                List<Album> rows = albumRepository.findFilteredAfter(filter, after, pageSize + 1);
+                return CursorPage.withCursors(rows, pageSize, AlbumSpecifications.cursorOf(filter));
+            }
+            if (snapshots.isServing()) {
+                List<Album> rows = snapshots.current().getAlbums().after(CursorPage.decodeCursor(after), pageSize + 1);
+                return CursorPage.of(rows, pageSize, Album::getAlbumId);
+            }
+            List<Album> rows = albumRepository.findByAlbumIdGreaterThanOrderByAlbumIdAsc(
+                    CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+            return CursorPage.of(rows, pageSize, Album::getAlbumId);
+        }
+
+        @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+        public ResponseEntity<StreamingResponseBody> exportAlbums() {
+            StreamingResponseBody body;
+            if (snapshots.isServing()) {
+                List<Album> rows = snapshots.current().getAlbums().all();
+                body = out -> exportService.writeNdjsonRows(rows, out);
+            } else {
+                body = out -> exportService.writeNdjson(albumRepository::streamAll, out);
+            }
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        }
+
+        @GetMapping("/summary")
+        public CursorPage<AlbumSummary> getAlbumSummaries(@RequestParam(required = false) String after,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+            int pageSize = CursorPage.checkLimit(limit);
+            if (snapshots.isServing()) {
+                List<AlbumSummary> rows = snapshots.current().getAlbums().after(CursorPage.decodeCursor(after), pageSize + 1)
+                        .stream()
+                        .map(album -> new AlbumSummary(album.getAlbumId(), album.getTitle(), album.getArtistId(), album.getLabelId()))
+                        .collect(Collectors.toList());
+                return CursorPage.of(rows, pageSize, AlbumSummary::getAlbumId);
+            }
+            List<AlbumSummary> rows = albumRepository.findSummariesAfter(
+                    CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+            return CursorPage.of(rows, pageSize, AlbumSummary::getAlbumId);
+        }
+
         @GetMapping("/{id}")
-        public Album getAlbumById(@PathVariable Integer id) {
-            Optional<Album> returnVal = albumRepository.findById(id);
+        public Album getAlbumById(@PathVariable Integer id, WebRequest request) {
+            // findById is served from the album lookup cache, so a conditional poll of a hot album never reaches MySQL
+            Optional<Album> returnVal = snapshots.isServing()
+                    ? snapshots.current().getAlbums().get(id)
+                    : albumRepository.findById(id);
             if (returnVal.isPresent()) {
+                if (request.checkNotModified(ETags.forEntity(returnVal.get().getVersion()))) return null;
                 return returnVal.get();
             } else {
                 throw new IllegalArgumentException("No album was found with Id: " + id);
             }
         }
 
+        @GetMapping("/{id}/full")
+        public AlbumDetail getAlbumDetailById(@PathVariable Integer id) {
+            if (snapshots.isServing()) {
+                return snapshots.current().albumDetail(id)
+                        .orElseThrow(() -> new IllegalArgumentException("No album was found with Id: " + id));
+            }
+            Optional<AlbumDetail> returnVal = albumRepository.findDetailById(id);
+            if (returnVal.isPresent()) {
+                AlbumDetail albumDetail = returnVal.get();
+                albumDetail.setTracks(trackRepository.findByAlbumIdOrderByTrackIdAsc(id));
+                return albumDetail;
+            } else {
+                throw new IllegalArgumentException("No album was found with Id: " + id);
+            }
+        }
+
         @PostMapping()
         @ResponseStatus(HttpStatus.CREATED)
+        // the write and its summary table updates (CatalogStatsService) commit together
+        @Transactional
         public Album addAlbum(@RequestBody @Valid Album album) {
             if (album==null) throw new IllegalArgumentException("No Album data is added! Album object is null!");
-            return albumRepository.save(album);
+            statsService.albumChanging(album.getAlbumId());
+            Album saved = albumRepository.save(album);
+            statsService.albumSaved(saved);
+            outbox.saved(CatalogOutbox.ALBUM, saved.getAlbumId());
+            listingProjector.albumChanged(saved.getAlbumId());
+            snapshots.albumSaved(saved);
+            searchService.albumSaved(saved);
+            return saved;
+        }
+
+        // queued for a group commit instead, see WriteBehindService; poll the handle for the new id
+        @PostMapping(params = "async=true")
+        public ResponseEntity<WriteTicket> queueAlbum(@RequestBody @Valid Album album) {
+            WriteTicket ticket = writeBehind.submit(album);
+            return ResponseEntity.accepted().location(URI.create("/writes/" + ticket.getHandle())).body(ticket);
         }
 
         @PutMapping()
         @ResponseStatus(HttpStatus.NO_CONTENT)
-        public void updateAlbum(@RequestBody @Valid Album album) {
+        @Transactional
+        public void updateAlbum(@RequestBody @Valid Album album,
+                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
             // validate incoming Album data
             if (album==null)
                 throw new IllegalArgumentException("No Album data is passed! Album object is null!");
@@ -52,18 +210,78 @@ public class AlbumController {
             if (album.getAlbumId()==null)
                 throw new IllegalArgumentException("No such album to update.");
 
-            albumRepository.save(album);
+            // If-Match wins over a version in the body; clients that send neither keep last-write-wins semantics
+            Integer expected = ETags.ifMatchVersion(ifMatch);
+            if (expected != null) album.setVersion(expected);
+            if (album.getVersion()==null)
+                albumRepository.findVersionById(album.getAlbumId()).ifPresent(album::setVersion);
+
+            statsService.albumChanging(album.getAlbumId());
+            // UPDATE ... WHERE album_id = ? AND version = ?, with no select before it
+            if (albumRepository.updateIfVersion(album) == 0)
+                throw ETags.notWritten("album", album.getAlbumId(), albumRepository.findVersionById(album.getAlbumId()), ifMatch != null);
+            album.setVersion(album.getVersion() + 1);
+            statsService.albumSaved(album);
+            outbox.saved(CatalogOutbox.ALBUM, album.getAlbumId());
+            listingProjector.albumChanged(album.getAlbumId());
+            snapshots.albumSaved(album);
+            searchService.albumSaved(album);
+        }
+
+        // JSON Merge Patch, see MergePatch; Hibernate's dynamic update writes only the changed columns,
+        // and a patch that changes nothing skips the write and its hooks
+        @PatchMapping(path = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+        @Transactional
+        public Album patchAlbum(@PathVariable Integer id, @RequestBody JsonNode patch,
+                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+            // uncached load: the lookup cache's instance must not become the managed one
+            Album stored = albumRepository.findByAlbumId(id)
+                    .orElseThrow(() -> new IllegalArgumentException("No album was found with Id: " + id));
+            MergePatch.checkIfMatch(ifMatch, "album", stored.getVersion());
+            Album album = MergePatch.apply(mapper, stored, patch, "albumId", validator);
+            if (MergePatch.isNoOp(mapper, stored, album)) return stored;
+
+            statsService.albumChanging(id);
+            // flushed, so the saved copy carries the new version for the snapshot and the response
+            Album saved = albumRepository.saveAndFlush(album);
+            statsService.albumSaved(saved);
+            outbox.saved(CatalogOutbox.ALBUM, saved.getAlbumId());
+            listingProjector.albumChanged(id);
+            snapshots.albumSaved(saved);
+            searchService.albumSaved(saved);
+            return saved;
+        }
+
+        // bulk loads: items are validated one by one, see BatchResult for what was written and what was rejected
+        @PostMapping("/batch")
+        public BatchResult addAlbums(@RequestBody List<Album> albums) {
+            return batchWriteService.addAlbums(albums);
+        }
+
+        @PutMapping("/batch")
+        public BatchResult updateAlbums(@RequestBody List<Album> albums) {
+            return batchWriteService.updateAlbums(albums);
         }
 
         @DeleteMapping("/{id}")
         @ResponseStatus(HttpStatus.NO_CONTENT)
-        public void deleteAlbum(@PathVariable Integer id) {
-            Optional<Album> album = albumRepository.findById(id);
-            if(album.isPresent()) {
-                albumRepository.deleteById(id);
-            } else {
-                throw new IllegalArgumentException("No album was found with Id: " + id);
-            }
+        @Transactional
+        public void deleteAlbum(@PathVariable Integer id,
+                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                @RequestParam(defaultValue = "false") boolean cascade) {
+            statsService.albumChanging(id);
+            // ?cascade=true deletes the tracks first, with one statement, see CatalogPurgeService
+            List<Integer> trackIds = cascade ? purgeService.deleteTracksOf(Collections.singletonList(id))
+                    : Collections.emptyList();
+            // DELETE ... WHERE album_id = ? [AND version = ?]; the stats move above rolls back if it misses
+            if (albumRepository.deleteIfVersion(id, ETags.ifMatchVersion(ifMatch)) == 0)
+                throw ETags.notWritten("album", id, albumRepository.findVersionById(id), true);
+            purgeService.tracksDeleted(trackIds);
+            statsService.albumDeleted(id);
+            outbox.deleted(CatalogOutbox.ALBUM, id);
+            listingProjector.albumChanged(id);
+            snapshots.albumDeleted(id);
+            searchService.albumDeleted(id);
         }
 
     }
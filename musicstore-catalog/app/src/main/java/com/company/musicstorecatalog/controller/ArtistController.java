@@ -1,33 +1,144 @@
 package com.company.musicstorecatalog.controller;
 
 import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.ArtistSummary;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.Suggestion;
 import com.company.musicstorecatalog.repository.ArtistRepository;
+import com.company.musicstorecatalog.repository.TableWritesRepository;
+import com.company.musicstorecatalog.service.AlbumListingProjector;
+import com.company.musicstorecatalog.service.CatalogOutbox;
+import com.company.musicstorecatalog.service.CatalogPurgeService;
+import com.company.musicstorecatalog.service.CatalogSnapshot;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.NdjsonExportService;
+import com.company.musicstorecatalog.service.SearchService;
+import com.company.musicstorecatalog.service.SuggestService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/artist")
 public class ArtistController {
     @Autowired
     ArtistRepository artistRepository;
+    @Autowired
+    TableWritesRepository tableWritesRepository;
+    @Autowired
+    NdjsonExportService exportService;
+    @Autowired
+    CatalogSnapshotService snapshots;
+    @Autowired
+    CatalogStatsService statsService;
+    @Autowired
+    AlbumListingProjector listingProjector;
+    @Autowired
+    SearchService searchService;
+    @Autowired
+    SuggestService suggestService;
+    @Autowired
+    CatalogPurgeService purgeService;
+    @Autowired
+    CatalogOutbox outbox;
+    @Autowired
+    ObjectMapper mapper;
+    @Autowired
+    Validator validator;
 
     @GetMapping()
-    public List<Artist> getArtists() {
-        List<Artist> artistList = artistRepository.findAll();
+    public List<Artist> getArtists(WebRequest request) {
+        List<Artist> artistList;
+        if (snapshots.isServing()) {
+            CatalogSnapshot snapshot = snapshots.current();
+            if (request.checkNotModified(ETags.forSnapshot(snapshot.getVersion()))) return null;
+            artistList = snapshot.getArtists().all();
+        } else {
+            if (request.checkNotModified(ETags.forTable(tableWritesRepository.findWrites(CatalogOutbox.ARTIST)))) return null;
+            artistList = artistRepository.findAll();
+        }
         if (artistList.isEmpty() || artistList == null) {
             throw new IllegalArgumentException("Artists data is empty!");
         }
         return artistList; }
 
+    @GetMapping(params = "limit")
+    public CursorPage<Artist> getArtistPage(@RequestParam(required = false) String after,
+                                            @RequestParam int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        if (snapshots.isServing()) {
+            List<Artist> rows = snapshots.current().getArtists().after(CursorPage.decodeCursor(after), pageSize + 1);
+            return CursorPage.of(rows, pageSize, Artist::getArtistId);
+        }
+        List<Artist> rows = artistRepository.findByArtistIdGreaterThanOrderByArtistIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, Artist::getArtistId);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportArtists() {
+        StreamingResponseBody body;
+        if (snapshots.isServing()) {
+            List<Artist> rows = snapshots.current().getArtists().all();
+            body = out -> exportService.writeNdjsonRows(rows, out);
+        } else {
+            body = out -> exportService.writeNdjson(artistRepository::streamAll, out);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/summary")
+    public CursorPage<ArtistSummary> getArtistSummaries(@RequestParam(required = false) String after,
+                                                      @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        if (snapshots.isServing()) {
+            List<ArtistSummary> rows = snapshots.current().getArtists().after(CursorPage.decodeCursor(after), pageSize + 1)
+                    .stream()
+                    .map(artist -> new ArtistSummary(artist.getArtistId(), artist.getName()))
+                    .collect(Collectors.toList());
+            return CursorPage.of(rows, pageSize, ArtistSummary::getArtistId);
+        }
+        List<ArtistSummary> rows = artistRepository.findSummariesAfter(
+                CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, ArtistSummary::getArtistId);
+    }
+
+    @GetMapping("/suggest")
+    public List<Suggestion> suggestArtists(@RequestParam String prefix,
+                                           @RequestParam(defaultValue = "10") int limit) {
+        return suggestService.suggestArtists(prefix, CursorPage.checkLimit(limit));
+    }
+
     @GetMapping("/{id}")
-    public Artist getArtistById(@PathVariable Integer id) {
-        Optional<Artist> returnVal = artistRepository.findById(id);
+    public Artist getArtistById(@PathVariable Integer id, WebRequest request) {
+        Optional<Artist> returnVal;
+        if (snapshots.isServing()) {
+            returnVal = snapshots.current().getArtists().get(id);
+        } else {
+            if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                Optional<Integer> version = artistRepository.findVersionById(id);
+                if (version.isPresent() && request.checkNotModified(ETags.forEntity(version.get()))) return null;
+            }
+            returnVal = artistRepository.findById(id);
+        }
         if (returnVal.isPresent()) {
+            if (request.checkNotModified(ETags.forEntity(returnVal.get().getVersion()))) return null;
             return returnVal.get();
         } else {
             throw new IllegalArgumentException("No artist was found with Id: " + id);
@@ -36,14 +147,24 @@ public class ArtistController {
 
     @PostMapping()
     @ResponseStatus(HttpStatus.CREATED)
+    // the write and its summary table updates (CatalogStatsService) commit together
+    @Transactional
     public Artist addArtist(@RequestBody @Valid Artist artist) {
         if (artist==null) throw new IllegalArgumentException("No Artist data is added! Artist object is null!");
-        return artistRepository.save(artist);
+        Artist saved = artistRepository.save(artist);
+        statsService.artistSaved(saved);
+        outbox.saved(CatalogOutbox.ARTIST, saved.getArtistId());
+        snapshots.artistSaved(saved);
+        suggestService.artistsChanged();
+        searchService.artistSaved(saved);
+        return saved;
     }
 
     @PutMapping()
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void updateArtist(@RequestBody @Valid Artist artist) {
+    @Transactional
+    public void updateArtist(@RequestBody @Valid Artist artist,
+                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         // validate incoming Artist data
         if (artist==null)
             throw new IllegalArgumentException("No Artist data is passed! Artist object is null!");
@@ -52,17 +173,70 @@ public class ArtistController {
         if (artist.getArtistId()==null)
             throw new IllegalArgumentException("No such artist to update.");
 
-        artistRepository.save(artist);
+        // conditional update, see AlbumController.updateAlbum
+        Integer expected = ETags.ifMatchVersion(ifMatch);
+        if (expected != null) artist.setVersion(expected);
+        if (artist.getVersion()==null)
+            artistRepository.findVersionById(artist.getArtistId()).ifPresent(artist::setVersion);
+
+        if (artistRepository.updateIfVersion(artist) == 0)
+            throw ETags.notWritten("artist", artist.getArtistId(), artistRepository.findVersionById(artist.getArtistId()), ifMatch != null);
+        artist.setVersion(artist.getVersion() + 1);
+        statsService.artistSaved(artist);
+        outbox.saved(CatalogOutbox.ARTIST, artist.getArtistId());
+        listingProjector.artistChanged(artist.getArtistId());
+        snapshots.artistSaved(artist);
+        suggestService.artistsChanged();
+        searchService.artistSaved(artist);
+    }
+
+    // JSON Merge Patch, see AlbumController.patchAlbum
+    @PatchMapping(path = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    @Transactional
+    public Artist patchArtist(@PathVariable Integer id, @RequestBody JsonNode patch,
+                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Artist stored = artistRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("No artist was found with Id: " + id));
+        MergePatch.checkIfMatch(ifMatch, "artist", stored.getVersion());
+        Artist artist = MergePatch.apply(mapper, stored, patch, "artistId", validator);
+        if (MergePatch.isNoOp(mapper, stored, artist)) return stored;
+
+        Artist saved = artistRepository.saveAndFlush(artist);
+        statsService.artistSaved(saved);
+        outbox.saved(CatalogOutbox.ARTIST, saved.getArtistId());
+        listingProjector.artistChanged(id);
+        snapshots.artistSaved(saved);
+        suggestService.artistsChanged();
+        searchService.artistSaved(saved);
+        return saved;
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteArtist(@PathVariable Integer id) {
-        Optional<Artist> artist = artistRepository.findById(id);
-        if(artist.isPresent()) {
-            artistRepository.deleteById(id);
-        } else {
-            throw new IllegalArgumentException("No artist was found with Id: " + id);
-        }
+    @Transactional
+    public void deleteArtist(@PathVariable Integer id,
+                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // conditional delete, see AlbumController.deleteAlbum
+        if (artistRepository.deleteIfVersion(id, ETags.ifMatchVersion(ifMatch)) == 0)
+            throw ETags.notWritten("artist", id, artistRepository.findVersionById(id), true);
+        statsService.artistDeleted(id);
+        outbox.deleted(CatalogOutbox.ARTIST, id);
+        snapshots.artistDeleted(id);
+        suggestService.artistsChanged();
+        searchService.artistDeleted(id);
+    }
+
+    // purges the artist with all its albums and their tracks, see CatalogPurgeService. Each chunk of albums
+    // commits on its own, so If-Match is checked before the first one; a failed purge can be repeated.
+    @DeleteMapping(path = "/{id}", params = "cascade=true")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void purgeArtist(@PathVariable Integer id,
+                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Integer expected = ETags.ifMatchVersion(ifMatch);
+        Optional<Integer> stored = artistRepository.findVersionById(id);
+        if (!stored.isPresent() || (expected != null && !expected.equals(stored.get())))
+            throw ETags.notWritten("artist", id, stored, true);
+        if (purgeService.purgeArtist(id, expected) == 0)
+            throw ETags.notWritten("artist", id, artistRepository.findVersionById(id), true);
     }
 }
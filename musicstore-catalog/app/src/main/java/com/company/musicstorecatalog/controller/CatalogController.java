@@ -0,0 +1,58 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.model.AlbumListing;
+import com.company.musicstorecatalog.model.CatalogDelta;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.repository.AlbumListingRepository;
+import com.company.musicstorecatalog.service.AlbumListingProjector;
+import com.company.musicstorecatalog.service.CatalogSyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Album listings as the UI renders them, read from the album_listing read model kept by
+// AlbumListingProjector; eventually consistent with /album, /artist, /label and /track. /changes is the
+// delta sync of those four, see CatalogSyncService.
+@RestController
+@RequestMapping("/catalog")
+public class CatalogController {
+    @Autowired
+    AlbumListingRepository listingRepository;
+    @Autowired
+    AlbumListingProjector listingProjector;
+    @Autowired
+    CatalogSyncService syncService;
+
+    @GetMapping("/albums")
+    public CursorPage<AlbumListing> getAlbumListings(@RequestParam(required = false) String after,
+                                                     @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        List<AlbumListing> rows = listingRepository.findByAlbumIdGreaterThanOrderByAlbumIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, AlbumListing::getAlbumId);
+    }
+
+    // the albums, tracks, artists and labels written or deleted after since, up to limit of them;
+    // send the returned watermark as since next time, right away while more is true
+    @GetMapping("/changes")
+    public CatalogDelta getChanges(@RequestParam(required = false) String since,
+                                   @RequestParam(defaultValue = "500") int limit) {
+        return syncService.changesSince(since, CursorPage.checkLimit(limit));
+    }
+
+    @GetMapping("/albums/{id}")
+    public AlbumListing getAlbumListingById(@PathVariable Integer id) {
+        return listingRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("No album was found with Id: " + id));
+    }
+
+    // re-projects every album, for a new deployment or after the read model has drifted
+    @PostMapping("/albums/rebuild")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void rebuildAlbumListings() {
+        listingProjector.rebuild();
+    }
+}
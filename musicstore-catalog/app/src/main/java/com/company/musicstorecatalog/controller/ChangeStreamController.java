@@ -0,0 +1,23 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.service.ChangeStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Server-sent events of every committed album, track, artist and label write, see ChangeStreamService.
+// Each "changes" event is a JSON array of {seq, kind, entityId, action, createdAt}; a client resumes
+// with ?after=<seq> or the Last-Event-ID header its EventSource sends on reconnect.
+@RestController
+@RequestMapping("/changes")
+public class ChangeStreamController {
+    @Autowired
+    ChangeStreamService changeStream;
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeStream.subscribe(after != null ? after : lastEventId);
+    }
+}
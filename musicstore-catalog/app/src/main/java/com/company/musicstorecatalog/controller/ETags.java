@@ -0,0 +1,42 @@
+package com.company.musicstorecatalog.controller;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.Optional;
+
+// Strong ETag values for single entities (their @Version), for whole tables (their write counter,
+// see TableWrites) and, in snapshot
+// read mode, for whole-table responses served from one catalog snapshot version. PUT, PATCH and
+// DELETE take an If-Match with an entity ETag as the version they expect to replace.
+final class ETags {
+    private ETags() {}
+
+    static String forEntity(Integer version) {
+        return "\"v" + version + "\"";
+    }
+
+    static String forTable(long writes) {
+        return "\"w" + writes + "\"";
+    }
+
+    static String forSnapshot(long snapshotVersion) {
+        return "\"s" + snapshotVersion + "\"";
+    }
+
+    // the version an If-Match header asks for, null when there is none or it is "*" (any stored version);
+    // anything that is not one of our entity ETags can never match
+    static Integer ifMatchVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) return null;
+        String tag = ifMatch.trim();
+        if (tag.matches("\"v\\d{1,9}\"")) return Integer.valueOf(tag.substring(2, tag.length() - 1));
+        throw new PreconditionFailedException("If-Match " + tag + " does not name a version of this record.");
+    }
+
+    // why a conditional write touched no row: the record is gone (404), or it was changed since the
+    // version the client sent (412 for If-Match, 409 for a version in the body)
+    static RuntimeException notWritten(String kind, Integer id, Optional<Integer> storedVersion, boolean ifMatch) {
+        if (!storedVersion.isPresent()) return new IllegalArgumentException("No " + kind + " was found with Id: " + id);
+        if (ifMatch) return new PreconditionFailedException("The " + kind + " is now at " + forEntity(storedVersion.get()) + ".");
+        return new OptimisticLockingFailureException("The " + kind + " is now at version " + storedVersion.get() + ".");
+    }
+}
@@ -0,0 +1,161 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Idempotency-Key on the create endpoints (POST /album, /track, /artist, /label; registered in WebConfig).
+// A retry with a key that already succeeded gets the first response again, marked Idempotent-Replayed,
+// and never reaches the controller or the repositories, see IdempotencyService. The same key with a
+// different body or query is 422; a duplicate that outwaits the first request is 409.
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private final IdempotencyService idempotency;
+    private final ObjectMapper mapper;
+
+    public IdempotencyFilter(IdempotencyService idempotency, ObjectMapper mapper) {
+        this.idempotency = idempotency;
+        this.mapper = mapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            error(response, HttpStatus.BAD_REQUEST, KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        IdempotencyService.Claim claim = idempotency.claim(
+                request.getRequestURI() + " " + key, fingerprint(request.getQueryString(), body));
+        switch (claim.getState()) {
+            case REPLAY:
+                replay(claim.getResponse(), response);
+                return;
+            case MISMATCH:
+                error(response, HttpStatus.UNPROCESSABLE_ENTITY, KEY_HEADER + " " + key + " was used for a different request");
+                return;
+            case IN_PROGRESS:
+                error(response, HttpStatus.CONFLICT, "A request with " + KEY_HEADER + " " + key + " is still running");
+                return;
+            default:
+        }
+
+        ContentCachingResponseWrapper recorded = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(new BodyRequest(request, body), recorded);
+            if (HttpStatus.valueOf(recorded.getStatus()).is2xxSuccessful()) {
+                idempotency.complete(claim, new IdempotencyService.StoredResponse(recorded.getStatus(),
+                        recorded.getContentType(), recorded.getHeader(HttpHeaders.LOCATION), recorded.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) idempotency.release(claim);
+            recorded.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(IdempotencyService.StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.getStatus());
+        if (stored.getContentType() != null) response.setContentType(stored.getContentType());
+        if (stored.getLocation() != null) response.setHeader(HttpHeaders.LOCATION, stored.getLocation());
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    // same body as ExceptionHandlerController, which never sees these: they are sent before the DispatcherServlet
+    private void error(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", message);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        mapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static String fingerprint(String query, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Objects.toString(query, "").getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            return String.format("%064x", new BigInteger(1, digest.digest(body)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // the body was read for the fingerprint, so the controller reads it from here
+    private static final class BodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        BodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+    }
+}
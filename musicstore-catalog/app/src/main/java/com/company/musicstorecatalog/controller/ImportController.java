@@ -0,0 +1,42 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.model.ImportProgress;
+import com.company.musicstorecatalog.service.CatalogImportService;
+import com.company.musicstorecatalog.service.ImportFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+// Supplier catalog imports. The upload is the raw request body (text/csv or application/x-ndjson),
+// read as a stream while it arrives, see CatalogImportService. reconcile=true merges the file against the
+// stored catalog of its labels instead; dryRun=true only reports what a reconciliation would change.
+@RestController
+@RequestMapping("/import")
+public class ImportController {
+    @Autowired
+    CatalogImportService importService;
+
+    @PostMapping(consumes = {"text/csv", "application/x-ndjson"})
+    public ImportProgress importCatalog(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                        @RequestParam(defaultValue = "upload") String source,
+                                        @RequestParam(defaultValue = "false") boolean reconcile,
+                                        @RequestParam(defaultValue = "false") boolean dryRun,
+                                        HttpServletRequest request) throws IOException {
+        ImportFormat format = ImportFormat.of(contentType);
+        try (InputStream in = request.getInputStream()) {
+            return reconcile || dryRun
+                    ? importService.reconcile(in, format, source, dryRun)
+                    : importService.importCatalog(in, format, source);
+        }
+    }
+
+    @GetMapping()
+    public List<ImportProgress> getImports() {
+        return importService.imports();
+    }
+}
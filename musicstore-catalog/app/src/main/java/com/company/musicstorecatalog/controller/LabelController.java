@@ -1,33 +1,141 @@
 package com.company.musicstorecatalog.controller;
 
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.Suggestion;
 import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.LabelSummary;
 import com.company.musicstorecatalog.repository.LabelRepository;
+import com.company.musicstorecatalog.repository.TableWritesRepository;
+import com.company.musicstorecatalog.service.AlbumListingProjector;
+import com.company.musicstorecatalog.service.CatalogOutbox;
+import com.company.musicstorecatalog.service.CatalogPurgeService;
+import com.company.musicstorecatalog.service.CatalogSnapshot;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.NdjsonExportService;
+import com.company.musicstorecatalog.service.SuggestService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/label")
 public class LabelController {
     @Autowired
     LabelRepository labelRepository;
+    @Autowired
+    TableWritesRepository tableWritesRepository;
+    @Autowired
+    NdjsonExportService exportService;
+    @Autowired
+    CatalogSnapshotService snapshots;
+    @Autowired
+    CatalogStatsService statsService;
+    @Autowired
+    AlbumListingProjector listingProjector;
+    @Autowired
+    SuggestService suggestService;
+    @Autowired
+    CatalogPurgeService purgeService;
+    @Autowired
+    CatalogOutbox outbox;
+    @Autowired
+    ObjectMapper mapper;
+    @Autowired
+    Validator validator;
 
     @GetMapping()
-    public List<Label> getLabels() {
-        List<Label> labelList = labelRepository.findAll();
+    public List<Label> getLabels(WebRequest request) {
+        List<Label> labelList;
+        if (snapshots.isServing()) {
+            CatalogSnapshot snapshot = snapshots.current();
+            if (request.checkNotModified(ETags.forSnapshot(snapshot.getVersion()))) return null;
+            labelList = snapshot.getLabels().all();
+        } else {
+            if (request.checkNotModified(ETags.forTable(tableWritesRepository.findWrites(CatalogOutbox.LABEL)))) return null;
+            labelList = labelRepository.findAll();
+        }
         if (labelList.isEmpty() || labelList == null) {
             throw new IllegalArgumentException("Labels data is empty!");
         }
         return labelList; }
 
+    @GetMapping(params = "limit")
+    public CursorPage<Label> getLabelPage(@RequestParam(required = false) String after,
+                                           @RequestParam int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        if (snapshots.isServing()) {
+            List<Label> rows = snapshots.current().getLabels().after(CursorPage.decodeCursor(after), pageSize + 1);
+            return CursorPage.of(rows, pageSize, Label::getLabelId);
+        }
+        List<Label> rows = labelRepository.findByLabelIdGreaterThanOrderByLabelIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, Label::getLabelId);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportLabels() {
+        StreamingResponseBody body;
+        if (snapshots.isServing()) {
+            List<Label> rows = snapshots.current().getLabels().all();
+            body = out -> exportService.writeNdjsonRows(rows, out);
+        } else {
+            body = out -> exportService.writeNdjson(labelRepository::streamAll, out);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/summary")
+    public CursorPage<LabelSummary> getLabelSummaries(@RequestParam(required = false) String after,
+                                                    @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        if (snapshots.isServing()) {
+            List<LabelSummary> rows = snapshots.current().getLabels().after(CursorPage.decodeCursor(after), pageSize + 1)
+                    .stream()
+                    .map(label -> new LabelSummary(label.getLabelId(), label.getName()))
+                    .collect(Collectors.toList());
+            return CursorPage.of(rows, pageSize, LabelSummary::getLabelId);
+        }
+        List<LabelSummary> rows = labelRepository.findSummariesAfter(
+                CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, LabelSummary::getLabelId);
+    }
+
+    @GetMapping("/suggest")
+    public List<Suggestion> suggestLabels(@RequestParam String prefix,
+                                          @RequestParam(defaultValue = "10") int limit) {
+        return suggestService.suggestLabels(prefix, CursorPage.checkLimit(limit));
+    }
+
     @GetMapping("/{id}")
-    public Label getLabelById(@PathVariable Integer id) {
-        Optional<Label> returnVal = labelRepository.findById(id);
+    public Label getLabelById(@PathVariable Integer id, WebRequest request) {
+        Optional<Label> returnVal;
+        if (snapshots.isServing()) {
+            returnVal = snapshots.current().getLabels().get(id);
+        } else {
+            if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                Optional<Integer> version = labelRepository.findVersionById(id);
+                if (version.isPresent() && request.checkNotModified(ETags.forEntity(version.get()))) return null;
+            }
+            returnVal = labelRepository.findById(id);
+        }
         if (returnVal.isPresent()) {
+            if (request.checkNotModified(ETags.forEntity(returnVal.get().getVersion()))) return null;
             return returnVal.get();
         } else {
             throw new IllegalArgumentException("No label was found with Id: " + id);
@@ -36,14 +144,23 @@ public class LabelController {
 
     @PostMapping()
     @ResponseStatus(HttpStatus.CREATED)
+    // the write and its summary table updates (CatalogStatsService) commit together
+    @Transactional
     public Label addLabel(@RequestBody @Valid Label label) {
         if (label==null) throw new IllegalArgumentException("No Label data is added! Label object is null!");
-        return labelRepository.save(label);
+        Label saved = labelRepository.save(label);
+        statsService.labelSaved(saved);
+        outbox.saved(CatalogOutbox.LABEL, saved.getLabelId());
+        snapshots.labelSaved(saved);
+        suggestService.labelsChanged();
+        return saved;
     }
 
     @PutMapping()
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void updateLabel(@RequestBody @Valid Label label) {
+    @Transactional
+    public void updateLabel(@RequestBody @Valid Label label,
+                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         // validate incoming Label data
         if (label==null)
             throw new IllegalArgumentException("No Label data is passed! Label object is null!");
@@ -52,17 +169,67 @@ public class LabelController {
         if (label.getLabelId()==null)
             throw new IllegalArgumentException("No such label to update.");
 
-        labelRepository.save(label);
+        // conditional update, see AlbumController.updateAlbum
+        Integer expected = ETags.ifMatchVersion(ifMatch);
+        if (expected != null) label.setVersion(expected);
+        if (label.getVersion()==null)
+            labelRepository.findVersionById(label.getLabelId()).ifPresent(label::setVersion);
+
+        if (labelRepository.updateIfVersion(label) == 0)
+            throw ETags.notWritten("label", label.getLabelId(), labelRepository.findVersionById(label.getLabelId()), ifMatch != null);
+        label.setVersion(label.getVersion() + 1);
+        statsService.labelSaved(label);
+        outbox.saved(CatalogOutbox.LABEL, label.getLabelId());
+        listingProjector.labelChanged(label.getLabelId());
+        snapshots.labelSaved(label);
+        suggestService.labelsChanged();
+    }
+
+    // JSON Merge Patch, see AlbumController.patchAlbum
+    @PatchMapping(path = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    @Transactional
+    public Label patchLabel(@PathVariable Integer id, @RequestBody JsonNode patch,
+                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Label stored = labelRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("No label was found with Id: " + id));
+        MergePatch.checkIfMatch(ifMatch, "label", stored.getVersion());
+        Label label = MergePatch.apply(mapper, stored, patch, "labelId", validator);
+        if (MergePatch.isNoOp(mapper, stored, label)) return stored;
+
+        Label saved = labelRepository.saveAndFlush(label);
+        statsService.labelSaved(saved);
+        outbox.saved(CatalogOutbox.LABEL, saved.getLabelId());
+        listingProjector.labelChanged(id);
+        snapshots.labelSaved(saved);
+        suggestService.labelsChanged();
+        return saved;
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteLabel(@PathVariable Integer id) {
-        Optional<Label> label = labelRepository.findById(id);
-        if(label.isPresent()) {
-            labelRepository.deleteById(id);
-        } else {
-            throw new IllegalArgumentException("No label was found with Id: " + id);
-        }
+    @Transactional
+    public void deleteLabel(@PathVariable Integer id,
+                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // conditional delete, see AlbumController.deleteAlbum
+        if (labelRepository.deleteIfVersion(id, ETags.ifMatchVersion(ifMatch)) == 0)
+            throw ETags.notWritten("label", id, labelRepository.findVersionById(id), true);
+        statsService.labelDeleted(id);
+        outbox.deleted(CatalogOutbox.LABEL, id);
+        snapshots.labelDeleted(id);
+        suggestService.labelsChanged();
+    }
+
+    // purges the label with all its albums and their tracks, see CatalogPurgeService. Each chunk of albums
+    // commits on its own, so If-Match is checked before the first one; a failed purge can be repeated.
+    @DeleteMapping(path = "/{id}", params = "cascade=true")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void purgeLabel(@PathVariable Integer id,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Integer expected = ETags.ifMatchVersion(ifMatch);
+        Optional<Integer> stored = labelRepository.findVersionById(id);
+        if (!stored.isPresent() || (expected != null && !expected.equals(stored.get())))
+            throw ETags.notWritten("label", id, stored, true);
+        if (purgeService.purgeLabel(id, expected) == 0)
+            throw ETags.notWritten("label", id, labelRepository.findVersionById(id), true);
     }
 }
@@ -0,0 +1,68 @@
+package com.company.musicstorecatalog.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+// JSON Merge Patch (RFC 7386) for the PATCH endpoints: a member set to null clears the field, a
+// missing member leaves it as stored. The id always stays the one in the path; a version in the
+// patch is checked like the one sent with PUT.
+final class MergePatch {
+    static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    // numbers compare by value, so a price sent as 9.9 matches a stored 9.90
+    private static final Comparator<JsonNode> SAME_VALUE = (a, b) ->
+            a.isNumber() && b.isNumber() ? a.decimalValue().compareTo(b.decimalValue()) : (a.equals(b) ? 0 : 1);
+
+    private MergePatch() {}
+
+    @SuppressWarnings("unchecked")
+    static <T> T apply(ObjectMapper mapper, T stored, JsonNode patch, String idField, Validator validator) {
+        if (patch == null || !patch.isObject()) throw new IllegalArgumentException("A merge patch must be a JSON object!");
+        ObjectNode merged = mapper.valueToTree(stored);
+        JsonNode id = merged.get(idField);
+        merge(merged, (ObjectNode) patch);
+        merged.set(idField, id);
+        T patched = (T) mapper.convertValue(merged, stored.getClass());
+        Set<ConstraintViolation<T>> violations = validator.validate(patched);
+        if (!violations.isEmpty()) throw new ConstraintViolationException(violations);
+        return patched;
+    }
+
+    // an If-Match on PATCH is checked against the loaded row, before the patch is applied
+    static void checkIfMatch(String ifMatch, String kind, Integer storedVersion) {
+        Integer expected = ETags.ifMatchVersion(ifMatch);
+        if (expected != null && !expected.equals(storedVersion))
+            throw new PreconditionFailedException("The " + kind + " is now at " + ETags.forEntity(storedVersion) + ".");
+    }
+
+    // true when the patch left every field as stored, so there is nothing to write
+    static boolean isNoOp(ObjectMapper mapper, Object stored, Object patched) {
+        JsonNode before = mapper.valueToTree(stored);
+        return before.equals(SAME_VALUE, mapper.valueToTree(patched));
+    }
+
+    private static void merge(ObjectNode target, ObjectNode patch) {
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            JsonNode current = target.get(field.getKey());
+            if (value.isNull()) {
+                target.remove(field.getKey());
+            } else if (value.isObject() && current != null && current.isObject()) {
+                merge((ObjectNode) current, (ObjectNode) value);
+            } else {
+                target.set(field.getKey(), value);
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.company.musicstorecatalog.controller;
+
+// An If-Match header that does not name the stored version of the record (412).
+class PreconditionFailedException extends RuntimeException {
+    PreconditionFailedException(String message) {
+        super(message);
+    }
+}
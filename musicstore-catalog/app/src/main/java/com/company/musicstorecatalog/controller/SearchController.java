@@ -0,0 +1,25 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.SearchHit;
+import com.company.musicstorecatalog.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/search")
+public class SearchController {
+    @Autowired
+    SearchService searchService;
+
+    @GetMapping()
+    public List<SearchHit> search(@RequestParam String q,
+                                  @RequestParam(defaultValue = "20") int limit) {
+        int size = CursorPage.checkLimit(limit);
+        if (q.trim().isEmpty())
+            throw new IllegalArgumentException("Search query is empty!");
+        return searchService.search(q, size);
+    }
+}
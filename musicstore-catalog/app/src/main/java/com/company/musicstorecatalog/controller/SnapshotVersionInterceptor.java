@@ -0,0 +1,30 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.service.CatalogSnapshot;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// In snapshot read mode, pins one catalog snapshot to each GET and reports its version, so a
+// client can tell which state of the catalog a response (or a page of a walk) was built from.
+public class SnapshotVersionInterceptor implements HandlerInterceptor {
+    private final CatalogSnapshotService snapshots;
+
+    public SnapshotVersionInterceptor(CatalogSnapshotService snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if ("GET".equals(request.getMethod()) && snapshots.isServing()) {
+            CatalogSnapshot snapshot = snapshots.pin(RequestContextHolder.currentRequestAttributes());
+            if (snapshot != null) {
+                response.setHeader(CatalogSnapshotService.VERSION_HEADER, String.valueOf(snapshot.getVersion()));
+            }
+        }
+        return true;
+    }
+}
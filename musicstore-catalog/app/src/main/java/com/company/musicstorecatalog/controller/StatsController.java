@@ -0,0 +1,82 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.model.AlbumStats;
+import com.company.musicstorecatalog.model.ArtistStats;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.LabelStats;
+import com.company.musicstorecatalog.repository.AlbumStatsRepository;
+import com.company.musicstorecatalog.repository.ArtistStatsRepository;
+import com.company.musicstorecatalog.repository.LabelStatsRepository;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Catalog reports, read straight from the summary tables kept by CatalogStatsService.
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+    @Autowired
+    ArtistStatsRepository artistStatsRepository;
+    @Autowired
+    LabelStatsRepository labelStatsRepository;
+    @Autowired
+    AlbumStatsRepository albumStatsRepository;
+    @Autowired
+    CatalogStatsService statsService;
+
+    @GetMapping("/artists")
+    public CursorPage<ArtistStats> getArtistStats(@RequestParam(required = false) String after,
+                                                  @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        List<ArtistStats> rows = artistStatsRepository.findByArtistIdGreaterThanOrderByArtistIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, ArtistStats::getArtistId);
+    }
+
+    @GetMapping("/artists/{id}")
+    public ArtistStats getArtistStatsById(@PathVariable Integer id) {
+        return artistStatsRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("No artist was found with Id: " + id));
+    }
+
+    @GetMapping("/labels")
+    public CursorPage<LabelStats> getLabelStats(@RequestParam(required = false) String after,
+                                                @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        List<LabelStats> rows = labelStatsRepository.findByLabelIdGreaterThanOrderByLabelIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, LabelStats::getLabelId);
+    }
+
+    @GetMapping("/labels/{id}")
+    public LabelStats getLabelStatsById(@PathVariable Integer id) {
+        return labelStatsRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("No label was found with Id: " + id));
+    }
+
+    @GetMapping("/albums")
+    public CursorPage<AlbumStats> getAlbumStats(@RequestParam(required = false) String after,
+                                                @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        List<AlbumStats> rows = albumStatsRepository.findByAlbumIdGreaterThanOrderByAlbumIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, AlbumStats::getAlbumId);
+    }
+
+    @GetMapping("/albums/{id}")
+    public AlbumStats getAlbumStatsById(@PathVariable Integer id) {
+        return albumStatsRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("No album was found with Id: " + id));
+    }
+
+    // full recompute from the base tables, for repairing drift
+    @PostMapping("/rebuild")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void rebuildStats() {
+        statsService.rebuild();
+    }
+}
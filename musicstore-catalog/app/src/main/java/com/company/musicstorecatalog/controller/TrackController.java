@@ -1,33 +1,147 @@
 package com.company.musicstorecatalog.controller;
 
+import com.company.musicstorecatalog.model.BatchResult;
+import com.company.musicstorecatalog.model.CursorPage;
 import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.model.TrackFilter;
+import com.company.musicstorecatalog.model.TrackSummary;
+import com.company.musicstorecatalog.model.WriteTicket;
 import com.company.musicstorecatalog.repository.TrackRepository;
+import com.company.musicstorecatalog.repository.TableWritesRepository;
+import com.company.musicstorecatalog.repository.TrackSpecifications;
+import com.company.musicstorecatalog.service.AlbumListingProjector;
+import com.company.musicstorecatalog.service.BatchWriteService;
+import com.company.musicstorecatalog.service.CatalogOutbox;
+import com.company.musicstorecatalog.service.CatalogSnapshot;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.NdjsonExportService;
+import com.company.musicstorecatalog.service.SearchService;
+import com.company.musicstorecatalog.service.WriteBehindService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.net.URI;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/track")
 public class TrackController {
     @Autowired
     TrackRepository trackRepository;
+    @Autowired
+    TableWritesRepository tableWritesRepository;
+    @Autowired
+    NdjsonExportService exportService;
+    @Autowired
+    CatalogSnapshotService snapshots;
+    @Autowired
+    CatalogStatsService statsService;
+    @Autowired
+    AlbumListingProjector listingProjector;
+    @Autowired
+    SearchService searchService;
+    @Autowired
+    BatchWriteService batchWriteService;
+    @Autowired
+    WriteBehindService writeBehind;
+    @Autowired
+    CatalogOutbox outbox;
+    @Autowired
+    ObjectMapper mapper;
+    @Autowired
+    Validator validator;
 
     @GetMapping()
-    public List<Track> getTracks() {
-        List<Track> trackList = trackRepository.findAll();
+    public List<Track> getTracks(WebRequest request, TrackFilter filter) {
+        if (!filter.isEmpty()) {
+            TrackSpecifications.check(filter, false);
+            // filtered lists always come from MySQL, through the indexes listed in TrackSpecifications
+            if (request.checkNotModified(ETags.forTable(tableWritesRepository.findWrites(CatalogOutbox.TRACK)))) return null;
+            return trackRepository.findFiltered(filter);
+        }
+        List<Track> trackList;
+        if (snapshots.isServing()) {
+            CatalogSnapshot snapshot = snapshots.current();
+            if (request.checkNotModified(ETags.forSnapshot(snapshot.getVersion()))) return null;
+            trackList = snapshot.getTracks().all();
+        } else {
+            if (request.checkNotModified(ETags.forTable(tableWritesRepository.findWrites(CatalogOutbox.TRACK)))) return null;
+            trackList = trackRepository.findAll();
+        }
         if (trackList.isEmpty() || trackList == null) {
             throw new IllegalArgumentException("Tracks data is empty!");
         }
         return trackList; }
 
+    @GetMapping(params = "limit")
+    public CursorPage<Track> getTrackPage(@RequestParam(required = false) String after,
+                                           @RequestParam int limit,
+                                           TrackFilter filter) {
+        int pageSize = CursorPage.checkLimit(limit);
+        if (!filter.isEmpty()) {
+            TrackSpecifications.check(filter, after);
+            List<Track> rows = trackRepository.findFilteredAfter(filter, after, pageSize + 1);
+            return CursorPage.withCursors(rows, pageSize, TrackSpecifications.cursorOf(filter));
+        }
+        if (snapshots.isServing()) {
+            List<Track> rows = snapshots.current().getTracks().after(CursorPage.decodeCursor(after), pageSize + 1);
+            return CursorPage.of(rows, pageSize, Track::getTrackId);
+        }
+        List<Track> rows = trackRepository.findByTrackIdGreaterThanOrderByTrackIdAsc(
+                CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, Track::getTrackId);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTracks() {
+        StreamingResponseBody body;
+        if (snapshots.isServing()) {
+            List<Track> rows = snapshots.current().getTracks().all();
+            body = out -> exportService.writeNdjsonRows(rows, out);
+        } else {
+            body = out -> exportService.writeNdjson(trackRepository::streamAll, out);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/summary")
+    public CursorPage<TrackSummary> getTrackSummaries(@RequestParam(required = false) String after,
+                                                    @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        if (snapshots.isServing()) {
+            List<TrackSummary> rows = snapshots.current().getTracks().after(CursorPage.decodeCursor(after), pageSize + 1)
+                    .stream()
+                    .map(track -> new TrackSummary(track.getTrackId(), track.getAlbumId(), track.getTitle()))
+                    .collect(Collectors.toList());
+            return CursorPage.of(rows, pageSize, TrackSummary::getTrackId);
+        }
+        List<TrackSummary> rows = trackRepository.findSummariesAfter(
+                CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, TrackSummary::getTrackId);
+    }
+
     @GetMapping("/{id}")
-    public Track getTrackById(@PathVariable Integer id) {
-        Optional<Track> returnVal = trackRepository.findById(id);
+    public Track getTrackById(@PathVariable Integer id, WebRequest request) {
+        Optional<Track> returnVal = snapshots.isServing()
+                ? snapshots.current().getTracks().get(id)
+                : trackRepository.findById(id);
         if (returnVal.isPresent()) {
+            if (request.checkNotModified(ETags.forEntity(returnVal.get().getVersion()))) return null;
             return returnVal.get();
         } else {
             throw new IllegalArgumentException("No track was found with Id: " + id);
@@ -36,14 +150,32 @@ public class TrackController {
 
     @PostMapping()
     @ResponseStatus(HttpStatus.CREATED)
+    // the write and its summary table updates (CatalogStatsService) commit together
+    @Transactional
     public Track addTrack(@RequestBody @Valid Track track) {
         if (track==null) throw new IllegalArgumentException("No Track data is added! Track object is null!");
-        return trackRepository.save(track);
+        statsService.trackChanging(track.getTrackId());
+        Track saved = trackRepository.save(track);
+        statsService.trackSaved(saved);
+        outbox.saved(CatalogOutbox.TRACK, saved.getTrackId());
+        listingProjector.albumChanged(track.getAlbumId());
+        snapshots.trackSaved(saved);
+        searchService.trackSaved(saved);
+        return saved;
+    }
+
+    // queued for a group commit instead, see WriteBehindService; poll the handle for the new id
+    @PostMapping(params = "async=true")
+    public ResponseEntity<WriteTicket> queueTrack(@RequestBody @Valid Track track) {
+        WriteTicket ticket = writeBehind.submit(track);
+        return ResponseEntity.accepted().location(URI.create("/writes/" + ticket.getHandle())).body(ticket);
     }
 
     @PutMapping()
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void updateTrack(@RequestBody @Valid Track track) {
+    @Transactional
+    public void updateTrack(@RequestBody @Valid Track track,
+                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         // validate incoming Track data
         if (track==null)
             throw new IllegalArgumentException("No Track data is passed! Track object is null!");
@@ -52,15 +184,73 @@ public class TrackController {
         if (track.getTrackId()==null)
             throw new IllegalArgumentException("No such track to update.");
 
-        trackRepository.save(track);
+        // conditional update, see AlbumController.updateAlbum
+        Integer expected = ETags.ifMatchVersion(ifMatch);
+        if (expected != null) track.setVersion(expected);
+        if (track.getVersion()==null)
+            trackRepository.findVersionById(track.getTrackId()).ifPresent(track::setVersion);
+
+        statsService.trackChanging(track.getTrackId());
+        listingProjector.trackChanging(track.getTrackId());
+        if (trackRepository.updateIfVersion(track) == 0)
+            throw ETags.notWritten("track", track.getTrackId(), trackRepository.findVersionById(track.getTrackId()), ifMatch != null);
+        track.setVersion(track.getVersion() + 1);
+        statsService.trackSaved(track);
+        outbox.saved(CatalogOutbox.TRACK, track.getTrackId());
+        listingProjector.albumChanged(track.getAlbumId());
+        snapshots.trackSaved(track);
+        searchService.trackSaved(track);
+    }
+
+    // JSON Merge Patch, see AlbumController.patchAlbum
+    @PatchMapping(path = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    @Transactional
+    public Track patchTrack(@PathVariable Integer id, @RequestBody JsonNode patch,
+                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Track stored = trackRepository.findByTrackId(id)
+                .orElseThrow(() -> new IllegalArgumentException("No track was found with Id: " + id));
+        MergePatch.checkIfMatch(ifMatch, "track", stored.getVersion());
+        Track track = MergePatch.apply(mapper, stored, patch, "trackId", validator);
+        if (MergePatch.isNoOp(mapper, stored, track)) return stored;
+
+        statsService.trackChanging(id);
+        listingProjector.trackChanging(id);
+        Track saved = trackRepository.saveAndFlush(track);
+        statsService.trackSaved(saved);
+        outbox.saved(CatalogOutbox.TRACK, saved.getTrackId());
+        listingProjector.albumChanged(track.getAlbumId());
+        snapshots.trackSaved(saved);
+        searchService.trackSaved(saved);
+        return saved;
+    }
+
+    // bulk loads: items are validated one by one, see BatchResult for what was written and what was rejected
+    @PostMapping("/batch")
+    public BatchResult addTracks(@RequestBody List<Track> tracks) {
+        return batchWriteService.addTracks(tracks);
+    }
+
+    @PutMapping("/batch")
+    public BatchResult updateTracks(@RequestBody List<Track> tracks) {
+        return batchWriteService.updateTracks(tracks);
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteTrack(@PathVariable Integer id) {
+    @Transactional
+    public void deleteTrack(@PathVariable Integer id,
+                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // the lookup cache knows the album to refresh in the listing; the delete itself is conditional,
+        // see AlbumController.deleteAlbum
         Optional<Track> track = trackRepository.findById(id);
         if(track.isPresent()) {
-            trackRepository.deleteById(id);
+            statsService.trackChanging(id);
+            if (trackRepository.deleteIfVersion(id, ETags.ifMatchVersion(ifMatch)) == 0)
+                throw ETags.notWritten("track", id, trackRepository.findVersionById(id), true);
+            outbox.deleted(CatalogOutbox.TRACK, id);
+            listingProjector.albumChanged(track.get().getAlbumId());
+            snapshots.trackDeleted(id);
+            searchService.trackDeleted(id);
         } else {
             throw new IllegalArgumentException("No track was found with Id: " + id);
         }
@@ -0,0 +1,20 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.model.WriteTicket;
+import com.company.musicstorecatalog.service.WriteBehindService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+// Handles of asynchronous writes (POST /album?async=true, /track?async=true), see WriteBehindService.
+// Finished writes are kept for the last catalog.write-behind.history handles.
+@RestController
+@RequestMapping("/writes")
+public class WriteController {
+    @Autowired
+    WriteBehindService writeBehind;
+
+    @GetMapping("/{handle}")
+    public WriteTicket getWrite(@PathVariable long handle) {
+        return writeBehind.ticket(handle);
+    }
+}
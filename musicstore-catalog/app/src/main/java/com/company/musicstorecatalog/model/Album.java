@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import javax.validation.constraints.Min;
@@ -16,6 +17,8 @@ import java.time.LocalDate;
 import java.util.Objects;
 
 @Entity
+// UPDATEs list only the changed columns (as for Track, Artist and Label), see MergePatch
+@DynamicUpdate
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "album")
 public class Album {
@@ -37,9 +40,22 @@ public class Album {
     private Integer artistId;
     @Column(name = "label_id")
     private Integer labelId;
+    @Version
+    private Integer version;
 
     public Album() {}
 
+    // a detached copy, for holders that outlive the persistence context (lookup cache, write hooks)
+    public Album(Album other) {
+        this.albumId = other.albumId;
+        this.title = other.title;
+        this.listPrice = other.listPrice;
+        this.releaseDate = other.releaseDate;
+        this.artistId = other.artistId;
+        this.labelId = other.labelId;
+        this.version = other.version;
+    }
+
     public Integer getAlbumId() {
         return albumId;
     }
@@ -88,17 +104,25 @@ public class Album {
         this.labelId = labelId;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Album album = (Album) o;
-        return Objects.equals(albumId, album.albumId) && Objects.equals(title, album.title) && Objects.equals(listPrice, album.listPrice) && Objects.equals(releaseDate, album.releaseDate) && Objects.equals(artistId, album.artistId) && Objects.equals(labelId, album.labelId);
+        return Objects.equals(albumId, album.albumId) && Objects.equals(title, album.title) && Objects.equals(listPrice, album.listPrice) && Objects.equals(releaseDate, album.releaseDate) && Objects.equals(artistId, album.artistId) && Objects.equals(labelId, album.labelId) && Objects.equals(version, album.version);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(albumId, title, listPrice, releaseDate, artistId, labelId);
+        return Objects.hash(albumId, title, listPrice, releaseDate, artistId, labelId, version);
     }
 
     @Override
@@ -110,6 +134,7 @@ public class Album {
                 ", releaseDate=" + releaseDate +
                 ", artistId=" + artistId +
                 ", labelId=" + labelId +
+                ", version=" + version +
                 '}';
     }
 }
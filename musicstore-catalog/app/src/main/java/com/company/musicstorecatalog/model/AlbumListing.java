@@ -0,0 +1,118 @@
+package com.company.musicstorecatalog.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// One row of the album_listing read model: an album with its artist and label names and its track
+// count already joined in, written only by AlbumListingProjector (GET /catalog/albums).
+@Entity
+@Immutable
+@Table(name = "album_listing")
+public class AlbumListing {
+    @Id
+    @Column(name = "album_id")
+    private Integer albumId;
+    private String title;
+    @JsonSerialize(using = LocalDateSerializer.class)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    @Column(name = "release_date")
+    private LocalDate releaseDate;
+    @Column(name = "list_price")
+    private BigDecimal listPrice;
+    @Column(name = "artist_id")
+    private Integer artistId;
+    @Column(name = "artist_name")
+    private String artistName;
+    @Column(name = "label_id")
+    private Integer labelId;
+    @Column(name = "label_name")
+    private String labelName;
+    @Column(name = "track_count")
+    private int trackCount;
+
+    public AlbumListing() {}
+
+    public AlbumListing(Integer albumId, String title, LocalDate releaseDate, BigDecimal listPrice, Integer artistId,
+                        String artistName, Integer labelId, String labelName, int trackCount) {
+        this.albumId = albumId;
+        this.title = title;
+        this.releaseDate = releaseDate;
+        this.listPrice = listPrice;
+        this.artistId = artistId;
+        this.artistName = artistName;
+        this.labelId = labelId;
+        this.labelName = labelName;
+        this.trackCount = trackCount;
+    }
+
+    public Integer getAlbumId() {
+        return albumId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDate getReleaseDate() {
+        return releaseDate;
+    }
+
+    public BigDecimal getListPrice() {
+        return listPrice;
+    }
+
+    public Integer getArtistId() {
+        return artistId;
+    }
+
+    public String getArtistName() {
+        return artistName;
+    }
+
+    public Integer getLabelId() {
+        return labelId;
+    }
+
+    public String getLabelName() {
+        return labelName;
+    }
+
+    public int getTrackCount() {
+        return trackCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AlbumListing that = (AlbumListing) o;
+        return trackCount == that.trackCount && Objects.equals(albumId, that.albumId) && Objects.equals(title, that.title) && Objects.equals(releaseDate, that.releaseDate) && Objects.equals(listPrice, that.listPrice) && Objects.equals(artistId, that.artistId) && Objects.equals(artistName, that.artistName) && Objects.equals(labelId, that.labelId) && Objects.equals(labelName, that.labelName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(albumId, title, releaseDate, listPrice, artistId, artistName, labelId, labelName, trackCount);
+    }
+
+    @Override
+    public String toString() {
+        return "AlbumListing{" +
+                "albumId=" + albumId +
+                ", title='" + title + '\'' +
+                ", releaseDate=" + releaseDate +
+                ", listPrice=" + listPrice +
+                ", artistId=" + artistId +
+                ", artistName='" + artistName + '\'' +
+                ", labelId=" + labelId +
+                ", labelName='" + labelName + '\'' +
+                ", trackCount=" + trackCount +
+                '}';
+    }
+}
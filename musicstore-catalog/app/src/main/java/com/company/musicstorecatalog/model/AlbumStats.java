@@ -0,0 +1,67 @@
+package com.company.musicstorecatalog.model;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+import java.util.Objects;
+
+// Running totals for one album's tracks, kept by CatalogStatsService (GET /stats/albums).
+@Entity
+@Immutable
+@Table(name = "album_stats")
+public class AlbumStats {
+    @Id
+    @Column(name = "album_id")
+    private Integer albumId;
+    @Column(name = "track_count")
+    private int trackCount;
+    @Column(name = "total_run_time")
+    private long totalRunTime;
+
+    public AlbumStats() {}
+
+    public AlbumStats(Integer albumId, int trackCount, long totalRunTime) {
+        this.albumId = albumId;
+        this.trackCount = trackCount;
+        this.totalRunTime = totalRunTime;
+    }
+
+    public Integer getAlbumId() {
+        return albumId;
+    }
+
+    public int getTrackCount() {
+        return trackCount;
+    }
+
+    public long getTotalRunTime() {
+        return totalRunTime;
+    }
+
+    public Double getAverageRunTime() {
+        return trackCount == 0 ? null : (double) totalRunTime / trackCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AlbumStats that = (AlbumStats) o;
+        return trackCount == that.trackCount && Objects.equals(albumId, that.albumId) && Objects.equals(totalRunTime, that.totalRunTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(albumId, trackCount, totalRunTime);
+    }
+
+    @Override
+    public String toString() {
+        return "AlbumStats{" +
+                "albumId=" + albumId +
+                ", trackCount=" + trackCount +
+                ", totalRunTime=" + totalRunTime +
+                '}';
+    }
+}
@@ -1,12 +1,18 @@
 package com.company.musicstorecatalog.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
 import java.util.Objects;
 
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "artist")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "artist")
 public class Artist {
@@ -18,9 +24,20 @@ public class Artist {
     private String name;
     private String instagram;
     private String twitter;
+    @Version
+    private Integer version;
 
     public Artist() {}
 
+    // a detached copy, see Album(Album)
+    public Artist(Artist other) {
+        this.artistId = other.artistId;
+        this.name = other.name;
+        this.instagram = other.instagram;
+        this.twitter = other.twitter;
+        this.version = other.version;
+    }
+
     public Integer getArtistId() {
         return artistId;
     }
@@ -53,17 +70,25 @@ public class Artist {
         this.twitter = twitter;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Artist artist = (Artist) o;
-        return Objects.equals(artistId, artist.artistId) && Objects.equals(name, artist.name) && Objects.equals(instagram, artist.instagram) && Objects.equals(twitter, artist.twitter);
+        return Objects.equals(artistId, artist.artistId) && Objects.equals(name, artist.name) && Objects.equals(instagram, artist.instagram) && Objects.equals(twitter, artist.twitter) && Objects.equals(version, artist.version);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(artistId, name, instagram, twitter);
+        return Objects.hash(artistId, name, instagram, twitter, version);
     }
 
     @Override
@@ -73,6 +98,7 @@ public class Artist {
                 ", name='" + name + '\'' +
                 ", instagram='" + instagram + '\'' +
                 ", twitter='" + twitter + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
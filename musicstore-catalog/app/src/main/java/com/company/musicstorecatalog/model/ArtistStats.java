@@ -0,0 +1,68 @@
+package com.company.musicstorecatalog.model;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+// Running totals for one artist's albums, kept by CatalogStatsService (GET /stats/artists).
+@Entity
+@Immutable
+@Table(name = "artist_stats")
+public class ArtistStats {
+    @Id
+    @Column(name = "artist_id")
+    private Integer artistId;
+    @Column(name = "album_count")
+    private int albumCount;
+    @Column(name = "total_list_price")
+    private BigDecimal totalListPrice;
+
+    public ArtistStats() {}
+
+    public ArtistStats(Integer artistId, int albumCount, BigDecimal totalListPrice) {
+        this.artistId = artistId;
+        this.albumCount = albumCount;
+        this.totalListPrice = totalListPrice;
+    }
+
+    public Integer getArtistId() {
+        return artistId;
+    }
+
+    public int getAlbumCount() {
+        return albumCount;
+    }
+
+    public BigDecimal getTotalListPrice() {
+        return totalListPrice;
+    }
+
+    public BigDecimal getAverageListPrice() {
+        return albumCount == 0 ? null : totalListPrice.divide(BigDecimal.valueOf(albumCount), 2, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ArtistStats that = (ArtistStats) o;
+        return albumCount == that.albumCount && Objects.equals(artistId, that.artistId) && Objects.equals(totalListPrice, that.totalListPrice);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(artistId, albumCount, totalListPrice);
+    }
+
+    @Override
+    public String toString() {
+        return "ArtistStats{" +
+                "artistId=" + artistId +
+                ", albumCount=" + albumCount +
+                ", totalListPrice=" + totalListPrice +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+package com.company.musicstorecatalog.model;
+
+import java.util.Objects;
+
+// Read-only list view of an artist, see AlbumSummary.
+public class ArtistSummary {
+    private final Integer artistId;
+    private final String name;
+
+    public ArtistSummary(Integer artistId, String name) {
+        this.artistId = artistId;
+        this.name = name;
+    }
+
+    public Integer getArtistId() {
+        return artistId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ArtistSummary that = (ArtistSummary) o;
+        return Objects.equals(artistId, that.artistId) && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(artistId, name);
+    }
+
+    @Override
+    public String toString() {
+        return "ArtistSummary{" +
+                "artistId=" + artistId +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package com.company.musicstorecatalog.model;
+
+import java.util.List;
+import java.util.Objects;
+
+// Outcome of one item of a batch write: its position in the request, and either the id it was
+// written under or the reasons it was rejected.
+public class BatchItemResult {
+    private int index;
+    private Integer id;
+    private List<String> errors;
+
+    public BatchItemResult() {}
+
+    public BatchItemResult(int index, Integer id, List<String> errors) {
+        this.index = index;
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public static BatchItemResult written(int index, Integer id) {
+        return new BatchItemResult(index, id, null);
+    }
+
+    public static BatchItemResult rejected(int index, Integer id, List<String> errors) {
+        return new BatchItemResult(index, id, errors);
+    }
+
+    public boolean isWritten() {
+        return errors == null || errors.isEmpty();
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchItemResult that = (BatchItemResult) o;
+        return index == that.index && Objects.equals(id, that.id) && Objects.equals(errors, that.errors);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, id, errors);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItemResult{" +
+                "index=" + index +
+                ", id=" + id +
+                ", errors=" + errors +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package com.company.musicstorecatalog.model;
+
+import java.util.List;
+import java.util.Objects;
+
+// Response of POST / PUT /album/batch and /track/batch: one result per request item, in request order.
+public class BatchResult {
+    private int written;
+    private int rejected;
+    private List<BatchItemResult> items;
+
+    public BatchResult() {}
+
+    public BatchResult(List<BatchItemResult> items) {
+        this.items = items;
+        for (BatchItemResult item : items) {
+            if (item.isWritten()) written++;
+            else rejected++;
+        }
+    }
+
+    public int getWritten() {
+        return written;
+    }
+
+    public void setWritten(int written) {
+        this.written = written;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<BatchItemResult> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BatchItemResult> items) {
+        this.items = items;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchResult that = (BatchResult) o;
+        return written == that.written && rejected == that.rejected && Objects.equals(items, that.items);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(written, rejected, items);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "written=" + written +
+                ", rejected=" + rejected +
+                ", items=" + items +
+                '}';
+    }
+}
@@ -0,0 +1,143 @@
+package com.company.musicstorecatalog.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Response of GET /catalog/changes: the rows written and the ids deleted after the requested
+// watermark, grouped by table, and the watermark to send next. more is true while there are further
+// changes past this batch; resync is true when the watermark is older than the kept tombstones, so
+// the client has to drop its copy and sync again without one.
+public class CatalogDelta {
+    private List<Album> albums = new ArrayList<>();
+    private List<Track> tracks = new ArrayList<>();
+    private List<Artist> artists = new ArrayList<>();
+    private List<Label> labels = new ArrayList<>();
+    private List<Integer> deletedAlbumIds = new ArrayList<>();
+    private List<Integer> deletedTrackIds = new ArrayList<>();
+    private List<Integer> deletedArtistIds = new ArrayList<>();
+    private List<Integer> deletedLabelIds = new ArrayList<>();
+    private String watermark;
+    private boolean more;
+    private boolean resync;
+
+    public CatalogDelta() {}
+
+    public List<Album> getAlbums() {
+        return albums;
+    }
+
+    public void setAlbums(List<Album> albums) {
+        this.albums = albums;
+    }
+
+    public List<Track> getTracks() {
+        return tracks;
+    }
+
+    public void setTracks(List<Track> tracks) {
+        this.tracks = tracks;
+    }
+
+    public List<Artist> getArtists() {
+        return artists;
+    }
+
+    public void setArtists(List<Artist> artists) {
+        this.artists = artists;
+    }
+
+    public List<Label> getLabels() {
+        return labels;
+    }
+
+    public void setLabels(List<Label> labels) {
+        this.labels = labels;
+    }
+
+    public List<Integer> getDeletedAlbumIds() {
+        return deletedAlbumIds;
+    }
+
+    public void setDeletedAlbumIds(List<Integer> deletedAlbumIds) {
+        this.deletedAlbumIds = deletedAlbumIds;
+    }
+
+    public List<Integer> getDeletedTrackIds() {
+        return deletedTrackIds;
+    }
+
+    public void setDeletedTrackIds(List<Integer> deletedTrackIds) {
+        this.deletedTrackIds = deletedTrackIds;
+    }
+
+    public List<Integer> getDeletedArtistIds() {
+        return deletedArtistIds;
+    }
+
+    public void setDeletedArtistIds(List<Integer> deletedArtistIds) {
+        this.deletedArtistIds = deletedArtistIds;
+    }
+
+    public List<Integer> getDeletedLabelIds() {
+        return deletedLabelIds;
+    }
+
+    public void setDeletedLabelIds(List<Integer> deletedLabelIds) {
+        this.deletedLabelIds = deletedLabelIds;
+    }
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(String watermark) {
+        this.watermark = watermark;
+    }
+
+    public boolean isMore() {
+        return more;
+    }
+
+    public void setMore(boolean more) {
+        this.more = more;
+    }
+
+    public boolean isResync() {
+        return resync;
+    }
+
+    public void setResync(boolean resync) {
+        this.resync = resync;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CatalogDelta that = (CatalogDelta) o;
+        return more == that.more && resync == that.resync && Objects.equals(albums, that.albums) && Objects.equals(tracks, that.tracks) && Objects.equals(artists, that.artists) && Objects.equals(labels, that.labels) && Objects.equals(deletedAlbumIds, that.deletedAlbumIds) && Objects.equals(deletedTrackIds, that.deletedTrackIds) && Objects.equals(deletedArtistIds, that.deletedArtistIds) && Objects.equals(deletedLabelIds, that.deletedLabelIds) && Objects.equals(watermark, that.watermark);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(albums, tracks, artists, labels, deletedAlbumIds, deletedTrackIds, deletedArtistIds, deletedLabelIds, watermark, more, resync);
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogDelta{" +
+                "albums=" + albums +
+                ", tracks=" + tracks +
+                ", artists=" + artists +
+                ", labels=" + labels +
+                ", deletedAlbumIds=" + deletedAlbumIds +
+                ", deletedTrackIds=" + deletedTrackIds +
+                ", deletedArtistIds=" + deletedArtistIds +
+                ", deletedLabelIds=" + deletedLabelIds +
+                ", watermark='" + watermark + '\'' +
+                ", more=" + more +
+                ", resync=" + resync +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package com.company.musicstorecatalog.model;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// One committed write (GET /changes/stream): an album, track, artist or label that was saved or
+// deleted. Consumers read the entity itself by id; seq orders the events and resumes a stream.
+@Entity
+@Immutable
+@Table(name = "catalog_outbox")
+public class ChangeEvent {
+    @Id
+    private Long seq;
+    private String kind;
+    @Column(name = "entity_id")
+    private Integer entityId;
+    private String action;
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public ChangeEvent() {}
+
+    public ChangeEvent(Long seq, String kind, Integer entityId, String action, LocalDateTime createdAt) {
+        this.seq = seq;
+        this.kind = kind;
+        this.entityId = entityId;
+        this.action = action;
+        this.createdAt = createdAt;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public Integer getEntityId() {
+        return entityId;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ChangeEvent that = (ChangeEvent) o;
+        return Objects.equals(seq, that.seq) && Objects.equals(kind, that.kind) && Objects.equals(entityId, that.entityId) && Objects.equals(action, that.action) && Objects.equals(createdAt, that.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(seq, kind, entityId, action, createdAt);
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "seq=" + seq +
+                ", kind='" + kind + '\'' +
+                ", entityId=" + entityId +
+                ", action='" + action + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -0,0 +1,124 @@
+package com.company.musicstorecatalog.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+// One page of a keyset (seek) listing. nextCursor is an opaque token for the
+// last primary key on the page (or, for a listing sorted on another column, that
+// column's value and the primary key), or null when there are no more rows.
+public class CursorPage<T> {
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String CURSOR_PREFIX = "id:";
+    private static final String KEY_CURSOR_PREFIX = "key:";
+    private static final String KEY_CURSOR_SEPARATOR = "|";
+
+    private List<T> items;
+    private String nextCursor;
+
+    public CursorPage() {}
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // rows is expected to hold up to limit + 1 entries; the extra row only tells us there is a next page.
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Integer> idOf) {
+        return withCursors(rows, limit, row -> encodeCursor(idOf.apply(row)));
+    }
+
+    // the same, with the cursor of the last row made by cursorOf
+    public static <T> CursorPage<T> withCursors(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        return new CursorPage<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+
+    public static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT)
+            throw new InvalidCursorException("Limit is supposed to be between 1 and " + MAX_LIMIT + "!");
+        return limit;
+    }
+
+    public static String encodeCursor(Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // a missing cursor means "start from the beginning"; ids are auto_increment so 0 is below all of them
+    public static int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return 0;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) throw new IllegalArgumentException();
+            return Integer.parseInt(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public static String encodeCursor(Object key, Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((KEY_CURSOR_PREFIX + key + KEY_CURSOR_SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // {key, id} of a cursor made by encodeCursor(key, id), or null for "start from the beginning";
+    // the caller parses the key, and reports a key it cannot parse as an InvalidCursorException too
+    public static String[] decodeKeyCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(KEY_CURSOR_SEPARATOR);
+            if (!decoded.startsWith(KEY_CURSOR_PREFIX) || separator < 0) throw new IllegalArgumentException();
+            String id = decoded.substring(separator + 1);
+            Integer.parseInt(id);
+            return new String[]{decoded.substring(KEY_CURSOR_PREFIX.length(), separator), id};
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CursorPage<?> that = (CursorPage<?>) o;
+        return Objects.equals(items, that.items) && Objects.equals(nextCursor, that.nextCursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(items, nextCursor);
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPage{" +
+                "items=" + items +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
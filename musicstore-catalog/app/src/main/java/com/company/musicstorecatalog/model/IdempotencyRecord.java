@@ -0,0 +1,93 @@
+package com.company.musicstorecatalog.model;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// The shared form of an Idempotency-Key (catalog.idempotency.store=jdbc), written only by
+// IdempotencyService: claimed with a null status while the first request runs, then holding its response.
+@Entity
+@Immutable
+@Table(name = "idempotency_key")
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "idem_key")
+    private String key;
+    private String fingerprint;
+    private Integer status;
+    @Column(name = "content_type")
+    private String contentType;
+    private String location;
+    private String body;
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    public IdempotencyRecord() {}
+
+    public IdempotencyRecord(String key, String fingerprint, Integer status, String contentType, String location,
+                             String body, LocalDateTime expiresAt) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.contentType = contentType;
+        this.location = location;
+        this.body = body;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IdempotencyRecord that = (IdempotencyRecord) o;
+        return Objects.equals(key, that.key) && Objects.equals(fingerprint, that.fingerprint) && Objects.equals(status, that.status) && Objects.equals(contentType, that.contentType) && Objects.equals(location, that.location) && Objects.equals(body, that.body) && Objects.equals(expiresAt, that.expiresAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, fingerprint, status, contentType, location, body, expiresAt);
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+                "key='" + key + '\'' +
+                ", fingerprint='" + fingerprint + '\'' +
+                ", status=" + status +
+                ", contentType='" + contentType + '\'' +
+                ", location='" + location + '\'' +
+                ", body='" + body + '\'' +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
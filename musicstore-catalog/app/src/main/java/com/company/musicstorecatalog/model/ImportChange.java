@@ -0,0 +1,87 @@
+package com.company.musicstorecatalog.model;
+
+import java.util.Objects;
+
+// One row a supplier feed reconciliation inserts, updates or deletes (or would, in a dry run).
+// The id is null for rows not inserted yet.
+public class ImportChange {
+    private String action;
+    private String kind;
+    private Integer id;
+    private Integer albumId;
+    private String title;
+
+    public ImportChange() {}
+
+    public ImportChange(String action, String kind, Integer id, Integer albumId, String title) {
+        this.action = action;
+        this.kind = kind;
+        this.id = id;
+        this.albumId = albumId;
+        this.title = title;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Integer getAlbumId() {
+        return albumId;
+    }
+
+    public void setAlbumId(Integer albumId) {
+        this.albumId = albumId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImportChange that = (ImportChange) o;
+        return Objects.equals(action, that.action) && Objects.equals(kind, that.kind) && Objects.equals(id, that.id) && Objects.equals(albumId, that.albumId) && Objects.equals(title, that.title);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(action, kind, id, albumId, title);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportChange{" +
+                "action='" + action + '\'' +
+                ", kind='" + kind + '\'' +
+                ", id=" + id +
+                ", albumId=" + albumId +
+                ", title='" + title + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,253 @@
+package com.company.musicstorecatalog.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+// Where a catalog import (POST /import) stands: rows read from the file so far, what was written and
+// rejected, and the throughput since it started. errors holds the first rejections, by file line.
+// Reconciliations (mode reconcile or dry-run) also count updated, deleted and unchanged rows and list
+// the first changes; a dry run counts what it would write.
+public class ImportProgress {
+    private long id;
+    private String source;
+    private String mode;
+    private String state;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long rowsRead;
+    private long rowsRejected;
+    private long albumsWritten;
+    private long tracksWritten;
+    private long artistsCreated;
+    private long labelsCreated;
+    private long albumsUpdated;
+    private long albumsDeleted;
+    private long albumsUnchanged;
+    private long tracksUpdated;
+    private long tracksDeleted;
+    private long tracksUnchanged;
+    private double rowsPerSecond;
+    private List<String> errors;
+    private List<ImportChange> changes;
+    private String failure;
+
+    public ImportProgress() {}
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public long getAlbumsWritten() {
+        return albumsWritten;
+    }
+
+    public void setAlbumsWritten(long albumsWritten) {
+        this.albumsWritten = albumsWritten;
+    }
+
+    public long getTracksWritten() {
+        return tracksWritten;
+    }
+
+    public void setTracksWritten(long tracksWritten) {
+        this.tracksWritten = tracksWritten;
+    }
+
+    public long getArtistsCreated() {
+        return artistsCreated;
+    }
+
+    public void setArtistsCreated(long artistsCreated) {
+        this.artistsCreated = artistsCreated;
+    }
+
+    public long getLabelsCreated() {
+        return labelsCreated;
+    }
+
+    public void setLabelsCreated(long labelsCreated) {
+        this.labelsCreated = labelsCreated;
+    }
+
+    public long getAlbumsUpdated() {
+        return albumsUpdated;
+    }
+
+    public void setAlbumsUpdated(long albumsUpdated) {
+        this.albumsUpdated = albumsUpdated;
+    }
+
+    public long getAlbumsDeleted() {
+        return albumsDeleted;
+    }
+
+    public void setAlbumsDeleted(long albumsDeleted) {
+        this.albumsDeleted = albumsDeleted;
+    }
+
+    public long getAlbumsUnchanged() {
+        return albumsUnchanged;
+    }
+
+    public void setAlbumsUnchanged(long albumsUnchanged) {
+        this.albumsUnchanged = albumsUnchanged;
+    }
+
+    public long getTracksUpdated() {
+        return tracksUpdated;
+    }
+
+    public void setTracksUpdated(long tracksUpdated) {
+        this.tracksUpdated = tracksUpdated;
+    }
+
+    public long getTracksDeleted() {
+        return tracksDeleted;
+    }
+
+    public void setTracksDeleted(long tracksDeleted) {
+        this.tracksDeleted = tracksDeleted;
+    }
+
+    public long getTracksUnchanged() {
+        return tracksUnchanged;
+    }
+
+    public void setTracksUnchanged(long tracksUnchanged) {
+        this.tracksUnchanged = tracksUnchanged;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    public List<ImportChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<ImportChange> changes) {
+        this.changes = changes;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public void setFailure(String failure) {
+        this.failure = failure;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImportProgress that = (ImportProgress) o;
+        return id == that.id && rowsRead == that.rowsRead && rowsRejected == that.rowsRejected && albumsWritten == that.albumsWritten && tracksWritten == that.tracksWritten && artistsCreated == that.artistsCreated && labelsCreated == that.labelsCreated && albumsUpdated == that.albumsUpdated && albumsDeleted == that.albumsDeleted && albumsUnchanged == that.albumsUnchanged && tracksUpdated == that.tracksUpdated && tracksDeleted == that.tracksDeleted && tracksUnchanged == that.tracksUnchanged && Double.compare(that.rowsPerSecond, rowsPerSecond) == 0 && Objects.equals(source, that.source) && Objects.equals(mode, that.mode) && Objects.equals(state, that.state) && Objects.equals(startedAt, that.startedAt) && Objects.equals(finishedAt, that.finishedAt) && Objects.equals(errors, that.errors) && Objects.equals(changes, that.changes) && Objects.equals(failure, that.failure);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, source, mode, state, startedAt, finishedAt, rowsRead, rowsRejected, albumsWritten, tracksWritten, artistsCreated, labelsCreated, albumsUpdated, albumsDeleted, albumsUnchanged, tracksUpdated, tracksDeleted, tracksUnchanged, rowsPerSecond, errors, changes, failure);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportProgress{" +
+                "id=" + id +
+                ", source='" + source + '\'' +
+                ", mode='" + mode + '\'' +
+                ", state='" + state + '\'' +
+                ", startedAt=" + startedAt +
+                ", finishedAt=" + finishedAt +
+                ", rowsRead=" + rowsRead +
+                ", rowsRejected=" + rowsRejected +
+                ", albumsWritten=" + albumsWritten +
+                ", tracksWritten=" + tracksWritten +
+                ", artistsCreated=" + artistsCreated +
+                ", labelsCreated=" + labelsCreated +
+                ", albumsUpdated=" + albumsUpdated +
+                ", albumsDeleted=" + albumsDeleted +
+                ", albumsUnchanged=" + albumsUnchanged +
+                ", tracksUpdated=" + tracksUpdated +
+                ", tracksDeleted=" + tracksDeleted +
+                ", tracksUnchanged=" + tracksUnchanged +
+                ", rowsPerSecond=" + rowsPerSecond +
+                ", errors=" + errors +
+                ", changes=" + changes +
+                ", failure='" + failure + '\'' +
+                '}';
+    }
+}
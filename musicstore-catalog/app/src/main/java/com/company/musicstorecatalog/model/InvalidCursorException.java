@@ -0,0 +1,8 @@
+package com.company.musicstorecatalog.model;
+
+// A page cursor (?after=) that CursorPage did not hand out, or a page size (?limit=) it does not allow (400).
+public class InvalidCursorException extends IllegalArgumentException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -1,12 +1,18 @@
 package com.company.musicstorecatalog.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
 import java.util.Objects;
 
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "label")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "label")
 public class Label {
@@ -17,9 +23,19 @@ public class Label {
     @NotEmpty(message = "Label name is required.")
     private String name;
     private String website;
+    @Version
+    private Integer version;
 
     public Label() {}
 
+    // a detached copy, see Album(Album)
+    public Label(Label other) {
+        this.labelId = other.labelId;
+        this.name = other.name;
+        this.website = other.website;
+        this.version = other.version;
+    }
+
     public Integer getLabelId() {
         return labelId;
     }
@@ -44,17 +60,25 @@ public class Label {
         this.website = website;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Label label = (Label) o;
-        return Objects.equals(labelId, label.labelId) && Objects.equals(name, label.name) && Objects.equals(website, label.website);
+        return Objects.equals(labelId, label.labelId) && Objects.equals(name, label.name) && Objects.equals(website, label.website) && Objects.equals(version, label.version);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(labelId, name, website);
+        return Objects.hash(labelId, name, website, version);
     }
 
     @Override
@@ -63,6 +87,7 @@ public class Label {
                 "labelId=" + labelId +
                 ", name='" + name + '\'' +
                 ", website='" + website + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
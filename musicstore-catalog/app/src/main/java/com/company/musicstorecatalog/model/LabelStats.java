@@ -0,0 +1,68 @@
+package com.company.musicstorecatalog.model;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+// Running totals for one label's albums, kept by CatalogStatsService (GET /stats/labels).
+@Entity
+@Immutable
+@Table(name = "label_stats")
+public class LabelStats {
+    @Id
+    @Column(name = "label_id")
+    private Integer labelId;
+    @Column(name = "album_count")
+    private int albumCount;
+    @Column(name = "total_list_price")
+    private BigDecimal totalListPrice;
+
+    public LabelStats() {}
+
+    public LabelStats(Integer labelId, int albumCount, BigDecimal totalListPrice) {
+        this.labelId = labelId;
+        this.albumCount = albumCount;
+        this.totalListPrice = totalListPrice;
+    }
+
+    public Integer getLabelId() {
+        return labelId;
+    }
+
+    public int getAlbumCount() {
+        return albumCount;
+    }
+
+    public BigDecimal getTotalListPrice() {
+        return totalListPrice;
+    }
+
+    public BigDecimal getAverageListPrice() {
+        return albumCount == 0 ? null : totalListPrice.divide(BigDecimal.valueOf(albumCount), 2, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LabelStats that = (LabelStats) o;
+        return albumCount == that.albumCount && Objects.equals(labelId, that.labelId) && Objects.equals(totalListPrice, that.totalListPrice);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(labelId, albumCount, totalListPrice);
+    }
+
+    @Override
+    public String toString() {
+        return "LabelStats{" +
+                "labelId=" + labelId +
+                ", albumCount=" + albumCount +
+                ", totalListPrice=" + totalListPrice +
+                '}';
+    }
+}
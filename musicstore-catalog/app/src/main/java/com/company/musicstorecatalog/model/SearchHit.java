@@ -0,0 +1,58 @@
+package com.company.musicstorecatalog.model;
+
+import java.util.Objects;
+
+// One ranked /search result: what kind of row matched (album, track or artist), its id,
+// the matched title (or artist name) and its relevance score, higher is better.
+public class SearchHit {
+    private final String type;
+    private final Integer id;
+    private final String title;
+    private final double score;
+
+    public SearchHit(String type, Integer id, String title, double score) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.score = score;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SearchHit that = (SearchHit) o;
+        return Double.compare(that.score, score) == 0 && Objects.equals(type, that.type) && Objects.equals(id, that.id) && Objects.equals(title, that.title);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, id, title, score);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchHit{" +
+                "type='" + type + '\'' +
+                ", id=" + id +
+                ", title='" + title + '\'' +
+                ", score=" + score +
+                '}';
+    }
+}
@@ -0,0 +1,51 @@
+package com.company.musicstorecatalog.model;
+
+import java.util.Objects;
+
+// One autocomplete entry for /artist/suggest and /label/suggest. The weight is what the
+// suggestions are ordered by: the number of albums in the catalog for that artist or label.
+public class Suggestion {
+    private final Integer id;
+    private final String name;
+    private final long weight;
+
+    public Suggestion(Integer id, String name, long weight) {
+        this.id = id;
+        this.name = name;
+        this.weight = weight;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Suggestion that = (Suggestion) o;
+        return weight == that.weight && Objects.equals(id, that.id) && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, weight);
+    }
+
+    @Override
+    public String toString() {
+        return "Suggestion{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", weight=" + weight +
+                '}';
+    }
+}
@@ -0,0 +1,51 @@
+package com.company.musicstorecatalog.model;
+
+import java.util.Objects;
+
+// Aggregate fingerprint of a whole table: row count, max id and version sum. Needs a full
+// scan, so it only serves rebuilds; collection ETags read the TableWrites counter instead.
+public class TableVersion {
+    private final Long rowCount;
+    private final Integer maxId;
+    private final Long versionSum;
+
+    public TableVersion(Long rowCount, Integer maxId, Long versionSum) {
+        this.rowCount = rowCount;
+        this.maxId = maxId;
+        this.versionSum = versionSum;
+    }
+
+    public Long getRowCount() {
+        return rowCount;
+    }
+
+    public Integer getMaxId() {
+        return maxId;
+    }
+
+    public Long getVersionSum() {
+        return versionSum;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TableVersion that = (TableVersion) o;
+        return Objects.equals(rowCount, that.rowCount) && Objects.equals(maxId, that.maxId) && Objects.equals(versionSum, that.versionSum);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rowCount, maxId, versionSum);
+    }
+
+    @Override
+    public String toString() {
+        return "TableVersion{" +
+                "rowCount=" + rowCount +
+                ", maxId=" + maxId +
+                ", versionSum=" + versionSum +
+                '}';
+    }
+}
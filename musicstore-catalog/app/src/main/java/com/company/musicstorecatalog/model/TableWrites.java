@@ -0,0 +1,93 @@
+package com.company.musicstorecatalog.model;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+// One slot of the write counter of album, track, artist or label: CatalogOutbox adds one to a random slot
+// with every write, so the sum over a table's slots changes exactly when the table does. The whole-table
+// ETags are built from that sum (see TableWritesRepository), which costs a few primary key reads instead of
+// a scan of the table. Writers only wait for each other when they pick the same slot.
+@Entity
+@Immutable
+@IdClass(TableWrites.Key.class)
+@Table(name = "catalog_table_writes")
+public class TableWrites {
+    public static final int SLOTS = 16;
+
+    @Id
+    @Column(name = "table_name")
+    private String tableName;
+    @Id
+    private Integer slot;
+    private Long writes;
+
+    public TableWrites() {}
+
+    public TableWrites(String tableName, Integer slot, Long writes) {
+        this.tableName = tableName;
+        this.slot = slot;
+        this.writes = writes;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Integer getSlot() {
+        return slot;
+    }
+
+    public Long getWrites() {
+        return writes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TableWrites that = (TableWrites) o;
+        return Objects.equals(tableName, that.tableName) && Objects.equals(slot, that.slot) && Objects.equals(writes, that.writes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tableName, slot, writes);
+    }
+
+    @Override
+    public String toString() {
+        return "TableWrites{" +
+                "tableName='" + tableName + '\'' +
+                ", slot=" + slot +
+                ", writes=" + writes +
+                '}';
+    }
+
+    public static class Key implements Serializable {
+        private String tableName;
+        private Integer slot;
+
+        public Key() {}
+
+        public Key(String tableName, Integer slot) {
+            this.tableName = tableName;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(tableName, key.tableName) && Objects.equals(slot, key.slot);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tableName, slot);
+        }
+    }
+}
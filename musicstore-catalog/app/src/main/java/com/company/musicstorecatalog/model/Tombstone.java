@@ -0,0 +1,91 @@
+package com.company.musicstorecatalog.model;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// A deleted album, track, artist or label, kept for GET /catalog/changes so that a client syncing
+// from before the delete learns about it (see CatalogSyncService).
+@Entity
+@Immutable
+@IdClass(Tombstone.Key.class)
+@Table(name = "catalog_tombstone")
+public class Tombstone {
+    @Id
+    private String kind;
+    @Id
+    @Column(name = "entity_id")
+    private Integer entityId;
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    public Tombstone() {}
+
+    public Tombstone(String kind, Integer entityId, LocalDateTime deletedAt) {
+        this.kind = kind;
+        this.entityId = entityId;
+        this.deletedAt = deletedAt;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public Integer getEntityId() {
+        return entityId;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Tombstone tombstone = (Tombstone) o;
+        return Objects.equals(kind, tombstone.kind) && Objects.equals(entityId, tombstone.entityId) && Objects.equals(deletedAt, tombstone.deletedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, entityId, deletedAt);
+    }
+
+    @Override
+    public String toString() {
+        return "Tombstone{" +
+                "kind='" + kind + '\'' +
+                ", entityId=" + entityId +
+                ", deletedAt=" + deletedAt +
+                '}';
+    }
+
+    public static class Key implements Serializable {
+        private String kind;
+        private Integer entityId;
+
+        public Key() {}
+
+        public Key(String kind, Integer entityId) {
+            this.kind = kind;
+            this.entityId = entityId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(kind, key.kind) && Objects.equals(entityId, key.entityId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, entityId);
+        }
+    }
+}
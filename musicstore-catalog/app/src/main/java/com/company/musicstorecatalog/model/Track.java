@@ -1,6 +1,7 @@
 package com.company.musicstorecatalog.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import javax.validation.constraints.Min;
@@ -9,6 +10,7 @@ import javax.validation.constraints.NotNull;
 import java.util.Objects;
 
 @Entity
+@DynamicUpdate
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "track")
 public class Track {
@@ -25,9 +27,20 @@ public class Track {
     @Column(name = "album_id")
     @NotNull(message = "Album ID is required.")
     private Integer albumId;
+    @Version
+    private Integer version;
 
     public Track() {}
 
+    // a detached copy, see Album(Album)
+    public Track(Track other) {
+        this.trackId = other.trackId;
+        this.title = other.title;
+        this.runTime = other.runTime;
+        this.albumId = other.albumId;
+        this.version = other.version;
+    }
+
     public Integer getTrackId() {
         return trackId;
     }
@@ -60,17 +73,25 @@ public class Track {
         this.albumId = albumId;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Track track = (Track) o;
-        return Objects.equals(trackId, track.trackId) && Objects.equals(title, track.title) && Objects.equals(runTime, track.runTime) && Objects.equals(albumId, track.albumId);
+        return Objects.equals(trackId, track.trackId) && Objects.equals(title, track.title) && Objects.equals(runTime, track.runTime) && Objects.equals(albumId, track.albumId) && Objects.equals(version, track.version);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(trackId, title, runTime, albumId);
+        return Objects.hash(trackId, title, runTime, albumId, version);
     }
 
     @Override
@@ -80,6 +101,7 @@ public class Track {
                 ", title='" + title + '\'' +
                 ", runTime=" + runTime +
                 ", albumId=" + albumId +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,50 @@
+package com.company.musicstorecatalog.model;
+
+import java.util.Objects;
+
+// Read-only list view of a track, see AlbumSummary.
+public class TrackSummary {
+    private final Integer trackId;
+    private final Integer albumId;
+    private final String title;
+
+    public TrackSummary(Integer trackId, Integer albumId, String title) {
+        this.trackId = trackId;
+        this.albumId = albumId;
+        this.title = title;
+    }
+
+    public Integer getTrackId() {
+        return trackId;
+    }
+
+    public Integer getAlbumId() {
+        return albumId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TrackSummary that = (TrackSummary) o;
+        return Objects.equals(trackId, that.trackId) && Objects.equals(albumId, that.albumId) && Objects.equals(title, that.title);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(trackId, albumId, title);
+    }
+
+    @Override
+    public String toString() {
+        return "TrackSummary{" +
+                "trackId=" + trackId +
+                ", albumId=" + albumId +
+                ", title='" + title + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,112 @@
+package com.company.musicstorecatalog.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+// Where an asynchronous POST /album?async=true or /track?async=true stands (GET /writes/{handle}):
+// QUEUED until its group is committed, then WRITTEN with the new id or REJECTED with the reasons.
+public class WriteTicket {
+    private long handle;
+    private String kind;
+    private String state;
+    private LocalDateTime acceptedAt;
+    private LocalDateTime committedAt;
+    private Integer id;
+    private List<String> errors;
+
+    public WriteTicket() {}
+
+    public WriteTicket(long handle, String kind, String state, LocalDateTime acceptedAt, LocalDateTime committedAt,
+                       Integer id, List<String> errors) {
+        this.handle = handle;
+        this.kind = kind;
+        this.state = state;
+        this.acceptedAt = acceptedAt;
+        this.committedAt = committedAt;
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public long getHandle() {
+        return handle;
+    }
+
+    public void setHandle(long handle) {
+        this.handle = handle;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public LocalDateTime getAcceptedAt() {
+        return acceptedAt;
+    }
+
+    public void setAcceptedAt(LocalDateTime acceptedAt) {
+        this.acceptedAt = acceptedAt;
+    }
+
+    public LocalDateTime getCommittedAt() {
+        return committedAt;
+    }
+
+    public void setCommittedAt(LocalDateTime committedAt) {
+        this.committedAt = committedAt;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WriteTicket that = (WriteTicket) o;
+        return handle == that.handle && Objects.equals(kind, that.kind) && Objects.equals(state, that.state) && Objects.equals(acceptedAt, that.acceptedAt) && Objects.equals(committedAt, that.committedAt) && Objects.equals(id, that.id) && Objects.equals(errors, that.errors);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(handle, kind, state, acceptedAt, committedAt, id, errors);
+    }
+
+    @Override
+    public String toString() {
+        return "WriteTicket{" +
+                "handle=" + handle +
+                ", kind='" + kind + '\'' +
+                ", state='" + state + '\'' +
+                ", acceptedAt=" + acceptedAt +
+                ", committedAt=" + committedAt +
+                ", id=" + id +
+                ", errors=" + errors +
+                '}';
+    }
+}
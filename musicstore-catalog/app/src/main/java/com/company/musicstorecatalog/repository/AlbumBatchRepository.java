@@ -0,0 +1,12 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+
+import java.util.List;
+
+// JDBC batch writes of AlbumRepository, see JdbcBatches and TrackBatchRepository
+public interface AlbumBatchRepository {
+    void insertBatch(List<Album> albums);
+
+    int[] updateBatch(List<Album> albums);
+}
@@ -0,0 +1,45 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.List;
+
+public class AlbumBatchRepositoryImpl implements AlbumBatchRepository {
+    private static final String INSERT = "insert into album (title, artist_id, release_date, label_id, list_price, version) " +
+            "values (?, ?, ?, ?, ?, 0)";
+    private static final String UPDATE = "update album set title = ?, artist_id = ?, release_date = ?, label_id = ?, " +
+            "list_price = ?, version = version + 1 where album_id = ? and version = coalesce(?, version)";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertBatch(List<Album> albums) {
+        JdbcBatches.insert(jdbcTemplate, INSERT, albums, (statement, album) -> {
+            statement.setString(1, album.getTitle());
+            statement.setInt(2, album.getArtistId());
+            statement.setDate(3, Date.valueOf(album.getReleaseDate()));
+            statement.setInt(4, album.getLabelId());
+            statement.setBigDecimal(5, album.getListPrice());
+        }, (album, id) -> {
+            album.setAlbumId(id);
+            album.setVersion(0);
+        });
+    }
+
+    @Override
+    public int[] updateBatch(List<Album> albums) {
+        return JdbcBatches.update(jdbcTemplate, UPDATE, albums, (statement, album) -> {
+            statement.setString(1, album.getTitle());
+            statement.setInt(2, album.getArtistId());
+            statement.setDate(3, Date.valueOf(album.getReleaseDate()));
+            statement.setInt(4, album.getLabelId());
+            statement.setBigDecimal(5, album.getListPrice());
+            statement.setInt(6, album.getAlbumId());
+            JdbcBatches.setNullableInt(statement, 7, album.getVersion());
+        });
+    }
+}
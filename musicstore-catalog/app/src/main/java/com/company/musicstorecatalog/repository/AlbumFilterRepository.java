@@ -0,0 +1,15 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumFilter;
+
+import java.util.List;
+
+// filter queries of AlbumRepository, built from AlbumSpecifications
+public interface AlbumFilterRepository {
+    // every matching album, in the filter's sort order
+    List<Album> findFiltered(AlbumFilter filter);
+
+    // keyset page of matching albums in the same order; after is the previous page's nextCursor, or null
+    List<Album> findFilteredAfter(AlbumFilter filter, String after, int limit);
+}
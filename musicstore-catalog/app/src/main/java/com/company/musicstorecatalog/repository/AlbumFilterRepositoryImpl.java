@@ -0,0 +1,27 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumFilter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+public class AlbumFilterRepositoryImpl implements AlbumFilterRepository {
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public List<Album> findFiltered(AlbumFilter filter) {
+        return SpecificationQueries.find(entityManager, Album.class,
+                AlbumSpecifications.matching(filter), AlbumSpecifications.sortOf(filter), 0);
+    }
+
+    @Override
+    public List<Album> findFilteredAfter(AlbumFilter filter, String after, int limit) {
+        AlbumSpecifications.check(filter, after);
+        return SpecificationQueries.find(entityManager, Album.class,
+                AlbumSpecifications.matching(filter).and(AlbumSpecifications.after(filter, after)),
+                AlbumSpecifications.sortOf(filter), limit);
+    }
+}
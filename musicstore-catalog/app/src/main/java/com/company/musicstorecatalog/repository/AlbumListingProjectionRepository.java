@@ -0,0 +1,22 @@
+package com.company.musicstorecatalog.repository;
+
+import java.util.Collection;
+
+// the writes of AlbumListingRepository, through JdbcTemplate: as native @Modifying queries each drain
+// batch would evict the whole second-level cache (see ArtistStatsCounterRepository)
+public interface AlbumListingProjectionRepository {
+    // re-projecting a set of albums is a delete of their rows plus this insert; albums that no longer
+    // exist simply come back with no row
+    void clearIds(Collection<Integer> albumIds);
+
+    void projectIds(Collection<Integer> albumIds);
+
+    // full rebuild, one id range at a time
+    void clearRange(int from, int to);
+
+    void projectRange(int from, int to);
+
+    void renameArtist(Integer artistId);
+
+    void renameLabel(Integer labelId);
+}
@@ -0,0 +1,53 @@
+package com.company.musicstorecatalog.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Collection;
+
+public class AlbumListingProjectionRepositoryImpl implements AlbumListingProjectionRepository {
+    private static final String PROJECTION = "insert into album_listing " +
+            "(album_id, title, release_date, list_price, artist_id, artist_name, label_id, label_name, track_count) " +
+            "select al.album_id, al.title, al.release_date, al.list_price, al.artist_id, ar.name, al.label_id, l.name, " +
+            "(select count(*) from track t where t.album_id = al.album_id) " +
+            "from album al join artist ar on ar.artist_id = al.artist_id join label l on l.label_id = al.label_id ";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void clearIds(Collection<Integer> albumIds) {
+        new NamedParameterJdbcTemplate(jdbcTemplate).update("delete from album_listing where album_id in (:ids)",
+                new MapSqlParameterSource("ids", albumIds));
+    }
+
+    @Override
+    public void projectIds(Collection<Integer> albumIds) {
+        new NamedParameterJdbcTemplate(jdbcTemplate).update(PROJECTION + "where al.album_id in (:ids)",
+                new MapSqlParameterSource("ids", albumIds));
+    }
+
+    @Override
+    public void clearRange(int from, int to) {
+        jdbcTemplate.update("delete from album_listing where album_id between ? and ?", from, to);
+    }
+
+    @Override
+    public void projectRange(int from, int to) {
+        jdbcTemplate.update(PROJECTION + "where al.album_id between ? and ?", from, to);
+    }
+
+    @Override
+    public void renameArtist(Integer artistId) {
+        jdbcTemplate.update("update album_listing set artist_name = (select ar.name from artist ar where ar.artist_id = ?) " +
+                "where artist_id = ?", artistId, artistId);
+    }
+
+    @Override
+    public void renameLabel(Integer labelId) {
+        jdbcTemplate.update("update album_listing set label_name = (select l.name from label l where l.label_id = ?) " +
+                "where label_id = ?", labelId, labelId);
+    }
+}
@@ -0,0 +1,17 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.AlbumListing;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AlbumListingRepository extends JpaRepository<AlbumListing, Integer>, AlbumListingProjectionRepository {
+    List<AlbumListing> findByAlbumIdGreaterThanOrderByAlbumIdAsc(Integer albumId, Pageable pageable);
+
+    @Query("select max(l.albumId) from AlbumListing l")
+    Integer findMaxId();
+}
@@ -1,9 +1,127 @@
 package com.company.musicstorecatalog.repository;
 
+import com.company.musicstorecatalog.config.LookupCacheConfig;
 import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumDetail;
+import com.company.musicstorecatalog.model.AlbumSummary;
+import com.company.musicstorecatalog.model.TableVersion;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface AlbumRepository extends JpaRepository<Album, Integer> {
+public interface AlbumRepository extends JpaRepository<Album, Integer>, AlbumFilterRepository, AlbumBatchRepository {
+    // keyset page: pass PageRequest.of(0, n) so only a LIMIT is emitted, never an OFFSET
+    List<Album> findByAlbumIdGreaterThanOrderByAlbumIdAsc(Integer albumId, Pageable pageable);
+
+    // MySQL Connector/J only streams rows (instead of buffering the whole result set) when the
+    // fetch size is Integer.MIN_VALUE; must be consumed inside a transaction and closed afterwards
+    @Query("select a from Album a order by a.albumId")
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    Stream<Album> streamAll();
+
+    @Query("select new com.company.musicstorecatalog.model.AlbumSummary(a.albumId, a.title, a.artistId, a.labelId) " +
+            "from Album a where a.albumId > :after order by a.albumId")
+    List<AlbumSummary> findSummariesAfter(@Param("after") Integer after, Pageable pageable);
+
+    // album, artist and label in a single joined select; tracks come from TrackRepository.findByAlbumIdOrderByTrackIdAsc
+    @Query("select new com.company.musicstorecatalog.model.AlbumDetail(a, ar, l) " +
+            "from Album a, Artist ar, Label l " +
+            "where a.albumId = :id and ar.artistId = a.artistId and l.labelId = a.labelId")
+    Optional<AlbumDetail> findDetailById(@Param("id") Integer id);
+
+    // {artistId, album count} rows, the weight of an artist in /artist/suggest
+    @Query("select a.artistId, count(a) from Album a group by a.artistId")
+    List<Object[]> countAlbumsByArtist();
+
+    // {labelId, album count} rows, the weight of a label in /label/suggest
+    @Query("select a.labelId, count(a) from Album a group by a.labelId")
+    List<Object[]> countAlbumsByLabel();
+
+    // {artistId, labelId, listPrice} as stored, for CatalogStatsService to take out of the totals before a write
+    @Query("select a.artistId, a.labelId, a.listPrice from Album a where a.albumId = :id")
+    List<Object[]> findStatsRowById(@Param("id") Integer id);
+
+    // {albumId, artistId, labelId, listPrice} rows, the batch form of findStatsRowById
+    @Query("select a.albumId, a.artistId, a.labelId, a.listPrice from Album a where a.albumId in :ids")
+    List<Object[]> findStatsRowsByIds(@Param("ids") Collection<Integer> ids);
+
+    // supplier feed reconciliation, see CatalogImportService: an artist's albums (idx_album_artist_release),
+    // and the album ids of the feed's labels in keyset pages; CatalogPurgeService pages an artist's or a
+    // label's album ids the same way
+    List<Album> findByArtistIdOrderByReleaseDateAscAlbumIdAsc(Integer artistId);
+
+    @Query("select a.albumId from Album a where a.artistId = :artistId and a.albumId > :after order by a.albumId")
+    List<Integer> findIdsByArtistIdAfter(@Param("artistId") Integer artistId, @Param("after") Integer after, Pageable pageable);
+
+    @Query("select a.albumId from Album a where a.labelId in :labelIds and a.albumId > :after order by a.albumId")
+    List<Integer> findIdsByLabelIdsAfter(@Param("labelIds") Collection<Integer> labelIds, @Param("after") Integer after,
+                                         Pageable pageable);
+
+    @Query("select a.albumId from Album a where a.albumId in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    // conditional writes for PUT / DELETE with If-Match, one statement each; 0 rows means the id is
+    // gone or the stored version moved on. A null version deletes whatever is stored.
+    @Modifying
+    @CacheEvict(cacheNames = LookupCacheConfig.ALBUM_CACHE, key = "#p0.albumId")
+    @Query("update Album a set a.title = :#{#album.title}, a.listPrice = :#{#album.listPrice}, " +
+            "a.releaseDate = :#{#album.releaseDate}, a.artistId = :#{#album.artistId}, " +
+            "a.labelId = :#{#album.labelId}, a.version = a.version + 1 " +
+            "where a.albumId = :#{#album.albumId} and a.version = :#{#album.version}")
+    int updateIfVersion(@Param("album") Album album);
+
+    @Modifying
+    @CacheEvict(cacheNames = LookupCacheConfig.ALBUM_CACHE, key = "#p0")
+    @Query("delete from Album a where a.albumId = :id and (:version is null or a.version = :version)")
+    int deleteIfVersion(@Param("id") Integer id, @Param("version") Integer version);
+
+    @Query("select a.version from Album a where a.albumId = :id")
+    Optional<Integer> findVersionById(@Param("id") Integer id);
+
+    @Query("select new com.company.musicstorecatalog.model.TableVersion(count(a), max(a.albumId), sum(a.version)) from Album a")
+    TableVersion findTableVersion();
+
+    // read-through album cache, see LookupCacheConfig
+    @Override
+    @Cacheable(cacheNames = LookupCacheConfig.ALBUM_CACHE, unless = "#result == null")
+    Optional<Album> findById(Integer id);
+
+    @Override
+    @CachePut(cacheNames = LookupCacheConfig.ALBUM_CACHE, key = "#result.albumId")
+    <S extends Album> S save(S album);
+
+    @Override
+    @CacheEvict(cacheNames = LookupCacheConfig.ALBUM_CACHE)
+    void deleteById(Integer id);
+
+    @Override
+    @CacheEvict(cacheNames = LookupCacheConfig.ALBUM_CACHE, allEntries = true)
+    void deleteAll();
+
+    // uncached load used to fill and refresh the album cache
+    Optional<Album> findByAlbumId(Integer albumId);
+
+    // GET /catalog/changes, see CatalogSyncService: [id, updated_at] of the rows written after (since, afterId),
+    // leaving out the last settleMicros, read from idx_album_updated_at alone
+    @Query(value = "select album_id, updated_at from album where (updated_at > :since or (updated_at = :since and album_id > :afterId)) " +
+            "and updated_at < timestampadd(microsecond, -:settleMicros, current_timestamp(6)) order by updated_at, album_id",
+            nativeQuery = true)
+    List<Object[]> findChangedAfter(@Param("since") LocalDateTime since, @Param("afterId") int afterId,
+                                    @Param("settleMicros") long settleMicros, Pageable pageable);
 }
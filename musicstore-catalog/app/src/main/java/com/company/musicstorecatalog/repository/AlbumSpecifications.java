@@ -0,0 +1,134 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumFilter;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.InvalidCursorException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+// Predicates behind the GET /album filters. Every filter is a range on the leading columns of an
+// index in db/music-store-catalog.sql, and the list comes back in that index's order, so MySQL never
+// has to sort it. The first filter in this table picks the index, the others are checked on the way:
+//   artistId [+ releasedFrom/releasedTo]  idx_album_artist_release (artist_id, release_date)  releaseDate order
+//   labelId [+ minPrice/maxPrice]         idx_album_label_price (label_id, list_price)        listPrice order
+//   releasedFrom/releasedTo               idx_album_release (release_date)                    releaseDate order
+//   minPrice/maxPrice                     idx_album_price (list_price)                        listPrice order
+//   no filter                             PRIMARY or the sort's index                          any sort
+// sort= may name that order or be left out; any other sort is rejected, since it would need a filesort.
+// Cursor pages seek on (sort column, albumId) the same way, see after().
+public final class AlbumSpecifications {
+    public static final List<String> SORTS = Arrays.asList("albumId", "releaseDate", "listPrice");
+
+    private AlbumSpecifications() {}
+
+    public static Specification<Album> matching(AlbumFilter filter) {
+        if (filter.getReleasedFrom() != null && filter.getReleasedTo() != null
+                && filter.getReleasedFrom().isAfter(filter.getReleasedTo()))
+            throw new IllegalArgumentException("releasedFrom is supposed to be on or before releasedTo!");
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null
+                && filter.getMinPrice().compareTo(filter.getMaxPrice()) > 0)
+            throw new IllegalArgumentException("minPrice is supposed to be less than or equal to maxPrice!");
+
+        Specification<Album> spec = Specification.where(null);
+        if (filter.getArtistId() != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("artistId"), filter.getArtistId()));
+        if (filter.getLabelId() != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("labelId"), filter.getLabelId()));
+        if (filter.getReleasedFrom() != null)
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("releaseDate"), filter.getReleasedFrom()));
+        if (filter.getReleasedTo() != null)
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("releaseDate"), filter.getReleasedTo()));
+        if (filter.getMinPrice() != null)
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("listPrice"), filter.getMinPrice()));
+        if (filter.getMaxPrice() != null)
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("listPrice"), filter.getMaxPrice()));
+        return spec;
+    }
+
+    // runs every check the repository makes on a filter; controllers call it before the query, since an
+    // IllegalArgumentException thrown behind the repository proxy reaches them as InvalidDataAccessApiUsageException
+    public static void check(AlbumFilter filter, boolean paged) {
+        matching(filter);
+        sortOf(filter);
+        if (paged && filter.isDesc())
+            throw new IllegalArgumentException("Cursor pages are always in ascending order, desc is not supported with limit!");
+    }
+
+    // the same for a page, including its ?after= cursor
+    public static void check(AlbumFilter filter, String after) {
+        check(filter, true);
+        after(filter, after);
+    }
+
+    public static Specification<Album> idAfter(Integer after) {
+        return (root, query, cb) -> cb.greaterThan(root.get("albumId"), after);
+    }
+
+    // the rows after a cursor made by cursorOf(), in sortOf() order
+    public static Specification<Album> after(AlbumFilter filter, String cursor) {
+        String property = orderProperty(filter);
+        if (property.equals("albumId")) return idAfter(CursorPage.decodeCursor(cursor));
+        String[] key = CursorPage.decodeKeyCursor(cursor);
+        if (key == null) return Specification.where(null);
+        try {
+            Integer id = Integer.valueOf(key[1]);
+            return property.equals("releaseDate") ? keyAfter(property, LocalDate.parse(key[0]), id)
+                    : keyAfter(property, new BigDecimal(key[0]), id);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public static Function<Album, String> cursorOf(AlbumFilter filter) {
+        switch (orderProperty(filter)) {
+            case "releaseDate":
+                return album -> CursorPage.encodeCursor(album.getReleaseDate(), album.getAlbumId());
+            case "listPrice":
+                return album -> CursorPage.encodeCursor(album.getListPrice(), album.getAlbumId());
+            default:
+                return album -> CursorPage.encodeCursor(album.getAlbumId());
+        }
+    }
+
+    // the requested order, or the serving index's one when none is given; ties broken by albumId
+    // (the primary key every InnoDB index ends with)
+    public static Sort sortOf(AlbumFilter filter) {
+        String property = orderProperty(filter);
+        Sort.Direction direction = filter.isDesc() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, property);
+        return property.equals("albumId") ? sort : sort.and(Sort.by(direction, "albumId"));
+    }
+
+    private static String orderProperty(AlbumFilter filter) {
+        String served = indexOrder(filter);
+        String property = filter.getSort() != null ? filter.getSort() : served != null ? served : "albumId";
+        if (!SORTS.contains(property))
+            throw new IllegalArgumentException("sort is supposed to be one of " + SORTS + "!");
+        if (served != null && !served.equals(property))
+            throw new IllegalArgumentException("These filters list albums in " + served + " order, sort="
+                    + property + " is not supported with them!");
+        return property;
+    }
+
+    // the order of the index the filters pick, see the table above; null when there is no filter
+    private static String indexOrder(AlbumFilter filter) {
+        if (filter.getArtistId() != null) return "releaseDate";
+        if (filter.getLabelId() != null) return "listPrice";
+        if (filter.getReleasedFrom() != null || filter.getReleasedTo() != null) return "releaseDate";
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) return "listPrice";
+        return null;
+    }
+
+    // (property, albumId) > (key, id), spelled out so MySQL turns it into a range on the index
+    private static <Y extends Comparable<? super Y>> Specification<Album> keyAfter(String property, Y key, Integer id) {
+        return (root, query, cb) -> cb.or(cb.greaterThan(root.<Y>get(property), key),
+                cb.and(cb.equal(root.get(property), key), cb.greaterThan(root.get("albumId"), id)));
+    }
+}
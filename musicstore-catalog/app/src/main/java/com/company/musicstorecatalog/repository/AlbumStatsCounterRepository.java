@@ -0,0 +1,19 @@
+package com.company.musicstorecatalog.repository;
+
+import java.util.Collection;
+
+// writes of AlbumStatsRepository, see ArtistStatsCounterRepository
+public interface AlbumStatsCounterRepository {
+    void add(Integer albumId, int tracks, long runTime);
+
+    // empty rows for newly inserted albums
+    void createRows(Collection<Integer> albumIds);
+
+    void remove(Integer albumId);
+
+    void removeRows(Collection<Integer> albumIds);
+
+    void clearRange(int from, int to);
+
+    void recomputeRange(int from, int to);
+}
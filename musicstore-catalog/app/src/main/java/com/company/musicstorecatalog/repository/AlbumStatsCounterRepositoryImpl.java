@@ -0,0 +1,52 @@
+package com.company.musicstorecatalog.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Collection;
+
+public class AlbumStatsCounterRepositoryImpl implements AlbumStatsCounterRepository {
+    private static final String ADD = "insert into album_stats (album_id, track_count, total_run_time) values (?, ?, ?) " +
+            "on duplicate key update track_count = track_count + ?, total_run_time = total_run_time + ?";
+    private static final String RECOMPUTE = "insert into album_stats (album_id, track_count, total_run_time) " +
+            "select al.album_id, count(t.track_id), coalesce(sum(t.run_time), 0) from album al " +
+            "left join track t on t.album_id = al.album_id " +
+            "where al.album_id between ? and ? group by al.album_id";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void add(Integer albumId, int tracks, long runTime) {
+        jdbcTemplate.update(ADD, albumId, tracks, runTime, tracks, runTime);
+    }
+
+    @Override
+    public void createRows(Collection<Integer> albumIds) {
+        new NamedParameterJdbcTemplate(jdbcTemplate).update("insert into album_stats (album_id, track_count, total_run_time) " +
+                "select album_id, 0, 0 from album where album_id in (:ids)", new MapSqlParameterSource("ids", albumIds));
+    }
+
+    @Override
+    public void remove(Integer albumId) {
+        jdbcTemplate.update("delete from album_stats where album_id = ?", albumId);
+    }
+
+    @Override
+    public void removeRows(Collection<Integer> albumIds) {
+        new NamedParameterJdbcTemplate(jdbcTemplate).update("delete from album_stats where album_id in (:ids)",
+                new MapSqlParameterSource("ids", albumIds));
+    }
+
+    @Override
+    public void clearRange(int from, int to) {
+        jdbcTemplate.update("delete from album_stats where album_id between ? and ?", from, to);
+    }
+
+    @Override
+    public void recomputeRange(int from, int to) {
+        jdbcTemplate.update(RECOMPUTE, from, to);
+    }
+}
@@ -0,0 +1,17 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.AlbumStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AlbumStatsRepository extends JpaRepository<AlbumStats, Integer>, AlbumStatsCounterRepository {
+    List<AlbumStats> findByAlbumIdGreaterThanOrderByAlbumIdAsc(Integer albumId, Pageable pageable);
+
+    @Query("select max(s.albumId) from AlbumStats s")
+    Integer findMaxId();
+}
@@ -1,9 +1,70 @@
 package com.company.musicstorecatalog.repository;
 
 import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.ArtistSummary;
+import com.company.musicstorecatalog.model.TableVersion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface ArtistRepository extends JpaRepository<Artist, Integer> {
+    List<Artist> findByArtistIdGreaterThanOrderByArtistIdAsc(Integer artistId, Pageable pageable);
+
+    // row-by-row MySQL stream, see AlbumRepository.streamAll()
+    @Query("select a from Artist a order by a.artistId")
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    Stream<Artist> streamAll();
+
+    @Query("select new com.company.musicstorecatalog.model.ArtistSummary(a.artistId, a.name) " +
+            "from Artist a where a.artistId > :after order by a.artistId")
+    List<ArtistSummary> findSummariesAfter(@Param("after") Integer after, Pageable pageable);
+
+    // name lookups of the catalog import, see CatalogImportService
+    List<Artist> findByNameIn(Collection<String> names);
+
+    @Query("select a.artistId from Artist a where a.artistId in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    // conditional writes, see AlbumRepository.updateIfVersion
+    @Modifying
+    @Query("update Artist a set a.name = :#{#artist.name}, a.instagram = :#{#artist.instagram}, " +
+            "a.twitter = :#{#artist.twitter}, a.version = a.version + 1 " +
+            "where a.artistId = :#{#artist.artistId} and a.version = :#{#artist.version}")
+    int updateIfVersion(@Param("artist") Artist artist);
+
+    @Modifying
+    @Query("delete from Artist a where a.artistId = :id and (:version is null or a.version = :version)")
+    int deleteIfVersion(@Param("id") Integer id, @Param("version") Integer version);
+
+    @Query("select a.version from Artist a where a.artistId = :id")
+    Optional<Integer> findVersionById(@Param("id") Integer id);
+
+    @Query("select new com.company.musicstorecatalog.model.TableVersion(count(a), max(a.artistId), sum(a.version)) from Artist a")
+    TableVersion findTableVersion();
+
+    // served from the artist-queries region until the next write to the artist table
+    @Override
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = "artist-queries")})
+    List<Artist> findAll();
+
+    // see AlbumRepository.findChangedAfter
+    @Query(value = "select artist_id, updated_at from artist where (updated_at > :since or (updated_at = :since and artist_id > :afterId)) " +
+            "and updated_at < timestampadd(microsecond, -:settleMicros, current_timestamp(6)) order by updated_at, artist_id",
+            nativeQuery = true)
+    List<Object[]> findChangedAfter(@Param("since") LocalDateTime since, @Param("afterId") int afterId,
+                                    @Param("settleMicros") long settleMicros, Pageable pageable);
 }
@@ -0,0 +1,18 @@
+package com.company.musicstorecatalog.repository;
+
+import java.math.BigDecimal;
+
+// writes of ArtistStatsRepository. They run through JdbcTemplate rather than native @Modifying queries:
+// Hibernate cannot tell which tables a native update touches, so it would evict every second-level cache
+// region (artist and label included) on each album write
+public interface ArtistStatsCounterRepository {
+    // adds to the totals in place (creating the row on first use), so concurrent writers never overwrite each other
+    void add(Integer artistId, int albums, BigDecimal price);
+
+    void remove(Integer artistId);
+
+    // drift repair for one id range, see CatalogStatsService.rebuild()
+    void clearRange(int from, int to);
+
+    void recomputeRange(int from, int to);
+}
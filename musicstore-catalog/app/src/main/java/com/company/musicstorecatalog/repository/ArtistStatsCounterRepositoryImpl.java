@@ -0,0 +1,38 @@
+package com.company.musicstorecatalog.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+public class ArtistStatsCounterRepositoryImpl implements ArtistStatsCounterRepository {
+    private static final String ADD = "insert into artist_stats (artist_id, album_count, total_list_price) values (?, ?, ?) " +
+            "on duplicate key update album_count = album_count + ?, total_list_price = total_list_price + ?";
+    private static final String RECOMPUTE = "insert into artist_stats (artist_id, album_count, total_list_price) " +
+            "select ar.artist_id, count(al.album_id), coalesce(sum(al.list_price), 0) from artist ar " +
+            "left join album al on al.artist_id = ar.artist_id " +
+            "where ar.artist_id between ? and ? group by ar.artist_id";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void add(Integer artistId, int albums, BigDecimal price) {
+        jdbcTemplate.update(ADD, artistId, albums, price, albums, price);
+    }
+
+    @Override
+    public void remove(Integer artistId) {
+        jdbcTemplate.update("delete from artist_stats where artist_id = ?", artistId);
+    }
+
+    @Override
+    public void clearRange(int from, int to) {
+        jdbcTemplate.update("delete from artist_stats where artist_id between ? and ?", from, to);
+    }
+
+    @Override
+    public void recomputeRange(int from, int to) {
+        jdbcTemplate.update(RECOMPUTE, from, to);
+    }
+}
@@ -0,0 +1,17 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.ArtistStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArtistStatsRepository extends JpaRepository<ArtistStats, Integer>, ArtistStatsCounterRepository {
+    List<ArtistStats> findByArtistIdGreaterThanOrderByArtistIdAsc(Integer artistId, Pageable pageable);
+
+    @Query("select max(s.artistId) from ArtistStats s")
+    Integer findMaxId();
+}
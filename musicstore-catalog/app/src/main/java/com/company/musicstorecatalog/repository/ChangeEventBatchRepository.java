@@ -0,0 +1,9 @@
+package com.company.musicstorecatalog.repository;
+
+import java.util.Collection;
+
+// JDBC batch append of ChangeEventRepository, so a bulk write adds its events in one batch
+public interface ChangeEventBatchRepository {
+    // one event per id, all of the same kind and action
+    void append(String kind, String action, Collection<Integer> ids);
+}
@@ -0,0 +1,28 @@
+package com.company.musicstorecatalog.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+
+public class ChangeEventBatchRepositoryImpl implements ChangeEventBatchRepository {
+    private static final String INSERT = "insert into catalog_outbox (kind, entity_id, action, created_at) values (?, ?, ?, ?)";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void append(String kind, String action, Collection<Integer> ids) {
+        if (ids.isEmpty()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        JdbcBatches.update(jdbcTemplate, INSERT, new ArrayList<>(ids), (statement, id) -> {
+            statement.setString(1, kind);
+            statement.setInt(2, id);
+            statement.setString(3, action);
+            statement.setTimestamp(4, now);
+        });
+    }
+}
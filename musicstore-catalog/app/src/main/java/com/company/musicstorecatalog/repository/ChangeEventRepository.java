@@ -0,0 +1,28 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.ChangeEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// the catalog_outbox table, written by CatalogOutbox and read in seq order by ChangeStreamService
+@Repository
+public interface ChangeEventRepository extends JpaRepository<ChangeEvent, Long>, ChangeEventBatchRepository {
+    List<ChangeEvent> findBySeqGreaterThanOrderBySeqAsc(Long seq, Pageable pageable);
+
+    @Query("select max(e.seq) from ChangeEvent e")
+    Long findMaxSeq();
+
+    @Query("select min(e.seq) from ChangeEvent e")
+    Long findMinSeq();
+
+    @Modifying
+    @Query(value = "delete from catalog_outbox where created_at < :before", nativeQuery = true)
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,40 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+// see IdempotencyService; every statement is a single row (or expiry) write on the primary key
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    // 1 when this request owns the key, 0 when another one (on any node) got there first
+    @Modifying
+    @Query(value = "insert ignore into idempotency_key (idem_key, fingerprint, expires_at) " +
+            "values (:key, :fingerprint, :expiresAt)", nativeQuery = true)
+    int claim(@Param("key") String key, @Param("fingerprint") String fingerprint,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query(value = "update idempotency_key set status = :status, content_type = :contentType, location = :location, " +
+            "body = :body where idem_key = :key", nativeQuery = true)
+    void complete(@Param("key") String key, @Param("status") int status, @Param("contentType") String contentType,
+                  @Param("location") String location, @Param("body") String body);
+
+    // the first request failed, so the key is free for a retry
+    @Modifying
+    @Query(value = "delete from idempotency_key where idem_key = :key and status is null", nativeQuery = true)
+    void release(@Param("key") String key);
+
+    @Modifying
+    @Query(value = "delete from idempotency_key where idem_key = :key and expires_at < :now", nativeQuery = true)
+    void deleteIfExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "delete from idempotency_key where expires_at < :now", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,65 @@
+package com.company.musicstorecatalog.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+// Plain JDBC batches for the bulk endpoints. Hibernate cannot batch inserts into IDENTITY tables,
+// because it needs each generated id before it can go on; here every row goes into one
+// PreparedStatement batch (one multi-row INSERT on MySQL with rewriteBatchedStatements=true) and
+// the generated ids are read back together afterwards.
+final class JdbcBatches {
+    private JdbcBatches() {}
+
+    interface Binder<T> {
+        void bind(PreparedStatement statement, T row) throws SQLException;
+    }
+
+    // inserts every row and hands each its generated id, in row order
+    static <T> void insert(JdbcTemplate jdbcTemplate, String sql, List<T> rows, Binder<T> binder,
+                           BiConsumer<T, Integer> setId) {
+        if (rows.isEmpty()) return;
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (T row : rows) {
+                    binder.bind(statement, row);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (T row : rows) {
+                        if (!keys.next()) throw new SQLException("Fewer generated keys than inserted rows");
+                        setId.accept(row, keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    // update counts in row order; 0 means the row was not updated
+    static <T> int[] update(JdbcTemplate jdbcTemplate, String sql, List<T> rows, Binder<T> binder) {
+        if (rows.isEmpty()) return new int[0];
+        return jdbcTemplate.execute((ConnectionCallback<int[]>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (T row : rows) {
+                    binder.bind(statement, row);
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+    }
+
+    static void setNullableInt(PreparedStatement statement, int index, Integer value) throws SQLException {
+        if (value == null) statement.setNull(index, Types.INTEGER);
+        else statement.setInt(index, value);
+    }
+}
@@ -1,9 +1,69 @@
 package com.company.musicstorecatalog.repository;
 
 import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.LabelSummary;
+import com.company.musicstorecatalog.model.TableVersion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface LabelRepository extends JpaRepository<Label, Integer> {
+    List<Label> findByLabelIdGreaterThanOrderByLabelIdAsc(Integer labelId, Pageable pageable);
+
+    // row-by-row MySQL stream, see AlbumRepository.streamAll()
+    @Query("select l from Label l order by l.labelId")
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    Stream<Label> streamAll();
+
+    @Query("select new com.company.musicstorecatalog.model.LabelSummary(l.labelId, l.name) " +
+            "from Label l where l.labelId > :after order by l.labelId")
+    List<LabelSummary> findSummariesAfter(@Param("after") Integer after, Pageable pageable);
+
+    // name lookups of the catalog import, see CatalogImportService
+    List<Label> findByNameIn(Collection<String> names);
+
+    @Query("select l.labelId from Label l where l.labelId in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    // conditional writes, see AlbumRepository.updateIfVersion
+    @Modifying
+    @Query("update Label l set l.name = :#{#label.name}, l.website = :#{#label.website}, l.version = l.version + 1 " +
+            "where l.labelId = :#{#label.labelId} and l.version = :#{#label.version}")
+    int updateIfVersion(@Param("label") Label label);
+
+    @Modifying
+    @Query("delete from Label l where l.labelId = :id and (:version is null or l.version = :version)")
+    int deleteIfVersion(@Param("id") Integer id, @Param("version") Integer version);
+
+    @Query("select l.version from Label l where l.labelId = :id")
+    Optional<Integer> findVersionById(@Param("id") Integer id);
+
+    @Query("select new com.company.musicstorecatalog.model.TableVersion(count(l), max(l.labelId), sum(l.version)) from Label l")
+    TableVersion findTableVersion();
+
+    // served from the label-queries region until the next write to the label table
+    @Override
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = "label-queries")})
+    List<Label> findAll();
+
+    // see AlbumRepository.findChangedAfter
+    @Query(value = "select label_id, updated_at from label where (updated_at > :since or (updated_at = :since and label_id > :afterId)) " +
+            "and updated_at < timestampadd(microsecond, -:settleMicros, current_timestamp(6)) order by updated_at, label_id",
+            nativeQuery = true)
+    List<Object[]> findChangedAfter(@Param("since") LocalDateTime since, @Param("afterId") int afterId,
+                                    @Param("settleMicros") long settleMicros, Pageable pageable);
 }
@@ -0,0 +1,14 @@
+package com.company.musicstorecatalog.repository;
+
+import java.math.BigDecimal;
+
+// writes of LabelStatsRepository, see ArtistStatsCounterRepository
+public interface LabelStatsCounterRepository {
+    void add(Integer labelId, int albums, BigDecimal price);
+
+    void remove(Integer labelId);
+
+    void clearRange(int from, int to);
+
+    void recomputeRange(int from, int to);
+}
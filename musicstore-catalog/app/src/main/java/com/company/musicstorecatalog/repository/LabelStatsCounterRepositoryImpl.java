@@ -0,0 +1,38 @@
+package com.company.musicstorecatalog.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+public class LabelStatsCounterRepositoryImpl implements LabelStatsCounterRepository {
+    private static final String ADD = "insert into label_stats (label_id, album_count, total_list_price) values (?, ?, ?) " +
+            "on duplicate key update album_count = album_count + ?, total_list_price = total_list_price + ?";
+    private static final String RECOMPUTE = "insert into label_stats (label_id, album_count, total_list_price) " +
+            "select l.label_id, count(al.album_id), coalesce(sum(al.list_price), 0) from label l " +
+            "left join album al on al.label_id = l.label_id " +
+            "where l.label_id between ? and ? group by l.label_id";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void add(Integer labelId, int albums, BigDecimal price) {
+        jdbcTemplate.update(ADD, labelId, albums, price, albums, price);
+    }
+
+    @Override
+    public void remove(Integer labelId) {
+        jdbcTemplate.update("delete from label_stats where label_id = ?", labelId);
+    }
+
+    @Override
+    public void clearRange(int from, int to) {
+        jdbcTemplate.update("delete from label_stats where label_id between ? and ?", from, to);
+    }
+
+    @Override
+    public void recomputeRange(int from, int to) {
+        jdbcTemplate.update(RECOMPUTE, from, to);
+    }
+}
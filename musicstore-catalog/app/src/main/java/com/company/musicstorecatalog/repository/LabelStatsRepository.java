@@ -0,0 +1,17 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.LabelStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LabelStatsRepository extends JpaRepository<LabelStats, Integer>, LabelStatsCounterRepository {
+    List<LabelStats> findByLabelIdGreaterThanOrderByLabelIdAsc(Integer labelId, Pageable pageable);
+
+    @Query("select max(s.labelId) from LabelStats s")
+    Integer findMaxId();
+}
@@ -0,0 +1,64 @@
+package com.company.musicstorecatalog.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+// InnoDB's open transactions (information_schema.innodb_trx) that may still commit a write: read-only
+// transactions and autocommitted reads are left out. ChangeStreamService and CatalogSyncService wait for
+// these instead of guessing from a timeout. Reading the table needs the PROCESS privilege; without it
+// (or on another database) isSupported() is false and the callers fall back to their timeouts.
+@Repository
+public class OpenTransactionRepository {
+    private static final Logger log = LoggerFactory.getLogger(OpenTransactionRepository.class);
+    private static final String WRITERS = "from information_schema.innodb_trx " +
+            "where trx_is_read_only = 0 and trx_autocommit_non_locking = 0";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean supported;
+
+    public boolean isSupported() {
+        if (supported == null) {
+            try {
+                jdbcTemplate.queryForObject("select count(*) " + WRITERS + " and 1 = 0", Long.class);
+                supported = true;
+            } catch (DataAccessException e) {
+                log.info("Open transactions cannot be read, falling back to timeouts: {}", e.getMostSpecificCause().getMessage());
+                supported = false;
+            }
+        }
+        return supported;
+    }
+
+    public Set<String> findWriterIds() {
+        return new HashSet<>(jdbcTemplate.queryForList("select cast(trx_id as char) " + WRITERS, String.class));
+    }
+
+    // how many of these are still open
+    public int countOpen(Collection<String> trxIds) {
+        if (trxIds.isEmpty()) return 0;
+        Integer open = new NamedParameterJdbcTemplate(jdbcTemplate).queryForObject(
+                "select count(*) from information_schema.innodb_trx where cast(trx_id as char) in (:ids)",
+                new MapSqlParameterSource("ids", trxIds), Integer.class);
+        return open == null ? 0 : open;
+    }
+
+    // microseconds since the oldest writer started by the database clock, 0 when there is none; trx_started
+    // has whole seconds, so this is rounded up by one
+    public long findOldestWriterAgeMicros() {
+        Long micros = jdbcTemplate.queryForObject(
+                "select timestampdiff(microsecond, min(trx_started), current_timestamp(6)) " + WRITERS, Long.class);
+        return micros == null ? 0 : micros + 1_000_000;
+    }
+}
@@ -0,0 +1,8 @@
+package com.company.musicstorecatalog.repository;
+
+// the write of TableWritesRepository, through JdbcTemplate: as a native @Modifying query Hibernate would
+// evict the whole second-level cache on every write it counts (see ArtistStatsCounterRepository)
+public interface TableWritesCounterRepository {
+    // a slot's row is created by its first write
+    void bump(String tableName, int slot);
+}
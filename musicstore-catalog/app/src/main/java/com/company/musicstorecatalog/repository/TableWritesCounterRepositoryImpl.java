@@ -0,0 +1,17 @@
+package com.company.musicstorecatalog.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class TableWritesCounterRepositoryImpl implements TableWritesCounterRepository {
+    private static final String BUMP = "insert into catalog_table_writes (table_name, slot, writes) values (?, ?, 1) " +
+            "on duplicate key update writes = writes + 1";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void bump(String tableName, int slot) {
+        jdbcTemplate.update(BUMP, tableName, slot);
+    }
+}
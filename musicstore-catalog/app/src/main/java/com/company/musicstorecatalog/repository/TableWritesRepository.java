@@ -0,0 +1,15 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.TableWrites;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+// the catalog_table_writes counters, see TableWrites
+@Repository
+public interface TableWritesRepository extends JpaRepository<TableWrites, TableWrites.Key>, TableWritesCounterRepository {
+    // committed writes to the table so far; a range read on the primary key
+    @Query("select coalesce(sum(w.writes), 0) from TableWrites w where w.tableName = :tableName")
+    long findWrites(@Param("tableName") String tableName);
+}
@@ -0,0 +1,9 @@
+package com.company.musicstorecatalog.repository;
+
+import java.util.Collection;
+
+// JDBC batch writes of TombstoneRepository
+public interface TombstoneBatchRepository {
+    // deleted_at is the database's clock, like updated_at on the tables themselves
+    void markDeleted(String kind, Collection<Integer> ids);
+}
@@ -0,0 +1,24 @@
+package com.company.musicstorecatalog.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+public class TombstoneBatchRepositoryImpl implements TombstoneBatchRepository {
+    private static final String UPSERT = "insert into catalog_tombstone (kind, entity_id) values (?, ?) " +
+            "on duplicate key update deleted_at = current_timestamp(6)";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void markDeleted(String kind, Collection<Integer> ids) {
+        if (ids.isEmpty()) return;
+        JdbcBatches.update(jdbcTemplate, UPSERT, new ArrayList<>(ids), (statement, id) -> {
+            statement.setString(1, kind);
+            statement.setInt(2, id);
+        });
+    }
+}
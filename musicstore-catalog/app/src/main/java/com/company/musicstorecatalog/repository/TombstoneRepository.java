@@ -0,0 +1,29 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Tombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// the catalog_tombstone table, see Tombstone and CatalogSyncService
+@Repository
+public interface TombstoneRepository extends JpaRepository<Tombstone, Tombstone.Key>, TombstoneBatchRepository {
+    // [kind, entity_id, deleted_at] after (since, kind, afterId), in the same order as AlbumRepository.findChangedAfter
+    @Query(value = "select kind, entity_id, deleted_at from catalog_tombstone where (deleted_at > :since or " +
+            "(deleted_at = :since and (kind > :kind or (kind = :kind and entity_id > :afterId)))) " +
+            "and deleted_at < timestampadd(microsecond, -:settleMicros, current_timestamp(6)) " +
+            "order by deleted_at, kind, entity_id", nativeQuery = true)
+    List<Object[]> findDeletedAfter(@Param("since") LocalDateTime since, @Param("kind") String kind,
+                                    @Param("afterId") int afterId, @Param("settleMicros") long settleMicros,
+                                    Pageable pageable);
+
+    @Modifying
+    @Query(value = "delete from catalog_tombstone where deleted_at < :before", nativeQuery = true)
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
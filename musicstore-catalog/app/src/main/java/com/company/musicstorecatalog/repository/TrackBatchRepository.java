@@ -0,0 +1,15 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Track;
+
+import java.util.List;
+
+// JDBC batch writes of TrackRepository, see JdbcBatches; used by POST and PUT /track/batch
+public interface TrackBatchRepository {
+    // inserts the tracks in one batch and sets their generated trackIds
+    void insertBatch(List<Track> tracks);
+
+    // updates the tracks in one batch; a track with a version is only updated if it still has that
+    // version. Returns the update count of each track, 0 for a stale version or a missing track.
+    int[] updateBatch(List<Track> tracks);
+}
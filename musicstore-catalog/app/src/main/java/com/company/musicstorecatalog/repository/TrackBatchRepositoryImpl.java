@@ -0,0 +1,39 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Track;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+public class TrackBatchRepositoryImpl implements TrackBatchRepository {
+    private static final String INSERT = "insert into track (album_id, title, run_time, version) values (?, ?, ?, 0)";
+    private static final String UPDATE = "update track set album_id = ?, title = ?, run_time = ?, version = version + 1 " +
+            "where track_id = ? and version = coalesce(?, version)";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertBatch(List<Track> tracks) {
+        JdbcBatches.insert(jdbcTemplate, INSERT, tracks, (statement, track) -> {
+            statement.setInt(1, track.getAlbumId());
+            statement.setString(2, track.getTitle());
+            statement.setInt(3, track.getRunTime());
+        }, (track, id) -> {
+            track.setTrackId(id);
+            track.setVersion(0);
+        });
+    }
+
+    @Override
+    public int[] updateBatch(List<Track> tracks) {
+        return JdbcBatches.update(jdbcTemplate, UPDATE, tracks, (statement, track) -> {
+            statement.setInt(1, track.getAlbumId());
+            statement.setString(2, track.getTitle());
+            statement.setInt(3, track.getRunTime());
+            statement.setInt(4, track.getTrackId());
+            JdbcBatches.setNullableInt(statement, 5, track.getVersion());
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.model.TrackFilter;
+
+import java.util.List;
+
+// filter queries of TrackRepository, built from TrackSpecifications
+public interface TrackFilterRepository {
+    // every matching track, in the filter's sort order
+    List<Track> findFiltered(TrackFilter filter);
+
+    // keyset page of matching tracks in the same order; after is the previous page's nextCursor, or null
+    List<Track> findFilteredAfter(TrackFilter filter, String after, int limit);
+}
@@ -0,0 +1,27 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.model.TrackFilter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+public class TrackFilterRepositoryImpl implements TrackFilterRepository {
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public List<Track> findFiltered(TrackFilter filter) {
+        return SpecificationQueries.find(entityManager, Track.class,
+                TrackSpecifications.matching(filter), TrackSpecifications.sortOf(filter), 0);
+    }
+
+    @Override
+    public List<Track> findFilteredAfter(TrackFilter filter, String after, int limit) {
+        TrackSpecifications.check(filter, after);
+        return SpecificationQueries.find(entityManager, Track.class,
+                TrackSpecifications.matching(filter).and(TrackSpecifications.after(filter, after)),
+                TrackSpecifications.sortOf(filter), limit);
+    }
+}
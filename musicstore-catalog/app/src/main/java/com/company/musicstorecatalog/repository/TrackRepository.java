@@ -1,9 +1,108 @@
 package com.company.musicstorecatalog.repository;
 
+import com.company.musicstorecatalog.config.LookupCacheConfig;
+import com.company.musicstorecatalog.model.TableVersion;
 import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.model.TrackSummary;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface TrackRepository extends JpaRepository<Track, Integer> {
+public interface TrackRepository extends JpaRepository<Track, Integer>, TrackFilterRepository, TrackBatchRepository {
+    List<Track> findByTrackIdGreaterThanOrderByTrackIdAsc(Integer trackId, Pageable pageable);
+
+    // row-by-row MySQL stream, see AlbumRepository.streamAll()
+    @Query("select t from Track t order by t.trackId")
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    Stream<Track> streamAll();
+
+    @Query("select new com.company.musicstorecatalog.model.TrackSummary(t.trackId, t.albumId, t.title) " +
+            "from Track t where t.trackId > :after order by t.trackId")
+    List<TrackSummary> findSummariesAfter(@Param("after") Integer after, Pageable pageable);
+
+    // served by the fk_album_id index; InnoDB secondary indexes carry the primary key, so no filesort
+    List<Track> findByAlbumIdOrderByTrackIdAsc(Integer albumId);
+
+    // {albumId, runTime} as stored, see AlbumRepository.findStatsRowById()
+    @Query("select t.albumId, t.runTime from Track t where t.trackId = :id")
+    List<Object[]> findStatsRowById(@Param("id") Integer id);
+
+    // {trackId, albumId, runTime} rows, the batch form of findStatsRowById
+    @Query("select t.trackId, t.albumId, t.runTime from Track t where t.trackId in :ids")
+    List<Object[]> findStatsRowsByIds(@Param("ids") Collection<Integer> ids);
+
+    List<Track> findByAlbumIdInOrderByAlbumIdAscTrackIdAsc(Collection<Integer> albumIds);
+
+    @Query("select t.trackId from Track t where t.albumId in :albumIds")
+    List<Integer> findIdsByAlbumIds(@Param("albumIds") Collection<Integer> albumIds);
+
+    // set-based, see CatalogPurgeService; the lookup cache entries are evicted by the caller
+    @Modifying
+    @Query("delete from Track t where t.albumId in :albumIds")
+    int deleteByAlbumIds(@Param("albumIds") Collection<Integer> albumIds);
+
+    @Query("select t.trackId from Track t where t.trackId in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    // conditional writes, see AlbumRepository.updateIfVersion
+    @Modifying
+    @CacheEvict(cacheNames = LookupCacheConfig.TRACK_CACHE, key = "#p0.trackId")
+    @Query("update Track t set t.title = :#{#track.title}, t.runTime = :#{#track.runTime}, " +
+            "t.albumId = :#{#track.albumId}, t.version = t.version + 1 " +
+            "where t.trackId = :#{#track.trackId} and t.version = :#{#track.version}")
+    int updateIfVersion(@Param("track") Track track);
+
+    @Modifying
+    @CacheEvict(cacheNames = LookupCacheConfig.TRACK_CACHE, key = "#p0")
+    @Query("delete from Track t where t.trackId = :id and (:version is null or t.version = :version)")
+    int deleteIfVersion(@Param("id") Integer id, @Param("version") Integer version);
+
+    @Query("select t.version from Track t where t.trackId = :id")
+    Optional<Integer> findVersionById(@Param("id") Integer id);
+
+    @Query("select new com.company.musicstorecatalog.model.TableVersion(count(t), max(t.trackId), sum(t.version)) from Track t")
+    TableVersion findTableVersion();
+
+    // read-through track cache, see LookupCacheConfig
+    @Override
+    @Cacheable(cacheNames = LookupCacheConfig.TRACK_CACHE, unless = "#result == null")
+    Optional<Track> findById(Integer id);
+
+    @Override
+    @CachePut(cacheNames = LookupCacheConfig.TRACK_CACHE, key = "#result.trackId")
+    <S extends Track> S save(S track);
+
+    @Override
+    @CacheEvict(cacheNames = LookupCacheConfig.TRACK_CACHE)
+    void deleteById(Integer id);
+
+    @Override
+    @CacheEvict(cacheNames = LookupCacheConfig.TRACK_CACHE, allEntries = true)
+    void deleteAll();
+
+    // uncached load used to fill and refresh the track cache
+    Optional<Track> findByTrackId(Integer trackId);
+
+    // see AlbumRepository.findChangedAfter
+    @Query(value = "select track_id, updated_at from track where (updated_at > :since or (updated_at = :since and track_id > :afterId)) " +
+            "and updated_at < timestampadd(microsecond, -:settleMicros, current_timestamp(6)) order by updated_at, track_id",
+            nativeQuery = true)
+    List<Object[]> findChangedAfter(@Param("since") LocalDateTime since, @Param("afterId") int afterId,
+                                    @Param("settleMicros") long settleMicros, Pageable pageable);
 }
@@ -0,0 +1,97 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.InvalidCursorException;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.model.TrackFilter;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+// Predicates behind the GET /track filters, laid out like AlbumSpecifications:
+//   albumId + minRunTime/maxRunTime  idx_track_album_run_time (album_id, run_time)  runTime order
+//   albumId                          fk_album_id (album_id) or the one above        trackId or runTime
+//   minRunTime/maxRunTime            idx_track_run_time (run_time)                  runTime order
+//   no filter                        PRIMARY or idx_track_run_time                  any sort
+public final class TrackSpecifications {
+    public static final List<String> SORTS = Arrays.asList("trackId", "runTime");
+
+    private TrackSpecifications() {}
+
+    public static Specification<Track> matching(TrackFilter filter) {
+        if (filter.getMinRunTime() != null && filter.getMaxRunTime() != null
+                && filter.getMinRunTime() > filter.getMaxRunTime())
+            throw new IllegalArgumentException("minRunTime is supposed to be less than or equal to maxRunTime!");
+
+        Specification<Track> spec = Specification.where(null);
+        if (filter.getAlbumId() != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("albumId"), filter.getAlbumId()));
+        if (filter.getMinRunTime() != null)
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("runTime"), filter.getMinRunTime()));
+        if (filter.getMaxRunTime() != null)
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("runTime"), filter.getMaxRunTime()));
+        return spec;
+    }
+
+    // runs every check the repository makes on a filter; controllers call it before the query, since an
+    // IllegalArgumentException thrown behind the repository proxy reaches them as InvalidDataAccessApiUsageException
+    public static void check(TrackFilter filter, boolean paged) {
+        matching(filter);
+        sortOf(filter);
+        if (paged && filter.isDesc())
+            throw new IllegalArgumentException("Cursor pages are always in ascending order, desc is not supported with limit!");
+    }
+
+    public static void check(TrackFilter filter, String after) {
+        check(filter, true);
+        after(filter, after);
+    }
+
+    public static Specification<Track> idAfter(Integer after) {
+        return (root, query, cb) -> cb.greaterThan(root.get("trackId"), after);
+    }
+
+    // see AlbumSpecifications.after
+    public static Specification<Track> after(TrackFilter filter, String cursor) {
+        if (orderProperty(filter).equals("trackId")) return idAfter(CursorPage.decodeCursor(cursor));
+        String[] key = CursorPage.decodeKeyCursor(cursor);
+        if (key == null) return Specification.where(null);
+        int runTime;
+        int id;
+        try {
+            runTime = Integer.parseInt(key[0]);
+            id = Integer.parseInt(key[1]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+        return (root, query, cb) -> cb.or(cb.greaterThan(root.get("runTime"), runTime),
+                cb.and(cb.equal(root.get("runTime"), runTime), cb.greaterThan(root.get("trackId"), id)));
+    }
+
+    public static Function<Track, String> cursorOf(TrackFilter filter) {
+        if (orderProperty(filter).equals("trackId")) return track -> CursorPage.encodeCursor(track.getTrackId());
+        return track -> CursorPage.encodeCursor(track.getRunTime(), track.getTrackId());
+    }
+
+    public static Sort sortOf(TrackFilter filter) {
+        String property = orderProperty(filter);
+        Sort.Direction direction = filter.isDesc() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, property);
+        return property.equals("trackId") ? sort : sort.and(Sort.by(direction, "trackId"));
+    }
+
+    private static String orderProperty(TrackFilter filter) {
+        // a run time range is only served in run time order, see the table above
+        String served = filter.getMinRunTime() != null || filter.getMaxRunTime() != null ? "runTime" : null;
+        String property = filter.getSort() != null ? filter.getSort() : served != null ? served : "trackId";
+        if (!SORTS.contains(property))
+            throw new IllegalArgumentException("sort is supposed to be one of " + SORTS + "!");
+        if (served != null && !served.equals(property))
+            throw new IllegalArgumentException("These filters list tracks in " + served + " order, sort="
+                    + property + " is not supported with them!");
+        return property;
+    }
+}
@@ -0,0 +1,24 @@
+package com.company.musicstorecatalog.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Runs a write hook once the caller's transaction has committed, or right away when there is
+// none (batch and purge writers call their hooks after their own commit). A write that rolls
+// back runs nothing, and nothing the hook publishes can be seen before the row itself.
+final class AfterCommit {
+    private AfterCommit() {}
+
+    static void run(Runnable hook) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    hook.run();
+                }
+            });
+        } else {
+            hook.run();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.repository.AlbumListingRepository;
+import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.TrackRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Keeps the album_listing read model (GET /catalog/albums) in step with the normalized tables.
+// Writes only mark the albums, artists and labels they touched, once their transaction has
+// committed; a background drain then re-projects the marked albums in batches and copies renamed
+// artist and label names into their rows. Marks of the same key coalesce until the drain gets to
+// them. catalog.read_model.lag reports how long the oldest unapplied mark has been waiting.
+@Service
+public class AlbumListingProjector {
+    private static final Logger log = LoggerFactory.getLogger(AlbumListingProjector.class);
+
+    @Value("${catalog.read-model.enabled:true}")
+    boolean enabled;
+
+    @Value("${catalog.read-model.batch-size:500}")
+    int batchSize;
+
+    @Value("${catalog.read-model.rebuild-chunk:10000}")
+    int rebuildChunk;
+
+    // threads for the drain and the rebuild chunks, each holding a pooled connection while it runs
+    @Value("${catalog.read-model.threads:4}")
+    int threads;
+
+    @Autowired
+    AlbumListingRepository listingRepository;
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    // id -> System.nanoTime() of its first unapplied mark
+    private final Map<Integer, Long> dirtyAlbums = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> dirtyArtists = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> dirtyLabels = new ConcurrentHashMap<>();
+    // marked time of the oldest key in the batch being applied, 0 when idle
+    private volatile long inFlightSince;
+    private final AtomicBoolean running = new AtomicBoolean();
+    // blocking JDBC work stays off the common pool, which TitleIndex's parallel streams use
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "catalog-read-model-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("catalog.read_model.lag", this, projector -> projector.lagNanos() / 1e9)
+                .description("Age of the oldest write not yet applied to album_listing")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("catalog.read_model.pending", this, AlbumListingProjector::pending)
+                .description("Albums, artists and labels waiting to be applied to album_listing")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    public void albumChanged(Integer albumId) {
+        AfterCommit.run(() -> mark(dirtyAlbums, albumId));
+    }
+
+    public void artistChanged(Integer artistId) {
+        AfterCommit.run(() -> mark(dirtyArtists, artistId));
+    }
+
+    public void labelChanged(Integer labelId) {
+        AfterCommit.run(() -> mark(dirtyLabels, labelId));
+    }
+
+    // before a track is updated: it may be moving to another album, whose old album loses a track
+    public void trackChanging(Integer trackId) {
+        if (!enabled || trackId == null) return;
+        for (Object[] row : trackRepository.findStatsRowById(trackId)) {
+            albumChanged((Integer) row[0]);
+        }
+    }
+
+    public long lagNanos() {
+        long oldest = inFlightSince;
+        for (Map<Integer, Long> dirty : Arrays.asList(dirtyAlbums, dirtyArtists, dirtyLabels)) {
+            for (long marked : dirty.values()) {
+                if (oldest == 0 || marked < oldest) oldest = marked;
+            }
+        }
+        return oldest == 0 ? 0 : Math.max(0, System.nanoTime() - oldest);
+    }
+
+    public int pending() {
+        return dirtyAlbums.size() + dirtyArtists.size() + dirtyLabels.size();
+    }
+
+    // applies every mark made so far
+    public void drain() {
+        while (pending() > 0) {
+            applyBatch(dirtyArtists, ids -> ids.forEach(listingRepository::renameArtist));
+            applyBatch(dirtyLabels, ids -> ids.forEach(listingRepository::renameLabel));
+            applyBatch(dirtyAlbums, ids -> {
+                listingRepository.clearIds(ids);
+                listingRepository.projectIds(ids);
+            });
+        }
+    }
+
+    // re-projects every album from scratch, in parallel id ranges of rebuild-chunk albums
+    public void rebuild() {
+        Integer maxAlbumId = albumRepository.findTableVersion().getMaxId();
+        Integer maxListingId = listingRepository.findMaxId();
+        int last = Math.max(maxAlbumId == null ? 0 : maxAlbumId, maxListingId == null ? 0 : maxListingId);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (long from = 0; from <= last; from += rebuildChunk) {
+            int start = (int) from;
+            int end = (int) Math.min(from + rebuildChunk - 1, last);
+            chunks.add(CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+                listingRepository.clearRange(start, end);
+                listingRepository.projectRange(start, end);
+            }), executor));
+        }
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void mark(Map<Integer, Long> dirty, Integer id) {
+        if (!enabled || id == null) return;
+        dirty.putIfAbsent(id, System.nanoTime());
+        drainInBackground();
+    }
+
+    // at most one drain runs at a time; marks made while it runs are picked up by its loop, or by
+    // the next drain if they lost the race with its end
+    private void drainInBackground() {
+        if (running.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    drain();
+                } catch (RuntimeException e) {
+                    // the batch went back into the dirty set; the next write retries it
+                    log.warn("Could not apply changes to album_listing", e);
+                    return;
+                } finally {
+                    running.set(false);
+                }
+                if (pending() > 0) drainInBackground();
+            }, executor);
+        }
+    }
+
+    // takes up to batch-size keys out of the dirty set and applies them in one transaction; on failure
+    // they are put back with their original mark times
+    private void applyBatch(Map<Integer, Long> dirty, BatchWrite write) {
+        if (dirty.isEmpty()) return;
+        Map<Integer, Long> batch = new HashMap<>();
+        long oldest = 0;
+        for (Iterator<Map.Entry<Integer, Long>> it = dirty.entrySet().iterator(); it.hasNext() && batch.size() < batchSize; ) {
+            Map.Entry<Integer, Long> entry = it.next();
+            if (dirty.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+                if (oldest == 0 || entry.getValue() < oldest) oldest = entry.getValue();
+            }
+        }
+        if (batch.isEmpty()) return;
+        inFlightSince = oldest;
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> write.apply(batch.keySet()));
+        } catch (RuntimeException e) {
+            batch.forEach(dirty::putIfAbsent);
+            throw e;
+        } finally {
+            inFlightSince = 0;
+        }
+    }
+
+    private interface BatchWrite {
+        void apply(Collection<Integer> ids);
+    }
+}
@@ -0,0 +1,333 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.config.LookupCacheConfig;
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.BatchItemResult;
+import com.company.musicstorecatalog.model.BatchResult;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.ArtistRepository;
+import com.company.musicstorecatalog.repository.LabelRepository;
+import com.company.musicstorecatalog.repository.TrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Bulk writes behind POST / PUT /album/batch and /track/batch. Every item is validated on its own and
+// rejected items are reported by index instead of failing the request. The valid ones are written with
+// plain JDBC batches (AlbumBatchRepository, TrackBatchRepository) in transactions of chunk-size rows,
+// each carrying its summary table updates; a chunk that fails is retried one item per transaction, so
+// a bad row only costs its own item. When MySQL itself fails (lost connection, lock wait timeout) the
+// exception is thrown instead, since no item is at fault and the chunks before it stay committed.
+// Lookup caches, snapshot and search index follow each committed chunk.
+@Service
+public class BatchWriteService {
+    @Value("${catalog.batch.chunk-size:1000}")
+    int chunkSize;
+
+    @Value("${catalog.batch.max-items:50000}")
+    int maxItems;
+
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    CatalogStatsService statsService;
+    @Autowired
+    CatalogOutbox outbox;
+    @Autowired
+    AlbumListingProjector listingProjector;
+    @Autowired
+    CatalogSnapshotService snapshots;
+    @Autowired
+    SearchService searchService;
+    @Autowired
+    CacheManager cacheManager;
+    @Autowired
+    Validator validator;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    public BatchResult addTracks(List<Track> tracks) {
+        return write(tracks, true, Track::getTrackId, "track", this::checkTrackReferences,
+                this::insertTrackChunk, this::tracksCommitted);
+    }
+
+    public BatchResult updateTracks(List<Track> tracks) {
+        return write(tracks, false, Track::getTrackId, "track", this::checkTrackReferences,
+                this::updateTrackChunk, written -> tracksCommitted(reload(written, Track::getTrackId,
+                        LookupCacheConfig.TRACK_CACHE, trackRepository::findAllById)));
+    }
+
+    public BatchResult addAlbums(List<Album> albums) {
+        return write(albums, true, Album::getAlbumId, "album", this::checkAlbumReferences,
+                this::insertAlbumChunk, this::albumsCommitted);
+    }
+
+    public BatchResult updateAlbums(List<Album> albums) {
+        return write(albums, false, Album::getAlbumId, "album", this::checkAlbumReferences,
+                this::updateAlbumChunk, written -> albumsCommitted(reload(written, Album::getAlbumId,
+                        LookupCacheConfig.ALBUM_CACHE, albumRepository::findAllById)));
+    }
+
+    private <T> BatchResult write(List<T> items, boolean insert, Function<T, Integer> idOf, String name,
+                                  ReferenceCheck<T> checkReferences, ChunkWrite<T> writeChunk,
+                                  Consumer<List<T>> committed) {
+        if (items == null || items.isEmpty())
+            throw new IllegalArgumentException("No " + name + " data is passed! The batch is empty!");
+        if (items.size() > maxItems)
+            throw new IllegalArgumentException("A batch holds at most " + maxItems + " items, got " + items.size());
+
+        List<List<String>> errors = new ArrayList<>();
+        for (T item : items) {
+            List<String> itemErrors = new ArrayList<>();
+            if (item == null) {
+                itemErrors.add("No " + name + " data is passed! Item is null!");
+            } else {
+                for (ConstraintViolation<T> violation : validator.validate(item)) {
+                    itemErrors.add(violation.getMessage());
+                }
+                if (insert && idOf.apply(item) != null) itemErrors.add("A new " + name + " must not have an id.");
+                if (!insert && idOf.apply(item) == null) itemErrors.add("No such " + name + " to update.");
+            }
+            errors.add(itemErrors);
+        }
+        checkReferences.check(items, errors);
+        if (!insert) {
+            // an update that misses its row is a version conflict, see conflicts()
+            checkExisting(items, errors, idOf, name, name.equals("album")
+                    ? albumRepository::findExistingIds : trackRepository::findExistingIds);
+        }
+
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (errors.get(i).isEmpty()) valid.add(i);
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            List<Integer> indexes = valid.subList(from, Math.min(from + chunkSize, valid.size()));
+            List<T> written;
+            try {
+                written = writeAndReport(transaction, items, indexes, errors, writeChunk);
+            } catch (RuntimeException e) {
+                if (unavailable(e)) throw e;
+                // something in the chunk broke the batch statement; find out which rows it was
+                written = new ArrayList<>();
+                for (Integer index : indexes) {
+                    try {
+                        written.addAll(writeAndReport(transaction, items, Collections.singletonList(index), errors, writeChunk));
+                    } catch (RuntimeException itemError) {
+                        if (unavailable(itemError)) {
+                            committed.accept(written);
+                            throw itemError;
+                        }
+                        errors.get(index).add(Objects.toString(
+                                NestedExceptionUtils.getMostSpecificCause(itemError).getMessage(), "Could not write " + name));
+                    }
+                }
+            }
+            committed.accept(written);
+        }
+
+        List<BatchItemResult> results = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            Integer id = items.get(i) == null ? null : idOf.apply(items.get(i));
+            results.add(errors.get(i).isEmpty()
+                    ? BatchItemResult.written(i, id)
+                    : BatchItemResult.rejected(i, id, errors.get(i)));
+        }
+        return new BatchResult(results);
+    }
+
+    // MySQL could not run the statement at all, so retrying later may well succeed
+    private static boolean unavailable(RuntimeException e) {
+        return e instanceof TransientDataAccessException || e instanceof CannotCreateTransactionException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    // one transaction for the items at indexes; conflicts are recorded per item, the written items returned
+    private <T> List<T> writeAndReport(TransactionTemplate transaction, List<T> items, List<Integer> indexes,
+                                       List<List<String>> errors, ChunkWrite<T> writeChunk) {
+        List<T> chunk = indexes.stream().map(items::get).collect(Collectors.toList());
+        List<String> conflicts = transaction.execute(status -> writeChunk.write(chunk));
+        List<T> written = new ArrayList<>();
+        for (int i = 0; i < indexes.size(); i++) {
+            if (conflicts.get(i) == null) written.add(chunk.get(i));
+            else errors.get(indexes.get(i)).add(conflicts.get(i));
+        }
+        return written;
+    }
+
+    private void checkTrackReferences(List<Track> tracks, List<List<String>> errors) {
+        checkReferences(tracks, errors, Track::getAlbumId, "album", albumRepository::findExistingIds);
+    }
+
+    private void checkAlbumReferences(List<Album> albums, List<List<String>> errors) {
+        for (int i = 0; i < albums.size(); i++) {
+            Album album = albums.get(i);
+            if (album == null) continue;
+            // required by the album table, the single-row path finds out from MySQL
+            if (album.getArtistId() == null) errors.get(i).add("Artist ID is required.");
+            if (album.getLabelId() == null) errors.get(i).add("Label ID is required.");
+            if (album.getReleaseDate() == null) errors.get(i).add("Release date is required.");
+        }
+        checkReferences(albums, errors, Album::getArtistId, "artist", artistRepository::findExistingIds);
+        checkReferences(albums, errors, Album::getLabelId, "label", labelRepository::findExistingIds);
+    }
+
+    private <T> void checkReferences(List<T> items, List<List<String>> errors, Function<T, Integer> referenceOf,
+                                     String name, Function<Collection<Integer>, List<Integer>> findExisting) {
+        Set<Integer> existing = existingIds(items, referenceOf, findExisting);
+        for (int i = 0; i < items.size(); i++) {
+            Integer id = items.get(i) == null ? null : referenceOf.apply(items.get(i));
+            if (id != null && !existing.contains(id)) errors.get(i).add("No " + name + " was found with Id: " + id);
+        }
+    }
+
+    private <T> void checkExisting(List<T> items, List<List<String>> errors, Function<T, Integer> idOf,
+                                   String name, Function<Collection<Integer>, List<Integer>> findExisting) {
+        Set<Integer> existing = existingIds(items, idOf, findExisting);
+        for (int i = 0; i < items.size(); i++) {
+            if (!errors.get(i).isEmpty()) continue;
+            Integer id = idOf.apply(items.get(i));
+            if (!existing.contains(id)) errors.get(i).add("No " + name + " was found with Id: " + id);
+        }
+    }
+
+    // looked up chunk-size ids at a time, to keep the IN lists bounded
+    private <T> Set<Integer> existingIds(List<T> items, Function<T, Integer> idOf,
+                                         Function<Collection<Integer>, List<Integer>> findExisting) {
+        List<Integer> ids = items.stream().filter(Objects::nonNull).map(idOf)
+                .filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        Set<Integer> existing = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            existing.addAll(findExisting.apply(ids.subList(from, Math.min(from + chunkSize, ids.size()))));
+        }
+        return existing;
+    }
+
+    private List<String> insertTrackChunk(List<Track> tracks) {
+        trackRepository.insertBatch(tracks);
+        statsService.tracksWritten(Collections.emptyList(), tracks);
+        outbox.saved(CatalogOutbox.TRACK, tracks.stream().map(Track::getTrackId).collect(Collectors.toList()));
+        tracks.forEach(track -> listingProjector.albumChanged(track.getAlbumId()));
+        return Collections.nCopies(tracks.size(), null);
+    }
+
+    private List<String> updateTrackChunk(List<Track> tracks) {
+        List<Object[]> before = trackRepository.findStatsRowsByIds(
+                tracks.stream().map(Track::getTrackId).collect(Collectors.toList()));
+        List<String> conflicts = conflicts(trackRepository.updateBatch(tracks), tracks, Track::getTrackId, Track::getVersion, "Track");
+        Set<Integer> updated = updatedIds(tracks, conflicts, Track::getTrackId);
+        List<Object[]> moved = before.stream().filter(row -> updated.contains((Integer) row[0])).collect(Collectors.toList());
+        List<Track> written = tracks.stream().filter(track -> updated.contains(track.getTrackId())).collect(Collectors.toList());
+        statsService.tracksWritten(moved, written);
+        outbox.saved(CatalogOutbox.TRACK, updated);
+        // a track may have moved, so both its old and its new album change
+        moved.forEach(row -> listingProjector.albumChanged((Integer) row[1]));
+        written.forEach(track -> listingProjector.albumChanged(track.getAlbumId()));
+        return conflicts;
+    }
+
+    private List<String> insertAlbumChunk(List<Album> albums) {
+        albumRepository.insertBatch(albums);
+        statsService.albumsWritten(Collections.emptyList(), albums, true);
+        outbox.saved(CatalogOutbox.ALBUM, albums.stream().map(Album::getAlbumId).collect(Collectors.toList()));
+        albums.forEach(album -> listingProjector.albumChanged(album.getAlbumId()));
+        return Collections.nCopies(albums.size(), null);
+    }
+
+    private List<String> updateAlbumChunk(List<Album> albums) {
+        List<Object[]> before = albumRepository.findStatsRowsByIds(
+                albums.stream().map(Album::getAlbumId).collect(Collectors.toList()));
+        List<String> conflicts = conflicts(albumRepository.updateBatch(albums), albums, Album::getAlbumId, Album::getVersion, "Album");
+        Set<Integer> updated = updatedIds(albums, conflicts, Album::getAlbumId);
+        statsService.albumsWritten(
+                before.stream().filter(row -> updated.contains((Integer) row[0])).collect(Collectors.toList()),
+                albums.stream().filter(album -> updated.contains(album.getAlbumId())).collect(Collectors.toList()),
+                false);
+        outbox.saved(CatalogOutbox.ALBUM, updated);
+        updated.forEach(listingProjector::albumChanged);
+        return conflicts;
+    }
+
+    // the rows of an update were checked to exist, so a row the statement missed had another version
+    private static <T> List<String> conflicts(int[] counts, List<T> rows, Function<T, Integer> idOf,
+                                              Function<T, Integer> versionOf, String name) {
+        List<String> conflicts = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            conflicts.add(counts[i] == 0
+                    ? name + " " + idOf.apply(rows.get(i)) + " is no longer at version " + versionOf.apply(rows.get(i))
+                    : null);
+        }
+        return conflicts;
+    }
+
+    private static <T> Set<Integer> updatedIds(List<T> rows, List<String> conflicts, Function<T, Integer> idOf) {
+        Set<Integer> updated = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (conflicts.get(i) == null) updated.add(idOf.apply(rows.get(i)));
+        }
+        return updated;
+    }
+
+    // the batch UPDATE bypasses the repositories' @CachePut and bumps versions in MySQL only, so updated
+    // rows leave the lookup cache and are read back once for the snapshot and the search index
+    private <T> List<T> reload(List<T> written, Function<T, Integer> idOf, String cacheName,
+                               Function<List<Integer>, List<T>> findAllById) {
+        if (written.isEmpty()) return written;
+        List<Integer> ids = written.stream().map(idOf).collect(Collectors.toList());
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) ids.forEach(cache::evict);
+        return findAllById.apply(ids);
+    }
+
+    private void tracksCommitted(List<Track> tracks) {
+        for (Track track : tracks) {
+            snapshots.trackSaved(track);
+            searchService.trackSaved(track);
+        }
+    }
+
+    private void albumsCommitted(List<Album> albums) {
+        for (Album album : albums) {
+            snapshots.albumSaved(album);
+            searchService.albumSaved(album);
+        }
+    }
+
+    private interface ReferenceCheck<T> {
+        void check(List<T> items, List<List<String>> errors);
+    }
+
+    private interface ChunkWrite<T> {
+        // one entry per row, null when the row was written, otherwise why it was not
+        List<String> write(List<T> chunk);
+    }
+}
@@ -0,0 +1,198 @@
+package com.company.musicstorecatalog.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Reads a supplier catalog file one record at a time, so an import holds no more of the file than the
+// record being parsed. Every record is one track with its album, artist and label spelled out; the
+// tracks of an album follow each other. CSV files start with a header row naming the columns in any
+// order (track and run_time may be left out for album-only files); NDJSON rows use the same names in
+// camelCase.
+abstract class CatalogFileReader implements Closeable {
+    static final List<String> REQUIRED_COLUMNS = Arrays.asList("artist", "label", "album", "release_date", "list_price");
+    static final List<String> TRACK_COLUMNS = Arrays.asList("track", "run_time");
+
+    static CatalogFileReader open(InputStream in, ImportFormat format) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        return format == ImportFormat.NDJSON ? new Ndjson(reader) : new Csv(reader);
+    }
+
+    // the next record, or null at the end of the file
+    abstract Row next() throws IOException;
+
+    static final class Row {
+        final long line;
+        final String artist;
+        final String label;
+        final String album;
+        final String releaseDate;
+        final String listPrice;
+        final String track;
+        final String runTime;
+
+        Row(long line, String artist, String label, String album, String releaseDate, String listPrice,
+            String track, String runTime) {
+            this.line = line;
+            this.artist = artist;
+            this.label = label;
+            this.album = album;
+            this.releaseDate = releaseDate;
+            this.listPrice = listPrice;
+            this.track = track;
+            this.runTime = runTime;
+        }
+    }
+
+    // RFC 4180: fields may be quoted, quoted fields may hold separators, line breaks and doubled quotes
+    static final class Csv extends CatalogFileReader {
+        private final Reader reader;
+        private final int[] columns = new int[REQUIRED_COLUMNS.size() + TRACK_COLUMNS.size()];
+        private long line = 1;
+        private int pending = -2;
+
+        Csv(Reader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = readRecord();
+            if (header == null) throw new IllegalArgumentException("The catalog file is empty!");
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+                positions.putIfAbsent(name, i);
+            }
+            List<String> missing = new ArrayList<>();
+            for (int i = 0; i < REQUIRED_COLUMNS.size(); i++) {
+                Integer position = positions.get(REQUIRED_COLUMNS.get(i));
+                if (position == null) missing.add(REQUIRED_COLUMNS.get(i));
+                columns[i] = position == null ? -1 : position;
+            }
+            if (!missing.isEmpty()) throw new IllegalArgumentException("The catalog file has no " + missing + " column");
+            for (int i = 0; i < TRACK_COLUMNS.size(); i++) {
+                columns[REQUIRED_COLUMNS.size() + i] = positions.getOrDefault(TRACK_COLUMNS.get(i), -1);
+            }
+        }
+
+        @Override
+        Row next() throws IOException {
+            List<String> record;
+            long start;
+            do {
+                start = line;
+                record = readRecord();
+                if (record == null) return null;
+            } while (record.size() == 1 && record.get(0).isEmpty());
+            return new Row(start, field(record, 0), field(record, 1), field(record, 2), field(record, 3),
+                    field(record, 4), field(record, 5), field(record, 6));
+        }
+
+        private String field(List<String> record, int column) {
+            int position = columns[column];
+            return position < 0 || position >= record.size() ? null : record.get(position);
+        }
+
+        private List<String> readRecord() throws IOException {
+            int c = read();
+            if (c == -1) return null;
+            List<String> record = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            long quoteLine = line;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) throw new IOException("Unterminated quoted field starting on line " + quoteLine);
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    }
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                    quoteLine = line;
+                } else if (c == '\n' || c == -1) {
+                    if (c == '\n') line++;
+                    record.add(field.toString());
+                    return record;
+                } else if (c == '\r') {
+                    int after = read();
+                    if (after != '\n') unread(after);
+                    line++;
+                    record.add(field.toString());
+                    return record;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        private void unread(int c) {
+            pending = c;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    static final class Ndjson extends CatalogFileReader {
+        private static final ObjectMapper mapper = new ObjectMapper();
+
+        private final MappingIterator<JsonNode> rows;
+
+        Ndjson(Reader reader) throws IOException {
+            this.rows = mapper.readerFor(JsonNode.class).readValues(reader);
+        }
+
+        @Override
+        Row next() throws IOException {
+            if (!rows.hasNextValue()) return null;
+            JsonParser parser = rows.getParser();
+            JsonNode row = rows.nextValue();
+            long line = parser.getCurrentLocation().getLineNr();
+            return new Row(line, text(row, "artist"), text(row, "label"), text(row, "album"), text(row, "releaseDate"),
+                    text(row, "listPrice"), text(row, "track"), text(row, "runTime"));
+        }
+
+        private static String text(JsonNode row, String field) {
+            JsonNode value = row.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+
+        @Override
+        public void close() throws IOException {
+            rows.close();
+        }
+    }
+}
@@ -0,0 +1,951 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.config.LookupCacheConfig;
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.ImportChange;
+import com.company.musicstorecatalog.model.ImportProgress;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.ArtistRepository;
+import com.company.musicstorecatalog.repository.LabelRepository;
+import com.company.musicstorecatalog.repository.TrackRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Streaming import of supplier catalog files (POST /import, or `import <file>` on the command line).
+// Three stages run concurrently, joined by bounded queues so a slow stage holds the ones before it
+// back instead of letting the file pile up in memory:
+//   parse    - the caller's thread reads records off the stream (CatalogFileReader)
+//   validate - checks each record and groups consecutive records of the same album
+//   write    - resolves artist and label names through a per-import lookup cache, creating the
+//              missing ones, and inserts albums and tracks with JDBC batches, one transaction per chunk
+// Rejected records are counted and the first ones reported by line; progress is logged as it goes
+// and listed by GET /import.
+//
+// A reconciliation (POST /import?reconcile=true, or `reconcile <file>`) swaps the write stage for a
+// merge of the feed against what is stored, so a nightly feed that is mostly unchanged only writes its
+// delta. The feed lists each artist's albums together; per artist, the feed's albums and the stored ones
+// (idx_album_artist_release) are sorted by release date and title and merge-joined: feed-only albums are
+// inserted, albums whose label or price moved are updated, and the tracks of matched albums are merged
+// by title the same way. Stored albums of the feed's labels that the feed no longer lists are deleted
+// at the end; a rejected record deletes nothing, its stored album or track stays as it is. Changes are flushed with JDBC batches, one transaction per chunk of changes; a dry run
+// resolves names without creating any and only reports the diff.
+@Service
+public class CatalogImportService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogImportService.class);
+
+    @Value("${catalog.import.chunk-size:1000}")
+    int chunkSize;
+
+    @Value("${catalog.import.queue-capacity:4}")
+    int queueCapacity;
+
+    @Value("${catalog.import.lookup-cache-size:100000}")
+    int lookupCacheSize;
+
+    @Value("${catalog.import.max-errors:100}")
+    int maxErrors;
+
+    @Value("${catalog.import.progress-interval:5s}")
+    Duration progressInterval;
+
+    @Value("${catalog.import.history:20}")
+    int history;
+
+    @Value("${catalog.import.max-changes:1000}")
+    int maxChanges;
+
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    CatalogStatsService statsService;
+    @Autowired
+    CatalogOutbox outbox;
+    @Autowired
+    AlbumListingProjector listingProjector;
+    @Autowired
+    CatalogSnapshotService snapshots;
+    @Autowired
+    SearchService searchService;
+    @Autowired
+    SuggestService suggestService;
+    @Autowired
+    Validator validator;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    CacheManager cacheManager;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final Deque<Job> jobs = new ConcurrentLinkedDeque<>();
+
+    // newest first; running imports show their live counts
+    public List<ImportProgress> imports() {
+        return jobs.stream().map(Job::progress).collect(Collectors.toList());
+    }
+
+    // reads the whole stream and returns once every stage is done; the caller closes the stream
+    public ImportProgress importCatalog(InputStream in, ImportFormat format, String source) {
+        return run(in, format, source, Mode.IMPORT);
+    }
+
+    // the feed is the whole catalog of the labels it names, see above
+    public ImportProgress reconcile(InputStream in, ImportFormat format, String source, boolean dryRun) {
+        return run(in, format, source, dryRun ? Mode.DRY_RUN : Mode.RECONCILE);
+    }
+
+    private ImportProgress run(InputStream in, ImportFormat format, String source, Mode mode) {
+        Job job = new Job(ids.incrementAndGet(), source, mode);
+        jobs.addFirst(job);
+        while (jobs.size() > history) jobs.pollLast();
+
+        BlockingQueue<List<CatalogFileReader.Row>> rows = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<AlbumImport>> albums = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService stages = Executors.newFixedThreadPool(2,
+                task -> new Thread(task, "catalog-import-" + job.id + "-" + threads.incrementAndGet()));
+        try {
+            CompletableFuture<Void> validate = CompletableFuture.runAsync(() -> validate(job, rows, albums), stages);
+            CompletableFuture<Void> write = CompletableFuture.runAsync(
+                    () -> { if (mode == Mode.IMPORT) write(job, albums); else reconcile(job, albums); }, stages);
+            parse(job, in, format, rows);
+            CompletableFuture.allOf(validate, write).join();
+        } finally {
+            stages.shutdownNow();
+        }
+        job.finish();
+        log.info("Import {} {}: {}", job.id, job.state, job.progress());
+        return job.progress();
+    }
+
+    private void parse(Job job, InputStream in, ImportFormat format, BlockingQueue<List<CatalogFileReader.Row>> rows) {
+        try (CatalogFileReader reader = CatalogFileReader.open(in, format)) {
+            List<CatalogFileReader.Row> batch = new ArrayList<>(chunkSize);
+            CatalogFileReader.Row row;
+            while (job.failure == null && (row = reader.next()) != null) {
+                job.rowsRead.incrementAndGet();
+                batch.add(row);
+                if (batch.size() == chunkSize) {
+                    put(rows, batch);
+                    batch = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!batch.isEmpty()) put(rows, batch);
+        } catch (IOException | RuntimeException e) {
+            job.fail(e);
+        } finally {
+            put(rows, Collections.emptyList());
+        }
+    }
+
+    // an empty batch marks the end; after a failure the stage keeps taking batches so the one before
+    // it never blocks on a full queue
+    private void validate(Job job, BlockingQueue<List<CatalogFileReader.Row>> rows, BlockingQueue<List<AlbumImport>> albums) {
+        List<AlbumImport> chunk = new ArrayList<>();
+        int chunkTracks = 0;
+        AlbumImport current = null;
+        try {
+            for (List<CatalogFileReader.Row> batch = take(rows); !batch.isEmpty(); batch = take(rows)) {
+                if (job.failure != null) continue;
+                try {
+                    for (CatalogFileReader.Row row : batch) {
+                        if (current == null || !current.isSameAlbum(row)) {
+                            if (current != null && current.accept(job)) {
+                                chunk.add(current);
+                                chunkTracks += current.tracks.size();
+                            }
+                            if (chunk.size() >= chunkSize || chunkTracks >= chunkSize) {
+                                put(albums, chunk);
+                                chunk = new ArrayList<>();
+                                chunkTracks = 0;
+                            }
+                            current = newAlbum(row);
+                        }
+                        addTrack(job, current, row);
+                    }
+                } catch (RuntimeException e) {
+                    job.fail(e);
+                }
+            }
+            if (job.failure == null && current != null && current.accept(job)) chunk.add(current);
+            if (job.failure == null && !chunk.isEmpty()) put(albums, chunk);
+        } finally {
+            put(albums, Collections.emptyList());
+        }
+    }
+
+    private void write(Job job, BlockingQueue<List<AlbumImport>> albums) {
+        Map<String, Integer> artistIds = lookupCache();
+        Map<String, Integer> labelIds = lookupCache();
+        for (List<AlbumImport> chunk = take(albums); !chunk.isEmpty(); chunk = take(albums)) {
+            if (job.failure != null) continue;
+            try {
+                resolveNames(job, chunk, artistIds, labelIds);
+                writeChunk(job, chunk);
+                job.logProgressIfDue();
+            } catch (RuntimeException e) {
+                job.fail(e);
+            }
+        }
+    }
+
+    // the write stage of a reconciliation; an artist's albums may span chunks, so the merge of an artist
+    // waits for the first album of the next one
+    private void reconcile(Job job, BlockingQueue<List<AlbumImport>> albums) {
+        Reconciliation reconciliation = new Reconciliation(job);
+        for (List<AlbumImport> chunk = take(albums); !chunk.isEmpty(); chunk = take(albums)) {
+            if (job.failure != null) continue;
+            try {
+                for (AlbumImport album : chunk) reconciliation.add(album);
+                job.logProgressIfDue();
+            } catch (RuntimeException e) {
+                job.fail(e);
+            }
+        }
+        if (job.failure != null) return;
+        try {
+            reconciliation.finish();
+        } catch (RuntimeException e) {
+            job.fail(e);
+        }
+    }
+
+    private AlbumImport newAlbum(CatalogFileReader.Row row) {
+        AlbumImport album = new AlbumImport(row);
+        album.album.setTitle(trim(row.album));
+        album.artistName = trim(row.artist);
+        album.labelName = trim(row.label);
+        if (album.artistName == null) album.errors.add("Artist name is required.");
+        else if (album.artistName.length() > 50) album.errors.add("Artist name is longer than 50 characters.");
+        if (album.labelName == null) album.errors.add("Label name is required.");
+        else if (album.labelName.length() > 50) album.errors.add("Label name is longer than 50 characters.");
+        if (trim(row.releaseDate) == null) album.errors.add("Release date is required.");
+        else album.album.setReleaseDate(parse(row.releaseDate, LocalDate::parse, "Release date", album.errors));
+        album.album.setListPrice(parse(row.listPrice, BigDecimal::new, "Price", album.errors));
+        for (ConstraintViolation<Album> violation : validator.validate(album.album)) {
+            if (!album.errors.contains(violation.getMessage())) album.errors.add(violation.getMessage());
+        }
+        return album;
+    }
+
+    private void addTrack(Job job, AlbumImport album, CatalogFileReader.Row row) {
+        album.lines.add(row.line);
+        if (trim(row.track) == null && trim(row.runTime) == null) return;
+        if (!album.errors.isEmpty()) return;
+        Track track = new Track();
+        track.setTitle(trim(row.track));
+        List<String> errors = new ArrayList<>();
+        track.setRunTime(parse(row.runTime, Integer::valueOf, "Run time", errors));
+        for (String property : new String[]{"title", "runTime"}) {
+            for (ConstraintViolation<Track> violation : validator.validateProperty(track, property)) {
+                if (!errors.contains(violation.getMessage())) errors.add(violation.getMessage());
+            }
+        }
+        if (errors.isEmpty()) {
+            album.tracks.add(track);
+        } else {
+            album.lines.remove(album.lines.size() - 1);
+            album.rejectedTracks.add(track.getTitle());
+            job.reject(row.line, errors);
+        }
+    }
+
+    // the lookup caches only ever hold committed ids: names are resolved, and missing ones created,
+    // in a transaction of their own before the chunk is written. A dry run creates nothing and leaves
+    // the ids of missing names null.
+    private void resolveNames(Job job, List<AlbumImport> chunk, Map<String, Integer> artistIds, Map<String, Integer> labelIds) {
+        boolean create = job.mode != Mode.DRY_RUN;
+        List<Artist> newArtists = new ArrayList<>();
+        List<Label> newLabels = new ArrayList<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            resolve(chunk, album -> album.artistName, artistIds, names -> artistRepository.findByNameIn(names).stream()
+                    .sorted(Comparator.comparing(Artist::getArtistId))
+                    .collect(Collectors.toMap(Artist::getName, Artist::getArtistId, (first, second) -> first)), name -> {
+                if (!create) return null;
+                Artist artist = new Artist();
+                artist.setName(name);
+                artist = artistRepository.save(artist);
+                statsService.artistSaved(artist);
+                outbox.saved(CatalogOutbox.ARTIST, artist.getArtistId());
+                newArtists.add(artist);
+                return artist.getArtistId();
+            });
+            resolve(chunk, album -> album.labelName, labelIds, names -> labelRepository.findByNameIn(names).stream()
+                    .sorted(Comparator.comparing(Label::getLabelId))
+                    .collect(Collectors.toMap(Label::getName, Label::getLabelId, (first, second) -> first)), name -> {
+                if (!create) return null;
+                Label label = new Label();
+                label.setName(name);
+                label = labelRepository.save(label);
+                statsService.labelSaved(label);
+                outbox.saved(CatalogOutbox.LABEL, label.getLabelId());
+                newLabels.add(label);
+                return label.getLabelId();
+            });
+        });
+        for (Artist artist : newArtists) {
+            snapshots.artistSaved(artist);
+            searchService.artistSaved(artist);
+        }
+        newLabels.forEach(snapshots::labelSaved);
+        if (!newArtists.isEmpty()) suggestService.artistsChanged();
+        if (!newLabels.isEmpty()) suggestService.labelsChanged();
+        job.artistsCreated.addAndGet(newArtists.size());
+        job.labelsCreated.addAndGet(newLabels.size());
+        for (AlbumImport album : chunk) {
+            album.album.setArtistId(artistIds.get(album.artistName));
+            album.album.setLabelId(labelIds.get(album.labelName));
+        }
+    }
+
+    private static void resolve(List<AlbumImport> chunk, Function<AlbumImport, String> nameOf, Map<String, Integer> ids,
+                                Function<Collection<String>, Map<String, Integer>> find, Function<String, Integer> create) {
+        List<String> missing = chunk.stream().map(nameOf).distinct()
+                .filter(name -> !ids.containsKey(name)).collect(Collectors.toList());
+        if (missing.isEmpty()) return;
+        Map<String, Integer> found = find.apply(missing);
+        for (String name : missing) {
+            Integer id = found.get(name);
+            ids.put(name, id != null ? id : create.apply(name));
+        }
+    }
+
+    // one transaction for the chunk; if it fails, one per album so the bad album is found and reported
+    private void writeChunk(Job job, List<AlbumImport> chunk) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> insert(chunk));
+            committed(job, chunk);
+        } catch (RuntimeException e) {
+            for (AlbumImport album : chunk) {
+                try {
+                    transaction.executeWithoutResult(status -> insert(Collections.singletonList(album)));
+                    committed(job, Collections.singletonList(album));
+                } catch (RuntimeException albumError) {
+                    String message = Objects.toString(NestedExceptionUtils.getMostSpecificCause(albumError).getMessage(),
+                            "Could not write album");
+                    album.lines.forEach(line -> job.reject(line, Collections.singletonList(message)));
+                }
+            }
+        }
+    }
+
+    private void insert(List<AlbumImport> chunk) {
+        List<Album> albums = chunk.stream().map(album -> album.album).collect(Collectors.toList());
+        albumRepository.insertBatch(albums);
+        statsService.albumsWritten(Collections.emptyList(), albums, true);
+        outbox.saved(CatalogOutbox.ALBUM, ids(albums, Album::getAlbumId));
+        List<Track> tracks = new ArrayList<>();
+        for (AlbumImport album : chunk) {
+            for (Track track : album.tracks) {
+                track.setAlbumId(album.album.getAlbumId());
+                tracks.add(track);
+            }
+            listingProjector.albumChanged(album.album.getAlbumId());
+        }
+        trackRepository.insertBatch(tracks);
+        statsService.tracksWritten(Collections.emptyList(), tracks);
+        outbox.saved(CatalogOutbox.TRACK, ids(tracks, Track::getTrackId));
+    }
+
+    private void committed(Job job, List<AlbumImport> chunk) {
+        for (AlbumImport album : chunk) {
+            snapshots.albumSaved(album.album);
+            searchService.albumSaved(album.album);
+            for (Track track : album.tracks) {
+                snapshots.trackSaved(track);
+                searchService.trackSaved(track);
+            }
+            job.albumsWritten.incrementAndGet();
+            job.tracksWritten.addAndGet(album.tracks.size());
+        }
+    }
+
+    private void evict(String cacheName, Collection<Integer> ids) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) ids.forEach(cache::evict);
+    }
+
+    // least recently used names drop out first
+    private Map<String, Integer> lookupCache() {
+        return new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > lookupCacheSize;
+            }
+        };
+    }
+
+    private static <T> T parse(String value, Function<String, T> parser, String name, List<String> errors) {
+        String trimmed = trim(value);
+        if (trimmed == null) return null;
+        try {
+            return parser.apply(trimmed);
+        } catch (RuntimeException e) {
+            errors.add(name + " is not valid: " + trimmed);
+            return null;
+        }
+    }
+
+    private static String trim(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Catalog import was interrupted", e);
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Catalog import was interrupted", e);
+        }
+    }
+
+    private enum Mode {
+        IMPORT, RECONCILE, DRY_RUN;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    // feed and stored rows meet in this order; stored duplicates keep their album_id / track_id order
+    private static final Comparator<Album> ALBUM_ORDER =
+            Comparator.comparing(Album::getReleaseDate).thenComparing(Album::getTitle);
+    private static final Comparator<Track> TRACK_ORDER =
+            Comparator.comparing(Track::getTitle).thenComparing(Track::getRunTime);
+
+    // merge state of one reconciliation, used by the write stage's thread only
+    private final class Reconciliation {
+        final Job job;
+        final boolean dryRun;
+        final Map<String, Integer> artistIds = lookupCache();
+        final Map<String, Integer> labelIds = lookupCache();
+        // every label the feed names: its stored albums are the ones the feed is the whole catalog of
+        final Set<Integer> feedLabelIds = new HashSet<>();
+        // stored albums the feed matched, and the ones it inserted
+        final BitSet kept = new BitSet();
+        final List<AlbumImport> artist = new ArrayList<>();
+        // artists merged so far; one that comes back would be merged against its stored albums twice
+        final Set<String> mergedArtists = new HashSet<>();
+        Delta delta = new Delta();
+
+        Reconciliation(Job job) {
+            this.job = job;
+            this.dryRun = job.mode == Mode.DRY_RUN;
+        }
+
+        void add(AlbumImport album) {
+            if (!artist.isEmpty() && !artist.get(0).artistName.equals(album.artistName)) {
+                mergedArtists.add(artist.get(0).artistName);
+                mergeArtist();
+            }
+            if (mergedArtists.contains(album.artistName)) {
+                throw new IllegalStateException("Artist " + album.artistName + " is listed again with album "
+                        + album.album.getTitle() + "; a reconciliation feed lists each artist's albums together.");
+            }
+            artist.add(album);
+        }
+
+        void finish() {
+            mergeArtist();
+            flush();
+            deleteUnlisted();
+            flush();
+        }
+
+        private void mergeArtist() {
+            if (artist.isEmpty()) return;
+            List<AlbumImport> feed = new ArrayList<>(artist);
+            artist.clear();
+            resolveNames(job, feed, artistIds, labelIds);
+            for (AlbumImport album : feed) {
+                if (album.album.getLabelId() != null) feedLabelIds.add(album.album.getLabelId());
+            }
+            Integer artistId = feed.get(0).album.getArtistId();
+            List<Album> stored = artistId == null ? Collections.emptyList()
+                    : albumRepository.findByArtistIdOrderByReleaseDateAscAlbumIdAsc(artistId);
+            Map<Integer, List<Track>> storedTracks = new HashMap<>();
+            for (int from = 0; from < stored.size(); from += chunkSize) {
+                List<Integer> albumIds = stored.subList(from, Math.min(stored.size(), from + chunkSize)).stream()
+                        .map(Album::getAlbumId).collect(Collectors.toList());
+                for (Track track : trackRepository.findByAlbumIdInOrderByAlbumIdAscTrackIdAsc(albumIds)) {
+                    storedTracks.computeIfAbsent(track.getAlbumId(), id -> new ArrayList<>()).add(track);
+                }
+            }
+            feed.sort(Comparator.comparing(album -> album.album, ALBUM_ORDER));
+            List<Album> sorted = new ArrayList<>(stored);
+            sorted.sort(ALBUM_ORDER);
+
+            int i = 0;
+            int j = 0;
+            while (i < feed.size() || j < sorted.size()) {
+                int order = i == feed.size() ? 1 : j == sorted.size() ? -1 : ALBUM_ORDER.compare(feed.get(i).album, sorted.get(j));
+                if (order < 0) {
+                    delta.insertAlbum(feed.get(i++));
+                } else if (order > 0) {
+                    // not in the feed: deleted by deleteUnlisted() if it belongs to one of the feed's labels
+                    j++;
+                } else {
+                    Album album = sorted.get(j++);
+                    kept.set(album.getAlbumId());
+                    mergeAlbum(feed.get(i++), album, storedTracks.getOrDefault(album.getAlbumId(), Collections.emptyList()));
+                }
+                if (delta.size() >= chunkSize) flush();
+            }
+        }
+
+        private void mergeAlbum(AlbumImport feed, Album stored, List<Track> storedTracks) {
+            Album album = feed.album;
+            album.setAlbumId(stored.getAlbumId());
+            if (Objects.equals(album.getLabelId(), stored.getLabelId()) && album.getListPrice().compareTo(stored.getListPrice()) == 0) {
+                job.albumsUnchanged.incrementAndGet();
+            } else {
+                delta.updateAlbum(album);
+            }
+
+            // an album the feed lists without tracks keeps the stored ones
+            if (feed.tracks.isEmpty()) return;
+            List<Track> tracks = new ArrayList<>(feed.tracks);
+            tracks.sort(TRACK_ORDER);
+            List<Track> sorted = new ArrayList<>(storedTracks);
+            sorted.sort(TRACK_ORDER);
+            int i = 0;
+            int j = 0;
+            while (i < tracks.size() || j < sorted.size()) {
+                int order = i == tracks.size() ? 1 : j == sorted.size() ? -1
+                        : tracks.get(i).getTitle().compareTo(sorted.get(j).getTitle());
+                if (order < 0) {
+                    Track track = tracks.get(i++);
+                    track.setAlbumId(album.getAlbumId());
+                    delta.insertTrack(track);
+                } else if (order > 0) {
+                    Track storedTrack = sorted.get(j++);
+                    if (!feed.rejectedTrack(storedTrack.getTitle())) delta.deleteTrack(storedTrack);
+                } else {
+                    Track track = tracks.get(i++);
+                    Track storedTrack = sorted.get(j++);
+                    if (track.getRunTime().equals(storedTrack.getRunTime())) {
+                        job.tracksUnchanged.incrementAndGet();
+                    } else {
+                        track.setTrackId(storedTrack.getTrackId());
+                        track.setAlbumId(album.getAlbumId());
+                        delta.updateTrack(track);
+                    }
+                }
+            }
+        }
+
+        // the feed's labels' stored albums it did not match, in keyset pages, less the ones of rejected
+        // records; a rejected record without artist or title could stand for any of them, so it keeps all
+        private void deleteUnlisted() {
+            if (feedLabelIds.isEmpty()) return;
+            if (job.rejectedUnkeyed) {
+                log.info("Import {}: a rejected record names no artist or album, no albums deleted", job.id);
+                return;
+            }
+            Set<String> rejected = rejectedAlbumKeys();
+            List<Integer> page;
+            Integer after = 0;
+            do {
+                page = albumRepository.findIdsByLabelIdsAfter(feedLabelIds, after, PageRequest.of(0, chunkSize));
+                List<Integer> unlisted = page.stream().filter(albumId -> !kept.get(albumId)).collect(Collectors.toList());
+                if (!rejected.isEmpty() && !unlisted.isEmpty()) {
+                    for (Album album : albumRepository.findAllById(unlisted)) {
+                        if (rejected.contains(album.getArtistId() + "\u0000" + album.getTitle())) unlisted.remove(album.getAlbumId());
+                    }
+                }
+                unlisted.forEach(delta::deleteAlbum);
+                if (delta.size() >= chunkSize) flush();
+                if (!page.isEmpty()) after = page.get(page.size() - 1);
+            } while (page.size() == chunkSize);
+        }
+
+        // the job's rejected albums by stored artist id and title; an artist that is not stored has none
+        private Set<String> rejectedAlbumKeys() {
+            Map<String, List<String>> titles = new HashMap<>();
+            for (String key : job.rejectedAlbums) {
+                int separator = key.indexOf('\u0000');
+                titles.computeIfAbsent(key.substring(0, separator), name -> new ArrayList<>()).add(key.substring(separator + 1));
+            }
+            Set<String> keys = new HashSet<>();
+            if (titles.isEmpty()) return keys;
+            for (Artist artist : artistRepository.findByNameIn(titles.keySet())) {
+                titles.get(artist.getName()).forEach(title -> keys.add(artist.getArtistId() + "\u0000" + title));
+            }
+            return keys;
+        }
+
+        private void flush() {
+            Delta flushed = delta;
+            delta = new Delta();
+            if (flushed.size() == 0) return;
+            if (dryRun) {
+                flushed.count(job);
+                if (!flushed.albumDeletes.isEmpty()) {
+                    job.tracksDeleted.addAndGet(trackRepository.findIdsByAlbumIds(flushed.albumDeletes).size());
+                }
+                return;
+            }
+            List<Integer> deletedTrackIds = new ArrayList<>();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (!flushed.albumInserts.isEmpty()) insert(flushed.albumInserts);
+                if (!flushed.albumUpdates.isEmpty()) {
+                    List<Object[]> before = albumRepository.findStatsRowsByIds(ids(flushed.albumUpdates, Album::getAlbumId));
+                    albumRepository.updateBatch(flushed.albumUpdates);
+                    statsService.albumsWritten(before, flushed.albumUpdates, false);
+                    outbox.saved(CatalogOutbox.ALBUM, ids(flushed.albumUpdates, Album::getAlbumId));
+                    flushed.albumUpdates.forEach(album -> listingProjector.albumChanged(album.getAlbumId()));
+                }
+                List<Integer> trackIds = ids(flushed.trackUpdates, Track::getTrackId);
+                trackIds.addAll(ids(flushed.trackDeletes, Track::getTrackId));
+                if (!flushed.albumDeletes.isEmpty()) {
+                    deletedTrackIds.addAll(trackRepository.findIdsByAlbumIds(flushed.albumDeletes));
+                    trackIds.addAll(deletedTrackIds);
+                }
+                List<Object[]> tracksBefore = trackIds.isEmpty() ? Collections.emptyList() : trackRepository.findStatsRowsByIds(trackIds);
+                trackRepository.updateBatch(flushed.trackUpdates);
+                trackRepository.insertBatch(flushed.trackInserts);
+                List<Integer> trackDeletes = ids(flushed.trackDeletes, Track::getTrackId);
+                trackDeletes.addAll(deletedTrackIds);
+                if (!trackDeletes.isEmpty()) trackRepository.deleteAllByIdInBatch(trackDeletes);
+                List<Track> tracksAfter = new ArrayList<>(flushed.trackUpdates);
+                tracksAfter.addAll(flushed.trackInserts);
+                statsService.tracksWritten(tracksBefore, tracksAfter);
+                outbox.saved(CatalogOutbox.TRACK, ids(tracksAfter, Track::getTrackId));
+                outbox.deleted(CatalogOutbox.TRACK, trackDeletes);
+                if (!flushed.albumDeletes.isEmpty()) {
+                    List<Object[]> before = albumRepository.findStatsRowsByIds(flushed.albumDeletes);
+                    albumRepository.deleteAllByIdInBatch(flushed.albumDeletes);
+                    statsService.albumsWritten(before, Collections.emptyList(), false);
+                    statsService.albumsDeleted(flushed.albumDeletes);
+                    outbox.deleted(CatalogOutbox.ALBUM, flushed.albumDeletes);
+                }
+                flushed.trackChangedAlbums().forEach(listingProjector::albumChanged);
+                flushed.albumDeletes.forEach(listingProjector::albumChanged);
+            });
+
+            committed(job, flushed.albumInserts);
+            flushed.albumInserts.forEach(album -> kept.set(album.album.getAlbumId()));
+            List<Integer> updatedAlbumIds = ids(flushed.albumUpdates, Album::getAlbumId);
+            List<Integer> updatedTrackIds = ids(flushed.trackUpdates, Track::getTrackId);
+            List<Integer> deletedTracks = ids(flushed.trackDeletes, Track::getTrackId);
+            deletedTracks.addAll(deletedTrackIds);
+            // the batch statements bypass the repositories' cache annotations
+            evict(LookupCacheConfig.ALBUM_CACHE, updatedAlbumIds);
+            evict(LookupCacheConfig.ALBUM_CACHE, flushed.albumDeletes);
+            evict(LookupCacheConfig.TRACK_CACHE, updatedTrackIds);
+            evict(LookupCacheConfig.TRACK_CACHE, deletedTracks);
+            for (Album album : updatedAlbumIds.isEmpty() ? Collections.<Album>emptyList() : albumRepository.findAllById(updatedAlbumIds)) {
+                snapshots.albumSaved(album);
+                searchService.albumSaved(album);
+            }
+            List<Track> saved = updatedTrackIds.isEmpty() ? new ArrayList<>() : trackRepository.findAllById(updatedTrackIds);
+            saved.addAll(flushed.trackInserts);
+            for (Track track : saved) {
+                snapshots.trackSaved(track);
+                searchService.trackSaved(track);
+            }
+            for (Integer trackId : deletedTracks) {
+                snapshots.trackDeleted(trackId);
+                searchService.trackDeleted(trackId);
+            }
+            for (Integer albumId : flushed.albumDeletes) {
+                snapshots.albumDeleted(albumId);
+                searchService.albumDeleted(albumId);
+            }
+            flushed.count(job);
+            job.tracksDeleted.addAndGet(deletedTrackIds.size());
+        }
+    }
+
+    private static <T> List<Integer> ids(List<T> rows, Function<T, Integer> idOf) {
+        return rows.stream().map(idOf).collect(Collectors.toList());
+    }
+
+    // the changes a reconciliation has computed but not flushed yet
+    private static final class Delta {
+        final List<AlbumImport> albumInserts = new ArrayList<>();
+        final List<Album> albumUpdates = new ArrayList<>();
+        final List<Integer> albumDeletes = new ArrayList<>();
+        final List<Track> trackInserts = new ArrayList<>();
+        final List<Track> trackUpdates = new ArrayList<>();
+        final List<Track> trackDeletes = new ArrayList<>();
+        private int size;
+
+        void insertAlbum(AlbumImport album) {
+            albumInserts.add(album);
+            size += 1 + album.tracks.size();
+        }
+
+        // no version: the feed wins over whatever was stored
+        void updateAlbum(Album album) {
+            album.setVersion(null);
+            albumUpdates.add(album);
+            size++;
+        }
+
+        void deleteAlbum(Integer albumId) {
+            albumDeletes.add(albumId);
+            size++;
+        }
+
+        void insertTrack(Track track) {
+            trackInserts.add(track);
+            size++;
+        }
+
+        void updateTrack(Track track) {
+            track.setVersion(null);
+            trackUpdates.add(track);
+            size++;
+        }
+
+        void deleteTrack(Track track) {
+            trackDeletes.add(track);
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        Set<Integer> trackChangedAlbums() {
+            Set<Integer> albumIds = new HashSet<>();
+            trackInserts.forEach(track -> albumIds.add(track.getAlbumId()));
+            trackUpdates.forEach(track -> albumIds.add(track.getAlbumId()));
+            trackDeletes.forEach(track -> albumIds.add(track.getAlbumId()));
+            return albumIds;
+        }
+
+        // album inserts are counted by committed(), or here in a dry run
+        void count(Job job) {
+            if (job.mode == Mode.DRY_RUN) {
+                for (AlbumImport album : albumInserts) {
+                    job.albumsWritten.incrementAndGet();
+                    job.tracksWritten.addAndGet(album.tracks.size());
+                }
+            }
+            albumInserts.forEach(album -> job.change("insert", "album", album.album.getAlbumId(), album.album.getAlbumId(), album.album.getTitle()));
+            albumUpdates.forEach(album -> job.change("update", "album", album.getAlbumId(), album.getAlbumId(), album.getTitle()));
+            albumDeletes.forEach(albumId -> job.change("delete", "album", albumId, albumId, null));
+            trackInserts.forEach(track -> job.change("insert", "track", track.getTrackId(), track.getAlbumId(), track.getTitle()));
+            trackUpdates.forEach(track -> job.change("update", "track", track.getTrackId(), track.getAlbumId(), track.getTitle()));
+            trackDeletes.forEach(track -> job.change("delete", "track", track.getTrackId(), track.getAlbumId(), track.getTitle()));
+            job.albumsUpdated.addAndGet(albumUpdates.size());
+            job.albumsDeleted.addAndGet(albumDeletes.size());
+            job.tracksWritten.addAndGet(trackInserts.size());
+            job.tracksUpdated.addAndGet(trackUpdates.size());
+            job.tracksDeleted.addAndGet(trackDeletes.size());
+        }
+    }
+
+    // the records of one album, as far as the validate stage got them
+    private static final class AlbumImport {
+        final String key;
+        final Album album = new Album();
+        String artistName;
+        String labelName;
+        final List<String> errors = new ArrayList<>();
+        final List<Track> tracks = new ArrayList<>();
+        // every line still standing for this album, rejected along with it if its write fails
+        final List<Long> lines = new ArrayList<>();
+        // titles of its rejected track records (null when one had none); a reconciliation keeps them
+        final Set<String> rejectedTracks = new HashSet<>();
+
+        AlbumImport(CatalogFileReader.Row row) {
+            this.key = keyOf(row);
+        }
+
+        boolean isSameAlbum(CatalogFileReader.Row row) {
+            return key.equals(keyOf(row));
+        }
+
+        // an invalid album takes all its lines with it
+        boolean accept(Job job) {
+            if (errors.isEmpty()) return true;
+            lines.forEach(line -> job.reject(line, errors));
+            job.rejectAlbum(artistName, album.getTitle());
+            return false;
+        }
+
+        boolean rejectedTrack(String title) {
+            return !rejectedTracks.isEmpty() && (rejectedTracks.contains(null) || rejectedTracks.contains(title));
+        }
+
+        private static String keyOf(CatalogFileReader.Row row) {
+            return String.join("\u0000", Objects.toString(trim(row.artist), ""), Objects.toString(trim(row.label), ""),
+                    Objects.toString(trim(row.album), ""), Objects.toString(trim(row.releaseDate), ""),
+                    Objects.toString(trim(row.listPrice), ""));
+        }
+    }
+
+    private final class Job {
+        final long id;
+        final String source;
+        final Mode mode;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final long startNanos = System.nanoTime();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong rowsRejected = new AtomicLong();
+        final AtomicLong albumsWritten = new AtomicLong();
+        final AtomicLong tracksWritten = new AtomicLong();
+        final AtomicLong artistsCreated = new AtomicLong();
+        final AtomicLong labelsCreated = new AtomicLong();
+        final AtomicLong albumsUpdated = new AtomicLong();
+        final AtomicLong albumsDeleted = new AtomicLong();
+        final AtomicLong albumsUnchanged = new AtomicLong();
+        final AtomicLong tracksUpdated = new AtomicLong();
+        final AtomicLong tracksDeleted = new AtomicLong();
+        final AtomicLong tracksUnchanged = new AtomicLong();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        final List<ImportChange> changes = Collections.synchronizedList(new ArrayList<>());
+        // rejected albums by artist name and title, whatever the invalid field was; see deleteUnlisted()
+        final Set<String> rejectedAlbums = ConcurrentHashMap.newKeySet();
+        volatile boolean rejectedUnkeyed;
+        volatile String state = "RUNNING";
+        volatile String failure;
+        volatile LocalDateTime finishedAt;
+        volatile long finishNanos;
+        private long lastLogNanos = System.nanoTime();
+
+        Job(long id, String source, Mode mode) {
+            this.id = id;
+            this.source = source;
+            this.mode = mode;
+        }
+
+        void reject(long line, List<String> reasons) {
+            rowsRejected.incrementAndGet();
+            if (errors.size() < maxErrors) errors.add("line " + line + ": " + String.join(" ", reasons));
+        }
+
+        void rejectAlbum(String artistName, String title) {
+            if (artistName == null || title == null) rejectedUnkeyed = true;
+            else rejectedAlbums.add(artistName + "\u0000" + title);
+        }
+
+        // the first max-changes changes of a reconciliation; the counts cover them all
+        void change(String action, String kind, Integer id, Integer albumId, String title) {
+            if (changes.size() < maxChanges) changes.add(new ImportChange(action, kind, id, albumId, title));
+        }
+
+        // the first failure stops every stage; what was committed before it stays
+        synchronized void fail(Exception e) {
+            if (failure == null) {
+                failure = Objects.toString(NestedExceptionUtils.getMostSpecificCause(e).getMessage(), e.toString());
+                log.warn("Import {} failed", id, e);
+            }
+        }
+
+        void finish() {
+            finishNanos = System.nanoTime();
+            finishedAt = LocalDateTime.now();
+            state = failure == null ? "COMPLETED" : "FAILED";
+        }
+
+        void logProgressIfDue() {
+            long now = System.nanoTime();
+            if (now - lastLogNanos >= progressInterval.toNanos()) {
+                lastLogNanos = now;
+                ImportProgress progress = progress();
+                log.info("Import {}: {} rows read, {} albums and {} tracks written, {} rows rejected, {} rows/s",
+                        id, progress.getRowsRead(), progress.getAlbumsWritten(), progress.getTracksWritten(),
+                        progress.getRowsRejected(), Math.round(progress.getRowsPerSecond()));
+            }
+        }
+
+        ImportProgress progress() {
+            ImportProgress progress = new ImportProgress();
+            progress.setId(id);
+            progress.setSource(source);
+            progress.setMode(mode.label());
+            progress.setState(state);
+            progress.setStartedAt(startedAt);
+            progress.setFinishedAt(finishedAt);
+            progress.setRowsRead(rowsRead.get());
+            progress.setRowsRejected(rowsRejected.get());
+            progress.setAlbumsWritten(albumsWritten.get());
+            progress.setTracksWritten(tracksWritten.get());
+            progress.setArtistsCreated(artistsCreated.get());
+            progress.setLabelsCreated(labelsCreated.get());
+            progress.setAlbumsUpdated(albumsUpdated.get());
+            progress.setAlbumsDeleted(albumsDeleted.get());
+            progress.setAlbumsUnchanged(albumsUnchanged.get());
+            progress.setTracksUpdated(tracksUpdated.get());
+            progress.setTracksDeleted(tracksDeleted.get());
+            progress.setTracksUnchanged(tracksUnchanged.get());
+            long elapsed = (finishNanos == 0 ? System.nanoTime() : finishNanos) - startNanos;
+            progress.setRowsPerSecond(elapsed > 0 ? rowsRead.get() * 1e9 / elapsed : 0);
+            synchronized (errors) {
+                progress.setErrors(new ArrayList<>(errors));
+            }
+            synchronized (changes) {
+                progress.setChanges(new ArrayList<>(changes));
+            }
+            progress.setFailure(failure);
+            return progress;
+        }
+    }
+}
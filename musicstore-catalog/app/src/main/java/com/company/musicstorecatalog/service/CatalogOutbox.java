@@ -0,0 +1,65 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.TableWrites;
+import com.company.musicstorecatalog.repository.ChangeEventRepository;
+import com.company.musicstorecatalog.repository.TableWritesRepository;
+import com.company.musicstorecatalog.repository.TombstoneRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Transactional outbox of the catalog writes: every save or delete of an album, track, artist or label
+// appends a row to catalog_outbox inside the write's own transaction, so an event exists exactly when
+// its write committed. ChangeStreamService relays the rows to GET /changes/stream. Deletes also leave a
+// tombstone for GET /catalog/changes (see CatalogSyncService), and every write moves the table's write
+// counter behind the list ETags (see TableWrites), whether or not the outbox is enabled.
+@Service
+public class CatalogOutbox {
+    public static final String ALBUM = "album";
+    public static final String TRACK = "track";
+    public static final String ARTIST = "artist";
+    public static final String LABEL = "label";
+
+    @Value("${catalog.outbox.enabled:true}")
+    boolean enabled;
+
+    @Autowired
+    ChangeEventRepository changeEventRepository;
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+    @Autowired
+    TableWritesRepository tableWritesRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saved(String kind, Integer id) {
+        if (id != null) saved(kind, Collections.singletonList(id));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saved(String kind, Collection<Integer> ids) {
+        counted(kind, ids);
+        if (enabled) changeEventRepository.append(kind, "saved", ids);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(String kind, Integer id) {
+        if (id != null) deleted(kind, Collections.singletonList(id));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(String kind, Collection<Integer> ids) {
+        counted(kind, ids);
+        tombstoneRepository.markDeleted(kind, ids);
+        if (enabled) changeEventRepository.append(kind, "deleted", ids);
+    }
+
+    private void counted(String kind, Collection<Integer> ids) {
+        if (!ids.isEmpty()) tableWritesRepository.bump(kind, ThreadLocalRandom.current().nextInt(TableWrites.SLOTS));
+    }
+}
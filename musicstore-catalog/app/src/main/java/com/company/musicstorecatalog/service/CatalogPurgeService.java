@@ -0,0 +1,146 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.config.LookupCacheConfig;
+import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.ArtistRepository;
+import com.company.musicstorecatalog.repository.LabelRepository;
+import com.company.musicstorecatalog.repository.TrackRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+// Set-based deletes of whole catalogs. DELETE /album/{id}?cascade=true takes the album's tracks with it;
+// DELETE /artist/{id}?cascade=true and /label/{id}?cascade=true purge every album of the artist or label
+// first. A purge pages through the album ids and deletes each chunk with two statements, tracks and then
+// albums WHERE album_id IN (...), in a transaction of its own, so locks are only held for one chunk and
+// no entity is loaded. A purge that fails part way keeps the chunks it committed; repeating it finishes.
+@Service
+public class CatalogPurgeService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogPurgeService.class);
+
+    @Value("${catalog.purge.chunk-size:500}")
+    int chunkSize;
+
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    CatalogStatsService statsService;
+    @Autowired
+    AlbumListingProjector listingProjector;
+    @Autowired
+    CatalogSnapshotService snapshots;
+    @Autowired
+    SearchService searchService;
+    @Autowired
+    SuggestService suggestService;
+    @Autowired
+    CatalogOutbox outbox;
+    @Autowired
+    CacheManager cacheManager;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    // the tracks of the albums, in the caller's transaction; pass the returned ids to tracksDeleted()
+    // once the albums are gone too. The albums' album_stats rows go with the albums, their outbox events
+    // are the caller's; the tracks' are appended here.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Integer> deleteTracksOf(Collection<Integer> albumIds) {
+        List<Integer> trackIds = trackRepository.findIdsByAlbumIds(albumIds);
+        if (!trackIds.isEmpty()) trackRepository.deleteByAlbumIds(albumIds);
+        outbox.deleted(CatalogOutbox.TRACK, trackIds);
+        return trackIds;
+    }
+
+    public void tracksDeleted(List<Integer> trackIds) {
+        evict(LookupCacheConfig.TRACK_CACHE, trackIds);
+        for (Integer trackId : trackIds) {
+            snapshots.trackDeleted(trackId);
+            searchService.trackDeleted(trackId);
+        }
+    }
+
+    // 0 when the artist is gone or no longer at the version (null: any); its albums are purged either way
+    public int purgeArtist(Integer artistId, Integer version) {
+        purgeAlbums("artist " + artistId,
+                after -> albumRepository.findIdsByArtistIdAfter(artistId, after, PageRequest.of(0, chunkSize)));
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            int deleted = artistRepository.deleteIfVersion(artistId, version);
+            if (deleted == 0) return 0;
+            statsService.artistDeleted(artistId);
+            outbox.deleted(CatalogOutbox.ARTIST, artistId);
+            snapshots.artistDeleted(artistId);
+            suggestService.artistsChanged();
+            searchService.artistDeleted(artistId);
+            return deleted;
+        });
+    }
+
+    public int purgeLabel(Integer labelId, Integer version) {
+        purgeAlbums("label " + labelId, after -> albumRepository.findIdsByLabelIdsAfter(
+                Collections.singletonList(labelId), after, PageRequest.of(0, chunkSize)));
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            int deleted = labelRepository.deleteIfVersion(labelId, version);
+            if (deleted == 0) return 0;
+            statsService.labelDeleted(labelId);
+            outbox.deleted(CatalogOutbox.LABEL, labelId);
+            snapshots.labelDeleted(labelId);
+            suggestService.labelsChanged();
+            return deleted;
+        });
+    }
+
+    private void purgeAlbums(String owner, Function<Integer, List<Integer>> page) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long albums = 0;
+        long tracks = 0;
+        for (List<Integer> chunk = page.apply(0); !chunk.isEmpty(); chunk = page.apply(chunk.get(chunk.size() - 1))) {
+            List<Integer> albumIds = chunk;
+            List<Integer> trackIds = transaction.execute(status -> {
+                List<Object[]> before = albumRepository.findStatsRowsByIds(albumIds);
+                List<Integer> deletedTracks = deleteTracksOf(albumIds);
+                albumRepository.deleteAllByIdInBatch(albumIds);
+                statsService.albumsWritten(before, Collections.emptyList(), false);
+                statsService.albumsDeleted(albumIds);
+                outbox.deleted(CatalogOutbox.ALBUM, albumIds);
+                albumIds.forEach(listingProjector::albumChanged);
+                return deletedTracks;
+            });
+            tracksDeleted(trackIds);
+            evict(LookupCacheConfig.ALBUM_CACHE, albumIds);
+            for (Integer albumId : albumIds) {
+                snapshots.albumDeleted(albumId);
+                searchService.albumDeleted(albumId);
+            }
+            albums += albumIds.size();
+            tracks += trackIds.size();
+        }
+        if (albums > 0) {
+            log.info("Purged {} albums and {} tracks of {}", albums, tracks, owner);
+        }
+    }
+
+    private void evict(String cacheName, Collection<Integer> ids) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) ids.forEach(cache::evict);
+    }
+}
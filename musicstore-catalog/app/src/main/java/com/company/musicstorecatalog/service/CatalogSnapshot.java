@@ -0,0 +1,176 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumDetail;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.Track;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+// One immutable version of the whole catalog. Besides the four tables it keeps the
+// album -> tracks adjacency of the base in CSR form: the tracks of base album slot i are the
+// base track slots albumTrackSlots[albumTrackOffsets[i] .. albumTrackOffsets[i + 1]).
+// Every write produces a new CatalogSnapshot, readers just use whichever one they were handed;
+// a write that SnapshotTable ignores as stale leaves the snapshot and its version as they were.
+public final class CatalogSnapshot {
+    private final long version;
+    private final SnapshotTable<Album> albums;
+    private final SnapshotTable<Track> tracks;
+    private final SnapshotTable<Artist> artists;
+    private final SnapshotTable<Label> labels;
+    private final int[] albumTrackOffsets;
+    private final int[] albumTrackSlots;
+
+    private CatalogSnapshot(long version, SnapshotTable<Album> albums, SnapshotTable<Track> tracks,
+                            SnapshotTable<Artist> artists, SnapshotTable<Label> labels,
+                            int[] albumTrackOffsets, int[] albumTrackSlots) {
+        this.version = version;
+        this.albums = albums;
+        this.tracks = tracks;
+        this.artists = artists;
+        this.labels = labels;
+        this.albumTrackOffsets = albumTrackOffsets;
+        this.albumTrackSlots = albumTrackSlots;
+    }
+
+    public static CatalogSnapshot of(long version, List<Album> albums, List<Track> tracks,
+                                     List<Artist> artists, List<Label> labels) {
+        return build(version, SnapshotTable.of(albums, Album::getAlbumId, Album::getVersion),
+                SnapshotTable.of(tracks, Track::getTrackId, Track::getVersion),
+                SnapshotTable.of(artists, Artist::getArtistId, Artist::getVersion),
+                SnapshotTable.of(labels, Label::getLabelId, Label::getVersion));
+    }
+
+    private static CatalogSnapshot build(long version, SnapshotTable<Album> albums, SnapshotTable<Track> tracks,
+                                         SnapshotTable<Artist> artists, SnapshotTable<Label> labels) {
+        // counting sort of the base tracks by album slot; tracks are already in id order within each album
+        int[] offsets = new int[albums.baseSize() + 1];
+        int[] albumSlotOfTrack = new int[tracks.baseSize()];
+        for (int t = 0; t < tracks.baseSize(); t++) {
+            int albumSlot = albums.baseSlot(tracks.baseRow(t).getAlbumId());
+            albumSlotOfTrack[t] = albumSlot;
+            if (albumSlot >= 0) offsets[albumSlot + 1]++;
+        }
+        for (int a = 0; a < albums.baseSize(); a++) {
+            offsets[a + 1] += offsets[a];
+        }
+        int[] slots = new int[offsets[albums.baseSize()]];
+        int[] next = new int[albums.baseSize()];
+        System.arraycopy(offsets, 0, next, 0, next.length);
+        for (int t = 0; t < tracks.baseSize(); t++) {
+            if (albumSlotOfTrack[t] >= 0) slots[next[albumSlotOfTrack[t]]++] = t;
+        }
+        return new CatalogSnapshot(version, albums, tracks, artists, labels, offsets, slots);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public SnapshotTable<Album> getAlbums() {
+        return albums;
+    }
+
+    public SnapshotTable<Track> getTracks() {
+        return tracks;
+    }
+
+    public SnapshotTable<Artist> getArtists() {
+        return artists;
+    }
+
+    public SnapshotTable<Label> getLabels() {
+        return labels;
+    }
+
+    public List<Track> tracksOf(int albumId) {
+        List<Track> result = new ArrayList<>();
+        int albumSlot = albums.baseSlot(albumId);
+        if (albumSlot >= 0) {
+            for (int i = albumTrackOffsets[albumSlot]; i < albumTrackOffsets[albumSlot + 1]; i++) {
+                Track track = tracks.baseRow(albumTrackSlots[i]);
+                if (!tracks.isOverridden(track.getTrackId())) result.add(track);
+            }
+        }
+        boolean fromOverlay = false;
+        for (Track track : tracks.overlayRows()) {
+            if (track.getAlbumId() != null && track.getAlbumId() == albumId) {
+                result.add(track);
+                fromOverlay = true;
+            }
+        }
+        if (fromOverlay) result.sort(Comparator.comparing(Track::getTrackId));
+        return result;
+    }
+
+    public Optional<AlbumDetail> albumDetail(int albumId) {
+        Optional<Album> album = albums.get(albumId);
+        if (!album.isPresent()) return Optional.empty();
+        AlbumDetail detail = new AlbumDetail(album.get(),
+                artists.get(album.get().getArtistId()).orElse(null),
+                labels.get(album.get().getLabelId()).orElse(null));
+        detail.setTracks(tracksOf(albumId));
+        return Optional.of(detail);
+    }
+
+    public int overlaySize() {
+        return albums.overlaySize() + tracks.overlaySize() + artists.overlaySize() + labels.overlaySize();
+    }
+
+    public CatalogSnapshot withAlbum(Album album) {
+        SnapshotTable<Album> changed = albums.with(album);
+        return changed == albums ? this
+                : new CatalogSnapshot(version + 1, changed, tracks, artists, labels, albumTrackOffsets, albumTrackSlots);
+    }
+
+    public CatalogSnapshot withoutAlbum(int albumId) {
+        SnapshotTable<Album> changed = albums.without(albumId);
+        return changed == albums ? this
+                : new CatalogSnapshot(version + 1, changed, tracks, artists, labels, albumTrackOffsets, albumTrackSlots);
+    }
+
+    public CatalogSnapshot withTrack(Track track) {
+        SnapshotTable<Track> changed = tracks.with(track);
+        return changed == tracks ? this
+                : new CatalogSnapshot(version + 1, albums, changed, artists, labels, albumTrackOffsets, albumTrackSlots);
+    }
+
+    public CatalogSnapshot withoutTrack(int trackId) {
+        SnapshotTable<Track> changed = tracks.without(trackId);
+        return changed == tracks ? this
+                : new CatalogSnapshot(version + 1, albums, changed, artists, labels, albumTrackOffsets, albumTrackSlots);
+    }
+
+    public CatalogSnapshot withArtist(Artist artist) {
+        SnapshotTable<Artist> changed = artists.with(artist);
+        return changed == artists ? this
+                : new CatalogSnapshot(version + 1, albums, tracks, changed, labels, albumTrackOffsets, albumTrackSlots);
+    }
+
+    public CatalogSnapshot withoutArtist(int artistId) {
+        SnapshotTable<Artist> changed = artists.without(artistId);
+        return changed == artists ? this
+                : new CatalogSnapshot(version + 1, albums, tracks, changed, labels, albumTrackOffsets, albumTrackSlots);
+    }
+
+    public CatalogSnapshot withLabel(Label label) {
+        SnapshotTable<Label> changed = labels.with(label);
+        return changed == labels ? this
+                : new CatalogSnapshot(version + 1, albums, tracks, artists, changed, albumTrackOffsets, albumTrackSlots);
+    }
+
+    public CatalogSnapshot withoutLabel(int labelId) {
+        SnapshotTable<Label> changed = labels.without(labelId);
+        return changed == labels ? this
+                : new CatalogSnapshot(version + 1, albums, tracks, artists, changed, albumTrackOffsets, albumTrackSlots);
+    }
+
+    // folds every overlay into new base arrays and rebuilds the adjacency
+    public CatalogSnapshot compact(long newVersion) {
+        return build(newVersion, albums.compact(), tracks.compact(), artists.compact(), labels.compact());
+    }
+}
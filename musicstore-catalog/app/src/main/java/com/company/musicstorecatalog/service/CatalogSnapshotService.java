@@ -0,0 +1,222 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.ArtistRepository;
+import com.company.musicstorecatalog.repository.LabelRepository;
+import com.company.musicstorecatalog.repository.TrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+// Snapshot read mode (catalog.snapshot.enabled=true): the whole catalog is loaded into an
+// immutable CatalogSnapshot at startup and every GET is answered from it. Readers only do a
+// volatile read of the current snapshot and never lock. Writes are committed to MySQL first and
+// after the commit published as a new snapshot with the change in its overlay; commits can publish
+// out of order, so SnapshotTable drops a row older than the one it has. Once the overlays grow past
+// compact-threshold entries they are folded into fresh base arrays on a background thread, and
+// the writes published meanwhile are replayed on top of the result before it is swapped in.
+@Service
+public class CatalogSnapshotService {
+    public static final String VERSION_HEADER = "X-Catalog-Snapshot-Version";
+
+    static final String REQUEST_ATTRIBUTE = CatalogSnapshotService.class.getName() + ".snapshot";
+
+    @Value("${catalog.snapshot.enabled:false}")
+    boolean enabled;
+
+    @Value("${catalog.snapshot.compact-threshold:4096}")
+    int compactThreshold;
+
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    volatile CatalogSnapshot current;
+
+    private final Object writeLock = new Object();
+    // writes that arrive while a load is running, replayed on top of the loaded snapshot
+    private List<UnaryOperator<CatalogSnapshot>> pendingWrites;
+    // the same for a running compaction; a reload drops it, the reload compacts anyway
+    private List<UnaryOperator<CatalogSnapshot>> compactingWrites;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) reload();
+    }
+
+    public boolean isServing() {
+        return current != null;
+    }
+
+    // the snapshot pinned to the current request (see pin), or the latest one outside a request
+    public CatalogSnapshot current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            Object pinned = attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (pinned != null) return (CatalogSnapshot) pinned;
+        }
+        return current;
+    }
+
+    // fixes the snapshot for the rest of the request so its version header matches the body
+    public CatalogSnapshot pin(RequestAttributes attributes) {
+        CatalogSnapshot snapshot = current;
+        if (snapshot != null) attributes.setAttribute(REQUEST_ATTRIBUTE, snapshot, RequestAttributes.SCOPE_REQUEST);
+        return snapshot;
+    }
+
+    public void reload() {
+        synchronized (writeLock) {
+            pendingWrites = new ArrayList<>();
+            compactingWrites = null;
+        }
+        CatalogSnapshot loaded = load();
+        synchronized (writeLock) {
+            for (UnaryOperator<CatalogSnapshot> write : pendingWrites) {
+                loaded = write.apply(loaded);
+            }
+            pendingWrites = null;
+            // writes published while loading already moved the version on, never go backwards
+            long version = current == null ? loaded.getVersion() : Math.max(loaded.getVersion(), current.getVersion() + 1);
+            current = loaded.compact(version);
+        }
+    }
+
+    public void albumSaved(Album album) {
+        if (album == null) return;
+        Album copy = new Album(album);
+        apply(snapshot -> snapshot.withAlbum(copy));
+    }
+
+    public void albumDeleted(Integer albumId) {
+        apply(snapshot -> snapshot.withoutAlbum(albumId));
+    }
+
+    public void trackSaved(Track track) {
+        if (track == null) return;
+        Track copy = new Track(track);
+        apply(snapshot -> snapshot.withTrack(copy));
+    }
+
+    public void trackDeleted(Integer trackId) {
+        apply(snapshot -> snapshot.withoutTrack(trackId));
+    }
+
+    public void artistSaved(Artist artist) {
+        if (artist == null) return;
+        Artist copy = new Artist(artist);
+        apply(snapshot -> snapshot.withArtist(copy));
+    }
+
+    public void artistDeleted(Integer artistId) {
+        apply(snapshot -> snapshot.withoutArtist(artistId));
+    }
+
+    public void labelSaved(Label label) {
+        if (label == null) return;
+        Label copy = new Label(label);
+        apply(snapshot -> snapshot.withLabel(copy));
+    }
+
+    public void labelDeleted(Integer labelId) {
+        apply(snapshot -> snapshot.withoutLabel(labelId));
+    }
+
+    // the write is published once the caller's transaction commits, from a copy taken now so
+    // later changes to a managed entity cannot leak into the snapshot
+    private void apply(UnaryOperator<CatalogSnapshot> write) {
+        if (enabled) AfterCommit.run(() -> publish(write));
+    }
+
+    private void publish(UnaryOperator<CatalogSnapshot> write) {
+        CatalogSnapshot snapshot;
+        synchronized (writeLock) {
+            if (pendingWrites != null) pendingWrites.add(write);
+            if (compactingWrites != null) compactingWrites.add(write);
+            snapshot = current;
+            if (snapshot == null) return;
+            snapshot = write.apply(snapshot);
+            current = snapshot;
+        }
+        if (snapshot.overlaySize() > compactThreshold && compacting.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    compact();
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+    // rebuilds the base arrays without holding writeLock, so writers only wait for the replay
+    // of the few writes that came in while it ran
+    void compact() {
+        CatalogSnapshot base;
+        List<UnaryOperator<CatalogSnapshot>> writes = new ArrayList<>();
+        synchronized (writeLock) {
+            base = current;
+            if (base == null || pendingWrites != null) return;
+            compactingWrites = writes;
+        }
+        CatalogSnapshot compacted = base.compact(base.getVersion());
+        synchronized (writeLock) {
+            if (compactingWrites != writes) return;
+            compactingWrites = null;
+            // every applied write moves the version by one and the replay ignores the same stale writes,
+            // so it ends on the current version
+            for (UnaryOperator<CatalogSnapshot> write : writes) {
+                compacted = write.apply(compacted);
+            }
+            current = compacted;
+        }
+    }
+
+    private CatalogSnapshot load() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        long version = current == null ? 1 : current.getVersion() + 1;
+        return transaction.execute(status -> CatalogSnapshot.of(version,
+                readAll(albumRepository.streamAll()), readAll(trackRepository.streamAll()),
+                readAll(artistRepository.streamAll()), readAll(labelRepository.streamAll())));
+    }
+
+    private <T> List<T> readAll(Stream<T> rows) {
+        List<T> result = new ArrayList<>();
+        try (Stream<T> stream = rows) {
+            stream.forEach(row -> {
+                entityManager.detach(row);
+                result.add(row);
+            });
+        }
+        return result;
+    }
+}
@@ -0,0 +1,243 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.AlbumStatsRepository;
+import com.company.musicstorecatalog.repository.ArtistRepository;
+import com.company.musicstorecatalog.repository.ArtistStatsRepository;
+import com.company.musicstorecatalog.repository.LabelRepository;
+import com.company.musicstorecatalog.repository.LabelStatsRepository;
+import com.company.musicstorecatalog.repository.TrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Report totals behind GET /stats: albums and list price per artist and per label, tracks and run time
+// per album, kept in the artist_stats, label_stats and album_stats tables. The write hooks run inside
+// the controller's transaction and move only the totals the written row contributes to, so a report
+// never scans album or track. rebuild() recomputes everything from the base tables to repair drift.
+// The artists and labels whose album counts moved are handed to SuggestService once the write commits.
+@Service
+public class CatalogStatsService {
+    @Value("${catalog.stats.rebuild-chunk:10000}")
+    int rebuildChunk;
+
+    // chunks rebuilt at once, each holding a pooled connection; half the pool leaves the rest to requests
+    @Value("${catalog.stats.rebuild-threads:#{${spring.datasource.hikari.maximum-pool-size:10} / 2}}")
+    int rebuildThreads;
+
+    @Autowired
+    ArtistStatsRepository artistStatsRepository;
+    @Autowired
+    LabelStatsRepository labelStatsRepository;
+    @Autowired
+    AlbumStatsRepository albumStatsRepository;
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    SuggestService suggestService;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    // before an album is updated or deleted: takes the stored row out of its artist's and label's totals
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void albumChanging(Integer albumId) {
+        if (albumId == null) return;
+        for (Object[] row : albumRepository.findStatsRowById(albumId)) {
+            BigDecimal price = (BigDecimal) row[2];
+            artistStatsRepository.add((Integer) row[0], -1, price.negate());
+            labelStatsRepository.add((Integer) row[1], -1, price.negate());
+            countsMoved(Collections.singleton((Integer) row[0]), Collections.singleton((Integer) row[1]));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void albumSaved(Album album) {
+        if (album == null) return;
+        artistStatsRepository.add(album.getArtistId(), 1, album.getListPrice());
+        labelStatsRepository.add(album.getLabelId(), 1, album.getListPrice());
+        albumStatsRepository.add(album.getAlbumId(), 0, 0);
+        countsMoved(Collections.singleton(album.getArtistId()), Collections.singleton(album.getLabelId()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void albumDeleted(Integer albumId) {
+        albumStatsRepository.remove(albumId);
+    }
+
+    // batch form of albumDeleted(); the artist and label totals move with albumsWritten()
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void albumsDeleted(Collection<Integer> albumIds) {
+        if (!albumIds.isEmpty()) albumStatsRepository.removeRows(albumIds);
+    }
+
+    // before a track is updated or deleted, see albumChanging()
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void trackChanging(Integer trackId) {
+        if (trackId == null) return;
+        for (Object[] row : trackRepository.findStatsRowById(trackId)) {
+            albumStatsRepository.add((Integer) row[0], -1, -((Integer) row[1]));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void trackSaved(Track track) {
+        if (track == null) return;
+        albumStatsRepository.add(track.getAlbumId(), 1, track.getRunTime());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void artistSaved(Artist artist) {
+        if (artist != null) artistStatsRepository.add(artist.getArtistId(), 0, BigDecimal.ZERO);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void artistDeleted(Integer artistId) {
+        artistStatsRepository.remove(artistId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void labelSaved(Label label) {
+        if (label != null) labelStatsRepository.add(label.getLabelId(), 0, BigDecimal.ZERO);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void labelDeleted(Integer labelId) {
+        labelStatsRepository.remove(labelId);
+    }
+
+    // batch form of trackChanging() + trackSaved(): before holds the {trackId, albumId, runTime} rows
+    // of the updated tracks as they were read before the write, after the written tracks. The moves
+    // are summed per album first, so a chunk costs one upsert per album it touches.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void tracksWritten(List<Object[]> before, List<Track> after) {
+        Map<Integer, long[]> deltas = new HashMap<>();
+        for (Object[] row : before) {
+            long[] delta = deltas.computeIfAbsent((Integer) row[1], id -> new long[2]);
+            delta[0]--;
+            delta[1] -= (Integer) row[2];
+        }
+        for (Track track : after) {
+            long[] delta = deltas.computeIfAbsent(track.getAlbumId(), id -> new long[2]);
+            delta[0]++;
+            delta[1] += track.getRunTime();
+        }
+        deltas.forEach((albumId, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) albumStatsRepository.add(albumId, (int) delta[0], delta[1]);
+        });
+    }
+
+    // batch form of albumChanging() + albumSaved(), see tracksWritten(); before holds
+    // {albumId, artistId, labelId, listPrice} rows, and inserted albums also get their empty album_stats row
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void albumsWritten(List<Object[]> before, List<Album> after, boolean inserted) {
+        Map<Integer, Delta> artists = new HashMap<>();
+        Map<Integer, Delta> labels = new HashMap<>();
+        for (Object[] row : before) {
+            BigDecimal price = ((BigDecimal) row[3]).negate();
+            artists.computeIfAbsent((Integer) row[1], id -> new Delta()).add(-1, price);
+            labels.computeIfAbsent((Integer) row[2], id -> new Delta()).add(-1, price);
+        }
+        for (Album album : after) {
+            artists.computeIfAbsent(album.getArtistId(), id -> new Delta()).add(1, album.getListPrice());
+            labels.computeIfAbsent(album.getLabelId(), id -> new Delta()).add(1, album.getListPrice());
+        }
+        artists.forEach((artistId, delta) -> {
+            if (!delta.isZero()) artistStatsRepository.add(artistId, delta.count, delta.total);
+        });
+        labels.forEach((labelId, delta) -> {
+            if (!delta.isZero()) labelStatsRepository.add(labelId, delta.count, delta.total);
+        });
+        countsMoved(artists.keySet(), labels.keySet());
+        if (inserted && !after.isEmpty()) {
+            albumStatsRepository.createRows(after.stream().map(Album::getAlbumId).collect(Collectors.toList()));
+        }
+    }
+
+    // a write that rolls back moved nothing
+    private void countsMoved(Collection<Integer> artistIds, Collection<Integer> labelIds) {
+        if (!artistIds.isEmpty() || !labelIds.isEmpty()) AfterCommit.run(() -> suggestService.weightsChanged(artistIds, labelIds));
+    }
+
+    // recomputes the three tables in id ranges of rebuild-chunk rows; the chunks of all tables run on
+    // rebuild-threads threads, each in its own short transaction, so a writer only ever waits for the
+    // chunk it touches
+    public void rebuild() {
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, rebuildThreads),
+                task -> new Thread(task, "catalog-stats-rebuild-" + threads.incrementAndGet()));
+        try {
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            chunks.addAll(rebuild(executor, artistRepository.findTableVersion().getMaxId(), artistStatsRepository.findMaxId(),
+                    artistStatsRepository::clearRange, artistStatsRepository::recomputeRange));
+            chunks.addAll(rebuild(executor, labelRepository.findTableVersion().getMaxId(), labelStatsRepository.findMaxId(),
+                    labelStatsRepository::clearRange, labelStatsRepository::recomputeRange));
+            chunks.addAll(rebuild(executor, albumRepository.findTableVersion().getMaxId(), albumStatsRepository.findMaxId(),
+                    albumStatsRepository::clearRange, albumStatsRepository::recomputeRange));
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // the ranges run up to the larger of the two max ids, so stats rows of deleted rows are dropped too
+    private List<CompletableFuture<Void>> rebuild(ExecutorService executor, Integer maxId, Integer maxStatsId,
+                                                  RangeWrite clear, RangeWrite recompute) {
+        int last = Math.max(maxId == null ? 0 : maxId, maxStatsId == null ? 0 : maxStatsId);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (long from = 0; from <= last; from += rebuildChunk) {
+            int start = (int) from;
+            int end = (int) Math.min(from + rebuildChunk - 1, last);
+            chunks.add(CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+                clear.apply(start, end);
+                recompute.apply(start, end);
+            }), executor));
+        }
+        return chunks;
+    }
+
+    private static class Delta {
+        int count;
+        BigDecimal total = BigDecimal.ZERO;
+
+        void add(int count, BigDecimal total) {
+            this.count += count;
+            this.total = this.total.add(total);
+        }
+
+        boolean isZero() {
+            return count == 0 && total.signum() == 0;
+        }
+    }
+
+    private interface RangeWrite {
+        void apply(int from, int to);
+    }
+}
@@ -0,0 +1,199 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.CatalogDelta;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.ArtistRepository;
+import com.company.musicstorecatalog.repository.LabelRepository;
+import com.company.musicstorecatalog.repository.OpenTransactionRepository;
+import com.company.musicstorecatalog.repository.TombstoneRepository;
+import com.company.musicstorecatalog.repository.TrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Delta sync for clients that keep a copy of the catalog (GET /catalog/changes). Every row of album,
+// track, artist and label carries an indexed updated_at, and deletes leave a row in catalog_tombstone
+// (see CatalogOutbox). All of them are ordered by (time, kind, id); the watermark is the last position
+// a client has seen, and one request reads up to limit + 1 positions after it from each index, so a sync
+// costs what changed rather than the size of the catalog. Rows written since the oldest open write
+// transaction started (see OpenTransactionRepository), and at least the last catalog.sync.settle, are
+// left for the next request: updated_at is taken when a statement runs, not when it commits, and a
+// transaction still open at the watermark would otherwise be skipped. Where open transactions cannot be
+// read, settle alone bounds it and has to exceed the longest write transaction (an import chunk, a purge
+// chunk, a batch write).
+@Service
+public class CatalogSyncService {
+    private static final String WATERMARK_PREFIX = "at:";
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final Comparator<Change> ORDER = Comparator.comparing((Change change) -> change.at)
+            .thenComparing(change -> change.kind).thenComparingInt(change -> change.id);
+
+    @Value("${catalog.sync.settle:5s}")
+    Duration settle;
+
+    @Value("${catalog.sync.tombstone-retention:30d}")
+    Duration tombstoneRetention;
+
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+    @Autowired
+    OpenTransactionRepository openTransactions;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private volatile long nextSweepNanos = System.nanoTime();
+
+    // watermark: null for a first (full) sync
+    @Transactional(readOnly = true)
+    public CatalogDelta changesSince(String watermark, int limit) {
+        Change since = watermark == null ? new Change(BEGINNING, "", 0, false) : decodeWatermark(watermark);
+        CatalogDelta delta = new CatalogDelta();
+        // deletes older than the kept tombstones can no longer be told
+        if (watermark != null && since.at.isBefore(LocalDateTime.now().minus(tombstoneRetention))) {
+            delta.setResync(true);
+            return delta;
+        }
+
+        sweep();
+        long settleMicros = TimeUnit.NANOSECONDS.toMicros(settle.toNanos());
+        if (openTransactions.isSupported()) settleMicros = Math.max(settleMicros, openTransactions.findOldestWriterAgeMicros());
+        Pageable page = PageRequest.of(0, limit + 1);
+        List<Change> changes = new ArrayList<>();
+        written(changes, CatalogOutbox.ALBUM, albumRepository.findChangedAfter(
+                since.at, since.afterId(CatalogOutbox.ALBUM), settleMicros, page));
+        written(changes, CatalogOutbox.TRACK, trackRepository.findChangedAfter(
+                since.at, since.afterId(CatalogOutbox.TRACK), settleMicros, page));
+        written(changes, CatalogOutbox.ARTIST, artistRepository.findChangedAfter(
+                since.at, since.afterId(CatalogOutbox.ARTIST), settleMicros, page));
+        written(changes, CatalogOutbox.LABEL, labelRepository.findChangedAfter(
+                since.at, since.afterId(CatalogOutbox.LABEL), settleMicros, page));
+        for (Object[] row : tombstoneRepository.findDeletedAfter(since.at, since.kind, since.id, settleMicros, page)) {
+            changes.add(new Change(toLocalDateTime(row[2]), (String) row[0], ((Number) row[1]).intValue(), true));
+        }
+        changes.sort(ORDER);
+        // each index was read up to limit + 1 rows, so anything past limit means there is more
+        delta.setMore(changes.size() > limit);
+        List<Change> batch = changes.subList(0, Math.min(limit, changes.size()));
+
+        delta.setAlbums(load(batch, CatalogOutbox.ALBUM, albumRepository::findAllById, Album::getAlbumId));
+        delta.setTracks(load(batch, CatalogOutbox.TRACK, trackRepository::findAllById, Track::getTrackId));
+        delta.setArtists(load(batch, CatalogOutbox.ARTIST, artistRepository::findAllById, Artist::getArtistId));
+        delta.setLabels(load(batch, CatalogOutbox.LABEL, labelRepository::findAllById, Label::getLabelId));
+        delta.setDeletedAlbumIds(ids(batch, CatalogOutbox.ALBUM, true));
+        delta.setDeletedTrackIds(ids(batch, CatalogOutbox.TRACK, true));
+        delta.setDeletedArtistIds(ids(batch, CatalogOutbox.ARTIST, true));
+        delta.setDeletedLabelIds(ids(batch, CatalogOutbox.LABEL, true));
+        delta.setWatermark(batch.isEmpty() ? watermark : encodeWatermark(batch.get(batch.size() - 1)));
+        return delta;
+    }
+
+    // tombstones past the retention are dropped at most once an hour, by whichever sync comes along,
+    // in a transaction of its own: the sync's is read-only
+    private void sweep() {
+        long nowNanos = System.nanoTime();
+        if (nowNanos - nextSweepNanos < 0) return;
+        nextSweepNanos = nowNanos + TimeUnit.HOURS.toNanos(1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.executeWithoutResult(status ->
+                tombstoneRepository.deleteOlderThan(LocalDateTime.now().minus(tombstoneRetention)));
+    }
+
+    private static void written(List<Change> changes, String kind, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            changes.add(new Change(toLocalDateTime(row[1]), kind, ((Number) row[0]).intValue(), false));
+        }
+    }
+
+    // rows deleted since their id was read are left out; their tombstone comes with a later batch
+    private static <T> List<T> load(List<Change> batch, String kind, Function<List<Integer>, List<T>> findAllById,
+                                    Function<T, Integer> idOf) {
+        List<Integer> ids = ids(batch, kind, false);
+        if (ids.isEmpty()) return new ArrayList<>();
+        Map<Integer, T> byId = new HashMap<>();
+        for (T row : findAllById.apply(ids)) byId.put(idOf.apply(row), row);
+        return ids.stream().map(byId::get).filter(row -> row != null).collect(Collectors.toList());
+    }
+
+    private static List<Integer> ids(Collection<Change> batch, String kind, boolean deleted) {
+        return batch.stream().filter(change -> change.deleted == deleted && change.kind.equals(kind))
+                .map(change -> change.id).collect(Collectors.toList());
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp ? ((Timestamp) value).toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    static String encodeWatermark(Change change) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (WATERMARK_PREFIX + change.at + "," + change.kind + "," + change.id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Change decodeWatermark(String watermark) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8);
+            String[] parts = decoded.startsWith(WATERMARK_PREFIX)
+                    ? decoded.substring(WATERMARK_PREFIX.length()).split(",", -1) : new String[0];
+            if (parts.length != 3) throw new IllegalArgumentException();
+            return new Change(LocalDateTime.parse(parts[0]), parts[1], Integer.parseInt(parts[2]), false);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid watermark: " + watermark);
+        }
+    }
+
+    // one position in the (time, kind, id) order
+    static final class Change {
+        final LocalDateTime at;
+        final String kind;
+        final int id;
+        final boolean deleted;
+
+        Change(LocalDateTime at, String kind, int id, boolean deleted) {
+            this.at = at;
+            this.kind = kind;
+            this.id = id;
+            this.deleted = deleted;
+        }
+
+        // rows of kind at exactly this time come after it only with a greater id, or all of them (0)
+        // when kind sorts after this position's kind, or none (Integer.MAX_VALUE) when it sorts before
+        int afterId(String rowKind) {
+            int order = rowKind.compareTo(kind);
+            return order == 0 ? id : order > 0 ? 0 : Integer.MAX_VALUE;
+        }
+    }
+}
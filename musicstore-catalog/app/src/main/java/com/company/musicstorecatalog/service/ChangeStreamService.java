@@ -0,0 +1,341 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.ChangeEvent;
+import com.company.musicstorecatalog.repository.ChangeEventRepository;
+import com.company.musicstorecatalog.repository.OpenTransactionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Relays catalog_outbox (see CatalogOutbox) to the subscribers of GET /changes/stream. One poller thread
+// reads new rows in seq order and releases them only without gaps: a missing seq may still belong to a
+// running transaction. When a gap shows up the writers open at that moment are noted (see
+// OpenTransactionRepository); the owner of the missing seq is one of them, so once they have all ended a
+// seq that is still missing was rolled back and is skipped. A late commit is never skipped, and a rollback
+// holds the stream for about one poll. Where open transactions cannot be read, a gap is waited for up to
+// catalog.outbox.gap-timeout instead. Released events go into a queue per subscriber, which a sender
+// thread of its own drains, so a slow client only holds up itself. A subscriber whose queue passes
+// catalog.outbox.buffer events, or that resumes from further back, is caught up from the table instead.
+// Each SSE message carries the events of one batch as a JSON array, with the last seq as its id, so
+// Last-Event-ID resumes the stream after a reconnect.
+@Service
+public class ChangeStreamService {
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamService.class);
+    private static final long NONE = -1;
+
+    @Value("${catalog.outbox.enabled:true}")
+    boolean enabled;
+
+    @Value("${catalog.outbox.poll-interval:200ms}")
+    Duration pollInterval;
+
+    @Value("${catalog.outbox.batch-size:500}")
+    int batchSize;
+
+    @Value("${catalog.outbox.gap-timeout:5s}")
+    Duration gapTimeout;
+
+    @Value("${catalog.outbox.buffer:10000}")
+    int bufferSize;
+
+    @Value("${catalog.outbox.heartbeat:15s}")
+    Duration heartbeat;
+
+    @Value("${catalog.outbox.retention:7d}")
+    Duration retention;
+
+    @Autowired
+    ChangeEventRepository changeEventRepository;
+    @Autowired
+    OpenTransactionRepository openTransactions;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // at most one drain per subscriber runs at a time, so this holds one thread per busy subscriber
+    ExecutorService senders;
+    private volatile long published;
+    // everything below is only touched by the poller thread
+    // System.nanoTime() since which the seq after published has been missing, 0 when there is no gap
+    private long gapSince;
+    // the writers open when the gap was seen, null without a gap or when they cannot be read
+    private Set<String> gapWriters;
+    private boolean gapReported;
+    private long nextPruneNanos = System.nanoTime();
+    private Thread poller;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        Long max = changeEventRepository.findMaxSeq();
+        published = max == null ? 0 : max;
+        Gauge.builder("catalog.change_stream.subscribers", subscribers, List::size)
+                .description("Open GET /changes/stream connections")
+                .register(meterRegistry);
+
+        AtomicInteger threads = new AtomicInteger();
+        senders = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "catalog-change-stream-send-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        poller = new Thread(this::pollLoop, "catalog-change-stream");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!enabled) return;
+        running = false;
+        poller.join(TimeUnit.SECONDS.toMillis(10));
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    // after: the last seq the client has seen, null for only what is published from now on
+    public SseEmitter subscribe(Long after) {
+        if (!enabled) throw new IllegalArgumentException("The change stream is not enabled");
+        return subscribe(new SseEmitter(), after);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Long after) {
+        Subscriber subscriber = new Subscriber(emitter, after == null ? published : after);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // read once the poller can see the subscriber: what it releases later is queued, what came
+        // before is read from the table; the overlap is skipped by the cursor
+        synchronized (subscriber) {
+            subscriber.catchUpTo = Math.max(subscriber.catchUpTo, published);
+        }
+        schedule(subscriber);
+        return emitter;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                dispatch(release());
+                prune();
+            } catch (RuntimeException e) {
+                log.warn("Polling catalog_outbox failed", e);
+            }
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // queues the released events for every subscriber; one too far behind drops its queue and is
+    // caught up from the table up to the last of them
+    void dispatch(List<ChangeEvent> released) {
+        for (Subscriber subscriber : subscribers) {
+            synchronized (subscriber) {
+                if (!released.isEmpty()) {
+                    if (subscriber.pending.size() + released.size() > bufferSize) {
+                        subscriber.pending.clear();
+                        subscriber.catchUpTo = released.get(released.size() - 1).getSeq();
+                    } else {
+                        subscriber.pending.addAll(released);
+                    }
+                }
+            }
+            // also for the heartbeat of an idle subscriber
+            schedule(subscriber);
+        }
+    }
+
+    // moves published forward over the new rows, up to the first gap that may still be filled, and
+    // returns the rows it moved over
+    List<ChangeEvent> release() {
+        // checked before the read, so a seq its writer committed in the meantime is in the rows
+        boolean writersEnded = gapWriters != null && openTransactions.countOpen(gapWriters) == 0;
+        List<ChangeEvent> released = new ArrayList<>();
+        List<ChangeEvent> rows;
+        do {
+            rows = changeEventRepository.findBySeqGreaterThanOrderBySeqAsc(published, PageRequest.of(0, batchSize));
+            for (ChangeEvent row : rows) {
+                if (row.getSeq() != published + 1) {
+                    long now = System.nanoTime();
+                    if (gapSince == 0) {
+                        gapSince = now;
+                        gapWriters = openTransactions.isSupported() ? openTransactions.findWriterIds() : null;
+                        return released;
+                    }
+                    boolean timedOut = now - gapSince >= gapTimeout.toNanos();
+                    if (gapWriters != null ? !writersEnded : !timedOut) {
+                        if (timedOut && !gapReported) {
+                            log.warn("catalog_outbox seq {} is still missing after {}, waiting for its transaction",
+                                    published + 1, gapTimeout);
+                            gapReported = true;
+                        }
+                        return released;
+                    }
+                    log.debug("Skipping catalog_outbox seqs {} to {}", published + 1, row.getSeq() - 1);
+                }
+                gapSince = 0;
+                gapWriters = null;
+                gapReported = false;
+                released.add(row);
+                published = row.getSeq();
+            }
+        } while (rows.size() == batchSize);
+        return released;
+    }
+
+    private void schedule(Subscriber subscriber) {
+        synchronized (subscriber) {
+            if (subscriber.scheduled) return;
+            subscriber.scheduled = true;
+        }
+        try {
+            senders.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            synchronized (subscriber) {
+                subscriber.scheduled = false;
+            }
+        }
+    }
+
+    // runs on the subscriber's sender thread until its queue is empty
+    private void drain(Subscriber subscriber) {
+        try {
+            while (true) {
+                long catchUpTo;
+                List<ChangeEvent> batch = new ArrayList<>();
+                synchronized (subscriber) {
+                    catchUpTo = subscriber.catchUpTo;
+                    subscriber.catchUpTo = NONE;
+                    while (catchUpTo == NONE && batch.size() < batchSize && !subscriber.pending.isEmpty()) {
+                        ChangeEvent event = subscriber.pending.removeFirst();
+                        if (event.getSeq() > subscriber.cursor) batch.add(event);
+                    }
+                    if (catchUpTo == NONE && batch.isEmpty() && !heartbeatDue(subscriber)) {
+                        subscriber.scheduled = false;
+                        return;
+                    }
+                }
+                if (catchUpTo != NONE) {
+                    catchUp(subscriber, catchUpTo);
+                } else if (!batch.isEmpty()) {
+                    send(subscriber, batch);
+                } else {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    subscriber.lastSentNanos = System.nanoTime();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } catch (RuntimeException e) {
+            // most likely the catch-up read; the client reconnects from its last event id
+            log.warn("Could not send changes to a subscriber", e);
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private boolean heartbeatDue(Subscriber subscriber) {
+        return System.nanoTime() - subscriber.lastSentNanos > heartbeat.toNanos();
+    }
+
+    // from the table up to upTo; a cursor older than the oldest kept row gets a reset event first,
+    // since what was pruned in between cannot be replayed
+    private void catchUp(Subscriber subscriber, long upTo) throws IOException {
+        if (subscriber.cursor >= upTo) return;
+        Long min = changeEventRepository.findMinSeq();
+        if (min == null || subscriber.cursor < min - 1) {
+            subscriber.emitter.send(SseEmitter.event().name("reset")
+                    .id(String.valueOf(upTo)).data("{}", MediaType.APPLICATION_JSON));
+            subscriber.cursor = upTo;
+            subscriber.lastSentNanos = System.nanoTime();
+            return;
+        }
+        while (subscriber.cursor < upTo) {
+            List<ChangeEvent> batch = new ArrayList<>();
+            for (ChangeEvent row : changeEventRepository.findBySeqGreaterThanOrderBySeqAsc(
+                    subscriber.cursor, PageRequest.of(0, batchSize))) {
+                if (row.getSeq() > upTo) break;
+                batch.add(row);
+            }
+            if (batch.isEmpty()) {
+                subscriber.cursor = upTo;
+            } else {
+                send(subscriber, batch);
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, List<ChangeEvent> batch) throws IOException {
+        long last = batch.get(batch.size() - 1).getSeq();
+        subscriber.emitter.send(SseEmitter.event().name("changes").id(String.valueOf(last))
+                .data(batch, MediaType.APPLICATION_JSON));
+        subscriber.cursor = last;
+        subscriber.lastSentNanos = System.nanoTime();
+    }
+
+    // rows older than the retention are dropped at most once an hour
+    private void prune() {
+        long now = System.nanoTime();
+        if (now - nextPruneNanos < 0) return;
+        nextPruneNanos = now + TimeUnit.HOURS.toNanos(1);
+        int pruned = new TransactionTemplate(transactionManager).execute(status ->
+                changeEventRepository.deleteOlderThan(LocalDateTime.now().minus(retention)));
+        if (pruned > 0) log.info("Pruned {} change events older than {}", pruned, retention);
+    }
+
+    // cursor and lastSentNanos belong to the sender thread, the rest is guarded by the subscriber
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final ArrayDeque<ChangeEvent> pending = new ArrayDeque<>();
+        long catchUpTo = NONE;
+        boolean scheduled;
+        volatile long cursor;
+        volatile long lastSentNanos = System.nanoTime();
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
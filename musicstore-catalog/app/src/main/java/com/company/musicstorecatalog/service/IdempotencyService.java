@@ -0,0 +1,246 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.IdempotencyRecord;
+import com.company.musicstorecatalog.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Responses of POST /album, /track, /artist and /label sent with an Idempotency-Key header, see
+// IdempotencyFilter. The first request with a key owns it; a retry with the same key and the same
+// request gets the stored response back without reaching the controller, and a duplicate that arrives
+// while the first is still running waits for it (up to catalog.idempotency.wait). Only 2xx responses
+// are kept: a failed first request frees its key for the next attempt. Keys live in a size-bounded
+// Caffeine cache for catalog.idempotency.ttl; with catalog.idempotency.store=jdbc they are also claimed
+// in the idempotency_key table, so retries that land on another node are collapsed too.
+@Service
+public class IdempotencyService {
+    @Value("${catalog.idempotency.ttl:24h}")
+    Duration ttl;
+
+    @Value("${catalog.idempotency.max-keys:100000}")
+    long maxKeys;
+
+    @Value("${catalog.idempotency.wait:10s}")
+    Duration wait;
+
+    @Value("${catalog.idempotency.store:memory}")
+    String store;
+
+    @Autowired
+    IdempotencyRecordRepository recordRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private Cache<String, Pending> pending;
+    private volatile long nextSweepNanos = System.nanoTime();
+
+    @PostConstruct
+    void createCache() {
+        pending = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterWrite(ttl).build();
+    }
+
+    // key is already scoped to the endpoint; fingerprint identifies the request sent with it
+    public Claim claim(String key, String fingerprint) {
+        long deadline = System.nanoTime() + wait.toNanos();
+        while (true) {
+            Pending mine = new Pending(fingerprint);
+            Pending first = pending.asMap().putIfAbsent(key, mine);
+            if (first == null) {
+                Claim claim;
+                try {
+                    claim = claimShared(key, mine, deadline);
+                } catch (RuntimeException e) {
+                    // the table could not be reached: free the key so waiters take it over instead of timing out
+                    pending.asMap().remove(key, mine);
+                    mine.response.cancel(false);
+                    throw e;
+                }
+                if (claim != null) return claim;
+                continue;
+            }
+            if (!first.fingerprint.equals(fingerprint)) return Claim.of(Claim.State.MISMATCH, key, null, null);
+            try {
+                return Claim.of(Claim.State.REPLAY, key, null,
+                        first.response.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (ExecutionException | CancellationException e) {
+                // the first request failed and released the key; try to take it over
+            } catch (TimeoutException e) {
+                return Claim.of(Claim.State.IN_PROGRESS, key, null, null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Claim.of(Claim.State.IN_PROGRESS, key, null, null);
+            }
+        }
+    }
+
+    public void complete(Claim claim, StoredResponse response) {
+        if (isShared()) {
+            transaction().executeWithoutResult(status -> recordRepository.complete(claim.key, response.status,
+                    response.contentType, response.location, new String(response.body, StandardCharsets.UTF_8)));
+        }
+        claim.pending.response.complete(response);
+    }
+
+    public void release(Claim claim) {
+        if (isShared()) transaction().executeWithoutResult(status -> recordRepository.release(claim.key));
+        pending.asMap().remove(claim.key, claim.pending);
+        claim.pending.response.cancel(false);
+    }
+
+    private boolean isShared() {
+        return "jdbc".equals(store);
+    }
+
+    // this node owns the key, now the table decides between the nodes; null means start over
+    private Claim claimShared(String key, Pending mine, long deadline) {
+        if (!isShared()) return Claim.of(Claim.State.OWNER, key, mine, null);
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = transaction().execute(status -> {
+            sweep(now);
+            recordRepository.deleteIfExpired(key, now);
+            return recordRepository.claim(key, mine.fingerprint, now.plus(ttl));
+        });
+        if (claimed == 1) return Claim.of(Claim.State.OWNER, key, mine, null);
+        // another node has it: replay its response once there is one
+        while (true) {
+            Optional<IdempotencyRecord> record = recordRepository.findById(key);
+            Claim claim;
+            if (!record.isPresent()) {
+                // released in the meantime
+                claim = null;
+            } else if (!record.get().getFingerprint().equals(mine.fingerprint)) {
+                claim = Claim.of(Claim.State.MISMATCH, key, null, null);
+            } else if (record.get().getStatus() != null) {
+                StoredResponse response = StoredResponse.of(record.get());
+                mine.response.complete(response);
+                return Claim.of(Claim.State.REPLAY, key, null, response);
+            } else if (System.nanoTime() < deadline && sleep(50)) {
+                continue;
+            } else {
+                claim = Claim.of(Claim.State.IN_PROGRESS, key, null, null);
+            }
+            pending.asMap().remove(key, mine);
+            mine.response.cancel(false);
+            return claim;
+        }
+    }
+
+    // expired rows are dropped at most once a minute, by whichever claim comes along
+    private void sweep(LocalDateTime now) {
+        long nowNanos = System.nanoTime();
+        if (nowNanos - nextSweepNanos < 0) return;
+        nextSweepNanos = nowNanos + TimeUnit.MINUTES.toNanos(1);
+        recordRepository.deleteExpired(now);
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private TransactionTemplate transaction() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private static final class Pending {
+        final String fingerprint;
+        final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+        Pending(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    public static final class Claim {
+        public enum State {
+            // run the request, then complete() or release() the claim
+            OWNER,
+            // send the stored response
+            REPLAY,
+            // the key was used for a different request
+            MISMATCH,
+            // the first request with the key is still running
+            IN_PROGRESS
+        }
+
+        private final State state;
+        private final String key;
+        private final Pending pending;
+        private final StoredResponse response;
+
+        private Claim(State state, String key, Pending pending, StoredResponse response) {
+            this.state = state;
+            this.key = key;
+            this.pending = pending;
+            this.response = response;
+        }
+
+        private static Claim of(State state, String key, Pending pending, StoredResponse response) {
+            return new Claim(state, key, pending, response);
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public StoredResponse getResponse() {
+            return response;
+        }
+    }
+
+    public static final class StoredResponse {
+        private final int status;
+        private final String contentType;
+        private final String location;
+        private final byte[] body;
+
+        public StoredResponse(int status, String contentType, String location, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.location = location;
+            this.body = body;
+        }
+
+        private static StoredResponse of(IdempotencyRecord record) {
+            return new StoredResponse(record.getStatus(), record.getContentType(), record.getLocation(),
+                    record.getBody() == null ? new byte[0] : record.getBody().getBytes(StandardCharsets.UTF_8));
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.company.musicstorecatalog.service;
+
+import java.util.Locale;
+
+public enum ImportFormat {
+    CSV, NDJSON;
+
+    // from a Content-Type or a file name
+    public static ImportFormat of(String contentTypeOrFileName) {
+        String value = contentTypeOrFileName == null ? "" : contentTypeOrFileName.toLowerCase(Locale.ROOT);
+        if (value.contains("ndjson") || value.endsWith(".jsonl")) return NDJSON;
+        if (value.contains("csv")) return CSV;
+        throw new IllegalArgumentException("Catalog files are CSV or NDJSON, got: " + contentTypeOrFileName);
+    }
+}
@@ -0,0 +1,24 @@
+package com.company.musicstorecatalog.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+// Reads a whole table through one of the keyset queries (findSummariesAfter and friends): each
+// call asks for the next batch after the last id seen, so every query stays small and indexed.
+final class KeysetReader {
+    private KeysetReader() {}
+
+    static <T> List<T> readAll(IntFunction<List<T>> batchAfter, Function<T, Integer> idOf, int batchSize) {
+        List<T> rows = new ArrayList<>();
+        List<T> batch;
+        int after = 0;
+        do {
+            batch = batchAfter.apply(after);
+            rows.addAll(batch);
+            if (!batch.isEmpty()) after = idOf.apply(batch.get(batch.size() - 1));
+        } while (batch.size() == batchSize);
+        return rows;
+    }
+}
@@ -0,0 +1,143 @@
+package com.company.musicstorecatalog.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The searchable titles of one kind of row: an immutable TitleIndex base plus the writes made
+// since it was built. Changed rows are looked up in the changes map (and skipped in the base),
+// so a write is visible to the next search at the cost of one map put; the title is tokenized
+// then, once, rather than by every search that scans the changes. Once the changes pass
+// the compaction threshold they are merged into a new base in the background.
+// Changes are published after their commit and may arrive out of order: one that is not newer
+// than the change held for its row (by @Version, a delete being final) is dropped. The changes
+// taken by the last compaction are kept for the comparison, so a change only slips through if it
+// arrives two compactions late.
+final class LiveTitleIndex {
+    private final String type;
+    private volatile TitleIndex base = TitleIndex.EMPTY;
+    private final ConcurrentHashMap<Integer, Change> changes = new ConcurrentHashMap<>();
+    private volatile Map<Integer, Change> settled = Collections.emptyMap();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    LiveTitleIndex(String type) {
+        this.type = type;
+    }
+
+    // version: the row's @Version, null when unknown (always applied)
+    void put(Integer id, String title, Integer version) {
+        Change change = new Change(title, title == null ? null : TitleIndex.tokenize(title), version, sequence.incrementAndGet());
+        changes.compute(id, (key, held) -> change.isNewerThan(held == null ? settled.get(key) : held) ? change : held);
+    }
+
+    void remove(Integer id) {
+        put(id, null, null);
+    }
+
+    long sequence() {
+        return sequence.get();
+    }
+
+    int size() {
+        return base.size();
+    }
+
+    int pendingChanges() {
+        return changes.size();
+    }
+
+    // installs a base loaded from MySQL; changes numbered up to upTo were committed before the
+    // load started, so the new base already contains them
+    synchronized void replaceBase(TitleIndex index, long upTo) {
+        base = index;
+        changes.values().removeIf(change -> change.sequence <= upTo);
+    }
+
+    void compactIfOver(int threshold) {
+        if (changes.size() > threshold && compacting.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    compact();
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+    synchronized void compact() {
+        Map<Integer, Change> taken = new HashMap<>(changes);
+        TreeMap<Integer, String> titles = new TreeMap<>();
+        taken.forEach((id, change) -> titles.put(id, change.title));
+        base = base.apply(titles);
+        settled = taken;
+        // a row written again meanwhile keeps its newer change
+        taken.forEach(changes::remove);
+    }
+
+    void search(String[] terms, TopHits top) {
+        TitleIndex index = base;
+        double weight = 0;
+        for (String term : terms) {
+            weight += Math.log(1 + (index.size() + 1.0) / (index.documentFrequency(term) + 1.0));
+        }
+        for (int ordinal : index.match(terms)) {
+            int id = index.docId(ordinal);
+            if (!changes.isEmpty() && changes.containsKey(id)) continue;
+            top.offer(score(weight, terms.length, index.length(ordinal)), type, id, index, ordinal);
+        }
+        for (Map.Entry<Integer, Change> entry : changes.entrySet()) {
+            Change change = entry.getValue();
+            if (change.title == null) continue;
+            if (containsAll(change.tokens, terms)) {
+                top.offer(score(weight, terms.length, change.tokens.length), type, entry.getKey(), change.title);
+            }
+        }
+    }
+
+    // rarer words weigh more, and a title the query covers completely beats a longer one
+    private static double score(double weight, int matched, int length) {
+        return weight * matched / Math.max(length, matched);
+    }
+
+    private static boolean containsAll(String[] tokens, String[] terms) {
+        for (String term : terms) {
+            boolean found = false;
+            for (String token : tokens) {
+                if (token.equals(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    private static final class Change {
+        final String title;
+        final String[] tokens;
+        final Integer version;
+        final long sequence;
+
+        Change(String title, String[] tokens, Integer version, long sequence) {
+            this.title = title;
+            this.tokens = tokens;
+            this.version = version;
+            this.sequence = sequence;
+        }
+
+        // ids are never reused, so nothing follows a delete
+        boolean isNewerThan(Change held) {
+            if (held == null) return true;
+            if (held.title == null) return false;
+            return title == null || version == null || held.version == null || version > held.version;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.company.musicstorecatalog.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Writes a repository stream as newline-delimited JSON, one entity per line.
+// Rows are detached as soon as they are written so the persistence context
+// (and the heap) stays flat however big the table is.
+@Service
+public class NdjsonExportService {
+    private static final int FLUSH_EVERY = 1000;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    // the Stream has to be opened inside this read-only transaction, hence the Supplier
+    @Transactional(readOnly = true)
+    public <T> long writeNdjson(Supplier<Stream<T>> rows, OutputStream out) throws IOException {
+        try (Stream<T> stream = rows.get()) {
+            return write(stream, out, true);
+        }
+    }
+
+    // rows that are already in memory (the catalog snapshot): no transaction, nothing to detach
+    public <T> long writeNdjsonRows(Collection<T> rows, OutputStream out) throws IOException {
+        return write(rows.stream(), out, false);
+    }
+
+    private <T> long write(Stream<T> rows, OutputStream out, boolean detach) throws IOException {
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = mapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // lines are terminated below, so no separator between root values
+        generator.setRootValueSeparator(null);
+
+        long count = 0;
+        for (T row : (Iterable<T>) rows::iterator) {
+            writer.writeValue(generator, row);
+            generator.writeRaw('\n');
+            if (detach) entityManager.detach(row);
+            count++;
+            // push the first line out right away, then in blocks
+            if (count == 1 || count % FLUSH_EVERY == 0) generator.flush();
+        }
+        generator.flush();
+        return count;
+    }
+}
@@ -0,0 +1,132 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumSummary;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.ArtistSummary;
+import com.company.musicstorecatalog.model.SearchHit;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.model.TrackSummary;
+import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.ArtistRepository;
+import com.company.musicstorecatalog.repository.TrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+// Title search over albums, tracks and artists. Each kind has its own in-memory inverted index,
+// built from MySQL when the application starts (the three loads run concurrently, and each build
+// tokenizes and encodes in parallel) and kept current by the controllers' write paths.
+@Service
+public class SearchService {
+    public static final String ALBUM = "album";
+    public static final String TRACK = "track";
+    public static final String ARTIST = "artist";
+
+    private static final int LOAD_BATCH = 10_000;
+
+    @Value("${catalog.search.enabled:true}")
+    boolean enabled;
+
+    @Value("${catalog.search.compact-threshold:10000}")
+    int compactThreshold;
+
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+
+    final LiveTitleIndex albums = new LiveTitleIndex(ALBUM);
+    final LiveTitleIndex tracks = new LiveTitleIndex(TRACK);
+    final LiveTitleIndex artists = new LiveTitleIndex(ARTIST);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) rebuild();
+    }
+
+    public void rebuild() {
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> rebuild(albums,
+                        after -> albumRepository.findSummariesAfter(after, PageRequest.of(0, LOAD_BATCH)),
+                        AlbumSummary::getAlbumId, AlbumSummary::getTitle)),
+                CompletableFuture.runAsync(() -> rebuild(tracks,
+                        after -> trackRepository.findSummariesAfter(after, PageRequest.of(0, LOAD_BATCH)),
+                        TrackSummary::getTrackId, TrackSummary::getTitle)),
+                CompletableFuture.runAsync(() -> rebuild(artists,
+                        after -> artistRepository.findSummariesAfter(after, PageRequest.of(0, LOAD_BATCH)),
+                        ArtistSummary::getArtistId, ArtistSummary::getName))
+        ).join();
+    }
+
+    // best matches first; every word of the query has to appear in the title
+    public List<SearchHit> search(String query, int limit) {
+        String[] terms = TitleIndex.tokenize(query);
+        if (terms.length == 0) return Collections.emptyList();
+        TopHits top = new TopHits(limit);
+        albums.search(terms, top);
+        tracks.search(terms, top);
+        artists.search(terms, top);
+        return top.toList();
+    }
+
+    public void albumSaved(Album album) {
+        if (album != null) put(albums, album.getAlbumId(), album.getTitle(), album.getVersion());
+    }
+
+    public void albumDeleted(Integer albumId) {
+        put(albums, albumId, null, null);
+    }
+
+    public void trackSaved(Track track) {
+        if (track != null) put(tracks, track.getTrackId(), track.getTitle(), track.getVersion());
+    }
+
+    public void trackDeleted(Integer trackId) {
+        put(tracks, trackId, null, null);
+    }
+
+    public void artistSaved(Artist artist) {
+        if (artist != null) put(artists, artist.getArtistId(), artist.getName(), artist.getVersion());
+    }
+
+    public void artistDeleted(Integer artistId) {
+        put(artists, artistId, null, null);
+    }
+
+    // id, title and version are read now and indexed once the caller's transaction commits; a null
+    // title deletes the row
+    private void put(LiveTitleIndex index, Integer id, String title, Integer version) {
+        if (!enabled || id == null) return;
+        AfterCommit.run(() -> {
+            if (title == null) index.remove(id);
+            else index.put(id, title, version);
+            index.compactIfOver(compactThreshold);
+        });
+    }
+
+    private <T> void rebuild(LiveTitleIndex index, IntFunction<List<T>> batchAfter,
+                             Function<T, Integer> idOf, Function<T, String> titleOf) {
+        long upTo = index.sequence();
+        List<T> rows = KeysetReader.readAll(batchAfter, idOf, LOAD_BATCH);
+
+        int[] ids = new int[rows.size()];
+        String[] titles = new String[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idOf.apply(rows.get(i));
+            titles[i] = titleOf.apply(rows.get(i));
+        }
+        index.replaceBase(TitleIndex.build(ids, titles), upTo);
+    }
+}
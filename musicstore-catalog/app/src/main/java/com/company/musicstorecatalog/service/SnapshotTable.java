@@ -0,0 +1,171 @@
+package com.company.musicstorecatalog.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Immutable id -> row table used by CatalogSnapshot. The bulk of the rows sit in a base of two
+// parallel arrays (sorted int ids and the rows themselves, looked up by binary search); writes
+// made since the base was built live in a small sorted overlay, where a null value marks a delete.
+// with()/without() return a new table that shares the base and copies only the overlay.
+// Writes are published after their commit and may arrive out of order, so with() ignores a row whose
+// @Version is not newer than the stored one, and a deleted id stays deleted: ids are never reused, so
+// a delete outranks every version. The ids deleted since the table was loaded are kept through compact().
+@SuppressWarnings("unchecked")
+public final class SnapshotTable<T> {
+    private static final int[] NONE = new int[0];
+
+    private final ToIntFunction<T> idOf;
+    private final Function<T, Integer> versionOf;
+    private final int[] ids;
+    private final Object[] rows;
+    private final NavigableMap<Integer, T> overlay;
+    // sorted ids deleted before the base was built
+    private final int[] deleted;
+
+    private SnapshotTable(ToIntFunction<T> idOf, Function<T, Integer> versionOf, int[] ids, Object[] rows,
+                          NavigableMap<Integer, T> overlay, int[] deleted) {
+        this.idOf = idOf;
+        this.versionOf = versionOf;
+        this.ids = ids;
+        this.rows = rows;
+        this.overlay = overlay;
+        this.deleted = deleted;
+    }
+
+    public static <T> SnapshotTable<T> of(List<T> rows, ToIntFunction<T> idOf, Function<T, Integer> versionOf) {
+        return of(rows, idOf, versionOf, NONE);
+    }
+
+    private static <T> SnapshotTable<T> of(List<T> rows, ToIntFunction<T> idOf, Function<T, Integer> versionOf, int[] deleted) {
+        Object[] sorted = rows.toArray();
+        Arrays.sort(sorted, (a, b) -> Integer.compare(idOf.applyAsInt((T) a), idOf.applyAsInt((T) b)));
+        int[] ids = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            ids[i] = idOf.applyAsInt((T) sorted[i]);
+        }
+        return new SnapshotTable<>(idOf, versionOf, ids, sorted, Collections.unmodifiableNavigableMap(new TreeMap<>()), deleted);
+    }
+
+    public Optional<T> get(int id) {
+        if (overlay.containsKey(id)) return Optional.ofNullable(overlay.get(id));
+        int slot = baseSlot(id);
+        return slot < 0 ? Optional.empty() : Optional.of(baseRow(slot));
+    }
+
+    public List<T> all() {
+        return after(0, Integer.MAX_VALUE);
+    }
+
+    // rows with id > afterId in id order, merging the base with the overlay
+    public List<T> after(int afterId, int limit) {
+        List<T> result = new ArrayList<>(Math.min(limit, size()));
+        int slot = firstSlotAbove(afterId);
+        Iterator<Map.Entry<Integer, T>> changes = overlay.tailMap(afterId, false).entrySet().iterator();
+        Map.Entry<Integer, T> change = changes.hasNext() ? changes.next() : null;
+        while (result.size() < limit && (slot < ids.length || change != null)) {
+            if (change == null || (slot < ids.length && ids[slot] < change.getKey())) {
+                result.add(baseRow(slot++));
+                continue;
+            }
+            if (slot < ids.length && ids[slot] == change.getKey()) slot++;
+            if (change.getValue() != null) result.add(change.getValue());
+            change = changes.hasNext() ? changes.next() : null;
+        }
+        return result;
+    }
+
+    // this table itself when the row is stale: its id was deleted, or its version is not newer than the
+    // stored one (rows without a version always win)
+    public SnapshotTable<T> with(T row) {
+        int id = idOf.applyAsInt(row);
+        if (isDeleted(id)) return this;
+        Integer version = versionOf.apply(row);
+        Optional<T> stored = get(id);
+        if (version != null && stored.isPresent()) {
+            Integer storedVersion = versionOf.apply(stored.get());
+            if (storedVersion != null && version <= storedVersion) return this;
+        }
+        TreeMap<Integer, T> changes = new TreeMap<>(overlay);
+        changes.put(id, row);
+        return new SnapshotTable<>(idOf, versionOf, ids, rows, Collections.unmodifiableNavigableMap(changes), deleted);
+    }
+
+    public SnapshotTable<T> without(int id) {
+        if (isDeleted(id)) return this;
+        TreeMap<Integer, T> changes = new TreeMap<>(overlay);
+        changes.put(id, null);
+        return new SnapshotTable<>(idOf, versionOf, ids, rows, Collections.unmodifiableNavigableMap(changes), deleted);
+    }
+
+    // folds the overlay into a fresh base; its deletes join the kept tombstones
+    public SnapshotTable<T> compact() {
+        if (overlay.isEmpty()) return this;
+        int[] merged = Arrays.copyOf(deleted, deleted.length + overlay.size());
+        int count = deleted.length;
+        for (Map.Entry<Integer, T> change : overlay.entrySet()) {
+            if (change.getValue() == null) merged[count++] = change.getKey();
+        }
+        merged = Arrays.copyOf(merged, count);
+        Arrays.sort(merged);
+        return of(all(), idOf, versionOf, merged);
+    }
+
+    public int size() {
+        int size = ids.length;
+        for (Map.Entry<Integer, T> change : overlay.entrySet()) {
+            boolean inBase = baseSlot(change.getKey()) >= 0;
+            if (change.getValue() == null && inBase) size--;
+            if (change.getValue() != null && !inBase) size++;
+        }
+        return size;
+    }
+
+    public int overlaySize() {
+        return overlay.size();
+    }
+
+    // live (non-deleted) overlay rows
+    public Collection<T> overlayRows() {
+        List<T> live = new ArrayList<>(overlay.size());
+        for (T row : overlay.values()) {
+            if (row != null) live.add(row);
+        }
+        return live;
+    }
+
+    public boolean isOverridden(int id) {
+        return overlay.containsKey(id);
+    }
+
+    public boolean isDeleted(int id) {
+        return overlay.containsKey(id) ? overlay.get(id) == null : Arrays.binarySearch(deleted, id) >= 0;
+    }
+
+    int baseSize() {
+        return ids.length;
+    }
+
+    int baseSlot(int id) {
+        int slot = Arrays.binarySearch(ids, id);
+        return slot < 0 ? -1 : slot;
+    }
+
+    T baseRow(int slot) {
+        return (T) rows[slot];
+    }
+
+    private int firstSlotAbove(int id) {
+        int slot = Arrays.binarySearch(ids, id);
+        return slot < 0 ? -slot - 1 : slot + 1;
+    }
+}
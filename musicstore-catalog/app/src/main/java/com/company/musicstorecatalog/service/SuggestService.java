@@ -0,0 +1,269 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.ArtistStats;
+import com.company.musicstorecatalog.model.ArtistSummary;
+import com.company.musicstorecatalog.model.LabelStats;
+import com.company.musicstorecatalog.model.LabelSummary;
+import com.company.musicstorecatalog.model.Suggestion;
+import com.company.musicstorecatalog.repository.ArtistRepository;
+import com.company.musicstorecatalog.repository.ArtistStatsRepository;
+import com.company.musicstorecatalog.repository.LabelRepository;
+import com.company.musicstorecatalog.repository.LabelStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Name autocomplete for artists and labels, answered from an immutable SuggestTrie per table and
+// weighted by album count, read from artist_stats and label_stats. A write to either table only flags
+// its trie as stale; the rebuild runs in the background and swaps the new trie in, and writes arriving
+// meanwhile trigger one more pass. Album writes change no names: CatalogStatsService reports the
+// artists and labels whose counts moved, and only their weights are re-read and patched into the trie.
+// The loads run on two threads of their own, one per table, never on the common pool.
+@Service
+public class SuggestService {
+    private static final Logger log = LoggerFactory.getLogger(SuggestService.class);
+    private static final int LOAD_BATCH = 10_000;
+
+    @Value("${catalog.suggest.enabled:true}")
+    boolean enabled;
+
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    ArtistStatsRepository artistStatsRepository;
+    @Autowired
+    LabelStatsRepository labelStatsRepository;
+
+    volatile SuggestTrie artists = SuggestTrie.EMPTY;
+    volatile SuggestTrie labels = SuggestTrie.EMPTY;
+
+    // names changed: the next pass rebuilds; otherwise it only re-weights the touched ids
+    private final AtomicBoolean artistNamesChanged = new AtomicBoolean();
+    private final AtomicBoolean labelNamesChanged = new AtomicBoolean();
+    private final Set<Integer> touchedArtists = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> touchedLabels = ConcurrentHashMap.newKeySet();
+
+    private final BackgroundRebuild artistRebuild = new BackgroundRebuild("artist", this::refreshArtists);
+    private final BackgroundRebuild labelRebuild = new BackgroundRebuild("label", this::refreshLabels);
+    ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(2, task -> {
+            Thread thread = new Thread(task, "catalog-suggest-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            CompletableFuture.allOf(
+                    CompletableFuture.runAsync(this::rebuildArtists, executor),
+                    CompletableFuture.runAsync(this::rebuildLabels, executor)
+            ).join();
+        }
+    }
+
+    public List<Suggestion> suggestArtists(String prefix, int limit) {
+        return artists.suggest(prefix, limit);
+    }
+
+    public List<Suggestion> suggestLabels(String prefix, int limit) {
+        return labels.suggest(prefix, limit);
+    }
+
+    public void artistsChanged() {
+        if (!enabled) return;
+        AfterCommit.run(() -> {
+            artistNamesChanged.set(true);
+            artistRebuild.request();
+        });
+    }
+
+    public void labelsChanged() {
+        if (!enabled) return;
+        AfterCommit.run(() -> {
+            labelNamesChanged.set(true);
+            labelRebuild.request();
+        });
+    }
+
+    // album counts moved for these artists and labels (committed), see CatalogStatsService
+    public void weightsChanged(Collection<Integer> artistIds, Collection<Integer> labelIds) {
+        if (!enabled) return;
+        if (touch(touchedArtists, artistIds)) artistRebuild.request();
+        if (touch(touchedLabels, labelIds)) labelRebuild.request();
+    }
+
+    public void rebuildArtists() {
+        Map<Integer, Long> weights = new HashMap<>();
+        KeysetReader.readAll(after -> artistStatsRepository.findByArtistIdGreaterThanOrderByArtistIdAsc(after,
+                        PageRequest.of(0, LOAD_BATCH)), ArtistStats::getArtistId, LOAD_BATCH)
+                .forEach(row -> weights.put(row.getArtistId(), (long) row.getAlbumCount()));
+        List<ArtistSummary> rows = KeysetReader.readAll(
+                after -> artistRepository.findSummariesAfter(after, PageRequest.of(0, LOAD_BATCH)),
+                ArtistSummary::getArtistId, LOAD_BATCH);
+        artists = build(rows, ArtistSummary::getArtistId, ArtistSummary::getName, weights);
+    }
+
+    public void rebuildLabels() {
+        Map<Integer, Long> weights = new HashMap<>();
+        KeysetReader.readAll(after -> labelStatsRepository.findByLabelIdGreaterThanOrderByLabelIdAsc(after,
+                        PageRequest.of(0, LOAD_BATCH)), LabelStats::getLabelId, LOAD_BATCH)
+                .forEach(row -> weights.put(row.getLabelId(), (long) row.getAlbumCount()));
+        List<LabelSummary> rows = KeysetReader.readAll(
+                after -> labelRepository.findSummariesAfter(after, PageRequest.of(0, LOAD_BATCH)),
+                LabelSummary::getLabelId, LOAD_BATCH);
+        labels = build(rows, LabelSummary::getLabelId, LabelSummary::getName, weights);
+    }
+
+    // a rebuild reads every weight anyway, so the ids touched before it starts need no second pass;
+    // when the read fails the flag and the ids are put back for the next pass
+    void refreshArtists() {
+        List<Integer> ids = drain(touchedArtists);
+        if (artistNamesChanged.getAndSet(false)) {
+            try {
+                rebuildArtists();
+            } catch (RuntimeException e) {
+                artistNamesChanged.set(true);
+                touchedArtists.addAll(ids);
+                throw e;
+            }
+            return;
+        }
+        if (ids.isEmpty()) return;
+        Map<Integer, Long> weights = zeroWeights(ids);
+        try {
+            artistStatsRepository.findAllById(ids).forEach(row -> weights.put(row.getArtistId(), (long) row.getAlbumCount()));
+        } catch (RuntimeException e) {
+            touchedArtists.addAll(ids);
+            throw e;
+        }
+        artists = artists.withWeights(weights);
+    }
+
+    void refreshLabels() {
+        List<Integer> ids = drain(touchedLabels);
+        if (labelNamesChanged.getAndSet(false)) {
+            try {
+                rebuildLabels();
+            } catch (RuntimeException e) {
+                labelNamesChanged.set(true);
+                touchedLabels.addAll(ids);
+                throw e;
+            }
+            return;
+        }
+        if (ids.isEmpty()) return;
+        Map<Integer, Long> weights = zeroWeights(ids);
+        try {
+            labelStatsRepository.findAllById(ids).forEach(row -> weights.put(row.getLabelId(), (long) row.getAlbumCount()));
+        } catch (RuntimeException e) {
+            touchedLabels.addAll(ids);
+            throw e;
+        }
+        labels = labels.withWeights(weights);
+    }
+
+    private static boolean touch(Set<Integer> touched, Collection<Integer> ids) {
+        boolean added = false;
+        for (Integer id : ids) {
+            if (id != null) added |= touched.add(id);
+        }
+        return added;
+    }
+
+    private static List<Integer> drain(Set<Integer> touched) {
+        List<Integer> ids = new ArrayList<>();
+        for (Integer id : touched) {
+            if (touched.remove(id)) ids.add(id);
+        }
+        return ids;
+    }
+
+    // an id without a stats row has no albums
+    private static Map<Integer, Long> zeroWeights(List<Integer> ids) {
+        Map<Integer, Long> weights = new HashMap<>();
+        ids.forEach(id -> weights.put(id, 0L));
+        return weights;
+    }
+
+    private static <T> SuggestTrie build(List<T> rows, Function<T, Integer> idOf, Function<T, String> nameOf,
+                                         Map<Integer, Long> weights) {
+        int[] ids = new int[rows.size()];
+        String[] names = new String[rows.size()];
+        long[] rowWeights = new long[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idOf.apply(rows.get(i));
+            names[i] = nameOf.apply(rows.get(i));
+            rowWeights[i] = weights.getOrDefault(ids[i], 0L);
+        }
+        return SuggestTrie.build(ids, names, rowWeights);
+    }
+
+    // coalesces rebuild requests: at most one rebuild runs at a time, and a request made while it
+    // runs schedules exactly one more
+    private final class BackgroundRebuild {
+        private final String table;
+        private final Runnable rebuild;
+        private final AtomicBoolean stale = new AtomicBoolean();
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        BackgroundRebuild(String table, Runnable rebuild) {
+            this.table = table;
+            this.rebuild = rebuild;
+        }
+
+        void request() {
+            stale.set(true);
+            if (running.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        while (stale.getAndSet(false)) {
+                            rebuild.run();
+                        }
+                    } catch (RuntimeException e) {
+                        // the refresh put its work back; the next write retries it
+                        log.warn("Could not refresh the {} suggestions", table, e);
+                        return;
+                    } finally {
+                        running.set(false);
+                    }
+                    // a request that lost the race with the finally block above
+                    if (stale.get()) request();
+                }, executor);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Suggestion;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+// Immutable prefix trie over names, held entirely in parallel primitive arrays (no node objects).
+// Names are folded (lower case, no accents, single spaces) and sorted, so the names under any node
+// form one contiguous range of the entry arrays. Nodes are laid out breadth-first, which makes the
+// children of a node a contiguous run as well, searched by binary search on their edge chars.
+// Every node also stores the highest weight below it, so the top N for a prefix are found
+// best-first without visiting the rest of the subtree.
+public final class SuggestTrie {
+    static final SuggestTrie EMPTY = build(new int[0], new String[0], new long[0]);
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    // entries, sorted by folded name
+    private final int[] ids;
+    private final String[] names;
+    private final long[] weights;
+
+    // nodes, root is 0
+    private final char[] edge;
+    private final int[] childStart;
+    private final int[] childEnd;
+    private final int[] entryStart;
+    private final int[] entryEnd;
+    private final long[] maxWeight;
+
+    private SuggestTrie(int[] ids, String[] names, long[] weights, char[] edge, int[] childStart, int[] childEnd,
+                        int[] entryStart, int[] entryEnd, long[] maxWeight) {
+        this.ids = ids;
+        this.names = names;
+        this.weights = weights;
+        this.edge = edge;
+        this.childStart = childStart;
+        this.childEnd = childEnd;
+        this.entryStart = entryStart;
+        this.entryEnd = entryEnd;
+        this.maxWeight = maxWeight;
+    }
+
+    public static SuggestTrie build(int[] ids, String[] names, long[] weights) {
+        int n = ids.length;
+        String[] keys = new String[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = fold(names[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer, String>comparing(i -> keys[i]).thenComparingInt(i -> ids[i]));
+
+        int[] sortedIds = new int[n];
+        String[] sortedNames = new String[n];
+        long[] sortedWeights = new long[n];
+        String[] sortedKeys = new String[n];
+        int nodes = 1;
+        for (int i = 0; i < n; i++) {
+            sortedIds[i] = ids[order[i]];
+            sortedNames[i] = names[order[i]];
+            sortedWeights[i] = weights[order[i]];
+            sortedKeys[i] = keys[order[i]];
+            // upper bound: every char of every key its own node
+            nodes += sortedKeys[i].length();
+        }
+
+        char[] edge = new char[nodes];
+        int[] childStart = new int[nodes];
+        int[] childEnd = new int[nodes];
+        int[] entryStart = new int[nodes];
+        int[] entryEnd = new int[nodes];
+        int[] depth = new int[nodes];
+        entryEnd[0] = n;
+
+        // breadth-first: nodes are numbered in the order they are queued
+        int count = 1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            int d = depth[node];
+            int i = entryStart[node];
+            // keys ending here sort first within the range
+            while (i < entryEnd[node] && sortedKeys[i].length() == d) i++;
+            childStart[node] = count;
+            while (i < entryEnd[node]) {
+                char c = sortedKeys[i].charAt(d);
+                int j = i;
+                while (j < entryEnd[node] && sortedKeys[j].charAt(d) == c) j++;
+                edge[count] = c;
+                entryStart[count] = i;
+                entryEnd[count] = j;
+                depth[count] = d + 1;
+                queue.add(count++);
+                i = j;
+            }
+            childEnd[node] = count;
+        }
+
+        childStart = Arrays.copyOf(childStart, count);
+        childEnd = Arrays.copyOf(childEnd, count);
+        entryStart = Arrays.copyOf(entryStart, count);
+        entryEnd = Arrays.copyOf(entryEnd, count);
+        return new SuggestTrie(sortedIds, sortedNames, sortedWeights, Arrays.copyOf(edge, count), childStart, childEnd,
+                entryStart, entryEnd, maxWeights(sortedWeights, childStart, childEnd, entryStart, entryEnd));
+    }
+
+    // the same names with the weights of some ids replaced: no sorting, folding or node layout, only
+    // the entry weights and the subtree maxima are redone, and everything else is shared with this trie
+    public SuggestTrie withWeights(Map<Integer, Long> changed) {
+        long[] newWeights = weights.clone();
+        for (int e = 0; e < ids.length; e++) {
+            Long weight = changed.get(ids[e]);
+            if (weight != null) newWeights[e] = weight;
+        }
+        return new SuggestTrie(ids, names, newWeights, edge, childStart, childEnd, entryStart, entryEnd,
+                maxWeights(newWeights, childStart, childEnd, entryStart, entryEnd));
+    }
+
+    // children always come after their parent, so one backwards pass fills in the subtree maxima
+    private static long[] maxWeights(long[] weights, int[] childStart, int[] childEnd, int[] entryStart, int[] entryEnd) {
+        long[] maxWeight = new long[childStart.length];
+        for (int node = maxWeight.length - 1; node >= 0; node--) {
+            long max = Long.MIN_VALUE;
+            int terminalEnd = childStart[node] < childEnd[node] ? entryStart[childStart[node]] : entryEnd[node];
+            for (int e = entryStart[node]; e < terminalEnd; e++) {
+                max = Math.max(max, weights[e]);
+            }
+            for (int child = childStart[node]; child < childEnd[node]; child++) {
+                max = Math.max(max, maxWeight[child]);
+            }
+            maxWeight[node] = max;
+        }
+        return maxWeight;
+    }
+
+    // lower case, no accents, trimmed, runs of whitespace collapsed to one space
+    public static String fold(String name) {
+        if (name == null) return "";
+        String folded = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(folded.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int nodeCount() {
+        return edge.length;
+    }
+
+    // up to limit names starting with prefix, heaviest first, ties by name
+    public List<Suggestion> suggest(String prefix, int limit) {
+        List<Suggestion> result = new ArrayList<>();
+        int node = find(fold(prefix));
+        if (node < 0 || ids.length == 0) return result;
+
+        // {weight, node} or {weight, -(entry + 1)}, heaviest first; on equal weight nodes are expanded
+        // before any entry is taken, so entries of one weight come out in name order
+        PriorityQueue<long[]> frontier = new PriorityQueue<>((a, b) -> {
+            if (a[0] != b[0]) return Long.compare(b[0], a[0]);
+            return Long.compare(b[1], a[1]);
+        });
+        frontier.add(new long[]{maxWeight[node], node});
+        while (!frontier.isEmpty() && result.size() < limit) {
+            long[] top = frontier.poll();
+            if (top[1] < 0) {
+                int entry = (int) (-top[1] - 1);
+                result.add(new Suggestion(ids[entry], names[entry], weights[entry]));
+                continue;
+            }
+            int current = (int) top[1];
+            int terminalEnd = childStart[current] < childEnd[current] ? entryStart[childStart[current]] : entryEnd[current];
+            for (int e = entryStart[current]; e < terminalEnd; e++) {
+                frontier.add(new long[]{weights[e], -(e + 1)});
+            }
+            for (int child = childStart[current]; child < childEnd[current]; child++) {
+                frontier.add(new long[]{maxWeight[child], child});
+            }
+        }
+        return result;
+    }
+
+    private int find(String key) {
+        int node = 0;
+        for (int i = 0; i < key.length(); i++) {
+            int lo = childStart[node];
+            int hi = childEnd[node] - 1;
+            char c = key.charAt(i);
+            node = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (edge[mid] < c) lo = mid + 1;
+                else if (edge[mid] > c) hi = mid - 1;
+                else {
+                    node = mid;
+                    break;
+                }
+            }
+            if (node < 0) return -1;
+        }
+        return node;
+    }
+}
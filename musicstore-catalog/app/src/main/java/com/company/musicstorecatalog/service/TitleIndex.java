@@ -0,0 +1,229 @@
+package com.company.musicstorecatalog.service;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Immutable inverted index over the titles of one kind of row. Documents are numbered by their
+// position (ordinal) in the sorted docIds array. Each term maps to the ascending list of ordinals
+// that contain it, stored as a varint count followed by varint gaps, so a posting of dense
+// ordinals costs about one byte per document. Titles are kept as UTF-8 back to back for the hits.
+public final class TitleIndex {
+    static final TitleIndex EMPTY = build(new int[0], new String[0]);
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final int[] docIds;
+    private final byte[] lengths;
+    private final byte[] text;
+    private final int[] textOffsets;
+    private final Map<String, byte[]> postings;
+
+    private TitleIndex(int[] docIds, byte[] lengths, byte[] text, int[] textOffsets, Map<String, byte[]> postings) {
+        this.docIds = docIds;
+        this.lengths = lengths;
+        this.text = text;
+        this.textOffsets = textOffsets;
+        this.postings = postings;
+    }
+
+    // docIds must be ascending and unique; titles[i] belongs to docIds[i]
+    public static TitleIndex build(int[] docIds, String[] titles) {
+        int n = docIds.length;
+        String[][] tokens = new String[n][];
+        byte[][] utf8 = new byte[n][];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            tokens[i] = tokenize(titles[i]);
+            utf8[i] = titles[i] == null ? new byte[0] : titles[i].getBytes(StandardCharsets.UTF_8);
+        });
+
+        byte[] lengths = new byte[n];
+        int[] textOffsets = new int[n + 1];
+        Map<String, IntList> lists = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            lengths[i] = (byte) Math.min(tokens[i].length, 255);
+            textOffsets[i + 1] = textOffsets[i] + utf8[i].length;
+            for (String token : tokens[i]) {
+                lists.computeIfAbsent(token, t -> new IntList()).add(i);
+            }
+        }
+        byte[] text = new byte[textOffsets[n]];
+        IntStream.range(0, n).parallel().forEach(i -> System.arraycopy(utf8[i], 0, text, textOffsets[i], utf8[i].length));
+        Map<String, byte[]> postings = lists.entrySet().parallelStream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().encode()));
+        return new TitleIndex(docIds, lengths, text, textOffsets, postings);
+    }
+
+    // lower-cased, accent-free, distinct words of a title or query
+    public static String[] tokenize(String title) {
+        if (title == null) return new String[0];
+        String folded = MARKS.matcher(Normalizer.normalize(title, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) distinct.add(token);
+        }
+        return distinct.toArray(new String[0]);
+    }
+
+    public int size() {
+        return docIds.length;
+    }
+
+    public int docId(int ordinal) {
+        return docIds[ordinal];
+    }
+
+    // number of distinct words in the document's title
+    public int length(int ordinal) {
+        return lengths[ordinal] & 0xFF;
+    }
+
+    public String title(int ordinal) {
+        return new String(text, textOffsets[ordinal], textOffsets[ordinal + 1] - textOffsets[ordinal], StandardCharsets.UTF_8);
+    }
+
+    public int documentFrequency(String term) {
+        byte[] posting = postings.get(term);
+        return posting == null ? 0 : new Cursor(posting).remaining;
+    }
+
+    // ascending ordinals of the documents containing every term: the rarest posting is decoded and
+    // the others are walked alongside it, so the cost is bounded by the shortest list plus skips
+    public int[] match(String[] terms) {
+        byte[][] lists = new byte[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            lists[i] = postings.get(terms[i]);
+            if (lists[i] == null) return new int[0];
+        }
+        Arrays.sort(lists, Comparator.comparingInt(posting -> new Cursor(posting).remaining));
+
+        Cursor rarest = new Cursor(lists[0]);
+        int[] result = new int[rarest.remaining];
+        int size = 0;
+        while (rarest.next()) {
+            result[size++] = rarest.current;
+        }
+        for (int i = 1; i < lists.length && size > 0; i++) {
+            Cursor other = new Cursor(lists[i]);
+            int kept = 0;
+            for (int j = 0; j < size; j++) {
+                if (other.skipTo(result[j])) result[kept++] = result[j];
+            }
+            size = kept;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    // a new index with the changes applied on top of this one; a null title deletes the document
+    public TitleIndex apply(NavigableMap<Integer, String> changes) {
+        IntList ids = new IntList();
+        String[] titles = new String[docIds.length + changes.size()];
+        int slot = 0;
+        Iterator<Map.Entry<Integer, String>> it = changes.entrySet().iterator();
+        Map.Entry<Integer, String> change = it.hasNext() ? it.next() : null;
+        while (slot < docIds.length || change != null) {
+            if (change == null || (slot < docIds.length && docIds[slot] < change.getKey())) {
+                titles[ids.size] = title(slot);
+                ids.add(docIds[slot++]);
+                continue;
+            }
+            if (slot < docIds.length && docIds[slot] == change.getKey()) slot++;
+            if (change.getValue() != null) {
+                titles[ids.size] = change.getValue();
+                ids.add(change.getKey());
+            }
+            change = it.hasNext() ? it.next() : null;
+        }
+        return build(ids.toArray(), Arrays.copyOf(titles, ids.size));
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        byte[] encode() {
+            byte[] out = new byte[5 * (size + 1)];
+            int pos = writeVarint(out, 0, size);
+            int previous = 0;
+            for (int i = 0; i < size; i++) {
+                pos = writeVarint(out, pos, values[i] - previous);
+                previous = values[i];
+            }
+            return Arrays.copyOf(out, pos);
+        }
+
+        private static int writeVarint(byte[] out, int pos, int value) {
+            while ((value & ~0x7F) != 0) {
+                out[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out[pos++] = (byte) value;
+            return pos;
+        }
+    }
+
+    private static final class Cursor {
+        final byte[] data;
+        int pos;
+        int remaining;
+        int current;
+        boolean started;
+
+        Cursor(byte[] data) {
+            this.data = data;
+            this.remaining = readVarint();
+        }
+
+        boolean next() {
+            if (remaining == 0) return false;
+            current += readVarint();
+            remaining--;
+            started = true;
+            return true;
+        }
+
+        // moves to the first ordinal >= target and tells whether it is the target itself;
+        // targets have to be ascending across calls
+        boolean skipTo(int target) {
+            if (started && current >= target) return current == target;
+            while (next()) {
+                if (current >= target) return current == target;
+            }
+            return false;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
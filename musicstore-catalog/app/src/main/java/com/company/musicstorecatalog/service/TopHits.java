@@ -0,0 +1,75 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.SearchHit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Bounded collector for the best hits of one search: a min-heap of at most limit entries, so a
+// query matching millions of titles allocates only for the rows that actually make the cut.
+// Titles of indexed rows are decoded once, for the final hits only.
+final class TopHits {
+    // worst first: lower score, then higher id
+    private static final Comparator<Candidate> WORST_FIRST = Comparator.<Candidate>comparingDouble(c -> c.score)
+            .thenComparing(Comparator.<Candidate>comparingInt(c -> c.id).reversed());
+
+    private final int limit;
+    private final PriorityQueue<Candidate> heap;
+
+    TopHits(int limit) {
+        this.limit = limit;
+        this.heap = new PriorityQueue<>(limit, WORST_FIRST);
+    }
+
+    void offer(double score, String type, int id, TitleIndex index, int ordinal) {
+        if (makesTheCut(score, id)) add(new Candidate(score, type, id, index, ordinal, null));
+    }
+
+    void offer(double score, String type, int id, String title) {
+        if (makesTheCut(score, id)) add(new Candidate(score, type, id, null, 0, title));
+    }
+
+    // best first
+    List<SearchHit> toList() {
+        List<Candidate> candidates = new ArrayList<>(heap);
+        candidates.sort(Collections.reverseOrder(WORST_FIRST));
+        List<SearchHit> hits = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            String title = candidate.index == null ? candidate.title : candidate.index.title(candidate.ordinal);
+            hits.add(new SearchHit(candidate.type, candidate.id, title, candidate.score));
+        }
+        return hits;
+    }
+
+    private boolean makesTheCut(double score, int id) {
+        if (heap.size() < limit) return true;
+        Candidate worst = heap.peek();
+        return score > worst.score || (score == worst.score && id < worst.id);
+    }
+
+    private void add(Candidate candidate) {
+        heap.add(candidate);
+        if (heap.size() > limit) heap.poll();
+    }
+
+    private static final class Candidate {
+        final double score;
+        final String type;
+        final int id;
+        final TitleIndex index;
+        final int ordinal;
+        final String title;
+
+        Candidate(double score, String type, int id, TitleIndex index, int ordinal, String title) {
+            this.score = score;
+            this.type = type;
+            this.id = id;
+            this.index = index;
+            this.ordinal = ordinal;
+            this.title = title;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.BatchItemResult;
+import com.company.musicstorecatalog.model.BatchResult;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.model.WriteTicket;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Optional write-behind mode for POST /album?async=true and /track?async=true, for onboarding bursts
+// where one MySQL commit per request is the bottleneck. An accepted write is appended to a local
+// journal file and forced to disk before the caller gets 202 and a handle (GET /writes/{handle});
+// callers that arrive while a force is running share the next one. A single committer thread takes
+// the queued writes in groups of up to batch-size, waiting at most linger for a group to fill, and
+// writes each group through BatchWriteService, so one transaction covers many requests. Each committed
+// group leaves a marker in the journal, and the journal is truncated whenever nothing is pending. A
+// group that fails because MySQL is unavailable is queued again and retried; only rows BatchWriteService
+// rejects are final. At startup the writes without a marker are queued again; a group that was
+// committing when the process died, or when MySQL went away halfway, can therefore be written twice.
+// catalog.write_behind.depth and .latency report the queue.
+@Service
+public class WriteBehindService {
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindService.class);
+
+    @Value("${catalog.write-behind.enabled:false}")
+    boolean enabled;
+
+    @Value("${catalog.write-behind.capacity:10000}")
+    int capacity;
+
+    @Value("${catalog.write-behind.batch-size:500}")
+    int batchSize;
+
+    @Value("${catalog.write-behind.linger:20ms}")
+    Duration linger;
+
+    @Value("${catalog.write-behind.journal:write-behind.journal}")
+    String journalFile;
+
+    @Value("${catalog.write-behind.history:10000}")
+    int history;
+
+    @Autowired
+    BatchWriteService batchWriteService;
+    @Autowired
+    ObjectMapper mapper;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final BlockingDeque<Write> queue = new LinkedBlockingDeque<>();
+    private final Map<Long, Write> writes = new ConcurrentHashMap<>();
+    private final Deque<Long> finished = new ConcurrentLinkedDeque<>();
+    private Semaphore permits;
+    private Timer latency;
+    private Timer groupCommit;
+    private Thread committer;
+    private volatile boolean running;
+
+    // journal state: seq and outstanding (journaled, not yet committed) under appendLock, durable under forceLock
+    private final Object appendLock = new Object();
+    private final Object forceLock = new Object();
+    private FileChannel journal;
+    private long seq;
+    private long outstanding;
+    private volatile long appended;
+    private long durable;
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) return;
+        Path path = Paths.get(journalFile);
+        List<Write> pending = replay(path);
+        // handles carry the start time in milliseconds times 1000, so a truncated or lost journal does not
+        // hand out an earlier run's handles again (unless that run averaged over a million writes a second)
+        seq = Math.max(seq, System.currentTimeMillis() * 1000);
+        journal = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (pending.isEmpty()) journal.truncate(0);
+        durable = appended = seq;
+        outstanding = pending.size();
+        // replayed writes may exceed the capacity; new ones wait until the queue is back under it
+        permits = new Semaphore(capacity - pending.size());
+        pending.forEach(write -> writes.put(write.handle, write));
+        queue.addAll(pending);
+        if (!pending.isEmpty()) log.info("Replaying {} journaled writes from {}", pending.size(), path);
+
+        Gauge.builder("catalog.write_behind.depth", queue, BlockingDeque::size)
+                .description("Asynchronous writes waiting for their group commit")
+                .register(meterRegistry);
+        latency = Timer.builder("catalog.write_behind.latency")
+                .description("Time from accepting an asynchronous write to committing it")
+                .register(meterRegistry);
+        groupCommit = Timer.builder("catalog.write_behind.commit")
+                .description("Time to write and commit one group of asynchronous writes")
+                .register(meterRegistry);
+
+        running = true;
+        committer = new Thread(this::commitLoop, "catalog-write-behind");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    // the group being committed finishes; what is still queued stays in the journal for the next start
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (!enabled) return;
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(30));
+        synchronized (appendLock) {
+            journal.close();
+        }
+    }
+
+    public WriteTicket submit(Album album) {
+        return submit("album", album);
+    }
+
+    public WriteTicket submit(Track track) {
+        return submit("track", track);
+    }
+
+    public WriteTicket ticket(long handle) {
+        Write write = writes.get(handle);
+        if (write == null) throw new IllegalArgumentException("No write was found with handle: " + handle);
+        return write.ticket();
+    }
+
+    private WriteTicket submit(String kind, Object body) {
+        if (!enabled) throw new IllegalArgumentException("Asynchronous writes are off, see catalog.write-behind.enabled");
+        if (!permits.tryAcquire()) throw new WriteQueueFullException(capacity);
+        Write write;
+        try {
+            synchronized (appendLock) {
+                outstanding++;
+                write = new Write(seq + 1, kind, body);
+                ObjectNode line = mapper.createObjectNode();
+                line.put("seq", write.handle);
+                line.put("kind", kind);
+                line.set("body", mapper.valueToTree(body));
+                append(line);
+                seq = appended = write.handle;
+            }
+            awaitDurable(write.handle);
+        } catch (IOException e) {
+            synchronized (appendLock) {
+                outstanding--;
+            }
+            permits.release();
+            throw new UncheckedIOException("Could not journal the " + kind, e);
+        }
+        writes.put(write.handle, write);
+        queue.add(write);
+        return write.ticket();
+    }
+
+    // group fsync: whoever gets the lock forces everything appended so far, the callers behind it
+    // usually find their write already on disk
+    private void awaitDurable(long handle) throws IOException {
+        synchronized (forceLock) {
+            if (durable >= handle) return;
+            long upTo = appended;
+            journal.force(false);
+            durable = upTo;
+        }
+    }
+
+    private void append(JsonNode line) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((mapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) journal.write(bytes);
+    }
+
+    private void commitLoop() {
+        while (running) {
+            List<Write> group;
+            try {
+                group = nextGroup();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (group.isEmpty()) continue;
+            try {
+                commit(group);
+            } catch (RuntimeException e) {
+                // MySQL is unreachable or similar: what was not written goes back to the head of the queue
+                List<Write> left = group.stream().filter(write -> write.committedAt == null).collect(Collectors.toList());
+                log.warn("Could not commit {} queued writes, retrying", left.size(), e);
+                for (int i = left.size() - 1; i >= 0; i--) queue.addFirst(left.get(i));
+                if (!sleep(Duration.ofSeconds(1))) return;
+            }
+        }
+    }
+
+    private List<Write> nextGroup() throws InterruptedException {
+        Write first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) return Collections.emptyList();
+        List<Write> group = new ArrayList<>();
+        group.add(first);
+        long deadline = System.nanoTime() + linger.toNanos();
+        while (group.size() < batchSize) {
+            long wait = deadline - System.nanoTime();
+            Write next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) break;
+            group.add(next);
+        }
+        return group;
+    }
+
+    private void commit(List<Write> group) {
+        long start = System.nanoTime();
+        try {
+            // albums first: their ids are only known once they are written, so no queued track needs one
+            write(group, "album", Album.class, Album::new, batchWriteService::addAlbums);
+            write(group, "track", Track.class, Track::new, batchWriteService::addTracks);
+        } finally {
+            List<Write> done = group.stream().filter(write -> write.committedAt != null).collect(Collectors.toList());
+            if (!done.isEmpty()) committed(done);
+        }
+        groupCommit.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // each attempt writes copies, so ids given out by an attempt that rolled back do not stick to the retry
+    private static <T> void write(List<Write> group, String kind, Class<T> type, Function<T, T> copy,
+                                  Function<List<T>, BatchResult> writeBatch) {
+        List<Write> writes = group.stream().filter(write -> write.kind.equals(kind)).collect(Collectors.toList());
+        if (writes.isEmpty()) return;
+        BatchResult result = writeBatch.apply(writes.stream()
+                .map(write -> copy.apply(type.cast(write.body))).collect(Collectors.toList()));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < writes.size(); i++) {
+            writes.get(i).finish(result.getItems().get(i), now);
+        }
+    }
+
+    private void committed(List<Write> done) {
+        journalCommitted(done);
+        permits.release(done.size());
+        for (Write write : done) {
+            finished.addLast(write.handle);
+            latency.record(System.nanoTime() - write.acceptedNanos, TimeUnit.NANOSECONDS);
+        }
+        while (finished.size() > history) {
+            Long oldest = finished.pollFirst();
+            if (oldest != null) writes.remove(oldest);
+        }
+    }
+
+    // a lost marker would replay the group, so it is forced like the writes themselves
+    private void journalCommitted(List<Write> group) {
+        try {
+            synchronized (appendLock) {
+                outstanding -= group.size();
+                if (outstanding == 0) {
+                    journal.truncate(0);
+                } else {
+                    ObjectNode line = mapper.createObjectNode();
+                    ArrayNode committed = line.putArray("committed");
+                    group.forEach(write -> committed.add(write.handle));
+                    append(line);
+                }
+            }
+            journal.force(false);
+        } catch (IOException e) {
+            log.warn("Could not mark {} writes committed in {}", group.size(), journalFile, e);
+        }
+    }
+
+    // the journaled writes without a commit marker, in the order they were accepted; a torn last line is skipped
+    private List<Write> replay(Path path) throws IOException {
+        Map<Long, Write> pending = new LinkedHashMap<>();
+        if (!Files.exists(path)) return Collections.emptyList();
+        Map<String, Function<JsonNode, Object>> readers = new LinkedHashMap<>();
+        readers.put("album", body -> mapper.convertValue(body, Album.class));
+        readers.put("track", body -> mapper.convertValue(body, Track.class));
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                JsonNode line;
+                try {
+                    line = mapper.readTree(text);
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable journal line in {}", path);
+                    continue;
+                }
+                if (line.has("committed")) {
+                    line.get("committed").forEach(handle -> pending.remove(handle.asLong()));
+                } else {
+                    long handle = line.get("seq").asLong();
+                    String kind = line.get("kind").asText();
+                    pending.put(handle, new Write(handle, kind, readers.get(kind).apply(line.get("body"))));
+                    seq = Math.max(seq, handle);
+                }
+            }
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class Write {
+        final long handle;
+        final String kind;
+        final Object body;
+        final LocalDateTime acceptedAt = LocalDateTime.now();
+        final long acceptedNanos = System.nanoTime();
+        volatile String state = "QUEUED";
+        volatile LocalDateTime committedAt;
+        volatile Integer id;
+        volatile List<String> errors = Collections.emptyList();
+
+        Write(long handle, String kind, Object body) {
+            this.handle = handle;
+            this.kind = kind;
+            this.body = body;
+        }
+
+        void finish(BatchItemResult item, LocalDateTime now) {
+            id = item.getId();
+            errors = item.getErrors() == null ? Collections.emptyList() : item.getErrors();
+            committedAt = now;
+            state = item.isWritten() ? "WRITTEN" : "REJECTED";
+        }
+
+        WriteTicket ticket() {
+            return new WriteTicket(handle, kind, state, acceptedAt, committedAt, id, errors);
+        }
+    }
+}
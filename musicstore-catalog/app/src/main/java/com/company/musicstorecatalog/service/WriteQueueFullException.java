@@ -0,0 +1,8 @@
+package com.company.musicstorecatalog.service;
+
+// the write-behind queue is at catalog.write-behind.capacity; the caller should retry shortly or write synchronously
+public class WriteQueueFullException extends RuntimeException {
+    public WriteQueueFullException(int capacity) {
+        super("The write queue is full (" + capacity + " pending writes). Try again shortly.");
+    }
+}
@@ -0,0 +1,78 @@
+package com.company.musicstorecatalog.config;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ConnectionAdmissionDataSourceTest {
+    private DataSource pool;
+    private ConnectionAdmissionDataSource admission;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = mock(DataSource.class);
+        doAnswer(invocation -> mock(Connection.class)).when(pool).getConnection();
+        admission = new ConnectionAdmissionDataSource(pool, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    public void shouldHoldPermitUntilConnectionIsClosed() throws Exception {
+        //Act
+        Connection first = admission.getConnection();
+        Connection second = admission.getConnection();
+
+        //Assert
+        assertEquals(0, admission.getAvailablePermits());
+        try {
+            admission.getConnection();
+            fail("a third caller got past two permits");
+        } catch (SQLTransientConnectionException e) {
+            verify(pool, times(2)).getConnection();
+        }
+
+        first.close();
+        first.close();
+        assertEquals(1, admission.getAvailablePermits());
+        assertNotNull(admission.getConnection());
+        second.close();
+    }
+
+    @Test
+    public void shouldReturnPermitWhenPoolFails() throws Exception {
+        doThrow(new SQLException("pool exhausted")).when(pool).getConnection();
+
+        //Act
+        try {
+            admission.getConnection();
+            fail("the pool's failure was swallowed");
+        } catch (SQLException e) {
+            assertEquals("pool exhausted", e.getMessage());
+        }
+
+        //Assert
+        assertEquals(2, admission.getAvailablePermits());
+    }
+
+    @Test
+    public void shouldPassCallsThroughToPooledConnection() throws Exception {
+        Connection pooled = mock(Connection.class);
+        doReturn(pooled).when(pool).getConnection();
+
+        //Act
+        Connection connection = admission.getConnection();
+        connection.setAutoCommit(false);
+        connection.close();
+
+        //Assert
+        verify(pooled).setAutoCommit(false);
+        verify(pooled).close();
+    }
+}
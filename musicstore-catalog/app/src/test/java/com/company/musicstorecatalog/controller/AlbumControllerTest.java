@@ -1,29 +1,69 @@
 package com.company.musicstorecatalog.controller;
 
 import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumDetail;
+import com.company.musicstorecatalog.model.AlbumFilter;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.BatchItemResult;
+import com.company.musicstorecatalog.model.BatchResult;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.model.AlbumSummary;
 import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.TableWritesRepository;
+import com.company.musicstorecatalog.repository.TrackRepository;
+import com.company.musicstorecatalog.service.AlbumListingProjector;
+import com.company.musicstorecatalog.service.BatchWriteService;
+import com.company.musicstorecatalog.service.CatalogSnapshot;
+import com.company.musicstorecatalog.service.CatalogOutbox;
+import com.company.musicstorecatalog.service.CatalogPurgeService;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.IdempotencyService;
+import com.company.musicstorecatalog.service.NdjsonExportService;
+import com.company.musicstorecatalog.service.SearchService;
+import com.company.musicstorecatalog.service.WriteBehindService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -35,6 +75,42 @@ public class AlbumControllerTest {
     @MockBean
     private AlbumRepository albumRepository;
 
+    @MockBean
+    private TableWritesRepository tableWritesRepository;
+
+    @MockBean
+    private TrackRepository trackRepository;
+
+    @MockBean
+    private NdjsonExportService exportService;
+
+    @MockBean
+    private CatalogSnapshotService snapshots;
+
+    @MockBean
+    private IdempotencyService idempotency;
+
+    @MockBean
+    private CatalogStatsService statsService;
+
+    @MockBean
+    private AlbumListingProjector listingProjector;
+
+    @MockBean
+    private SearchService searchService;
+
+    @MockBean
+    private BatchWriteService batchWriteService;
+
+    @MockBean
+    private CatalogPurgeService purgeService;
+
+    @MockBean
+    private WriteBehindService writeBehind;
+
+    @MockBean
+    private CatalogOutbox outbox;
+
     @Autowired
     private ObjectMapper mapper;
 
@@ -66,6 +142,8 @@ public class AlbumControllerTest {
         outputAlbum.setAlbumId(1);
 
         outputJson = mapper.writeValueAsString(outputAlbum);
+
+        doReturn(7L).when(tableWritesRepository).findWrites("album");
     }
 
     @Test
@@ -97,6 +175,70 @@ public class AlbumControllerTest {
                 .andExpect(content().json(outputJson));
     }
 
+    @Test
+    public void shouldGetFilteredAlbums() throws Exception {
+        List<Album> albumList = new ArrayList<>();
+        albumList.add(outputAlbum);
+
+        outputJson = mapper.writeValueAsString(albumList);
+
+        AlbumFilter filter = new AlbumFilter();
+        filter.setArtistId(5);
+        filter.setReleasedFrom(LocalDate.parse("2010-01-01"));
+        filter.setMaxPrice(new BigDecimal("15"));
+
+        doReturn(albumList).when(albumRepository).findFiltered(filter);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/album?artistId=5&releasedFrom=2010-01-01&maxPrice=15"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson));
+
+        verify(albumRepository, never()).findAll();
+    }
+
+    @Test
+    public void shouldReturn404ForUnknownAlbumSort() throws Exception {
+        //Act & Assert
+        this.mockMvc.perform(get("/album?sort=title"))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+
+        verify(albumRepository, never()).findFiltered(any());
+    }
+
+    @Test
+    public void shouldReturn404ForSortAgainstFilterIndex() throws Exception {
+        //Act & Assert: artistId lists in release date order, a price sort would need a filesort
+        this.mockMvc.perform(get("/album?artistId=5&sort=listPrice"))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+
+        verify(albumRepository, never()).findFiltered(any());
+    }
+
+    @Test
+    public void shouldGetFilteredAlbumPageWithKeyCursor() throws Exception {
+        Album secondAlbum = new Album();
+        secondAlbum.setAlbumId(outputAlbum.getAlbumId() + 1);
+        List<Album> rows = new ArrayList<>();
+        rows.add(outputAlbum);
+        rows.add(secondAlbum);
+
+        AlbumFilter filter = new AlbumFilter();
+        filter.setArtistId(5);
+        doReturn(rows).when(albumRepository).findFilteredAfter(filter, null, 2);
+
+        //Act & Assert: the page is in release date order, so its cursor carries the release date
+        this.mockMvc.perform(get("/album").param("artistId", "5").param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").value(
+                        CursorPage.encodeCursor(outputAlbum.getReleaseDate(), outputAlbum.getAlbumId())));
+    }
+
     @Test
     public void getAlbumById() throws Exception {
         doReturn(Optional.of(outputAlbum)).when(albumRepository).findById(1);
@@ -110,7 +252,8 @@ public class AlbumControllerTest {
 
     @Test
     public void shouldUpdateAlbum() throws Exception {
-        doReturn(null).when(albumRepository).save(outputAlbum);
+        doReturn(Optional.of(0)).when(albumRepository).findVersionById(1);
+        doReturn(1).when(albumRepository).updateIfVersion(any());
 
         //Act & Assert
         this.mockMvc.perform(put("/album")
@@ -120,9 +263,116 @@ public class AlbumControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    public void shouldPatchAlbumPrice() throws Exception {
+        doReturn(Optional.of(outputAlbum)).when(albumRepository).findByAlbumId(1);
+        doAnswer(invocation -> invocation.getArgument(0)).when(albumRepository).saveAndFlush(any());
+
+        //Act & Assert
+        this.mockMvc.perform(patch("/album/1")
+                        .content("{\"listPrice\": 17.99, \"albumId\": 7}")
+                        .contentType("application/merge-patch+json"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.albumId").value(1))
+                .andExpect(jsonPath("$.title").value("Bad"))
+                .andExpect(jsonPath("$.listPrice").value(17.99));
+
+        InOrder order = inOrder(statsService, albumRepository);
+        order.verify(statsService).albumChanging(1);
+        order.verify(albumRepository).saveAndFlush(any());
+        order.verify(statsService).albumSaved(any());
+    }
+
+    @Test
+    public void shouldSkipWriteForNoOpAlbumPatch() throws Exception {
+        outputAlbum.setListPrice(new BigDecimal("19.99"));
+        doReturn(Optional.of(outputAlbum)).when(albumRepository).findByAlbumId(1);
+
+        //Act & Assert: the same title, and the same price written with another scale
+        this.mockMvc.perform(patch("/album/1")
+                        .content("{\"title\": \"Bad\", \"listPrice\": 19.990}")
+                        .contentType("application/merge-patch+json"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(outputAlbum)));
+
+        verify(albumRepository, never()).saveAndFlush(any());
+        verify(statsService, never()).albumChanging(any());
+        verify(searchService, never()).albumSaved(any());
+    }
+
+    @Test
+    public void shouldReturn412WhenIfMatchIsStale() throws Exception {
+        doReturn(0).when(albumRepository).updateIfVersion(any());
+        doReturn(Optional.of(4)).when(albumRepository).findVersionById(1);
+
+        //Act & Assert
+        this.mockMvc.perform(put("/album")
+                        .header(HttpHeaders.IF_MATCH, "\"v3\"")
+                        .content(outputJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("The album is now at \"v4\"."));
+
+        outputAlbum.setVersion(3);
+        verify(albumRepository).updateIfVersion(outputAlbum);
+        verify(snapshots, never()).albumSaved(any());
+    }
+
+    @Test
+    public void shouldReturn409WhenBodyVersionIsStale() throws Exception {
+        outputAlbum.setVersion(3);
+        doReturn(0).when(albumRepository).updateIfVersion(any());
+        doReturn(Optional.of(4)).when(albumRepository).findVersionById(1);
+
+        //Act & Assert
+        this.mockMvc.perform(put("/album")
+                        .content(mapper.writeValueAsString(outputAlbum))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void shouldDeleteAlbumOnlyAtIfMatchVersion() throws Exception {
+        doReturn(1).when(albumRepository).deleteIfVersion(1, 3);
+
+        //Act & Assert
+        this.mockMvc.perform(delete("/album/1").header(HttpHeaders.IF_MATCH, "\"v3\""))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+
+        //Act & Assert: an ETag that is not one of ours never matches
+        this.mockMvc.perform(delete("/album/1").header(HttpHeaders.IF_MATCH, "\"s3\""))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+
+        verify(albumRepository).deleteIfVersion(1, 3);
+        verify(searchService).albumDeleted(1);
+    }
+
+    @Test
+    public void shouldDeleteAlbumWithItsTracks() throws Exception {
+        List<Integer> trackIds = Arrays.asList(7, 8);
+        doReturn(trackIds).when(purgeService).deleteTracksOf(Collections.singletonList(1));
+        doReturn(1).when(albumRepository).deleteIfVersion(1, null);
+
+        //Act & Assert
+        this.mockMvc.perform(delete("/album/1").param("cascade", "true"))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+
+        InOrder order = inOrder(purgeService, albumRepository);
+        order.verify(purgeService).deleteTracksOf(Collections.singletonList(1));
+        order.verify(albumRepository).deleteIfVersion(1, null);
+        order.verify(purgeService).tracksDeleted(trackIds);
+    }
+
     @Test
     public void shouldDeleteAlbum() throws Exception {
-        doReturn(Optional.ofNullable(outputAlbum)).when(albumRepository).findById(1);
+        doReturn(1).when(albumRepository).deleteIfVersion(1, null);
 
         //Act & Assert
         this.mockMvc.perform(delete("/album/1"))
@@ -130,6 +380,201 @@ public class AlbumControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    public void shouldMoveAlbumStatsAroundTheSave() throws Exception {
+        doReturn(Optional.of(0)).when(albumRepository).findVersionById(1);
+        doReturn(1).when(albumRepository).updateIfVersion(any());
+
+        //Act
+        this.mockMvc.perform(put("/album")
+                        .content(outputJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+
+        //Assert
+        InOrder order = inOrder(statsService, albumRepository);
+        order.verify(statsService).albumChanging(outputAlbum.getAlbumId());
+        order.verify(albumRepository).updateIfVersion(any());
+        outputAlbum.setVersion(1);
+        order.verify(statsService).albumSaved(outputAlbum);
+    }
+
+    @Test
+    public void shouldGetAlbumPageWithNextCursor() throws Exception {
+        Album secondAlbum = new Album();
+        secondAlbum.setAlbumId(outputAlbum.getAlbumId() + 1);
+        List<Album> rows = new ArrayList<>();
+        rows.add(outputAlbum);
+        rows.add(secondAlbum);
+
+        doReturn(rows).when(albumRepository).findByAlbumIdGreaterThanOrderByAlbumIdAsc(0, PageRequest.of(0, 2));
+
+        //Act & Assert
+        this.mockMvc.perform(get("/album").param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].albumId").value(outputAlbum.getAlbumId()))
+                .andExpect(jsonPath("$.nextCursor").value(CursorPage.encodeCursor(outputAlbum.getAlbumId())));
+    }
+
+    @Test
+    public void shouldStreamAlbumsAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write((outputJson + "\n").getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(exportService).writeNdjson(any(), any());
+
+        //Act
+        MvcResult result = this.mockMvc.perform(get("/album").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //Assert
+        this.mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(outputJson + "\n"));
+    }
+
+    @Test
+    public void shouldGetAlbumSummaries() throws Exception {
+        List<AlbumSummary> summaryList = new ArrayList<>();
+        summaryList.add(new AlbumSummary(outputAlbum.getAlbumId(), outputAlbum.getTitle(), outputAlbum.getArtistId(), outputAlbum.getLabelId()));
+
+        outputJson = mapper.writeValueAsString(new CursorPage<>(summaryList, null));
+
+        doReturn(summaryList).when(albumRepository).findSummariesAfter(0, PageRequest.of(0, 101));
+
+        //Act & Assert
+        this.mockMvc.perform(get("/album/summary"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson));
+    }
+
+    @Test
+    public void shouldGetAlbumDetailWithArtistLabelAndTracks() throws Exception {
+        Artist artist = new Artist();
+        artist.setArtistId(5);
+        artist.setName("Michael Jackson");
+
+        Label label = new Label();
+        label.setLabelId(20);
+        label.setName("Epic Records");
+
+        Track track = new Track();
+        track.setTrackId(11);
+        track.setTitle("Bad");
+        track.setRunTime(247);
+        track.setAlbumId(1);
+
+        List<Track> trackList = new ArrayList<>();
+        trackList.add(track);
+
+        AlbumDetail albumDetail = new AlbumDetail(outputAlbum, artist, label);
+
+        doReturn(Optional.of(albumDetail)).when(albumRepository).findDetailById(1);
+        doReturn(trackList).when(trackRepository).findByAlbumIdOrderByTrackIdAsc(1);
+
+        albumDetail.setTracks(trackList);
+        outputJson = mapper.writeValueAsString(albumDetail);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/album/1/full"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson));
+    }
+
+    @Test
+    public void shouldReturnAlbumWithETag() throws Exception {
+        outputAlbum.setVersion(3);
+        doReturn(Optional.of(outputAlbum)).when(albumRepository).findById(1);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/album/1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v3\""));
+    }
+
+    @Test
+    public void shouldReturn304ForAlbumWhenVersionMatches() throws Exception {
+        outputAlbum.setVersion(3);
+        doReturn(Optional.of(outputAlbum)).when(albumRepository).findById(1);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/album/1").header(HttpHeaders.IF_NONE_MATCH, "\"v3\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void shouldReturn304WhenAllAlbumsUnchanged() throws Exception {
+        //Act & Assert
+        this.mockMvc.perform(get("/album").header(HttpHeaders.IF_NONE_MATCH, "\"w7\""))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        verify(albumRepository, never()).findAll();
+    }
+
+    @Test
+    public void shouldServeAlbumDetailFromSnapshot() throws Exception {
+        Artist artist = new Artist();
+        artist.setArtistId(5);
+        artist.setName("Michael Jackson");
+
+        Label label = new Label();
+        label.setLabelId(20);
+        label.setName("Epic Records");
+
+        Track track = new Track();
+        track.setTrackId(11);
+        track.setTitle("Bad");
+        track.setRunTime(247);
+        track.setAlbumId(1);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.of(7, Collections.singletonList(outputAlbum),
+                Collections.singletonList(track), Collections.singletonList(artist), Collections.singletonList(label));
+        doReturn(true).when(snapshots).isServing();
+        doReturn(snapshot).when(snapshots).current();
+        doReturn(snapshot).when(snapshots).pin(any());
+
+        AlbumDetail albumDetail = new AlbumDetail(outputAlbum, artist, label);
+        albumDetail.setTracks(Collections.singletonList(track));
+        outputJson = mapper.writeValueAsString(albumDetail);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/album/1/full"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(CatalogSnapshotService.VERSION_HEADER, "7"))
+                .andExpect(content().json(outputJson));
+
+        verify(albumRepository, never()).findDetailById(any());
+        verify(trackRepository, never()).findByAlbumIdOrderByTrackIdAsc(any());
+    }
+
+    @Test
+    public void shouldPublishAddedAlbumToSnapshot() throws Exception {
+        doReturn(outputAlbum).when(albumRepository).save(inputAlbum);
+
+        //Act
+        this.mockMvc.perform(post("/album")
+                        .content(inputJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+
+        //Assert
+        verify(snapshots).albumSaved(outputAlbum);
+    }
+
     // ------------ NotFound Status Tests -------------
 
     @Test
@@ -142,6 +587,16 @@ public class AlbumControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void shouldStatus404ForNonExistentAlbumDetail() throws Exception{
+        doReturn(Optional.empty()).when(albumRepository).findDetailById(101);
+
+        mockMvc.perform(
+                        get("/album/101/full")
+                )
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void shouldReturn404WhenReadEmptyAlbumTable() throws Exception{
         List<Album> emptyList = new ArrayList();
@@ -183,6 +638,27 @@ public class AlbumControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void shouldReturn400WhenAlbumCursorNotValid() throws Exception{
+        mockMvc.perform(
+                        get("/album").param("after", "not-a-cursor").param("limit", "10")
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldReturn400WhenAlbumLimitOutOfRange() throws Exception{
+        mockMvc.perform(
+                        get("/album").param("limit", "0")
+                )
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(
+                        get("/album").param("limit", "5000")
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Limit is supposed to be between 1 and 1000!"));
+    }
+
     // ------------ UnProcessableEntity Status Tests -------------
 
     @Test
@@ -231,4 +707,31 @@ public class AlbumControllerTest {
                 .andDo(print())
                 .andExpect(status().isUnprocessableEntity());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldAddAlbumBatch() throws Exception {
+        List<Album> albums = Arrays.asList(inputAlbum);
+        BatchResult result = new BatchResult(Arrays.asList(BatchItemResult.written(0, outputAlbum.getAlbumId())));
+        doReturn(result).when(batchWriteService).addAlbums(albums);
+
+        //Act & Assert
+        mockMvc.perform(post("/album/batch")
+                        .content(mapper.writeValueAsString(albums))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(result)));
+    }
+
+    @Test
+    public void shouldReturn404ForEmptyAlbumBatch() throws Exception {
+        doThrow(new IllegalArgumentException("No album data is passed! The batch is empty!"))
+                .when(batchWriteService).updateAlbums(Collections.emptyList());
+
+        mockMvc.perform(put("/album/batch")
+                        .content("[]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,7 +1,21 @@
 package com.company.musicstorecatalog.controller;
 
 import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.Suggestion;
+import com.company.musicstorecatalog.model.ArtistSummary;
 import com.company.musicstorecatalog.repository.ArtistRepository;
+import com.company.musicstorecatalog.repository.TableWritesRepository;
+import com.company.musicstorecatalog.service.AlbumListingProjector;
+import com.company.musicstorecatalog.service.CatalogOutbox;
+import com.company.musicstorecatalog.service.CatalogPurgeService;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.IdempotencyService;
+import com.company.musicstorecatalog.service.NdjsonExportService;
+import com.company.musicstorecatalog.service.SearchService;
+import com.company.musicstorecatalog.service.SuggestService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
@@ -9,18 +23,29 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -32,6 +57,36 @@ public class ArtistControllerTest {
     @MockBean
     private ArtistRepository artistRepository;
 
+    @MockBean
+    private TableWritesRepository tableWritesRepository;
+
+    @MockBean
+    private NdjsonExportService exportService;
+
+    @MockBean
+    private CatalogSnapshotService snapshots;
+
+    @MockBean
+    private IdempotencyService idempotency;
+
+    @MockBean
+    private CatalogStatsService statsService;
+
+    @MockBean
+    private AlbumListingProjector listingProjector;
+
+    @MockBean
+    private SuggestService suggestService;
+
+    @MockBean
+    private SearchService searchService;
+
+    @MockBean
+    private CatalogPurgeService purgeService;
+
+    @MockBean
+    private CatalogOutbox outbox;
+
     @Autowired
     private ObjectMapper mapper;
 
@@ -59,6 +114,8 @@ public class ArtistControllerTest {
         outputArtist.setArtistId(5);
 
         outputJson = mapper.writeValueAsString(outputArtist);
+
+        doReturn(7L).when(tableWritesRepository).findWrites("artist");
     }
 
     @Test
@@ -103,7 +160,8 @@ public class ArtistControllerTest {
 
     @Test
     public void shouldUpdateArtist() throws Exception {
-        doReturn(null).when(artistRepository).save(outputArtist);
+        doReturn(Optional.of(0)).when(artistRepository).findVersionById(5);
+        doReturn(1).when(artistRepository).updateIfVersion(any());
 
         //Act & Assert
         this.mockMvc.perform(put("/artist")
@@ -115,7 +173,7 @@ public class ArtistControllerTest {
 
     @Test
     public void shouldDeleteArtist() throws Exception {
-        doReturn(Optional.ofNullable(outputArtist)).when(artistRepository).findById(5);
+        doReturn(1).when(artistRepository).deleteIfVersion(5, null);
 
         //Act & Assert
         this.mockMvc.perform(delete("/artist/5"))
@@ -123,6 +181,97 @@ public class ArtistControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    public void shouldPurgeArtistOnlyAtIfMatchVersion() throws Exception {
+        doReturn(Optional.of(2)).when(artistRepository).findVersionById(5);
+        doReturn(1).when(purgeService).purgeArtist(5, 2);
+
+        //Act & Assert: a stale If-Match is turned away before any album is deleted
+        this.mockMvc.perform(delete("/artist/5").param("cascade", "true").header(HttpHeaders.IF_MATCH, "\"v1\""))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+        verify(purgeService, never()).purgeArtist(any(), any());
+
+        //Act & Assert
+        this.mockMvc.perform(delete("/artist/5").param("cascade", "true").header(HttpHeaders.IF_MATCH, "\"v2\""))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+        verify(purgeService).purgeArtist(5, 2);
+        verify(artistRepository, never()).deleteIfVersion(any(), any());
+    }
+
+    @Test
+    public void shouldGetArtistPageWithNextCursor() throws Exception {
+        Artist secondArtist = new Artist();
+        secondArtist.setArtistId(outputArtist.getArtistId() + 1);
+        List<Artist> rows = new ArrayList<>();
+        rows.add(outputArtist);
+        rows.add(secondArtist);
+
+        doReturn(rows).when(artistRepository).findByArtistIdGreaterThanOrderByArtistIdAsc(0, PageRequest.of(0, 2));
+
+        //Act & Assert
+        this.mockMvc.perform(get("/artist").param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].artistId").value(outputArtist.getArtistId()))
+                .andExpect(jsonPath("$.nextCursor").value(CursorPage.encodeCursor(outputArtist.getArtistId())));
+    }
+
+    @Test
+    public void shouldStreamArtistsAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write((outputJson + "\n").getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(exportService).writeNdjson(any(), any());
+
+        //Act
+        MvcResult result = this.mockMvc.perform(get("/artist").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //Assert
+        this.mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(outputJson + "\n"));
+    }
+
+    @Test
+    public void shouldGetArtistSummaries() throws Exception {
+        List<ArtistSummary> summaryList = new ArrayList<>();
+        summaryList.add(new ArtistSummary(outputArtist.getArtistId(), outputArtist.getName()));
+
+        outputJson = mapper.writeValueAsString(new CursorPage<>(summaryList, null));
+
+        doReturn(summaryList).when(artistRepository).findSummariesAfter(0, PageRequest.of(0, 101));
+
+        //Act & Assert
+        this.mockMvc.perform(get("/artist/summary"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson));
+    }
+
+    @Test
+    public void shouldSuggestArtists() throws Exception {
+        List<Suggestion> suggestions = new ArrayList<>();
+        suggestions.add(new Suggestion(1, "Michael Jackson", 12));
+
+        outputJson = mapper.writeValueAsString(suggestions);
+
+        doReturn(suggestions).when(suggestService).suggestArtists("mic", 10);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/artist/suggest").param("prefix", "mic"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson));
+    }
+
     // ------------ NotFound Status Tests -------------
 
     @Test
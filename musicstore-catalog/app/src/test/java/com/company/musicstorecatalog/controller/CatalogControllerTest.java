@@ -0,0 +1,145 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumListing;
+import com.company.musicstorecatalog.model.CatalogDelta;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.repository.AlbumListingRepository;
+import com.company.musicstorecatalog.service.AlbumListingProjector;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.CatalogSyncService;
+import com.company.musicstorecatalog.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(CatalogController.class)
+public class CatalogControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AlbumListingRepository listingRepository;
+
+    @MockBean
+    private AlbumListingProjector listingProjector;
+
+    @MockBean
+    private CatalogSnapshotService snapshots;
+
+    @MockBean
+    private IdempotencyService idempotency;
+
+    @MockBean
+    private CatalogSyncService syncService;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    private final AlbumListing listing = new AlbumListing(1, "Courage", LocalDate.parse("2019-11-15"),
+            new BigDecimal("12.99"), 5, "Celine Dion", 7, "Columbia", 16);
+
+    @Test
+    public void shouldGetAlbumListingPage() throws Exception {
+        AlbumListing second = new AlbumListing(2, "Falling Into You", LocalDate.parse("1996-03-11"),
+                new BigDecimal("19.99"), 5, "Celine Dion", 7, "Columbia", 16);
+        List<AlbumListing> rows = Arrays.asList(listing, second);
+
+        doReturn(rows).when(listingRepository).findByAlbumIdGreaterThanOrderByAlbumIdAsc(0, PageRequest.of(0, 2));
+
+        String outputJson = mapper.writeValueAsString(new CursorPage<>(rows.subList(0, 1), CursorPage.encodeCursor(1)));
+
+        //Act & Assert
+        this.mockMvc.perform(get("/catalog/albums").param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson))
+                .andExpect(jsonPath("$.items[0].artistName").value("Celine Dion"))
+                .andExpect(jsonPath("$.items[0].releaseDate").value("2019-11-15"));
+    }
+
+    @Test
+    public void shouldGetAlbumListingById() throws Exception {
+        doReturn(Optional.of(listing)).when(listingRepository).findById(1);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/catalog/albums/1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(listing)));
+    }
+
+    @Test
+    public void shouldRebuildAlbumListings() throws Exception {
+        //Act & Assert
+        this.mockMvc.perform(post("/catalog/albums/rebuild"))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+
+        verify(listingProjector).rebuild();
+    }
+
+    // ------------ NotFound Status Tests -------------
+
+    @Test
+    public void shouldReturn404WhenAlbumListingNotFound() throws Exception {
+        doReturn(Optional.empty()).when(listingRepository).findById(9);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/catalog/albums/9"))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void shouldGetChangesSinceWatermark() throws Exception {
+        Album album = new Album();
+        album.setAlbumId(1);
+        album.setTitle("Courage");
+        CatalogDelta delta = new CatalogDelta();
+        delta.setAlbums(Collections.singletonList(album));
+        delta.setDeletedTrackIds(Arrays.asList(4, 5));
+        delta.setWatermark("next");
+
+        doReturn(delta).when(syncService).changesSince("last", 2);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/catalog/changes").param("since", "last").param("limit", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(delta)))
+                .andExpect(jsonPath("$.watermark").value("next"))
+                .andExpect(jsonPath("$.more").value(false));
+    }
+
+    @Test
+    public void shouldReturn400WhenChangesLimitIsOutOfRange() throws Exception {
+        //Act & Assert
+        this.mockMvc.perform(get("/catalog/changes").param("limit", "0"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+}
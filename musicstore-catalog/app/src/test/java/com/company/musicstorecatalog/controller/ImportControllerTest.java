@@ -0,0 +1,117 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.model.ImportProgress;
+import com.company.musicstorecatalog.service.CatalogImportService;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.IdempotencyService;
+import com.company.musicstorecatalog.service.ImportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(ImportController.class)
+public class ImportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CatalogImportService importService;
+
+    @MockBean
+    private CatalogSnapshotService snapshots;
+
+    @MockBean
+    private IdempotencyService idempotency;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    public void shouldImportCsvUpload() throws Exception {
+        ImportProgress progress = new ImportProgress();
+        progress.setId(1);
+        progress.setSource("eagles.csv");
+        progress.setState("COMPLETED");
+        progress.setRowsRead(2);
+        progress.setAlbumsWritten(1);
+        progress.setTracksWritten(2);
+        doReturn(progress).when(importService).importCatalog(any(), eq(ImportFormat.CSV), eq("eagles.csv"));
+
+        //Act & Assert
+        mockMvc.perform(post("/import")
+                        .param("source", "eagles.csv")
+                        .content("artist,label,album,release_date,list_price,track,run_time\n")
+                        .contentType("text/csv"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(progress)));
+    }
+
+    @Test
+    public void shouldDryRunReconciliation() throws Exception {
+        ImportProgress progress = new ImportProgress();
+        progress.setId(2);
+        progress.setSource("asylum-nightly.csv");
+        progress.setMode("dry-run");
+        progress.setState("COMPLETED");
+        progress.setAlbumsUnchanged(40);
+        progress.setAlbumsUpdated(1);
+        doReturn(progress).when(importService).reconcile(any(), eq(ImportFormat.CSV), eq("asylum-nightly.csv"), eq(true));
+
+        mockMvc.perform(post("/import")
+                        .param("source", "asylum-nightly.csv")
+                        .param("dryRun", "true")
+                        .content("artist,label,album,release_date,list_price,track,run_time\n")
+                        .contentType("text/csv"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(progress)));
+
+        verify(importService, never()).importCatalog(any(), any(), any());
+    }
+
+    @Test
+    public void shouldRejectUnsupportedUploads() throws Exception {
+        mockMvc.perform(post("/import")
+                        .content("{}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isUnsupportedMediaType());
+
+        verify(importService, never()).importCatalog(any(), any(), any());
+    }
+
+    @Test
+    public void shouldListImports() throws Exception {
+        ImportProgress progress = new ImportProgress();
+        progress.setId(3);
+        progress.setState("RUNNING");
+        progress.setRowsRead(120000);
+        doReturn(Arrays.asList(progress)).when(importService).imports();
+
+        mockMvc.perform(get("/import"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(Arrays.asList(progress))));
+    }
+}
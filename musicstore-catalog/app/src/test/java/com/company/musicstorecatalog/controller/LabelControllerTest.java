@@ -1,7 +1,20 @@
 package com.company.musicstorecatalog.controller;
 
 import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.Suggestion;
+import com.company.musicstorecatalog.model.LabelSummary;
 import com.company.musicstorecatalog.repository.LabelRepository;
+import com.company.musicstorecatalog.repository.TableWritesRepository;
+import com.company.musicstorecatalog.service.AlbumListingProjector;
+import com.company.musicstorecatalog.service.CatalogOutbox;
+import com.company.musicstorecatalog.service.CatalogPurgeService;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.IdempotencyService;
+import com.company.musicstorecatalog.service.NdjsonExportService;
+import com.company.musicstorecatalog.service.SuggestService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
@@ -9,19 +22,27 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -33,6 +54,33 @@ public class LabelControllerTest {
     @MockBean
     private LabelRepository labelRepository;
 
+    @MockBean
+    private TableWritesRepository tableWritesRepository;
+
+    @MockBean
+    private NdjsonExportService exportService;
+
+    @MockBean
+    private CatalogSnapshotService snapshots;
+
+    @MockBean
+    private IdempotencyService idempotency;
+
+    @MockBean
+    private CatalogStatsService statsService;
+
+    @MockBean
+    private AlbumListingProjector listingProjector;
+
+    @MockBean
+    private SuggestService suggestService;
+
+    @MockBean
+    private CatalogPurgeService purgeService;
+
+    @MockBean
+    private CatalogOutbox outbox;
+
     @Autowired
     private ObjectMapper mapper;
 
@@ -58,6 +106,8 @@ public class LabelControllerTest {
         outputLabel.setLabelId(20);
 
         outputJson = mapper.writeValueAsString(outputLabel);
+
+        doReturn(7L).when(tableWritesRepository).findWrites("label");
     }
 
     @Test
@@ -102,7 +152,8 @@ public class LabelControllerTest {
 
     @Test
     public void shouldUpdateLabel() throws Exception {
-        doReturn(null).when(labelRepository).save(outputLabel);
+        doReturn(Optional.of(0)).when(labelRepository).findVersionById(20);
+        doReturn(1).when(labelRepository).updateIfVersion(any());
 
         //Act & Assert
         this.mockMvc.perform(put("/label")
@@ -114,7 +165,7 @@ public class LabelControllerTest {
 
     @Test
     public void shouldDeleteLabel() throws Exception {
-        doReturn(Optional.ofNullable(outputLabel)).when(labelRepository).findById(20);
+        doReturn(1).when(labelRepository).deleteIfVersion(20, null);
 
         //Act & Assert
         this.mockMvc.perform(delete("/label/20"))
@@ -122,6 +173,78 @@ public class LabelControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    public void shouldGetLabelPageWithNextCursor() throws Exception {
+        Label secondLabel = new Label();
+        secondLabel.setLabelId(outputLabel.getLabelId() + 1);
+        List<Label> rows = new ArrayList<>();
+        rows.add(outputLabel);
+        rows.add(secondLabel);
+
+        doReturn(rows).when(labelRepository).findByLabelIdGreaterThanOrderByLabelIdAsc(0, PageRequest.of(0, 2));
+
+        //Act & Assert
+        this.mockMvc.perform(get("/label").param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].labelId").value(outputLabel.getLabelId()))
+                .andExpect(jsonPath("$.nextCursor").value(CursorPage.encodeCursor(outputLabel.getLabelId())));
+    }
+
+    @Test
+    public void shouldStreamLabelsAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write((outputJson + "\n").getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(exportService).writeNdjson(any(), any());
+
+        //Act
+        MvcResult result = this.mockMvc.perform(get("/label").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //Assert
+        this.mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(outputJson + "\n"));
+    }
+
+    @Test
+    public void shouldGetLabelSummaries() throws Exception {
+        List<LabelSummary> summaryList = new ArrayList<>();
+        summaryList.add(new LabelSummary(outputLabel.getLabelId(), outputLabel.getName()));
+
+        outputJson = mapper.writeValueAsString(new CursorPage<>(summaryList, null));
+
+        doReturn(summaryList).when(labelRepository).findSummariesAfter(0, PageRequest.of(0, 101));
+
+        //Act & Assert
+        this.mockMvc.perform(get("/label/summary"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson));
+    }
+
+    @Test
+    public void shouldSuggestLabels() throws Exception {
+        List<Suggestion> suggestions = new ArrayList<>();
+        suggestions.add(new Suggestion(1, "Epic Records", 12));
+
+        outputJson = mapper.writeValueAsString(suggestions);
+
+        doReturn(suggestions).when(suggestService).suggestLabels("epi", 10);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/label/suggest").param("prefix", "epi"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson));
+    }
+
     // ------------ NotFound Status Tests -------------
 
     @Test
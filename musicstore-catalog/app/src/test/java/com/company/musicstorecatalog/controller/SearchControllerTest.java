@@ -0,0 +1,77 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.model.SearchHit;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.IdempotencyService;
+import com.company.musicstorecatalog.service.SearchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.doReturn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(SearchController.class)
+public class SearchControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SearchService searchService;
+
+    @MockBean
+    private CatalogSnapshotService snapshots;
+
+    @MockBean
+    private IdempotencyService idempotency;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    public void shouldSearchTitles() throws Exception {
+        List<SearchHit> hits = Arrays.asList(
+                new SearchHit("album", 1, "Bad", 2.5),
+                new SearchHit("track", 11, "Bad", 2.5));
+
+        doReturn(hits).when(searchService).search("bad", 20);
+
+        String outputJson = mapper.writeValueAsString(hits);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/search").param("q", "bad"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson));
+    }
+
+    // ------------ NotFound Status Tests -------------
+
+    @Test
+    public void shouldReturn404WhenSearchQueryIsEmpty() throws Exception{
+        mockMvc.perform(
+                        get("/search").param("q", "  ")
+                )
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void shouldReturn400WhenSearchLimitNotValid() throws Exception{
+        mockMvc.perform(
+                        get("/search").param("q", "bad").param("limit", "0")
+                )
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,129 @@
+package com.company.musicstorecatalog.controller;
+
+import com.company.musicstorecatalog.model.AlbumStats;
+import com.company.musicstorecatalog.model.ArtistStats;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.LabelStats;
+import com.company.musicstorecatalog.repository.AlbumStatsRepository;
+import com.company.musicstorecatalog.repository.ArtistStatsRepository;
+import com.company.musicstorecatalog.repository.LabelStatsRepository;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(StatsController.class)
+public class StatsControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ArtistStatsRepository artistStatsRepository;
+
+    @MockBean
+    private LabelStatsRepository labelStatsRepository;
+
+    @MockBean
+    private AlbumStatsRepository albumStatsRepository;
+
+    @MockBean
+    private CatalogStatsService statsService;
+
+    @MockBean
+    private CatalogSnapshotService snapshots;
+
+    @MockBean
+    private IdempotencyService idempotency;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    public void shouldGetLabelStatsPage() throws Exception {
+        List<LabelStats> rows = Arrays.asList(
+                new LabelStats(1, 3, new BigDecimal("45.00")),
+                new LabelStats(2, 0, BigDecimal.ZERO),
+                new LabelStats(4, 1, new BigDecimal("9.99")));
+
+        doReturn(rows).when(labelStatsRepository).findByLabelIdGreaterThanOrderByLabelIdAsc(0, PageRequest.of(0, 3));
+
+        String outputJson = mapper.writeValueAsString(new CursorPage<>(rows.subList(0, 2), CursorPage.encodeCursor(2)));
+
+        //Act & Assert
+        this.mockMvc.perform(get("/stats/labels").param("limit", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson))
+                .andExpect(jsonPath("$.items[0].averageListPrice").value(15.00));
+    }
+
+    @Test
+    public void shouldGetArtistStatsById() throws Exception {
+        doReturn(Optional.of(new ArtistStats(5, 4, new BigDecimal("50.00")))).when(artistStatsRepository).findById(5);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/stats/artists/5"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.albumCount").value(4))
+                .andExpect(jsonPath("$.averageListPrice").value(12.50));
+    }
+
+    @Test
+    public void shouldGetAlbumStatsById() throws Exception {
+        doReturn(Optional.of(new AlbumStats(1, 4, 1000))).when(albumStatsRepository).findById(1);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/stats/albums/1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.trackCount").value(4))
+                .andExpect(jsonPath("$.totalRunTime").value(1000))
+                .andExpect(jsonPath("$.averageRunTime").value(250.0));
+    }
+
+    @Test
+    public void shouldRebuildStats() throws Exception {
+        //Act & Assert
+        this.mockMvc.perform(post("/stats/rebuild"))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+
+        verify(statsService).rebuild();
+    }
+
+    // ------------ NotFound Status Tests -------------
+
+    @Test
+    public void shouldReturn404WhenAlbumStatsNotFound() throws Exception {
+        doReturn(Optional.empty()).when(albumStatsRepository).findById(9);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/stats/albums/9"))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,27 +1,63 @@
 package com.company.musicstorecatalog.controller;
 
 import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.model.TrackFilter;
+import com.company.musicstorecatalog.model.BatchItemResult;
+import com.company.musicstorecatalog.model.BatchResult;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.TrackSummary;
+import com.company.musicstorecatalog.model.WriteTicket;
 import com.company.musicstorecatalog.repository.TrackRepository;
+import com.company.musicstorecatalog.repository.TableWritesRepository;
+import com.company.musicstorecatalog.service.AlbumListingProjector;
+import com.company.musicstorecatalog.service.BatchWriteService;
+import com.company.musicstorecatalog.service.CatalogOutbox;
+import com.company.musicstorecatalog.service.CatalogSnapshotService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.IdempotencyService;
+import com.company.musicstorecatalog.service.NdjsonExportService;
+import com.company.musicstorecatalog.service.SearchService;
+import com.company.musicstorecatalog.service.WriteQueueFullException;
+import com.company.musicstorecatalog.service.WriteBehindService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -33,6 +69,36 @@ public class TrackControllerTest {
     @MockBean
     private TrackRepository trackRepository;
 
+    @MockBean
+    private TableWritesRepository tableWritesRepository;
+
+    @MockBean
+    private NdjsonExportService exportService;
+
+    @MockBean
+    private CatalogSnapshotService snapshots;
+
+    @MockBean
+    private IdempotencyService idempotency;
+
+    @MockBean
+    private CatalogStatsService statsService;
+
+    @MockBean
+    private AlbumListingProjector listingProjector;
+
+    @MockBean
+    private SearchService searchService;
+
+    @MockBean
+    private BatchWriteService batchWriteService;
+
+    @MockBean
+    private WriteBehindService writeBehind;
+
+    @MockBean
+    private CatalogOutbox outbox;
+
     @Autowired
     private ObjectMapper mapper;
 
@@ -59,6 +125,8 @@ public class TrackControllerTest {
         outputTrack.setTrackId(11);
 
         outputJson = mapper.writeValueAsString(outputTrack);
+
+        doReturn(7L).when(tableWritesRepository).findWrites("track");
     }
 
     @Test
@@ -74,6 +142,36 @@ public class TrackControllerTest {
                 .andExpect(content().json(outputJson));
     }
 
+    @Test
+    public void shouldQueueTrackAndReturnItsHandle() throws Exception {
+        WriteTicket ticket = new WriteTicket(42L, "track", "QUEUED", LocalDateTime.parse("2022-11-02T10:15:30"),
+                null, null, Collections.emptyList());
+        doReturn(ticket).when(writeBehind).submit(inputTrack);
+
+        //Act & Assert
+        this.mockMvc.perform(post("/track").param("async", "true")
+                        .content(inputJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/writes/42"))
+                .andExpect(jsonPath("$.state").value("QUEUED"));
+        verify(trackRepository, never()).save(any());
+    }
+
+    @Test
+    public void shouldReturn503WhenWriteQueueIsFull() throws Exception {
+        doThrow(new WriteQueueFullException(10000)).when(writeBehind).submit(inputTrack);
+
+        //Act & Assert
+        this.mockMvc.perform(post("/track").param("async", "true")
+                        .content(inputJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
     @Test
     public void shouldGetAllTracks() throws Exception {
         List<Track> trackList = new ArrayList<>();
@@ -90,6 +188,26 @@ public class TrackControllerTest {
                 .andExpect(content().json(outputJson));
     }
 
+    @Test
+    public void shouldGetFilteredTracks() throws Exception {
+        List<Track> trackList = new ArrayList<>();
+        trackList.add(outputTrack);
+
+        outputJson = mapper.writeValueAsString(trackList);
+
+        TrackFilter filter = new TrackFilter();
+        filter.setAlbumId(1);
+        filter.setMinRunTime(120);
+
+        doReturn(trackList).when(trackRepository).findFiltered(filter);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/track?albumId=1&minRunTime=120"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson));
+    }
+
     @Test
     public void getTrackById() throws Exception {
         doReturn(Optional.of(outputTrack)).when(trackRepository).findById(11);
@@ -103,7 +221,8 @@ public class TrackControllerTest {
 
     @Test
     public void shouldUpdateTrack() throws Exception {
-        doReturn(null).when(trackRepository).save(outputTrack);
+        doReturn(Optional.of(0)).when(trackRepository).findVersionById(11);
+        doReturn(1).when(trackRepository).updateIfVersion(any());
 
         //Act & Assert
         this.mockMvc.perform(put("/track")
@@ -113,9 +232,38 @@ public class TrackControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    public void shouldReturn422WhenPatchClearsRunTime() throws Exception {
+        doReturn(Optional.of(outputTrack)).when(trackRepository).findByTrackId(11);
+
+        //Act & Assert
+        this.mockMvc.perform(patch("/track/11")
+                        .content("{\"runTime\": null}")
+                        .contentType("application/merge-patch+json"))
+                .andDo(print())
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(trackRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void shouldReturn412WhenDeletingChangedTrack() throws Exception {
+        doReturn(Optional.ofNullable(outputTrack)).when(trackRepository).findById(11);
+        doReturn(0).when(trackRepository).deleteIfVersion(11, 2);
+        doReturn(Optional.of(3)).when(trackRepository).findVersionById(11);
+
+        //Act & Assert
+        this.mockMvc.perform(delete("/track/11").header(HttpHeaders.IF_MATCH, "\"v2\""))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+
+        verify(snapshots, never()).trackDeleted(any());
+    }
+
     @Test
     public void shouldDeleteTrack() throws Exception {
         doReturn(Optional.ofNullable(outputTrack)).when(trackRepository).findById(11);
+        doReturn(1).when(trackRepository).deleteIfVersion(11, null);
 
         //Act & Assert
         this.mockMvc.perform(delete("/track/11"))
@@ -123,6 +271,128 @@ public class TrackControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    public void shouldTakeDeletedTrackOutOfAlbumStats() throws Exception {
+        doReturn(Optional.ofNullable(outputTrack)).when(trackRepository).findById(11);
+        doReturn(1).when(trackRepository).deleteIfVersion(11, null);
+
+        //Act
+        this.mockMvc.perform(delete("/track/11"))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+
+        //Assert
+        InOrder order = inOrder(statsService, trackRepository);
+        order.verify(statsService).trackChanging(11);
+        order.verify(trackRepository).deleteIfVersion(11, null);
+    }
+
+    @Test
+    public void shouldAppendDeletedTrackToOutboxAfterDeletingIt() throws Exception {
+        doReturn(Optional.ofNullable(outputTrack)).when(trackRepository).findById(11);
+        doReturn(1).when(trackRepository).deleteIfVersion(11, null);
+
+        //Act
+        this.mockMvc.perform(delete("/track/11"))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+
+        //Assert
+        InOrder order = inOrder(trackRepository, outbox);
+        order.verify(trackRepository).deleteIfVersion(11, null);
+        order.verify(outbox).deleted(CatalogOutbox.TRACK, 11);
+    }
+
+    @Test
+    public void shouldGetTrackPageWithNextCursor() throws Exception {
+        Track secondTrack = new Track();
+        secondTrack.setTrackId(outputTrack.getTrackId() + 1);
+        List<Track> rows = new ArrayList<>();
+        rows.add(outputTrack);
+        rows.add(secondTrack);
+
+        doReturn(rows).when(trackRepository).findByTrackIdGreaterThanOrderByTrackIdAsc(0, PageRequest.of(0, 2));
+
+        //Act & Assert
+        this.mockMvc.perform(get("/track").param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].trackId").value(outputTrack.getTrackId()))
+                .andExpect(jsonPath("$.nextCursor").value(CursorPage.encodeCursor(outputTrack.getTrackId())));
+    }
+
+    @Test
+    public void shouldStreamTracksAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write((outputJson + "\n").getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(exportService).writeNdjson(any(), any());
+
+        //Act
+        MvcResult result = this.mockMvc.perform(get("/track").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //Assert
+        this.mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(outputJson + "\n"));
+    }
+
+    @Test
+    public void shouldGetTrackSummaries() throws Exception {
+        List<TrackSummary> summaryList = new ArrayList<>();
+        summaryList.add(new TrackSummary(outputTrack.getTrackId(), outputTrack.getAlbumId(), outputTrack.getTitle()));
+
+        outputJson = mapper.writeValueAsString(new CursorPage<>(summaryList, null));
+
+        doReturn(summaryList).when(trackRepository).findSummariesAfter(0, PageRequest.of(0, 101));
+
+        //Act & Assert
+        this.mockMvc.perform(get("/track/summary"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(outputJson));
+    }
+
+    @Test
+    public void shouldReturnTrackWithETag() throws Exception {
+        outputTrack.setVersion(3);
+        doReturn(Optional.of(outputTrack)).when(trackRepository).findById(11);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/track/11"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v3\""));
+    }
+
+    @Test
+    public void shouldReturn304ForTrackWhenVersionMatches() throws Exception {
+        outputTrack.setVersion(3);
+        doReturn(Optional.of(outputTrack)).when(trackRepository).findById(11);
+
+        //Act & Assert
+        this.mockMvc.perform(get("/track/11").header(HttpHeaders.IF_NONE_MATCH, "\"v3\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void shouldReturn304WhenAllTracksUnchanged() throws Exception {
+        //Act & Assert
+        this.mockMvc.perform(get("/track").header(HttpHeaders.IF_NONE_MATCH, "\"w7\""))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        verify(trackRepository, never()).findAll();
+    }
+
     // ------------ NotFound Status Tests -------------
 
     @Test
@@ -218,4 +488,42 @@ public class TrackControllerTest {
                 .andDo(print())
                 .andExpect(status().isUnprocessableEntity());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldAddTrackBatch() throws Exception {
+        Track invalidTrack = new Track();
+        invalidTrack.setTitle("Unknown Track");
+        invalidTrack.setAlbumId(2);
+        List<Track> tracks = Arrays.asList(inputTrack, invalidTrack);
+
+        BatchResult result = new BatchResult(Arrays.asList(
+                BatchItemResult.written(0, outputTrack.getTrackId()),
+                BatchItemResult.rejected(1, null, Arrays.asList("Run time is required."))));
+        doReturn(result).when(batchWriteService).addTracks(tracks);
+
+        //Act & Assert
+        mockMvc.perform(post("/track/batch")
+                        .content(mapper.writeValueAsString(tracks))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.written").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(outputTrack.getTrackId()))
+                .andExpect(jsonPath("$.items[1].errors[0]").value("Run time is required."));
+    }
+
+    @Test
+    public void shouldUpdateTrackBatch() throws Exception {
+        List<Track> tracks = Arrays.asList(outputTrack);
+        BatchResult result = new BatchResult(Arrays.asList(BatchItemResult.written(0, outputTrack.getTrackId())));
+        doReturn(result).when(batchWriteService).updateTracks(tracks);
+
+        mockMvc.perform(put("/track/batch")
+                        .content(mapper.writeValueAsString(tracks))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(result)));
+    }
+}
@@ -0,0 +1,190 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumListing;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.service.AlbumListingProjector;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class AlbumListingRepositoryTest {
+    @Autowired
+    AlbumListingProjector listingProjector;
+    @Autowired
+    AlbumListingRepository listingRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    TransactionTemplate transaction;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Artist newArtist = new Artist();
+    Label newLabel = new Label();
+
+    @Before
+    public void setUp() throws Exception {
+        cleanUp();
+
+        newArtist.setName("Celine Dion");
+        newArtist = artistRepository.save(newArtist);
+
+        newLabel.setName("Columbia");
+        newLabel = labelRepository.save(newLabel);
+    }
+
+    @After
+    public void cleanUp() {
+        trackRepository.deleteAll();
+        albumRepository.deleteAll();
+        artistRepository.deleteAll();
+        labelRepository.deleteAll();
+        listingRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldProjectWritesAfterCommit() throws Exception {
+        //Act
+        Album courage = transaction.execute(status -> {
+            Album saved = albumRepository.save(album("Courage"));
+            trackRepository.save(track(saved, "Lying Down"));
+            trackRepository.save(track(saved, "Imperfections"));
+            listingProjector.albumChanged(saved.getAlbumId());
+            // nothing is applied before the commit
+            assertEquals(0, listingProjector.pending());
+            return saved;
+        });
+        awaitApplied();
+
+        //Assert
+        assertEquals(new AlbumListing(courage.getAlbumId(), "Courage", LocalDate.parse("2019-11-15"), new BigDecimal("12.99"),
+                        newArtist.getArtistId(), "Celine Dion", newLabel.getLabelId(), "Columbia", 2),
+                listingRepository.findById(courage.getAlbumId()).get());
+
+        //Act
+        Album other = transaction.execute(status -> {
+            newArtist.setName("Céline Dion");
+            newArtist = artistRepository.save(newArtist);
+            listingProjector.artistChanged(newArtist.getArtistId());
+            Album saved = albumRepository.save(album("Falling Into You"));
+            listingProjector.albumChanged(saved.getAlbumId());
+            return saved;
+        });
+        transaction.executeWithoutResult(status -> {
+            Track moved = trackRepository.findByAlbumIdOrderByTrackIdAsc(courage.getAlbumId()).get(0);
+            listingProjector.trackChanging(moved.getTrackId());
+            moved.setAlbumId(other.getAlbumId());
+            trackRepository.save(moved);
+            listingProjector.albumChanged(other.getAlbumId());
+        });
+        awaitApplied();
+
+        //Assert
+        AlbumListing courageListing = listingRepository.findById(courage.getAlbumId()).get();
+        AlbumListing otherListing = listingRepository.findById(other.getAlbumId()).get();
+        assertEquals("Céline Dion", courageListing.getArtistName());
+        assertEquals(1, courageListing.getTrackCount());
+        assertEquals(1, otherListing.getTrackCount());
+    }
+
+    @Test
+    public void shouldKeepSecondLevelCacheThroughProjection() throws Exception {
+        //Arrange: the first read loads the artist region
+        artistRepository.findById(newArtist.getArtistId());
+        Cache cache = entityManagerFactory.getCache();
+        assertTrue(cache.contains(Artist.class, newArtist.getArtistId()));
+
+        //Act
+        Album courage = albumRepository.save(album("Courage"));
+        listingProjector.albumChanged(courage.getAlbumId());
+        listingProjector.artistChanged(newArtist.getArtistId());
+        awaitApplied();
+
+        //Assert
+        assertTrue(listingRepository.findById(courage.getAlbumId()).isPresent());
+        assertTrue(cache.contains(Artist.class, newArtist.getArtistId()));
+    }
+
+    @Test
+    public void shouldNotProjectRolledBackWrites() {
+        transaction.executeWithoutResult(status -> {
+            Album saved = albumRepository.save(album("Courage"));
+            listingProjector.albumChanged(saved.getAlbumId());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, listingProjector.pending());
+        assertEquals(0L, listingRepository.count());
+    }
+
+    @Test
+    public void shouldRebuildListings() {
+        //Arrange: writes that never marked the read model
+        Album courage = albumRepository.save(album("Courage"));
+        trackRepository.save(track(courage, "Lying Down"));
+        transaction.executeWithoutResult(status -> listingRepository.projectIds(Collections.singleton(courage.getAlbumId())));
+        albumRepository.save(album("Falling Into You"));
+        trackRepository.save(track(courage, "Imperfections"));
+
+        //Act
+        listingProjector.rebuild();
+
+        //Assert
+        assertEquals(2L, listingRepository.count());
+        assertEquals(2, listingRepository.findById(courage.getAlbumId()).get().getTrackCount());
+        assertNotNull(meterRegistry.find("catalog.read_model.lag").gauge());
+    }
+
+    private void awaitApplied() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (listingProjector.pending() > 0 || listingProjector.lagNanos() > 0) {
+            assertTrue("album_listing did not catch up", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private Album album(String title) {
+        Album album = new Album();
+        album.setTitle(title);
+        album.setListPrice(new BigDecimal("12.99"));
+        album.setReleaseDate(LocalDate.parse("2019-11-15"));
+        album.setArtistId(newArtist.getArtistId());
+        album.setLabelId(newLabel.getLabelId());
+        return album;
+    }
+
+    private Track track(Album album, String title) {
+        Track track = new Track();
+        track.setTitle(title);
+        track.setRunTime(200);
+        track.setAlbumId(album.getAlbumId());
+        return track;
+    }
+}
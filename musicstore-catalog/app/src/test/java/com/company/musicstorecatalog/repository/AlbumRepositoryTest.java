@@ -1,15 +1,25 @@
 package com.company.musicstorecatalog.repository;
 
+import com.company.musicstorecatalog.config.LookupCacheConfig;
 import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumDetail;
+import com.company.musicstorecatalog.model.AlbumFilter;
+import com.company.musicstorecatalog.model.AlbumSummary;
 import com.company.musicstorecatalog.model.Artist;
 import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.TableVersion;
+import com.github.benmanes.caffeine.cache.Cache;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -28,6 +38,10 @@ public class AlbumRepositoryTest {
     ArtistRepository artistRepository;
     @Autowired
     LabelRepository labelRepository;
+    @Autowired
+    CacheManager cacheManager;
+    @Autowired
+    TransactionTemplate transaction;
 
     Artist newArtist = new Artist();
     Label newLabel = new Label();
@@ -94,6 +108,47 @@ public class AlbumRepositoryTest {
         assertFalse(foundAlbum.isPresent());
     }
 
+    @Test
+    public void shouldUpdateAndDeleteOnlyAtTheExpectedVersion() {
+        //Arrange
+        Album album = new Album();
+        album.setTitle("Falling Into You");
+        album.setListPrice(new BigDecimal("19.99"));
+        album.setReleaseDate(LocalDate.parse("1996-03-11"));
+        album.setArtistId(newArtist.getArtistId());
+        album.setLabelId(newLabel.getLabelId());
+        album = albumRepository.save(album);
+        Integer id = album.getAlbumId();
+        Integer version = albumRepository.findVersionById(id).get();
+        albumRepository.findById(id);
+
+        Album update = new Album();
+        update.setAlbumId(id);
+        update.setTitle("Falling Into You (Deluxe)");
+        update.setListPrice(new BigDecimal("24.99"));
+        update.setReleaseDate(album.getReleaseDate());
+        update.setArtistId(album.getArtistId());
+        update.setLabelId(album.getLabelId());
+        update.setVersion(version + 1);
+
+        //Act & Assert: the conditional statements need a transaction, the controllers run them in theirs
+        assertEquals(0, (int) transaction.execute(status -> albumRepository.updateIfVersion(update)));
+        update.setVersion(version);
+        assertEquals(1, (int) transaction.execute(status -> albumRepository.updateIfVersion(update)));
+
+        //Assert: the lookup cache no longer serves the old row
+        assertNull(((Cache<?, ?>) cacheManager.getCache(LookupCacheConfig.ALBUM_CACHE).getNativeCache()).getIfPresent(id));
+        Album stored = albumRepository.findById(id).get();
+        assertEquals("Falling Into You (Deluxe)", stored.getTitle());
+        assertEquals(Integer.valueOf(version + 1), stored.getVersion());
+
+        //Act & Assert
+        assertEquals(0, (int) transaction.execute(status -> albumRepository.deleteIfVersion(id, version)));
+        assertEquals(1, (int) transaction.execute(status -> albumRepository.deleteIfVersion(id, version + 1)));
+        assertFalse(albumRepository.findById(id).isPresent());
+        assertEquals(0, (int) transaction.execute(status -> albumRepository.deleteIfVersion(id, null)));
+    }
+
     @Test
     public void shouldFindAllAlbum() {
         //Arrange
@@ -124,4 +179,281 @@ public class AlbumRepositoryTest {
         //Assert
         assertEquals(allAlbum.size(), foundAllAlbum.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldSeekAlbumPagesByPrimaryKey() {
+        //Arrange
+        Album album1 = new Album();
+        album1.setTitle("Falling Into You");
+        album1.setListPrice(new BigDecimal(19.99));
+        album1.setReleaseDate(LocalDate.parse("1996-06-06"));
+        album1.setArtistId(newArtist.getArtistId());
+        album1.setLabelId(newLabel.getLabelId());
+
+        Album album2 = new Album();
+        album2.setTitle("Let's Talk About Love");
+        album2.setListPrice(new BigDecimal(22.99));
+        album2.setReleaseDate(LocalDate.parse("1997-07-07"));
+        album2.setArtistId(newArtist.getArtistId());
+        album2.setLabelId(newLabel.getLabelId());
+
+        //Act
+        album1 = albumRepository.save(album1);
+        album2 = albumRepository.save(album2);
+
+        //Act
+        List<Album> firstPage = albumRepository.findByAlbumIdGreaterThanOrderByAlbumIdAsc(0, PageRequest.of(0, 1));
+        List<Album> secondPage = albumRepository.findByAlbumIdGreaterThanOrderByAlbumIdAsc(
+                firstPage.get(0).getAlbumId(), PageRequest.of(0, 1));
+
+        //Assert
+        assertEquals(1, firstPage.size());
+        assertEquals(album1.getAlbumId(), firstPage.get(0).getAlbumId());
+        assertEquals(1, secondPage.size());
+        assertEquals(album2.getAlbumId(), secondPage.get(0).getAlbumId());
+    }
+
+    @Test
+    public void shouldFindAlbumSummariesAfterCursor() {
+        //Arrange
+        Album album1 = new Album();
+        album1.setTitle("Falling Into You");
+        album1.setListPrice(new BigDecimal(19.99));
+        album1.setReleaseDate(LocalDate.parse("1996-06-06"));
+        album1.setArtistId(newArtist.getArtistId());
+        album1.setLabelId(newLabel.getLabelId());
+
+        Album album2 = new Album();
+        album2.setTitle("Let's Talk About Love");
+        album2.setListPrice(new BigDecimal(22.99));
+        album2.setReleaseDate(LocalDate.parse("1997-07-07"));
+        album2.setArtistId(newArtist.getArtistId());
+        album2.setLabelId(newLabel.getLabelId());
+
+        //Act
+        album1 = albumRepository.save(album1);
+        album2 = albumRepository.save(album2);
+
+        //Act
+        List<AlbumSummary> summaries = albumRepository.findSummariesAfter(0, PageRequest.of(0, 10));
+
+        //Assert
+        assertEquals(2, summaries.size());
+        assertEquals(album1.getAlbumId(), summaries.get(0).getAlbumId());
+        assertEquals(album1.getTitle(), summaries.get(0).getTitle());
+        assertEquals(album1.getArtistId(), summaries.get(0).getArtistId());
+    }
+
+    @Test
+    public void shouldCountAlbumsByArtistAndLabel() {
+        //Arrange
+        Album album1 = new Album();
+        album1.setTitle("Falling Into You");
+        album1.setListPrice(new BigDecimal(19.99));
+        album1.setReleaseDate(LocalDate.parse("1996-06-06"));
+        album1.setArtistId(newArtist.getArtistId());
+        album1.setLabelId(newLabel.getLabelId());
+
+        Album album2 = new Album();
+        album2.setTitle("Let's Talk About Love");
+        album2.setListPrice(new BigDecimal(22.99));
+        album2.setReleaseDate(LocalDate.parse("1997-07-07"));
+        album2.setArtistId(newArtist.getArtistId());
+        album2.setLabelId(newLabel.getLabelId());
+
+        albumRepository.save(album1);
+        albumRepository.save(album2);
+
+        //Act
+        List<Object[]> byArtist = albumRepository.countAlbumsByArtist();
+        List<Object[]> byLabel = albumRepository.countAlbumsByLabel();
+
+        //Assert
+        assertEquals(1, byArtist.size());
+        assertEquals(newArtist.getArtistId(), byArtist.get(0)[0]);
+        assertEquals(2L, ((Number) byArtist.get(0)[1]).longValue());
+        assertEquals(1, byLabel.size());
+        assertEquals(newLabel.getLabelId(), byLabel.get(0)[0]);
+        assertEquals(2L, ((Number) byLabel.get(0)[1]).longValue());
+    }
+
+    @Test
+    public void shouldFilterAndSortAlbums() {
+        //Arrange
+        Album album1 = new Album();
+        album1.setTitle("Falling Into You");
+        album1.setListPrice(new BigDecimal("19.99"));
+        album1.setReleaseDate(LocalDate.parse("1996-06-06"));
+        album1.setArtistId(newArtist.getArtistId());
+        album1.setLabelId(newLabel.getLabelId());
+
+        Album album2 = new Album();
+        album2.setTitle("Courage");
+        album2.setListPrice(new BigDecimal("12.99"));
+        album2.setReleaseDate(LocalDate.parse("2019-11-15"));
+        album2.setArtistId(newArtist.getArtistId());
+        album2.setLabelId(newLabel.getLabelId());
+
+        Album album3 = new Album();
+        album3.setTitle("Loved Me Back to Life");
+        album3.setListPrice(new BigDecimal("14.99"));
+        album3.setReleaseDate(LocalDate.parse("2013-11-01"));
+        album3.setArtistId(newArtist.getArtistId());
+        album3.setLabelId(newLabel.getLabelId());
+
+        album1 = albumRepository.save(album1);
+        album2 = albumRepository.save(album2);
+        album3 = albumRepository.save(album3);
+
+        AlbumFilter filter = new AlbumFilter();
+        filter.setArtistId(newArtist.getArtistId());
+        filter.setReleasedFrom(LocalDate.parse("2010-01-01"));
+        filter.setMaxPrice(new BigDecimal("15"));
+        filter.setSort("releaseDate");
+        filter.setDesc(true);
+
+        //Act
+        List<Album> albums = albumRepository.findFiltered(filter);
+
+        filter.setSort(null);
+        filter.setDesc(false);
+        // pages follow idx_album_artist_release too: release date order, seeking past the last row's key
+        List<Album> firstPage = albumRepository.findFilteredAfter(filter, null, 1);
+        List<Album> secondPage = albumRepository.findFilteredAfter(filter,
+                AlbumSpecifications.cursorOf(filter).apply(firstPage.get(0)), 1);
+
+        //Assert
+        assertEquals(2, albums.size());
+        assertEquals(album2.getAlbumId(), albums.get(0).getAlbumId());
+        assertEquals(album3.getAlbumId(), albums.get(1).getAlbumId());
+        assertEquals(album3.getAlbumId(), firstPage.get(0).getAlbumId());
+        assertEquals(album2.getAlbumId(), secondPage.get(0).getAlbumId());
+    }
+
+    // only the order of the index the filters use is supported, see AlbumSpecifications
+    @Test(expected = InvalidDataAccessApiUsageException.class)
+    public void shouldRejectAlbumSortAgainstFilterIndex() {
+        AlbumFilter filter = new AlbumFilter();
+        filter.setLabelId(newLabel.getLabelId());
+        filter.setSort("releaseDate");
+
+        albumRepository.findFiltered(filter);
+    }
+
+    // the repository proxy translates the IllegalArgumentException
+    @Test(expected = InvalidDataAccessApiUsageException.class)
+    public void shouldRejectUnknownAlbumSort() {
+        AlbumFilter filter = new AlbumFilter();
+        filter.setSort("title");
+
+        albumRepository.findFiltered(filter);
+    }
+
+    @Test
+    public void shouldFindAlbumDetailWithArtistAndLabel() {
+        //Arrange
+        Album newAlbum = new Album();
+        newAlbum.setTitle("Falling Into You");
+        newAlbum.setListPrice(new BigDecimal(19.99));
+        newAlbum.setReleaseDate(LocalDate.parse("1996-01-01"));
+        newAlbum.setArtistId(newArtist.getArtistId());
+        newAlbum.setLabelId(newLabel.getLabelId());
+
+        newAlbum = albumRepository.save(newAlbum);
+
+        //Act
+        Optional<AlbumDetail> foundDetail = albumRepository.findDetailById(newAlbum.getAlbumId());
+
+        //Assert
+        assertTrue(foundDetail.isPresent());
+        assertEquals(newAlbum.getAlbumId(), foundDetail.get().getAlbum().getAlbumId());
+        assertEquals(newArtist, foundDetail.get().getArtist());
+        assertEquals(newLabel, foundDetail.get().getLabel());
+        assertFalse(albumRepository.findDetailById(newAlbum.getAlbumId() + 1).isPresent());
+    }
+
+    @Test
+    public void shouldBumpVersionOnUpdate() {
+        //Arrange
+        Album newAlbum = new Album();
+        newAlbum.setTitle("Falling Into You");
+        newAlbum.setListPrice(new BigDecimal(19.99));
+        newAlbum.setReleaseDate(LocalDate.parse("1996-01-01"));
+        newAlbum.setArtistId(newArtist.getArtistId());
+        newAlbum.setLabelId(newLabel.getLabelId());
+
+        newAlbum = albumRepository.save(newAlbum);
+        TableVersion before = albumRepository.findTableVersion();
+
+        //Act
+        newAlbum.setListPrice(new BigDecimal(20.00));
+        albumRepository.save(newAlbum);
+
+        //Assert
+        assertEquals(Optional.of(1), albumRepository.findVersionById(newAlbum.getAlbumId()));
+        assertEquals(Long.valueOf(1), albumRepository.findTableVersion().getRowCount());
+        assertNotEquals(before, albumRepository.findTableVersion());
+    }
+
+    @Test
+    public void shouldKeepAlbumLookupCacheInSyncWithWrites() {
+        //Arrange
+        Album newAlbum = new Album();
+        newAlbum.setTitle("Falling Into You");
+        newAlbum.setListPrice(new BigDecimal(19.99));
+        newAlbum.setReleaseDate(LocalDate.parse("1996-01-01"));
+        newAlbum.setArtistId(newArtist.getArtistId());
+        newAlbum.setLabelId(newLabel.getLabelId());
+
+        //Act
+        newAlbum = albumRepository.save(newAlbum);
+
+        //Assert
+        assertEquals(newAlbum, cacheManager.getCache(LookupCacheConfig.ALBUM_CACHE).get(newAlbum.getAlbumId()).get());
+
+        //Act
+        newAlbum.setTitle("Falling Into You (Deluxe)");
+        albumRepository.save(newAlbum);
+
+        //Assert
+        assertEquals("Falling Into You (Deluxe)", albumRepository.findById(newAlbum.getAlbumId()).get().getTitle());
+
+        //Act
+        albumRepository.deleteById(newAlbum.getAlbumId());
+
+        //Assert
+        assertNull(cacheManager.getCache(LookupCacheConfig.ALBUM_CACHE).get(newAlbum.getAlbumId()));
+        assertFalse(albumRepository.findById(newAlbum.getAlbumId()).isPresent());
+    }
+
+    @Test
+    public void shouldCacheOnlyCommittedAlbumWrites() {
+        //Arrange
+        Album newAlbum = new Album();
+        newAlbum.setTitle("Falling Into You");
+        newAlbum.setListPrice(new BigDecimal("19.99"));
+        newAlbum.setReleaseDate(LocalDate.parse("1996-01-01"));
+        newAlbum.setArtistId(newArtist.getArtistId());
+        newAlbum.setLabelId(newLabel.getLabelId());
+        Album saved = albumRepository.save(newAlbum);
+        Integer id = saved.getAlbumId();
+
+        //Act: a save that rolls back
+        transaction.executeWithoutResult(status -> {
+            Album update = albumRepository.findByAlbumId(id).get();
+            update.setTitle("Never Committed");
+            albumRepository.save(update);
+            status.setRollbackOnly();
+        });
+
+        //Assert
+        assertEquals("Falling Into You", albumRepository.findById(id).get().getTitle());
+
+        //Act: changing an instance the repository handed out
+        saved.setTitle("Changed After Save");
+        albumRepository.findById(id).get().setTitle("Changed After Read");
+
+        //Assert: the cache keeps its own copy
+        assertEquals("Falling Into You", albumRepository.findById(id).get().getTitle());
+    }
+}
@@ -1,14 +1,18 @@
 package com.company.musicstorecatalog.repository;
 
 import com.company.musicstorecatalog.model.Artist;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -20,6 +24,8 @@ import static org.junit.Assert.*;
 public class ArtistRepositoryTest {
     @Autowired
     ArtistRepository artistRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
 
     @Before
     public void setUp() throws Exception {
@@ -92,4 +98,68 @@ public class ArtistRepositoryTest {
         //Assert
         assertEquals(allArtist.size(), foundAllArtist.size());
     }
+
+    @Test
+    public void shouldSeekArtistPagesByPrimaryKey() {
+        //Arrange
+        Artist artist1 = new Artist();
+        artist1.setName("Celine Dion");
+        artist1.setInstagram("@CelineDion");
+        artist1.setTwitter("@CelineDion");
+
+        Artist artist2 = new Artist();
+        artist2.setName("Micheal Jackson");
+        artist2.setInstagram("@MichealJackson");
+        artist2.setTwitter("");
+
+        //Act
+        artist1 = artistRepository.save(artist1);
+        artist2 = artistRepository.save(artist2);
+
+        //Act
+        List<Artist> firstPage = artistRepository.findByArtistIdGreaterThanOrderByArtistIdAsc(0, PageRequest.of(0, 1));
+        List<Artist> secondPage = artistRepository.findByArtistIdGreaterThanOrderByArtistIdAsc(
+                firstPage.get(0).getArtistId(), PageRequest.of(0, 1));
+
+        //Assert
+        assertEquals(1, firstPage.size());
+        assertEquals(artist1.getArtistId(), firstPage.get(0).getArtistId());
+        assertEquals(1, secondPage.size());
+        assertEquals(artist2.getArtistId(), secondPage.get(0).getArtistId());
+    }
+
+    @Test
+    public void shouldServeArtistFromSecondLevelCacheAndSeeUpdates() {
+        //Arrange
+        CacheRegionStatistics stats = entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics().getDomainDataRegionStatistics("artist");
+        Artist newArtist = new Artist();
+        newArtist.setName("Celine Dion");
+        newArtist = artistRepository.save(newArtist);
+        // identity inserts are not cached, the first read loads the region
+        artistRepository.findById(newArtist.getArtistId());
+        long hitsBefore = stats.getHitCount();
+
+        //Act
+        Optional<Artist> foundArtist = artistRepository.findById(newArtist.getArtistId());
+
+        //Assert
+        assertTrue(foundArtist.isPresent());
+        assertEquals(hitsBefore + 1, stats.getHitCount());
+
+        //Act
+        newArtist = foundArtist.get();
+        newArtist.setName("Céline Dion");
+        artistRepository.save(newArtist);
+        foundArtist = artistRepository.findById(newArtist.getArtistId());
+
+        //Assert
+        assertEquals("Céline Dion", foundArtist.get().getName());
+
+        //Act
+        artistRepository.deleteById(newArtist.getArtistId());
+
+        //Assert
+        assertFalse(artistRepository.findById(newArtist.getArtistId()).isPresent());
+    }
 }
\ No newline at end of file
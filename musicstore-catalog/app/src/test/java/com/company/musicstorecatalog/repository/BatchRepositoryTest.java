@@ -0,0 +1,163 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumStats;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.ArtistStats;
+import com.company.musicstorecatalog.model.BatchResult;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.service.BatchWriteService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class BatchRepositoryTest {
+    @Autowired
+    BatchWriteService batchWriteService;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    ArtistStatsRepository artistStatsRepository;
+    @Autowired
+    LabelStatsRepository labelStatsRepository;
+    @Autowired
+    AlbumStatsRepository albumStatsRepository;
+    @Autowired
+    TransactionTemplate transaction;
+
+    Artist newArtist = new Artist();
+    Label newLabel = new Label();
+
+    @Before
+    public void setUp() throws Exception {
+        cleanUp();
+
+        newArtist.setName("Celine Dion");
+        newArtist = artistRepository.save(newArtist);
+
+        newLabel.setName("Columbia");
+        newLabel = labelRepository.save(newLabel);
+    }
+
+    @After
+    public void cleanUp() {
+        trackRepository.deleteAll();
+        albumRepository.deleteAll();
+        artistRepository.deleteAll();
+        labelRepository.deleteAll();
+        albumStatsRepository.deleteAll();
+        artistStatsRepository.deleteAll();
+        labelStatsRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldInsertValidItemsAndReportTheRest() {
+        //Arrange
+        Album noSuchLabel = album("Courage");
+        noSuchLabel.setLabelId(newLabel.getLabelId() + 100);
+        List<Album> albums = Arrays.asList(album("Falling Into You"), noSuchLabel, album("Let's Talk About Love"));
+
+        //Act
+        BatchResult albumResult = batchWriteService.addAlbums(albums);
+
+        //Assert
+        assertEquals(2, albumResult.getWritten());
+        assertEquals(Collections.singletonList("No label was found with Id: " + noSuchLabel.getLabelId()),
+                albumResult.getItems().get(1).getErrors());
+        Integer albumId = albumResult.getItems().get(0).getId();
+        assertEquals("Falling Into You", albumRepository.findById(albumId).get().getTitle());
+        assertEquals(new ArtistStats(newArtist.getArtistId(), 2, new BigDecimal("25.98")),
+                artistStatsRepository.findById(newArtist.getArtistId()).get());
+
+        //Arrange: a title too long for its column fails the whole JDBC batch, a missing run time is caught up front
+        Track tooLong = track(albumId, "Because You Loved Me", 273);
+        tooLong.setTitle(String.join("", Collections.nCopies(6, "Because You Loved Me")));
+        List<Track> tracks = Arrays.asList(track(albumId, "It's All Coming Back to Me Now", 457), tooLong,
+                track(albumId, "All by Myself", 312), track(albumId, "River Deep, Mountain High", null));
+
+        //Act
+        BatchResult trackResult = batchWriteService.addTracks(tracks);
+
+        //Assert
+        assertEquals(2, trackResult.getWritten());
+        assertFalse(trackResult.getItems().get(1).isWritten());
+        assertEquals(Collections.singletonList("Run time is required."), trackResult.getItems().get(3).getErrors());
+        assertEquals(2, trackRepository.findByAlbumIdOrderByTrackIdAsc(albumId).size());
+        assertEquals(new AlbumStats(albumId, 2, 769L), albumStatsRepository.findById(albumId).get());
+    }
+
+    @Test
+    public void shouldUpdateAndReportConflicts() {
+        //Arrange
+        Album album = albumRepository.save(album("Falling Into You"));
+        Album other = albumRepository.save(album("Courage"));
+        Track track = trackRepository.save(track(album.getAlbumId(), "All by Myself", 312));
+        Track stale = trackRepository.save(track(album.getAlbumId(), "Declaration of Love", 260));
+        transaction.executeWithoutResult(status -> {
+            albumStatsRepository.add(album.getAlbumId(), 2, 572);
+            albumStatsRepository.add(other.getAlbumId(), 0, 0);
+        });
+
+        Track moved = track(other.getAlbumId(), "All by Myself (Live)", 330);
+        moved.setTrackId(track.getTrackId());
+        Track conflicting = track(album.getAlbumId(), "Declaration of Love", 261);
+        conflicting.setTrackId(stale.getTrackId());
+        conflicting.setVersion(stale.getVersion() + 1);
+        Track missing = track(album.getAlbumId(), "Make You Happy", 271);
+        missing.setTrackId(stale.getTrackId() + 100);
+
+        //Act
+        BatchResult result = batchWriteService.updateTracks(Arrays.asList(moved, conflicting, missing));
+
+        //Assert
+        assertEquals(1, result.getWritten());
+        assertEquals("Track " + stale.getTrackId() + " is no longer at version " + conflicting.getVersion(),
+                result.getItems().get(1).getErrors().get(0));
+        assertEquals("No track was found with Id: " + missing.getTrackId(), result.getItems().get(2).getErrors().get(0));
+        Track updated = trackRepository.findById(track.getTrackId()).get();
+        assertEquals("All by Myself (Live)", updated.getTitle());
+        assertEquals(Integer.valueOf(track.getVersion() + 1), updated.getVersion());
+        assertEquals(new AlbumStats(album.getAlbumId(), 1, 260L), albumStatsRepository.findById(album.getAlbumId()).get());
+        assertEquals(new AlbumStats(other.getAlbumId(), 1, 330L), albumStatsRepository.findById(other.getAlbumId()).get());
+    }
+
+    private Album album(String title) {
+        Album album = new Album();
+        album.setTitle(title);
+        album.setListPrice(new BigDecimal("12.99"));
+        album.setReleaseDate(LocalDate.parse("1996-03-11"));
+        album.setArtistId(newArtist.getArtistId());
+        album.setLabelId(newLabel.getLabelId());
+        return album;
+    }
+
+    private Track track(Integer albumId, String title, Integer runTime) {
+        Track track = new Track();
+        track.setTitle(title);
+        track.setRunTime(runTime);
+        track.setAlbumId(albumId);
+        return track;
+    }
+}
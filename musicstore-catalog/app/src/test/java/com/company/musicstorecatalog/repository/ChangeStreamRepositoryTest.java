@@ -0,0 +1,174 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.ChangeEvent;
+import com.company.musicstorecatalog.service.CatalogOutbox;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// writes through the web stack, read back from catalog_outbox and GET /changes/stream
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"catalog.outbox.poll-interval=20ms", "catalog.outbox.gap-timeout=200ms"})
+@AutoConfigureMockMvc
+public class ChangeStreamRepositoryTest {
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    ChangeEventRepository changeEventRepository;
+    @Autowired
+    TableWritesRepository tableWritesRepository;
+    @Autowired
+    CatalogOutbox outbox;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        cleanUp();
+    }
+
+    @After
+    public void cleanUp() {
+        artistRepository.deleteAll();
+        changeEventRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldAppendEventsOnlyForCommittedWrites() throws Exception {
+        //Act
+        Integer id = createArtist("Eagles");
+        mockMvc.perform(delete("/artist/" + id).header("If-Match", "\"v7\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/artist/" + id))
+                .andExpect(status().isNoContent());
+
+        //Assert
+        List<ChangeEvent> events = changeEventRepository.findBySeqGreaterThanOrderBySeqAsc(0L, PageRequest.of(0, 10));
+        assertEquals(2, events.size());
+        assertEquals("artist", events.get(0).getKind());
+        assertEquals(id, events.get(0).getEntityId());
+        assertEquals("saved", events.get(0).getAction());
+        assertEquals("deleted", events.get(1).getAction());
+    }
+
+    @Test
+    public void shouldCountCommittedWritesForListETags() throws Exception {
+        //Arrange
+        long before = tableWritesRepository.findWrites("artist");
+        // a rolled back write takes its count with it
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            outbox.saved(CatalogOutbox.ARTIST, -1);
+            status.setRollbackOnly();
+        });
+
+        //Act
+        Integer id = createArtist("Eagles");
+        mockMvc.perform(delete("/artist/" + id))
+                .andExpect(status().isNoContent());
+
+        //Assert
+        assertEquals(before + 2, tableWritesRepository.findWrites("artist"));
+        mockMvc.perform(get("/artist").header("If-None-Match", "\"w" + (before + 2) + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void shouldKeepSecondLevelCacheThroughWriteCounts() throws Exception {
+        //Arrange: the first read loads the artist region
+        Integer id = createArtist("Eagles");
+        artistRepository.findById(id);
+        Cache cache = entityManagerFactory.getCache();
+        assertTrue(cache.contains(Artist.class, id));
+
+        //Act
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> outbox.saved(CatalogOutbox.LABEL, -1));
+
+        //Assert
+        assertTrue(cache.contains(Artist.class, id));
+    }
+
+    @Test
+    public void shouldStreamCommittedWritesPastRolledBackSeqs() throws Exception {
+        //Arrange
+        MvcResult stream = mockMvc.perform(get("/changes/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // takes a seq and rolls back: the relay waits out the gap, then moves on
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            changeEventRepository.append("artist", "saved", Collections.singletonList(-1));
+            status.setRollbackOnly();
+        });
+
+        //Act
+        Integer id = createArtist("Linda Ronstadt");
+
+        //Assert
+        String body = awaitContent(stream, "\"entityId\":" + id);
+        assertTrue(body.contains("event:changes"));
+        assertFalse(body.contains("\"entityId\":-1"));
+    }
+
+    @Test
+    public void shouldResumeStreamAfterLastEventId() throws Exception {
+        //Arrange
+        Integer first = createArtist("Eagles");
+        Long seen = changeEventRepository.findMaxSeq();
+        Integer second = createArtist("Linda Ronstadt");
+
+        //Act
+        MvcResult stream = mockMvc.perform(get("/changes/stream").header("Last-Event-ID", seen)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //Assert
+        String body = awaitContent(stream, "\"entityId\":" + second);
+        assertFalse(body.contains("\"entityId\":" + first + ","));
+    }
+
+    private Integer createArtist(String name) throws Exception {
+        mockMvc.perform(post("/artist").content("{\"name\":\"" + name + "\"}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        return artistRepository.findAll().stream().filter(artist -> artist.getName().equals(name))
+                .findFirst().get().getArtistId();
+    }
+
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String body = stream.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            body = stream.getResponse().getContentAsString();
+        }
+        assertTrue(body, body.contains(expected));
+        return body;
+    }
+}
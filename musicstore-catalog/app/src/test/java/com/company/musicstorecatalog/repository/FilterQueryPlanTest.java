@@ -0,0 +1,282 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.AlbumFilter;
+import com.company.musicstorecatalog.model.CursorPage;
+import com.company.musicstorecatalog.model.TrackFilter;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+// Runs the SQL Hibernate generates for each supported filter through MySQL's EXPLAIN and checks
+// that it is answered by a range (or ref) scan of the index AlbumSpecifications / TrackSpecifications
+// name for it. Needs the indexes from db/music-store-catalog.sql in the test schema.
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.company.musicstorecatalog.repository.FilterQueryPlanTest$SqlCapture")
+public class FilterQueryPlanTest {
+    private static final Pattern BIND = Pattern.compile("(\\w+)\\s*(=|>=|<=|>|<)\\s*\\?");
+
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    int artistId;
+    int labelId;
+    int albumId;
+
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        Assume.assumeTrue("EXPLAIN output is checked against MySQL only", "MySQL".equals(database));
+
+        cleanUp();
+        // enough rows (20 artists and labels, 400 albums over 20 years and prices, 4000 tracks)
+        // that the optimizer prefers the indexes over a full scan
+        List<Object[]> artists = new ArrayList<>();
+        List<Object[]> labels = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            artists.add(new Object[]{"Artist " + i});
+            labels.add(new Object[]{"Label " + i});
+        }
+        jdbcTemplate.batchUpdate("insert into artist (name) values (?)", artists);
+        jdbcTemplate.batchUpdate("insert into label (name) values (?)", labels);
+        List<Integer> artistIds = jdbcTemplate.queryForList("select artist_id from artist order by artist_id", Integer.class);
+        List<Integer> labelIds = jdbcTemplate.queryForList("select label_id from label order by label_id", Integer.class);
+
+        List<Object[]> albums = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            albums.add(new Object[]{"Album " + i, artistIds.get(i % 20), Date.valueOf(LocalDate.of(2000 + i % 20, 1 + i % 12, 1)),
+                    labelIds.get((i / 20) % 20), new BigDecimal(5 + i % 40)});
+        }
+        jdbcTemplate.batchUpdate("insert into album (title, artist_id, release_date, label_id, list_price) values (?, ?, ?, ?, ?)", albums);
+        List<Integer> albumIds = jdbcTemplate.queryForList("select album_id from album order by album_id", Integer.class);
+
+        List<Object[]> tracks = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            tracks.add(new Object[]{albumIds.get(i % 400), "Track " + i, 60 + i % 600});
+        }
+        jdbcTemplate.batchUpdate("insert into track (album_id, title, run_time) values (?, ?, ?)", tracks);
+        jdbcTemplate.execute("analyze table artist, label, album, track");
+
+        artistId = artistIds.get(3);
+        labelId = labelIds.get(7);
+        albumId = albumIds.get(42);
+    }
+
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from track");
+        jdbcTemplate.update("delete from album");
+        jdbcTemplate.update("delete from artist");
+        jdbcTemplate.update("delete from label");
+    }
+
+    @Test
+    public void shouldRangeScanArtistAndReleaseDate() {
+        AlbumFilter filter = new AlbumFilter();
+        filter.setArtistId(artistId);
+        filter.setReleasedFrom(LocalDate.of(2010, 1, 1));
+        filter.setSort("releaseDate");
+
+        Map<String, Object> plan = explain(() -> albumRepository.findFiltered(filter),
+                binds("artist_id", artistId, "release_date", "2010-01-01"));
+
+        assertIndexScan(plan, "idx_album_artist_release");
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    public void shouldRangeScanArtistReleaseDateAndPrice() {
+        // "albums by artist X released after 2010 under $15"
+        AlbumFilter filter = new AlbumFilter();
+        filter.setArtistId(artistId);
+        filter.setReleasedFrom(LocalDate.of(2010, 1, 1));
+        filter.setMaxPrice(new BigDecimal("15"));
+
+        Map<String, Object> plan = explain(() -> albumRepository.findFiltered(filter),
+                binds("artist_id", artistId, "release_date", "2010-01-01", "list_price", 15));
+
+        // no sort given: the list comes in the artist index's release date order
+        assertIndexScan(plan, "idx_album_artist_release");
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    public void shouldRangeScanLabelAndPrice() {
+        AlbumFilter filter = new AlbumFilter();
+        filter.setLabelId(labelId);
+        filter.setMinPrice(new BigDecimal("10"));
+        filter.setMaxPrice(new BigDecimal("20"));
+        filter.setSort("listPrice");
+
+        Map<String, Object> plan = explain(() -> albumRepository.findFiltered(filter),
+                binds("label_id", labelId, "list_price", 10, "list_price", 20));
+
+        assertIndexScan(plan, "idx_album_label_price");
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    public void shouldRangeScanReleaseDate() {
+        AlbumFilter filter = new AlbumFilter();
+        filter.setReleasedFrom(LocalDate.of(2005, 1, 1));
+        filter.setReleasedTo(LocalDate.of(2005, 12, 31));
+        filter.setSort("releaseDate");
+
+        Map<String, Object> plan = explain(() -> albumRepository.findFiltered(filter),
+                binds("release_date", "2005-01-01", "release_date", "2005-12-31"));
+
+        assertIndexScan(plan, "idx_album_release");
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    public void shouldRangeScanPrice() {
+        AlbumFilter filter = new AlbumFilter();
+        filter.setMinPrice(new BigDecimal("6"));
+        filter.setMaxPrice(new BigDecimal("7"));
+        filter.setSort("listPrice");
+
+        Map<String, Object> plan = explain(() -> albumRepository.findFiltered(filter),
+                binds("list_price", 6, "list_price", 7));
+
+        assertIndexScan(plan, "idx_album_price");
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    public void shouldRangeScanArtistPage() {
+        AlbumFilter filter = new AlbumFilter();
+        filter.setArtistId(artistId);
+        String after = CursorPage.encodeCursor(LocalDate.of(2010, 1, 1), albumId);
+
+        Map<String, Object> plan = explain(() -> albumRepository.findFilteredAfter(filter, after, 11),
+                binds("artist_id", artistId, "release_date", "2010-01-01", "release_date", "2010-01-01", "album_id", albumId));
+
+        assertIndexScan(plan, "idx_album_artist_release");
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    public void shouldRangeScanAlbumTracksInTrackOrder() {
+        TrackFilter filter = new TrackFilter();
+        filter.setAlbumId(albumId);
+
+        Map<String, Object> plan = explain(() -> trackRepository.findFiltered(filter),
+                binds("album_id", albumId));
+
+        assertIndexScan(plan, "fk_album_id", "idx_track_album_run_time");
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    public void shouldRangeScanAlbumTracksByRunTime() {
+        TrackFilter filter = new TrackFilter();
+        filter.setAlbumId(albumId);
+        filter.setMinRunTime(120);
+        filter.setSort("runTime");
+
+        Map<String, Object> plan = explain(() -> trackRepository.findFiltered(filter),
+                binds("album_id", albumId, "run_time", 120));
+
+        assertIndexScan(plan, "idx_track_album_run_time");
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    public void shouldRangeScanMinRunTime() {
+        TrackFilter filter = new TrackFilter();
+        filter.setMinRunTime(650);
+        filter.setSort("runTime");
+
+        Map<String, Object> plan = explain(() -> trackRepository.findFiltered(filter),
+                binds("run_time", 650));
+
+        assertIndexScan(plan, "idx_track_run_time");
+        assertNoFilesort(plan);
+    }
+
+    // column -> literal pairs, in the order the columns' placeholders appear in the SQL
+    private static List<Object[]> binds(Object... columnsAndValues) {
+        List<Object[]> binds = new ArrayList<>();
+        for (int i = 0; i < columnsAndValues.length; i += 2) {
+            binds.add(new Object[]{columnsAndValues[i], columnsAndValues[i + 1]});
+        }
+        return binds;
+    }
+
+    // runs the query, takes the select Hibernate issued for it and EXPLAINs it with the placeholders
+    // filled in; the first plan row is the album / track table
+    private Map<String, Object> explain(Runnable query, List<Object[]> binds) {
+        SqlCapture.statements.clear();
+        query.run();
+        String sql = SqlCapture.statements.stream()
+                .filter(statement -> statement.trim().toLowerCase().startsWith("select"))
+                .reduce((first, second) -> second)
+                .orElseThrow(() -> new AssertionError("no select was issued"));
+
+        Matcher matcher = BIND.matcher(sql);
+        StringBuffer literal = new StringBuffer();
+        List<Object[]> remaining = new ArrayList<>(binds);
+        while (matcher.find()) {
+            Object[] bind = remaining.stream().filter(b -> b[0].equals(matcher.group(1))).findFirst()
+                    .orElseThrow(() -> new AssertionError("unexpected parameter for " + matcher.group(1) + " in " + sql));
+            remaining.remove(bind);
+            Object value = bind[1] instanceof String ? "'" + bind[1] + "'" : bind[1];
+            matcher.appendReplacement(literal, Matcher.quoteReplacement(matcher.group(1) + matcher.group(2) + value));
+        }
+        matcher.appendTail(literal);
+        String explained = literal.toString().replaceAll("limit \\?", "limit 11");
+        assertFalse("unbound parameter left in " + explained, explained.contains("?"));
+
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain " + explained);
+        return new HashMap<>(plan.get(0));
+    }
+
+    private static void assertIndexScan(Map<String, Object> plan, String... expectedKeys) {
+        assertTrue("expected a range or ref scan but got " + plan, Arrays.asList("range", "ref").contains(plan.get("type")));
+        assertTrue("expected one of " + Arrays.toString(expectedKeys) + " but got " + plan,
+                Arrays.asList(expectedKeys).contains(plan.get("key")));
+    }
+
+    private static void assertNoFilesort(Map<String, Object> plan) {
+        String extra = String.valueOf(plan.get("Extra"));
+        assertFalse("expected the index to deliver the order but got " + plan, extra.contains("filesort"));
+    }
+}
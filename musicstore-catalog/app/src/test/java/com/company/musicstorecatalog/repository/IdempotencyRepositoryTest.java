@@ -0,0 +1,139 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.IdempotencyRecord;
+import com.company.musicstorecatalog.model.Label;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the whole web stack against the idempotency_key table, as a multi-node deployment runs it
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "catalog.idempotency.store=jdbc")
+@AutoConfigureMockMvc
+public class IdempotencyRepositoryTest {
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    IdempotencyRecordRepository recordRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        cleanUp();
+    }
+
+    @After
+    public void cleanUp() {
+        artistRepository.deleteAll();
+        labelRepository.deleteAll();
+        recordRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldReplayFirstResponseForRetriedPost() throws Exception {
+        //Act
+        MvcResult first = create("/artist", "retry-1", "{\"name\":\"Eagles\"}");
+        MvcResult retry = create("/artist", "retry-1", "{\"name\":\"Eagles\"}");
+
+        //Assert
+        assertEquals(201, first.getResponse().getStatus());
+        assertEquals(201, retry.getResponse().getStatus());
+        assertEquals(first.getResponse().getContentAsString(), retry.getResponse().getContentAsString());
+        assertEquals("true", retry.getResponse().getHeader("Idempotent-Replayed"));
+        assertEquals(1, artistRepository.count());
+        assertNotNull(recordRepository.findById("/artist retry-1").get().getStatus());
+
+        //Act & Assert: the key belongs to the first request
+        mockMvc.perform(post("/artist").header("Idempotency-Key", "retry-1")
+                        .content("{\"name\":\"Linda Ronstadt\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnprocessableEntity());
+        assertEquals(1, artistRepository.count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldCollapseConcurrentDuplicatesOntoOneWrite() throws Exception {
+        //Arrange
+        CountDownLatch start = new CountDownLatch(1);
+        CompletableFuture<MvcResult>[] requests = new CompletableFuture[4];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                    return create("/label", "burst-1", "{\"name\":\"Asylum\"}");
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        //Act
+        start.countDown();
+        CompletableFuture.allOf(requests).join();
+
+        //Assert
+        String body = requests[0].join().getResponse().getContentAsString();
+        for (CompletableFuture<MvcResult> request : requests) {
+            assertEquals(201, request.join().getResponse().getStatus());
+            assertEquals(body, request.join().getResponse().getContentAsString());
+        }
+        assertEquals(1, labelRepository.count());
+    }
+
+    @Test
+    public void shouldReplayResponseStoredByAnotherNode() throws Exception {
+        //Arrange: the first request ran on another node
+        Label label = new Label();
+        label.setName("Geffen");
+        label = labelRepository.save(label);
+        String body = "{\"labelId\":" + label.getLabelId() + ",\"name\":\"Geffen\",\"website\":null,\"version\":0}";
+        recordRepository.save(new IdempotencyRecord("/label node-2", fingerprint("{\"name\":\"Geffen\"}"), 201,
+                MediaType.APPLICATION_JSON_VALUE, null, body, LocalDateTime.now().plusHours(1)));
+
+        //Act & Assert
+        mockMvc.perform(post("/label").header("Idempotency-Key", "node-2")
+                        .content("{\"name\":\"Geffen\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+        assertEquals(1, labelRepository.count());
+    }
+
+    private MvcResult create(String path, String key, String json) throws Exception {
+        return mockMvc.perform(post(path).header("Idempotency-Key", key)
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+    }
+
+    // what IdempotencyFilter derives from a request without a query string
+    private static String fingerprint(String json) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update((byte) '\n');
+        return String.format("%064x", new BigInteger(1, digest.digest(json.getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,273 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumStats;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.ImportProgress;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.service.CatalogImportService;
+import com.company.musicstorecatalog.service.ImportFormat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ImportRepositoryTest {
+    @Autowired
+    CatalogImportService importService;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    ArtistStatsRepository artistStatsRepository;
+    @Autowired
+    LabelStatsRepository labelStatsRepository;
+    @Autowired
+    AlbumStatsRepository albumStatsRepository;
+
+    Artist eagles = new Artist();
+
+    @Before
+    public void setUp() throws Exception {
+        cleanUp();
+
+        eagles.setName("Eagles");
+        eagles = artistRepository.save(eagles);
+    }
+
+    @After
+    public void cleanUp() {
+        trackRepository.deleteAll();
+        albumRepository.deleteAll();
+        artistRepository.deleteAll();
+        labelRepository.deleteAll();
+        albumStatsRepository.deleteAll();
+        artistStatsRepository.deleteAll();
+        labelStatsRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldImportCsvAndReportRejectedLines() {
+        //Arrange
+        String csv = "artist,label,album,release_date,list_price,track,run_time\n" +
+                "Eagles,Asylum,Hotel California,1976-12-08,14.99,Hotel California,391\n" +
+                "Eagles,Asylum,Hotel California,1976-12-08,14.99,New Kid in Town,oops\n" +
+                "Eagles,Asylum,Hotel California,1976-12-08,14.99,Life in the Fast Lane,286\n" +
+                "Linda Ronstadt,Asylum,Heart Like a Wheel,1974-11-19,9.99,You're No Good,225\n" +
+                "Linda Ronstadt,Asylum,Prisoner in Disguise,someday,9.99,Love Is a Rose,155\n";
+
+        //Act
+        ImportProgress progress = importService.importCatalog(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, "asylum.csv");
+
+        //Assert
+        assertEquals("COMPLETED", progress.getState());
+        assertEquals(5, progress.getRowsRead());
+        assertEquals(2, progress.getRowsRejected());
+        assertEquals(2, progress.getAlbumsWritten());
+        assertEquals(3, progress.getTracksWritten());
+        assertEquals(1, progress.getArtistsCreated());
+        assertEquals(1, progress.getLabelsCreated());
+        assertTrue(progress.getErrors().get(0).startsWith("line 3: Run time is not valid"));
+        assertTrue(progress.getErrors().get(1).startsWith("line 6: Release date is not valid"));
+
+        List<Album> albums = albumRepository.findAll();
+        assertEquals(2, albums.size());
+        Album hotelCalifornia = albums.stream().filter(album -> album.getTitle().equals("Hotel California")).findFirst().get();
+        assertEquals(eagles.getArtistId(), hotelCalifornia.getArtistId());
+        assertEquals(2, trackRepository.findByAlbumIdOrderByTrackIdAsc(hotelCalifornia.getAlbumId()).size());
+        assertEquals(new AlbumStats(hotelCalifornia.getAlbumId(), 2, 677L),
+                albumStatsRepository.findById(hotelCalifornia.getAlbumId()).get());
+        assertEquals(2, labelStatsRepository.findAll().get(0).getAlbumCount());
+        assertTrue(importService.imports().contains(progress));
+    }
+
+    @Test
+    public void shouldImportNdjson() {
+        String ndjson = "{\"artist\":\"Eagles\",\"label\":\"Asylum\",\"album\":\"Desperado\",\"releaseDate\":\"1973-04-17\",\"listPrice\":9.99,\"track\":\"Doolin-Dalton\",\"runTime\":206}\n" +
+                "{\"artist\":\"Eagles\",\"label\":\"Asylum\",\"album\":\"Desperado\",\"releaseDate\":\"1973-04-17\",\"listPrice\":9.99,\"track\":\"Tequila Sunrise\",\"runTime\":172}\n";
+
+        ImportProgress progress = importService.importCatalog(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ImportFormat.NDJSON, "desperado.ndjson");
+
+        assertEquals("COMPLETED", progress.getState());
+        assertEquals(Collections.emptyList(), progress.getErrors());
+        assertEquals(1, progress.getAlbumsWritten());
+        assertEquals(2, progress.getTracksWritten());
+    }
+
+    @Test
+    public void shouldReconcileOnlyTheDelta() {
+        //Arrange
+        String header = "artist,label,album,release_date,list_price,track,run_time\n";
+        String initial = header +
+                "Eagles,Asylum,Desperado,1973-04-17,9.99,Doolin-Dalton,206\n" +
+                "Eagles,Asylum,Desperado,1973-04-17,9.99,Tequila Sunrise,172\n" +
+                "Eagles,Asylum,On the Border,1974-03-22,9.99,Already Gone,253\n" +
+                "Eagles,Asylum,Eagles,1972-06-01,8.99,Take It Easy,211\n";
+        importService.importCatalog(new ByteArrayInputStream(initial.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, "initial.csv");
+        Integer desperadoId = albumRepository.findByArtistIdOrderByReleaseDateAscAlbumIdAsc(eagles.getArtistId()).get(1).getAlbumId();
+
+        // Eagles unchanged, Desperado repriced with one track re-timed, one gone and one new, On the Border
+        // dropped from the feed, Hotel California new
+        String nightly = header +
+                "Eagles,Asylum,Eagles,1972-06-01,8.99,Take It Easy,211\n" +
+                "Eagles,Asylum,Desperado,1973-04-17,7.99,Tequila Sunrise,173\n" +
+                "Eagles,Asylum,Desperado,1973-04-17,7.99,Desperado,213\n" +
+                "Eagles,Asylum,Hotel California,1976-12-08,14.99,Hotel California,391\n";
+
+        //Act
+        ImportProgress dryRun = importService.reconcile(
+                new ByteArrayInputStream(nightly.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, "nightly.csv", true);
+
+        //Assert
+        assertEquals("COMPLETED", dryRun.getState());
+        assertEquals("dry-run", dryRun.getMode());
+        assertEquals(3L, albumRepository.count());
+        assertEquals(0, new BigDecimal("9.99").compareTo(albumRepository.findById(desperadoId).get().getListPrice()));
+        assertDelta(dryRun);
+        assertEquals(6, dryRun.getChanges().size());
+
+        //Act
+        ImportProgress progress = importService.reconcile(
+                new ByteArrayInputStream(nightly.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, "nightly.csv", false);
+
+        //Assert
+        assertEquals("COMPLETED", progress.getState());
+        assertDelta(progress);
+        List<Album> albums = albumRepository.findByArtistIdOrderByReleaseDateAscAlbumIdAsc(eagles.getArtistId());
+        assertEquals(3, albums.size());
+        assertEquals("Hotel California", albums.get(2).getTitle());
+        assertEquals(0, new BigDecimal("7.99").compareTo(albumRepository.findById(desperadoId).get().getListPrice()));
+        List<Track> desperado = trackRepository.findByAlbumIdOrderByTrackIdAsc(desperadoId);
+        assertEquals(2, desperado.size());
+        assertEquals(Integer.valueOf(173), desperado.get(0).getRunTime());
+        assertEquals("Desperado", desperado.get(1).getTitle());
+        assertEquals(new AlbumStats(desperadoId, 2, 386L), albumStatsRepository.findById(desperadoId).get());
+        assertEquals(3, artistStatsRepository.findById(eagles.getArtistId()).get().getAlbumCount());
+        assertEquals(4L, trackRepository.count());
+
+        //Act: the same feed again changes nothing
+        ImportProgress again = importService.reconcile(
+                new ByteArrayInputStream(nightly.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, "nightly.csv", false);
+
+        //Assert
+        assertEquals(3, again.getAlbumsUnchanged());
+        assertEquals(4, again.getTracksUnchanged());
+        assertEquals(Collections.emptyList(), again.getChanges());
+    }
+
+    @Test
+    public void shouldKeepStoredRowsOfRejectedRecords() {
+        //Arrange
+        String header = "artist,label,album,release_date,list_price,track,run_time\n";
+        String initial = header +
+                "Eagles,Asylum,Desperado,1973-04-17,9.99,Doolin-Dalton,206\n" +
+                "Eagles,Asylum,Desperado,1973-04-17,9.99,Tequila Sunrise,172\n" +
+                "Eagles,Asylum,On the Border,1974-03-22,9.99,Already Gone,253\n";
+        importService.importCatalog(new ByteArrayInputStream(initial.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, "initial.csv");
+
+        // On the Border has a malformed price, Tequila Sunrise a malformed run time
+        String nightly = header +
+                "Eagles,Asylum,Desperado,1973-04-17,9.99,Doolin-Dalton,206\n" +
+                "Eagles,Asylum,Desperado,1973-04-17,9.99,Tequila Sunrise,2:52\n" +
+                "Eagles,Asylum,On the Border,1974-03-22,nine,Already Gone,253\n";
+
+        //Act
+        ImportProgress progress = importService.reconcile(
+                new ByteArrayInputStream(nightly.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, "nightly.csv", false);
+
+        //Assert
+        assertEquals("COMPLETED", progress.getState());
+        assertEquals(2, progress.getRowsRejected());
+        assertEquals(0, progress.getAlbumsDeleted());
+        assertEquals(0, progress.getTracksDeleted());
+        assertEquals(2L, albumRepository.count());
+        assertEquals(3L, trackRepository.count());
+    }
+
+    @Test
+    public void shouldRejectRecordWithoutReleaseDate() {
+        //Arrange
+        String header = "artist,label,album,release_date,list_price,track,run_time\n";
+        String initial = header +
+                "Eagles,Asylum,Desperado,1973-04-17,9.99,Doolin-Dalton,206\n";
+        importService.importCatalog(new ByteArrayInputStream(initial.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, "initial.csv");
+        String nightly = header +
+                "Eagles,Asylum,Desperado,1973-04-17,9.99,Doolin-Dalton,206\n" +
+                "Eagles,Asylum,On the Border,,9.99,Already Gone,253\n";
+
+        //Act
+        ImportProgress progress = importService.reconcile(
+                new ByteArrayInputStream(nightly.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, "nightly.csv", false);
+
+        //Assert: the record is rejected instead of failing the sort of the feed
+        assertEquals("COMPLETED", progress.getState());
+        assertEquals(1, progress.getRowsRejected());
+        assertTrue(progress.getErrors().get(0).startsWith("line 3: Release date is required."));
+        assertEquals(1, progress.getAlbumsUnchanged());
+        assertEquals(1L, albumRepository.count());
+    }
+
+    @Test
+    public void shouldFailReconcileWhenArtistIsListedAgain() {
+        //Arrange
+        String header = "artist,label,album,release_date,list_price,track,run_time\n";
+        String initial = header +
+                "Eagles,Asylum,Desperado,1973-04-17,9.99,Doolin-Dalton,206\n" +
+                "Eagles,Asylum,On the Border,1974-03-22,9.99,Already Gone,253\n";
+        importService.importCatalog(new ByteArrayInputStream(initial.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, "initial.csv");
+        String nightly = header +
+                "Eagles,Asylum,Desperado,1973-04-17,9.99,Doolin-Dalton,206\n" +
+                "Jackson Browne,Asylum,Late for the Sky,1974-09-13,9.99,Fountain of Sorrow,407\n" +
+                "Eagles,Asylum,On the Border,1974-03-22,9.99,Already Gone,253\n";
+
+        //Act
+        ImportProgress progress = importService.reconcile(
+                new ByteArrayInputStream(nightly.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, "nightly.csv", false);
+
+        //Assert: nothing of the feed's labels is deleted
+        assertEquals("FAILED", progress.getState());
+        assertEquals(0, progress.getAlbumsDeleted());
+        assertEquals(2, albumRepository.findByArtistIdOrderByReleaseDateAscAlbumIdAsc(eagles.getArtistId()).size());
+    }
+
+    private static void assertDelta(ImportProgress progress) {
+        assertEquals(1, progress.getAlbumsWritten());
+        assertEquals(1, progress.getAlbumsUpdated());
+        assertEquals(1, progress.getAlbumsDeleted());
+        assertEquals(1, progress.getAlbumsUnchanged());
+        assertEquals(2, progress.getTracksWritten());
+        assertEquals(1, progress.getTracksUpdated());
+        assertEquals(2, progress.getTracksDeleted());
+        assertEquals(1, progress.getTracksUnchanged());
+    }
+
+    @Test
+    public void shouldFailOnMissingColumns() {
+        ImportProgress progress = importService.importCatalog(
+                new ByteArrayInputStream("artist,album\nEagles,Desperado\n".getBytes(StandardCharsets.UTF_8)),
+                ImportFormat.CSV, "broken.csv");
+
+        assertEquals("FAILED", progress.getState());
+        assertEquals(0L, albumRepository.count());
+    }
+}
@@ -1,14 +1,18 @@
 package com.company.musicstorecatalog.repository;
 
 import com.company.musicstorecatalog.model.Label;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -20,6 +24,8 @@ import static org.junit.Assert.*;
 public class LabelRepositoryTest {
     @Autowired
     LabelRepository labelRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
 
     @Before
     public void setUp() throws Exception {
@@ -89,4 +95,66 @@ public class LabelRepositoryTest {
         //Assert
         assertEquals(allLabel.size(), foundAllLabel.size());
     }
+
+    @Test
+    public void shouldSeekLabelPagesByPrimaryKey() {
+        //Arrange
+        Label label1 = new Label();
+        label1.setName("Red Hill Records");
+        label1.setWebsite("www.redhillrecords.com");
+
+        Label label2 = new Label();
+        label2.setName("Atlantic Records");
+        label2.setWebsite("www.atlanticrecords.com");
+
+        //Act
+        label1 = labelRepository.save(label1);
+        label2 = labelRepository.save(label2);
+
+        //Act
+        List<Label> firstPage = labelRepository.findByLabelIdGreaterThanOrderByLabelIdAsc(0, PageRequest.of(0, 1));
+        List<Label> secondPage = labelRepository.findByLabelIdGreaterThanOrderByLabelIdAsc(
+                firstPage.get(0).getLabelId(), PageRequest.of(0, 1));
+
+        //Assert
+        assertEquals(1, firstPage.size());
+        assertEquals(label1.getLabelId(), firstPage.get(0).getLabelId());
+        assertEquals(1, secondPage.size());
+        assertEquals(label2.getLabelId(), secondPage.get(0).getLabelId());
+    }
+
+    @Test
+    public void shouldServeLabelFromSecondLevelCacheAndSeeUpdates() {
+        //Arrange
+        CacheRegionStatistics stats = entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics().getDomainDataRegionStatistics("label");
+        Label newLabel = new Label();
+        newLabel.setName("Capital Records");
+        newLabel = labelRepository.save(newLabel);
+        // identity inserts are not cached, the first read loads the region
+        labelRepository.findById(newLabel.getLabelId());
+        long hitsBefore = stats.getHitCount();
+
+        //Act
+        Optional<Label> foundLabel = labelRepository.findById(newLabel.getLabelId());
+
+        //Assert
+        assertTrue(foundLabel.isPresent());
+        assertEquals(hitsBefore + 1, stats.getHitCount());
+
+        //Act
+        newLabel = foundLabel.get();
+        newLabel.setName("Capitol Records");
+        labelRepository.save(newLabel);
+        foundLabel = labelRepository.findById(newLabel.getLabelId());
+
+        //Assert
+        assertEquals("Capitol Records", foundLabel.get().getName());
+
+        //Act
+        labelRepository.deleteById(newLabel.getLabelId());
+
+        //Assert
+        assertFalse(labelRepository.findById(newLabel.getLabelId()).isPresent());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.controller.AlbumController;
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.ArtistStats;
+import com.company.musicstorecatalog.model.Label;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class PatchRepositoryTest {
+    @Autowired
+    AlbumController albumController;
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    ArtistStatsRepository artistStatsRepository;
+    @Autowired
+    LabelStatsRepository labelStatsRepository;
+    @Autowired
+    AlbumStatsRepository albumStatsRepository;
+    @Autowired
+    ObjectMapper mapper;
+
+    Album album = new Album();
+
+    @Before
+    public void setUp() throws Exception {
+        cleanUp();
+
+        Artist artist = new Artist();
+        artist.setName("Fleetwood Mac");
+        artist = artistRepository.save(artist);
+        Label label = new Label();
+        label.setName("Warner Bros.");
+        label = labelRepository.save(label);
+
+        album.setTitle("Rumours");
+        album.setListPrice(new BigDecimal("14.99"));
+        album.setReleaseDate(LocalDate.parse("1977-02-04"));
+        album.setArtistId(artist.getArtistId());
+        album.setLabelId(label.getLabelId());
+        album = albumController.addAlbum(album);
+    }
+
+    @After
+    public void cleanUp() {
+        albumRepository.deleteAll();
+        artistRepository.deleteAll();
+        labelRepository.deleteAll();
+        albumStatsRepository.deleteAll();
+        artistStatsRepository.deleteAll();
+        labelStatsRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldWriteOnlyPatchesThatChangeSomething() throws Exception {
+        Integer version = albumRepository.findVersionById(album.getAlbumId()).get();
+
+        //Act: the price sync sends what is already stored
+        albumController.patchAlbum(album.getAlbumId(), mapper.readTree("{\"listPrice\": 14.99, \"title\": \"Rumours\"}"), null);
+
+        //Assert
+        assertEquals(version, albumRepository.findVersionById(album.getAlbumId()).get());
+
+        //Act
+        Album patched = albumController.patchAlbum(album.getAlbumId(), mapper.readTree("{\"listPrice\": 12.99}"), null);
+
+        //Assert
+        assertEquals(Integer.valueOf(version + 1), albumRepository.findVersionById(album.getAlbumId()).get());
+        assertEquals(Integer.valueOf(version + 1), patched.getVersion());
+        Album stored = albumRepository.findByAlbumId(album.getAlbumId()).get();
+        assertEquals("Rumours", stored.getTitle());
+        assertEquals(0, new BigDecimal("12.99").compareTo(stored.getListPrice()));
+        assertEquals(new ArtistStats(album.getArtistId(), 1, new BigDecimal("12.99")),
+                artistStatsRepository.findById(album.getArtistId()).get());
+    }
+}
@@ -0,0 +1,147 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumStats;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.LabelStats;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.service.CatalogPurgeService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+// a chunk of one album, so every purge below takes several transactions
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "catalog.purge.chunk-size=1")
+public class PurgeRepositoryTest {
+    @Autowired
+    CatalogPurgeService purgeService;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    ArtistStatsRepository artistStatsRepository;
+    @Autowired
+    LabelStatsRepository labelStatsRepository;
+    @Autowired
+    AlbumStatsRepository albumStatsRepository;
+    @Autowired
+    TransactionTemplate transaction;
+
+    Artist celine = new Artist();
+    Artist mariah = new Artist();
+    Label columbia = new Label();
+    Album fallingIntoYou;
+    Album letsTalkAboutLove;
+    Album daydream;
+
+    @Before
+    public void setUp() throws Exception {
+        cleanUp();
+
+        celine.setName("Celine Dion");
+        celine = artistRepository.save(celine);
+        mariah.setName("Mariah Carey");
+        mariah = artistRepository.save(mariah);
+        columbia.setName("Columbia");
+        columbia = labelRepository.save(columbia);
+
+        fallingIntoYou = albumRepository.save(album(celine, "Falling Into You"));
+        letsTalkAboutLove = albumRepository.save(album(celine, "Let's Talk About Love"));
+        daydream = albumRepository.save(album(mariah, "Daydream"));
+        trackRepository.save(track(fallingIntoYou, "All by Myself", 312));
+        trackRepository.save(track(fallingIntoYou, "Because You Loved Me", 273));
+        trackRepository.save(track(letsTalkAboutLove, "My Heart Will Go On", 280));
+        trackRepository.save(track(daydream, "Fantasy", 243));
+        transaction.executeWithoutResult(status -> {
+            artistStatsRepository.add(celine.getArtistId(), 2, new BigDecimal("25.98"));
+            artistStatsRepository.add(mariah.getArtistId(), 1, new BigDecimal("12.99"));
+            labelStatsRepository.add(columbia.getLabelId(), 3, new BigDecimal("38.97"));
+            albumStatsRepository.add(fallingIntoYou.getAlbumId(), 2, 585);
+            albumStatsRepository.add(letsTalkAboutLove.getAlbumId(), 1, 280);
+            albumStatsRepository.add(daydream.getAlbumId(), 1, 243);
+        });
+    }
+
+    @After
+    public void cleanUp() {
+        trackRepository.deleteAll();
+        albumRepository.deleteAll();
+        artistRepository.deleteAll();
+        labelRepository.deleteAll();
+        albumStatsRepository.deleteAll();
+        artistStatsRepository.deleteAll();
+        labelStatsRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldPurgeArtistWithAlbumsTracksAndStats() {
+        //Act
+        int deleted = purgeService.purgeArtist(celine.getArtistId(), celine.getVersion());
+
+        //Assert
+        assertEquals(1, deleted);
+        assertFalse(artistRepository.existsById(celine.getArtistId()));
+        assertEquals(1, albumRepository.count());
+        assertEquals(1, trackRepository.count());
+        assertEquals(1, trackRepository.findByAlbumIdOrderByTrackIdAsc(daydream.getAlbumId()).size());
+        assertFalse(albumStatsRepository.existsById(fallingIntoYou.getAlbumId()));
+        assertEquals(new AlbumStats(daydream.getAlbumId(), 1, 243L), albumStatsRepository.findById(daydream.getAlbumId()).get());
+        assertFalse(artistStatsRepository.existsById(celine.getArtistId()));
+        assertEquals(new LabelStats(columbia.getLabelId(), 1, new BigDecimal("12.99")),
+                labelStatsRepository.findById(columbia.getLabelId()).get());
+    }
+
+    @Test
+    public void shouldKeepLabelThatChangedWhileItsAlbumsWerePurged() {
+        //Act: the albums go chunk by chunk, the label itself only at its version
+        int deleted = purgeService.purgeLabel(columbia.getLabelId(), columbia.getVersion() + 1);
+
+        //Assert
+        assertEquals(0, deleted);
+        assertTrue(labelRepository.existsById(columbia.getLabelId()));
+        assertEquals(0, albumRepository.count());
+        assertEquals(0, trackRepository.count());
+        assertEquals(0, albumStatsRepository.count());
+        assertEquals(new LabelStats(columbia.getLabelId(), 0, new BigDecimal("0.00")),
+                labelStatsRepository.findById(columbia.getLabelId()).get());
+
+        //Act: repeating the purge finishes it
+        assertEquals(1, purgeService.purgeLabel(columbia.getLabelId(), null));
+        assertFalse(labelRepository.existsById(columbia.getLabelId()));
+    }
+
+    private Album album(Artist artist, String title) {
+        Album album = new Album();
+        album.setTitle(title);
+        album.setListPrice(new BigDecimal("12.99"));
+        album.setReleaseDate(LocalDate.parse("1996-03-11"));
+        album.setArtistId(artist.getArtistId());
+        album.setLabelId(columbia.getLabelId());
+        return album;
+    }
+
+    private Track track(Album album, String title, Integer runTime) {
+        Track track = new Track();
+        track.setTitle(title);
+        track.setRunTime(runTime);
+        track.setAlbumId(album.getAlbumId());
+        return track;
+    }
+}
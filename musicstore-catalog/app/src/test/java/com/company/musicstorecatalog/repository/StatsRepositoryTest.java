@@ -0,0 +1,218 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumStats;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.ArtistStats;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.LabelStats;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.service.CatalogStatsService;
+import com.company.musicstorecatalog.service.SuggestService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StatsRepositoryTest {
+    @Autowired
+    CatalogStatsService statsService;
+    @Autowired
+    ArtistStatsRepository artistStatsRepository;
+    @Autowired
+    LabelStatsRepository labelStatsRepository;
+    @Autowired
+    AlbumStatsRepository albumStatsRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    SuggestService suggestService;
+    @Autowired
+    TransactionTemplate transaction;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Artist newArtist = new Artist();
+    Label newLabel = new Label();
+
+    @Before
+    public void setUp() throws Exception {
+        cleanUp();
+
+        newArtist.setName("Celine Dion");
+        newLabel.setName("Capital Records");
+        transaction.executeWithoutResult(status -> {
+            newArtist = artistRepository.save(newArtist);
+            statsService.artistSaved(newArtist);
+            newLabel = labelRepository.save(newLabel);
+            statsService.labelSaved(newLabel);
+        });
+    }
+
+    @After
+    public void cleanUp() {
+        trackRepository.deleteAll();
+        albumRepository.deleteAll();
+        artistRepository.deleteAll();
+        labelRepository.deleteAll();
+        albumStatsRepository.deleteAll();
+        artistStatsRepository.deleteAll();
+        labelStatsRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldKeepTotalsThroughWrites() {
+        //Arrange
+        Album album1 = album("Falling Into You", "19.99");
+        Album album2 = album("Courage", "12.99");
+
+        //Act
+        Album saved1 = saveAlbum(album1);
+        Album saved2 = saveAlbum(album2);
+        saveTrack(track(saved1, 273));
+        Track track = saveTrack(track(saved1, 457));
+
+        saved2.setListPrice(new BigDecimal("10.00"));
+        saveAlbum(saved2);
+        track.setRunTime(400);
+        saveTrack(track);
+
+        //Assert
+        assertEquals(new ArtistStats(newArtist.getArtistId(), 2, new BigDecimal("29.99")),
+                artistStatsRepository.findById(newArtist.getArtistId()).get());
+        assertEquals(new LabelStats(newLabel.getLabelId(), 2, new BigDecimal("29.99")),
+                labelStatsRepository.findById(newLabel.getLabelId()).get());
+        assertEquals(new AlbumStats(saved1.getAlbumId(), 2, 673), albumStatsRepository.findById(saved1.getAlbumId()).get());
+        assertEquals(new AlbumStats(saved2.getAlbumId(), 0, 0), albumStatsRepository.findById(saved2.getAlbumId()).get());
+
+        //Act
+        transaction.executeWithoutResult(status -> {
+            statsService.albumChanging(saved2.getAlbumId());
+            albumRepository.deleteById(saved2.getAlbumId());
+            statsService.albumDeleted(saved2.getAlbumId());
+        });
+
+        //Assert
+        assertEquals(new ArtistStats(newArtist.getArtistId(), 1, new BigDecimal("19.99")),
+                artistStatsRepository.findById(newArtist.getArtistId()).get());
+        assertFalse(albumStatsRepository.findById(saved2.getAlbumId()).isPresent());
+    }
+
+    @Test
+    public void shouldRebuildDriftedTotals() {
+        //Arrange
+        Album saved = saveAlbum(album("Falling Into You", "19.99"));
+        saveTrack(track(saved, 273));
+        // writes that bypassed the hooks
+        Album unseen = albumRepository.save(album("Courage", "12.99"));
+        trackRepository.save(track(saved, 457));
+        transaction.executeWithoutResult(status -> artistStatsRepository.add(newArtist.getArtistId() + 100, 1, BigDecimal.ONE));
+
+        //Act
+        statsService.rebuild();
+
+        //Assert
+        assertEquals(new ArtistStats(newArtist.getArtistId(), 2, new BigDecimal("32.98")),
+                artistStatsRepository.findById(newArtist.getArtistId()).get());
+        assertEquals(new LabelStats(newLabel.getLabelId(), 2, new BigDecimal("32.98")),
+                labelStatsRepository.findById(newLabel.getLabelId()).get());
+        assertEquals(new AlbumStats(saved.getAlbumId(), 2, 730), albumStatsRepository.findById(saved.getAlbumId()).get());
+        assertEquals(new AlbumStats(unseen.getAlbumId(), 0, 0), albumStatsRepository.findById(unseen.getAlbumId()).get());
+        assertEquals(1, artistStatsRepository.count());
+    }
+
+    @Test
+    public void shouldKeepArtistAndLabelCachedThroughAlbumWrites() {
+        //Arrange: the first reads load the second-level cache
+        artistRepository.findById(newArtist.getArtistId());
+        labelRepository.findById(newLabel.getLabelId());
+        Cache cache = entityManagerFactory.getCache();
+        assertTrue(cache.contains(Artist.class, newArtist.getArtistId()));
+
+        //Act
+        Album saved = saveAlbum(album("Falling Into You", "19.99"));
+        saveTrack(track(saved, 273));
+
+        //Assert: the stats upserts touch neither region
+        assertTrue(cache.contains(Artist.class, newArtist.getArtistId()));
+        assertTrue(cache.contains(Label.class, newLabel.getLabelId()));
+    }
+
+    @Test
+    public void shouldReweighSuggestionsOnlyAfterCommit() throws Exception {
+        //Arrange
+        suggestService.rebuildArtists();
+        assertEquals(0, suggestService.suggestArtists("celine", 1).get(0).getWeight());
+
+        //Act
+        saveAlbum(album("Falling Into You", "19.99"));
+        saveAlbum(album("Courage", "12.99"));
+        transaction.executeWithoutResult(status -> {
+            saveAlbum(album("Never Committed", "9.99"));
+            status.setRollbackOnly();
+        });
+
+        //Assert
+        long deadline = System.currentTimeMillis() + 5000;
+        while (suggestService.suggestArtists("celine", 1).get(0).getWeight() != 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, suggestService.suggestArtists("celine", 1).get(0).getWeight());
+    }
+
+    private Album album(String title, String price) {
+        Album album = new Album();
+        album.setTitle(title);
+        album.setListPrice(new BigDecimal(price));
+        album.setReleaseDate(LocalDate.parse("2019-11-15"));
+        album.setArtistId(newArtist.getArtistId());
+        album.setLabelId(newLabel.getLabelId());
+        return album;
+    }
+
+    private Track track(Album album, int runTime) {
+        Track track = new Track();
+        track.setTitle("Track " + runTime);
+        track.setRunTime(runTime);
+        track.setAlbumId(album.getAlbumId());
+        return track;
+    }
+
+    // the same sequence the controllers run for POST and PUT
+    private Album saveAlbum(Album album) {
+        return transaction.execute(status -> {
+            statsService.albumChanging(album.getAlbumId());
+            Album saved = albumRepository.save(album);
+            statsService.albumSaved(saved);
+            return saved;
+        });
+    }
+
+    private Track saveTrack(Track track) {
+        return transaction.execute(status -> {
+            statsService.trackChanging(track.getTrackId());
+            Track saved = trackRepository.save(track);
+            statsService.trackSaved(saved);
+            return saved;
+        });
+    }
+}
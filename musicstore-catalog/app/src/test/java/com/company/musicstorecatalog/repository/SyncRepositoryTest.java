@@ -0,0 +1,227 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.CatalogDelta;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.service.CatalogOutbox;
+import com.company.musicstorecatalog.service.CatalogSyncService;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.doReturn;
+
+// updated_at and tombstones as GET /catalog/changes reads them; nothing is held back to settle, so only the
+// open write transactions that InnoDB reports hold rows back (stubbed where a test needs a particular one)
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "catalog.sync.settle=0s")
+public class SyncRepositoryTest {
+    @Autowired
+    CatalogSyncService syncService;
+    @Autowired
+    CatalogOutbox outbox;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+    @Autowired
+    TransactionTemplate transaction;
+    @SpyBean
+    OpenTransactionRepository openTransactions;
+
+    Artist artist = new Artist();
+    Label label = new Label();
+    Album album = new Album();
+    Track track = new Track();
+
+    @Before
+    public void setUp() throws Exception {
+        cleanUp();
+
+        artist.setName("Celine Dion");
+        artist = artistRepository.save(artist);
+        label.setName("Columbia");
+        label = labelRepository.save(label);
+        album.setTitle("Falling Into You");
+        album.setArtistId(artist.getArtistId());
+        album.setLabelId(label.getLabelId());
+        album.setReleaseDate(LocalDate.of(1996, 3, 11));
+        album.setListPrice(new BigDecimal("12.99"));
+        album = albumRepository.save(album);
+        track.setAlbumId(album.getAlbumId());
+        track.setTitle("All by Myself");
+        track.setRunTime(312);
+        track = trackRepository.save(track);
+    }
+
+    @After
+    public void cleanUp() {
+        trackRepository.deleteAll();
+        albumRepository.deleteAll();
+        artistRepository.deleteAll();
+        labelRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldHoldBackWritesSinceOldestOpenTransaction() {
+        //Arrange: a write transaction has been open for an hour
+        doReturn(true).when(openTransactions).isSupported();
+        doReturn(3_600_000_000L).when(openTransactions).findOldestWriterAgeMicros();
+
+        //Act
+        CatalogDelta held = syncService.changesSince(null, 10);
+
+        //Assert
+        assertTrue(held.getAlbums().isEmpty());
+        assertTrue(held.getTracks().isEmpty());
+
+        //Act: it has ended
+        doReturn(0L).when(openTransactions).findOldestWriterAgeMicros();
+        CatalogDelta delta = syncService.changesSince(null, 10);
+
+        //Assert
+        assertEquals(1, delta.getAlbums().size());
+        assertEquals(1, delta.getTracks().size());
+    }
+
+    @Test
+    public void shouldHoldBackWritesCommittedWhileAnotherWriteIsOpen() throws Exception {
+        //Arrange: a label is inserted in a transaction that stays open
+        Assume.assumeTrue("open transactions are read from InnoDB only", openTransactions.isSupported());
+        String watermark = syncService.changesSince(null, 100).getWatermark();
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Thread writer = new Thread(() -> transaction.executeWithoutResult(status -> {
+            Label epic = new Label();
+            epic.setName("Epic");
+            labelRepository.saveAndFlush(epic);
+            written.countDown();
+            try {
+                commit.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        writer.start();
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+
+        //Act: a later write commits first
+        album.setTitle("Let's Talk About Love");
+        album = albumRepository.save(album);
+        CatalogDelta held;
+        try {
+            held = syncService.changesSince(watermark, 100);
+        } finally {
+            commit.countDown();
+            writer.join(10_000);
+        }
+
+        //Assert: neither the open label nor the album after it yet, so the watermark stays behind both
+        assertTrue(held.getLabels().isEmpty());
+        assertTrue(held.getAlbums().isEmpty());
+
+        //Act: the label has committed
+        CatalogDelta delta = syncService.changesSince(held.getWatermark(), 100);
+
+        //Assert
+        assertEquals(1, delta.getLabels().size());
+        assertEquals("Epic", delta.getLabels().get(0).getName());
+        assertEquals(Collections.singletonList(album), delta.getAlbums());
+    }
+
+    @Test
+    public void shouldPageThroughWholeCatalogOnFirstSync() {
+        //Act
+        List<CatalogDelta> batches = new ArrayList<>();
+        String watermark = null;
+        do {
+            CatalogDelta delta = syncService.changesSince(watermark, 3);
+            batches.add(delta);
+            watermark = delta.getWatermark();
+        } while (batches.get(batches.size() - 1).isMore());
+
+        //Assert
+        assertEquals(2, batches.size());
+        List<Object> synced = new ArrayList<>();
+        for (CatalogDelta delta : batches) {
+            synced.addAll(delta.getAlbums());
+            synced.addAll(delta.getTracks());
+            synced.addAll(delta.getArtists());
+            synced.addAll(delta.getLabels());
+        }
+        assertEquals(4, synced.size());
+        assertTrue(synced.contains(album));
+        assertTrue(synced.contains(track));
+        assertTrue(synced.contains(artist));
+        assertTrue(synced.contains(label));
+
+        // nothing changed since
+        CatalogDelta again = syncService.changesSince(watermark, 3);
+        assertTrue(again.getAlbums().isEmpty() && again.getTracks().isEmpty());
+        assertEquals(watermark, again.getWatermark());
+    }
+
+    @Test
+    public void shouldReturnOnlyWritesAndDeletesAfterWatermark() {
+        //Arrange
+        String watermark = syncService.changesSince(null, 100).getWatermark();
+
+        //Act
+        album.setTitle("Let's Talk About Love");
+        album = albumRepository.save(album);
+        transaction.executeWithoutResult(status -> {
+            trackRepository.deleteById(track.getTrackId());
+            outbox.deleted(CatalogOutbox.TRACK, track.getTrackId());
+        });
+        CatalogDelta delta = syncService.changesSince(watermark, 100);
+
+        //Assert
+        assertEquals(Collections.singletonList(album), delta.getAlbums());
+        assertEquals(Collections.singletonList(track.getTrackId()), delta.getDeletedTrackIds());
+        assertTrue(delta.getTracks().isEmpty());
+        assertTrue(delta.getArtists().isEmpty());
+        assertTrue(delta.getLabels().isEmpty());
+        assertFalse(delta.isMore());
+        assertNotEquals(watermark, delta.getWatermark());
+    }
+
+    @Test
+    public void shouldAskForResyncWhenWatermarkIsOlderThanTombstones() {
+        String old = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("at:2000-01-01T00:00,album,1".getBytes(StandardCharsets.UTF_8));
+
+        //Act
+        CatalogDelta delta = syncService.changesSince(old, 100);
+
+        //Assert
+        assertTrue(delta.isResync());
+        assertTrue(delta.getAlbums().isEmpty());
+    }
+}
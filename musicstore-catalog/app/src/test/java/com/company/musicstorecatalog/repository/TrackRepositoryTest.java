@@ -3,7 +3,10 @@ package com.company.musicstorecatalog.repository;
 import com.company.musicstorecatalog.model.Album;
 import com.company.musicstorecatalog.model.Artist;
 import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.CursorPage;
 import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.model.TrackFilter;
+import com.company.musicstorecatalog.model.TrackSummary;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -11,6 +14,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.math.BigDecimal;
@@ -133,4 +138,163 @@ public class TrackRepositoryTest {
         //Assert
         assertEquals(allTrack.size(), foundAllTrack.size());
     }
+
+    @Test
+    public void shouldSeekTrackPagesByPrimaryKey() {
+        //Arrange
+        Track track1 = new Track();
+        track1.setTitle("It's All Coming Back to Me Now");
+        track1.setRunTime(10);
+        track1.setAlbumId(newAlbum.getAlbumId());
+
+        Track track2 = new Track();
+        track2.setTitle("Because You Loved Me");
+        track2.setRunTime(15);
+        track2.setAlbumId(newAlbum.getAlbumId());
+
+        //Act
+        track1 = trackRepository.save(track1);
+        track2 = trackRepository.save(track2);
+
+        //Act
+        List<Track> firstPage = trackRepository.findByTrackIdGreaterThanOrderByTrackIdAsc(0, PageRequest.of(0, 1));
+        List<Track> secondPage = trackRepository.findByTrackIdGreaterThanOrderByTrackIdAsc(
+                firstPage.get(0).getTrackId(), PageRequest.of(0, 1));
+
+        //Assert
+        assertEquals(1, firstPage.size());
+        assertEquals(track1.getTrackId(), firstPage.get(0).getTrackId());
+        assertEquals(1, secondPage.size());
+        assertEquals(track2.getTrackId(), secondPage.get(0).getTrackId());
+    }
+
+    @Test
+    public void shouldFindTrackSummariesAfterCursor() {
+        //Arrange
+        Track track1 = new Track();
+        track1.setTitle("It's All Coming Back to Me Now");
+        track1.setRunTime(10);
+        track1.setAlbumId(newAlbum.getAlbumId());
+
+        Track track2 = new Track();
+        track2.setTitle("Because You Loved Me");
+        track2.setRunTime(15);
+        track2.setAlbumId(newAlbum.getAlbumId());
+
+        //Act
+        track1 = trackRepository.save(track1);
+        track2 = trackRepository.save(track2);
+
+        //Act
+        List<TrackSummary> summaries = trackRepository.findSummariesAfter(0, PageRequest.of(0, 10));
+
+        //Assert
+        assertEquals(2, summaries.size());
+        assertEquals(track1.getTrackId(), summaries.get(0).getTrackId());
+        assertEquals(track1.getTitle(), summaries.get(0).getTitle());
+        assertEquals(track1.getAlbumId(), summaries.get(0).getAlbumId());
+    }
+
+    @Test
+    public void shouldFilterAndSortTracks() {
+        //Arrange
+        Track track1 = new Track();
+        track1.setTitle("Because You Loved Me");
+        track1.setRunTime(273);
+        track1.setAlbumId(newAlbum.getAlbumId());
+
+        Track track2 = new Track();
+        track2.setTitle("It's All Coming Back to Me Now");
+        track2.setRunTime(457);
+        track2.setAlbumId(newAlbum.getAlbumId());
+
+        Track track3 = new Track();
+        track3.setTitle("Declaration of Love");
+        track3.setRunTime(260);
+        track3.setAlbumId(newAlbum.getAlbumId());
+
+        track1 = trackRepository.save(track1);
+        track2 = trackRepository.save(track2);
+        track3 = trackRepository.save(track3);
+
+        TrackFilter filter = new TrackFilter();
+        filter.setAlbumId(newAlbum.getAlbumId());
+        filter.setMinRunTime(265);
+        filter.setSort("runTime");
+        filter.setDesc(true);
+
+        //Act
+        List<Track> tracks = trackRepository.findFiltered(filter);
+
+        filter.setSort(null);
+        filter.setDesc(false);
+        // a run time range lists (and pages) in run time order
+        List<Track> page = trackRepository.findFilteredAfter(filter,
+                CursorPage.encodeCursor(track1.getRunTime(), track1.getTrackId()), 10);
+
+        //Assert
+        assertEquals(2, tracks.size());
+        assertEquals(track2.getTrackId(), tracks.get(0).getTrackId());
+        assertEquals(track1.getTrackId(), tracks.get(1).getTrackId());
+        assertEquals(1, page.size());
+        assertEquals(track2.getTrackId(), page.get(0).getTrackId());
+    }
+
+    // the repository proxy translates the IllegalArgumentException
+    @Test(expected = InvalidDataAccessApiUsageException.class)
+    public void shouldRejectDescendingTrackPages() {
+        TrackFilter filter = new TrackFilter();
+        filter.setSort("runTime");
+        filter.setDesc(true);
+
+        trackRepository.findFilteredAfter(filter, null, 10);
+    }
+
+    @Test(expected = InvalidDataAccessApiUsageException.class)
+    public void shouldRejectTrackSortAgainstFilterIndex() {
+        TrackFilter filter = new TrackFilter();
+        filter.setMinRunTime(200);
+        filter.setSort("trackId");
+
+        trackRepository.findFiltered(filter);
+    }
+
+    @Test
+    public void shouldFindTracksByAlbumInTrackOrder() {
+        //Arrange
+        Album otherAlbum = new Album();
+        otherAlbum.setTitle("Let's Talk About Love");
+        otherAlbum.setListPrice(new BigDecimal(22.99));
+        otherAlbum.setReleaseDate(LocalDate.parse("1997-07-07"));
+        otherAlbum.setArtistId(newArtist.getArtistId());
+        otherAlbum.setLabelId(newLabel.getLabelId());
+        otherAlbum = albumRepository.save(otherAlbum);
+
+        Track track1 = new Track();
+        track1.setTitle("It's All Coming Back to Me Now");
+        track1.setRunTime(10);
+        track1.setAlbumId(newAlbum.getAlbumId());
+
+        Track track2 = new Track();
+        track2.setTitle("My Heart Will Go On");
+        track2.setRunTime(12);
+        track2.setAlbumId(otherAlbum.getAlbumId());
+
+        Track track3 = new Track();
+        track3.setTitle("Because You Loved Me");
+        track3.setRunTime(15);
+        track3.setAlbumId(newAlbum.getAlbumId());
+
+        track1 = trackRepository.save(track1);
+        trackRepository.save(track2);
+        track3 = trackRepository.save(track3);
+
+        //Act
+        List<Track> albumTracks = trackRepository.findByAlbumIdOrderByTrackIdAsc(newAlbum.getAlbumId());
+
+        //Assert
+        assertEquals(2, albumTracks.size());
+        assertEquals(track1.getTrackId(), albumTracks.get(0).getTrackId());
+        assertEquals(track3.getTrackId(), albumTracks.get(1).getTrackId());
+    }
 }
\ No newline at end of file
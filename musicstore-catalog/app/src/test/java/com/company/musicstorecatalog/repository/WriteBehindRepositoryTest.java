@@ -0,0 +1,153 @@
+package com.company.musicstorecatalog.repository;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumStats;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.Track;
+import com.company.musicstorecatalog.model.WriteTicket;
+import com.company.musicstorecatalog.service.WriteBehindService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"catalog.write-behind.enabled=true",
+        "catalog.write-behind.journal=target/write-behind-test.journal"})
+public class WriteBehindRepositoryTest {
+    static final Path JOURNAL = Paths.get("target/write-behind-test.journal");
+    static long startedMillis;
+
+    @Autowired
+    WriteBehindService writeBehind;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+    @Autowired
+    ArtistStatsRepository artistStatsRepository;
+    @Autowired
+    LabelStatsRepository labelStatsRepository;
+    @Autowired
+    AlbumStatsRepository albumStatsRepository;
+    @Autowired
+    TransactionTemplate transaction;
+
+    Artist eagles = new Artist();
+    Label asylum = new Label();
+
+    // what a process that died before committing write 7 leaves behind; write 8 was committed
+    @BeforeClass
+    public static void leaveJournal() throws Exception {
+        startedMillis = System.currentTimeMillis();
+        Files.createDirectories(JOURNAL.getParent());
+        Files.write(JOURNAL, Arrays.asList(
+                "{\"seq\":7,\"kind\":\"track\",\"body\":{\"albumId\":-1,\"title\":\"Victim of Love\",\"runTime\":251}}",
+                "{\"seq\":8,\"kind\":\"track\",\"body\":{\"albumId\":-1,\"title\":\"Pretty Maids All in a Row\",\"runTime\":245}}",
+                "{\"committed\":[8]}",
+                "{\"seq\":9,\"kind\":\"tra"), StandardCharsets.UTF_8);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        cleanUp();
+
+        eagles.setName("Eagles");
+        eagles = artistRepository.save(eagles);
+        asylum.setName("Asylum");
+        asylum = labelRepository.save(asylum);
+    }
+
+    @After
+    public void cleanUp() {
+        trackRepository.deleteAll();
+        albumRepository.deleteAll();
+        artistRepository.deleteAll();
+        labelRepository.deleteAll();
+        albumStatsRepository.deleteAll();
+        artistStatsRepository.deleteAll();
+        labelStatsRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldReplayWritesLeftInTheJournal() throws Exception {
+        //Assert: write 7 was queued again at startup (and rejected, its album does not exist)
+        WriteTicket replayed = await(7);
+        assertEquals("REJECTED", replayed.getState());
+        assertEquals("No album was found with Id: -1", replayed.getErrors().get(0));
+        try {
+            writeBehind.ticket(8);
+            fail("write 8 was committed before the restart");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void shouldGroupCommitQueuedWrites() throws Exception {
+        //Arrange
+        Album album = new Album();
+        album.setTitle("Hotel California");
+        album.setReleaseDate(LocalDate.parse("1976-12-08"));
+        album.setListPrice(new BigDecimal("14.99"));
+        album.setArtistId(eagles.getArtistId());
+        album.setLabelId(asylum.getLabelId());
+
+        //Act
+        WriteTicket queued = writeBehind.submit(album);
+        WriteTicket albumTicket = await(queued.getHandle());
+        WriteTicket first = writeBehind.submit(track(albumTicket.getId(), "Hotel California", 391));
+        WriteTicket second = writeBehind.submit(track(albumTicket.getId(), "New Kid in Town", 304));
+        WriteTicket missing = writeBehind.submit(track(albumTicket.getId() + 100, "Wasted Time", 295));
+
+        //Assert
+        assertEquals("QUEUED", queued.getState());
+        // new handles start above anything an earlier run with a since truncated journal gave out
+        assertTrue(queued.getHandle() >= startedMillis * 1000);
+        assertEquals("WRITTEN", albumTicket.getState());
+        assertTrue(second.getHandle() > first.getHandle());
+        assertEquals("WRITTEN", await(first.getHandle()).getState());
+        assertEquals("WRITTEN", await(second.getHandle()).getState());
+        assertEquals("REJECTED", await(missing.getHandle()).getState());
+        assertEquals(2, trackRepository.findByAlbumIdOrderByTrackIdAsc(albumTicket.getId()).size());
+        assertEquals(new AlbumStats(albumTicket.getId(), 2, 695L), albumStatsRepository.findById(albumTicket.getId()).get());
+        // nothing is pending, so the journal was truncated
+        assertEquals(0, Files.size(JOURNAL));
+    }
+
+    private WriteTicket await(long handle) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            WriteTicket ticket = writeBehind.ticket(handle);
+            if (!ticket.getState().equals("QUEUED")) return ticket;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("write " + handle + " was not committed");
+    }
+
+    private Track track(Integer albumId, String title, Integer runTime) {
+        Track track = new Track();
+        track.setTitle(title);
+        track.setRunTime(runTime);
+        track.setAlbumId(albumId);
+        return track;
+    }
+}
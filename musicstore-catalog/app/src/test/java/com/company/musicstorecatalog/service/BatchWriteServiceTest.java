@@ -0,0 +1,101 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.BatchResult;
+import com.company.musicstorecatalog.repository.AlbumRepository;
+import com.company.musicstorecatalog.repository.ArtistRepository;
+import com.company.musicstorecatalog.repository.LabelRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// the per-item retry of a failed chunk, with the repositories and the transaction manager stubbed
+public class BatchWriteServiceTest {
+    BatchWriteService service;
+    AlbumRepository albumRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        albumRepository = mock(AlbumRepository.class);
+        ArtistRepository artistRepository = mock(ArtistRepository.class);
+        LabelRepository labelRepository = mock(LabelRepository.class);
+        when(artistRepository.findExistingIds(any())).thenReturn(Collections.singletonList(1));
+        when(labelRepository.findExistingIds(any())).thenReturn(Collections.singletonList(2));
+        service = new BatchWriteService();
+        service.chunkSize = 1000;
+        service.maxItems = 1000;
+        service.albumRepository = albumRepository;
+        service.artistRepository = artistRepository;
+        service.labelRepository = labelRepository;
+        service.statsService = mock(CatalogStatsService.class);
+        service.outbox = mock(CatalogOutbox.class);
+        service.listingProjector = mock(AlbumListingProjector.class);
+        service.snapshots = mock(CatalogSnapshotService.class);
+        service.searchService = mock(SearchService.class);
+        service.cacheManager = mock(CacheManager.class);
+        service.validator = mock(Validator.class);
+        service.transactionManager = mock(PlatformTransactionManager.class);
+    }
+
+    @Test
+    public void shouldRejectOnlyTheRowsMySqlRefuses() {
+        //Arrange
+        doThrow(new DataIntegrityViolationException("Duplicate entry")).when(albumRepository).insertBatch(any());
+
+        //Act
+        BatchResult result = service.addAlbums(albums());
+
+        //Assert
+        assertEquals(2, result.getItems().size());
+        assertFalse(result.getItems().get(0).isWritten());
+        assertTrue(result.getItems().get(0).getErrors().contains("Duplicate entry"));
+    }
+
+    @Test
+    public void shouldThrowWhenMySqlIsUnavailable() {
+        //Arrange: a lock wait timeout is no fault of the rows, the caller retries them
+        doThrow(new CannotAcquireLockException("Lock wait timeout exceeded")).when(albumRepository).insertBatch(any());
+
+        //Act
+        try {
+            service.addAlbums(albums());
+            fail("the batch should fail");
+        } catch (CannotAcquireLockException e) {
+            //Assert
+            assertEquals("Lock wait timeout exceeded", e.getMessage());
+        }
+    }
+
+    private static List<Album> albums() {
+        return Arrays.asList(album("Thriller"), album("Bad"));
+    }
+
+    private static Album album(String title) {
+        Album album = new Album();
+        album.setTitle(title);
+        album.setArtistId(1);
+        album.setLabelId(2);
+        album.setReleaseDate(LocalDate.of(1982, 11, 30));
+        album.setListPrice(new BigDecimal("9.99"));
+        return album;
+    }
+}
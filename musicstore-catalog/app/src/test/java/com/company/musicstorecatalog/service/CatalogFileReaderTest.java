@@ -0,0 +1,78 @@
+package com.company.musicstorecatalog.service;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class CatalogFileReaderTest {
+
+    @Test
+    public void shouldReadQuotedCsvFieldsInHeaderOrder() throws Exception {
+        String csv = "\uFEFFalbum,artist,label,release_date,list_price,run_time,track\r\n" +
+                "Hotel California,Eagles,Asylum,1976-12-08,14.99,391,\"Hotel California\"\r\n" +
+                "\r\n" +
+                "Hotel California,Eagles,Asylum,1976-12-08,14.99,295,\"New Kid in Town, \"\"Live\"\"\nEdit\"\n";
+
+        try (CatalogFileReader reader = open(csv, ImportFormat.CSV)) {
+            CatalogFileReader.Row first = reader.next();
+            assertEquals(2, first.line);
+            assertEquals("Eagles", first.artist);
+            assertEquals("Asylum", first.label);
+            assertEquals("Hotel California", first.track);
+            assertEquals("391", first.runTime);
+
+            CatalogFileReader.Row second = reader.next();
+            assertEquals(4, second.line);
+            assertEquals("New Kid in Town, \"Live\"\nEdit", second.track);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void shouldReadAlbumOnlyCsv() throws Exception {
+        try (CatalogFileReader reader = open("artist,label,album,release_date,list_price\nEagles,Asylum,Desperado,1973-04-17,9.99", ImportFormat.CSV)) {
+            CatalogFileReader.Row row = reader.next();
+            assertEquals("Desperado", row.album);
+            assertNull(row.track);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCsvWithoutRequiredColumns() throws Exception {
+        open("artist,album,track\nEagles,Desperado,Tequila Sunrise\n", ImportFormat.CSV);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailOnUnterminatedQuote() throws Exception {
+        try (CatalogFileReader reader = open("artist,label,album,release_date,list_price\n\"Eagles,Asylum\n", ImportFormat.CSV)) {
+            reader.next();
+        }
+    }
+
+    @Test
+    public void shouldReadNdjsonRows() throws Exception {
+        String ndjson = "{\"artist\":\"Eagles\",\"label\":\"Asylum\",\"album\":\"Desperado\",\"releaseDate\":\"1973-04-17\",\"listPrice\":9.99,\"track\":\"Doolin-Dalton\",\"runTime\":206}\n" +
+                "{\"artist\":\"Eagles\",\"label\":\"Asylum\",\"album\":\"Desperado\",\"releaseDate\":\"1973-04-17\",\"listPrice\":9.99,\"track\":null}\n";
+
+        try (CatalogFileReader reader = open(ndjson, ImportFormat.NDJSON)) {
+            CatalogFileReader.Row first = reader.next();
+            assertEquals(1, first.line);
+            assertEquals("9.99", first.listPrice);
+            assertEquals("206", first.runTime);
+
+            CatalogFileReader.Row second = reader.next();
+            assertEquals(2, second.line);
+            assertNull(second.track);
+            assertNull(reader.next());
+        }
+    }
+
+    private static CatalogFileReader open(String content, ImportFormat format) throws IOException {
+        return CatalogFileReader.open(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format);
+    }
+}
@@ -0,0 +1,259 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.AlbumDetail;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.Label;
+import com.company.musicstorecatalog.model.Track;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CatalogSnapshotTest {
+    CatalogSnapshot snapshot;
+
+    @Before
+    public void setUp() throws Exception {
+        Artist artist = new Artist();
+        artist.setArtistId(5);
+        artist.setName("Michael Jackson");
+
+        Label label = new Label();
+        label.setLabelId(20);
+        label.setName("Epic Records");
+
+        // deliberately out of id order, the base has to sort them
+        snapshot = CatalogSnapshot.of(1,
+                Arrays.asList(album(3, "Thriller"), album(1, "Bad")),
+                Arrays.asList(track(12, 1, "Smooth Criminal"), track(30, 3, "Beat It"), track(11, 1, "Bad")),
+                Collections.singletonList(artist), Collections.singletonList(label));
+    }
+
+    @Test
+    public void shouldLookUpAndListRowsInIdOrder() {
+        assertEquals("Bad", snapshot.getAlbums().get(1).get().getTitle());
+        assertFalse(snapshot.getAlbums().get(2).isPresent());
+        assertEquals(Arrays.asList(1, 3), albumIds(snapshot.getAlbums().all()));
+        assertEquals(Arrays.asList(3), albumIds(snapshot.getAlbums().after(1, 10)));
+        assertEquals(Arrays.asList(11, 12), trackIds(snapshot.tracksOf(1)));
+    }
+
+    @Test
+    public void shouldApplyWritesToNewSnapshotOnly() {
+        CatalogSnapshot next = snapshot
+                .withAlbum(album(2, "Dangerous"))
+                .withoutAlbum(3)
+                .withTrack(track(15, 1, "Man in the Mirror"))
+                .withoutTrack(12);
+
+        assertEquals(5, next.getVersion());
+        assertEquals(Arrays.asList(1, 2), albumIds(next.getAlbums().all()));
+        assertEquals(Arrays.asList(11, 15), trackIds(next.tracksOf(1)));
+        assertEquals(4, next.overlaySize());
+
+        // the old snapshot is untouched
+        assertEquals(Arrays.asList(1, 3), albumIds(snapshot.getAlbums().all()));
+        assertEquals(Arrays.asList(11, 12), trackIds(snapshot.tracksOf(1)));
+    }
+
+    @Test
+    public void shouldIgnoreWritesPublishedOutOfOrder() {
+        //Arrange
+        Album older = album(3, "Thriller");
+        older.setVersion(1);
+        Album newer = album(3, "Thriller (Special Edition)");
+        newer.setVersion(2);
+
+        //Act: version 2 committed last but was published first
+        CatalogSnapshot next = snapshot.withAlbum(newer).withAlbum(older);
+
+        //Assert
+        assertEquals("Thriller (Special Edition)", next.getAlbums().get(3).get().getTitle());
+        assertEquals(2, next.getVersion());
+    }
+
+    @Test
+    public void shouldKeepDeletedRowsDeletedThroughCompaction() {
+        //Arrange
+        Album saved = album(3, "Thriller (Special Edition)");
+        saved.setVersion(2);
+
+        //Act: the save committed before the delete but is published after it, and after a compaction
+        CatalogSnapshot compacted = snapshot.withoutAlbum(3).compact(5);
+        CatalogSnapshot next = compacted.withAlbum(saved);
+
+        //Assert
+        assertFalse(next.getAlbums().get(3).isPresent());
+        assertEquals(5, next.getVersion());
+        assertEquals(0, next.overlaySize());
+    }
+
+    @Test
+    public void shouldKeepContentsWhenCompacting() {
+        CatalogSnapshot next = snapshot
+                .withTrack(track(15, 1, "Man in the Mirror"))
+                .withTrack(track(30, 1, "Beat It"))
+                .withoutAlbum(3);
+
+        CatalogSnapshot compacted = next.compact(9);
+
+        assertEquals(9, compacted.getVersion());
+        assertEquals(0, compacted.overlaySize());
+        assertEquals(Arrays.asList(1), albumIds(compacted.getAlbums().all()));
+        assertEquals(trackIds(next.tracksOf(1)), trackIds(compacted.tracksOf(1)));
+        assertEquals(Arrays.asList(11, 12, 15, 30), trackIds(compacted.tracksOf(1)));
+    }
+
+    @Test
+    public void shouldBuildAlbumDetail() {
+        AlbumDetail detail = snapshot.albumDetail(1).get();
+
+        assertEquals("Bad", detail.getAlbum().getTitle());
+        assertEquals("Michael Jackson", detail.getArtist().getName());
+        assertEquals("Epic Records", detail.getLabel().getName());
+        assertEquals(Arrays.asList(11, 12), trackIds(detail.getTracks()));
+        assertFalse(snapshot.albumDetail(2).isPresent());
+    }
+
+    @Test
+    public void shouldReplayWritesMadeWhileCompacting() throws Exception {
+        //Arrange: compact() stops inside its base rebuild, where it sorts the rows by id
+        BlockingAlbum bad = new BlockingAlbum(1, "Bad");
+        CatalogSnapshotService service = new CatalogSnapshotService();
+        service.enabled = true;
+        service.compactThreshold = 100;
+        service.current = CatalogSnapshot.of(1, Arrays.asList(album(3, "Thriller"), bad),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        service.albumSaved(album(4, "Dangerous"));
+        bad.armed = true;
+        Thread compaction = new Thread(service::compact);
+        compaction.start();
+        assertTrue(bad.reached.await(5, TimeUnit.SECONDS));
+
+        //Act: two writes land while the compaction runs
+        service.albumSaved(album(5, "HIStory"));
+        service.albumDeleted(3);
+        bad.release.countDown();
+        compaction.join(5000);
+
+        //Assert: album 4 went into the base, the two writes were replayed into the new overlay
+        CatalogSnapshot compacted = service.current();
+        assertEquals(4, compacted.getVersion());
+        assertEquals(2, compacted.overlaySize());
+        assertFalse(compacted.getAlbums().isOverridden(4));
+        assertEquals("HIStory", compacted.getAlbums().get(5).get().getTitle());
+        assertTrue(compacted.getAlbums().isDeleted(3));
+        assertEquals(Arrays.asList(1, 4, 5), albumIds(compacted.getAlbums().all()));
+    }
+
+    @Test
+    public void shouldPublishCopyOfWriteOnlyAfterCommit() throws Exception {
+        //Arrange
+        CatalogSnapshotService service = new CatalogSnapshotService();
+        service.enabled = true;
+        service.compactThreshold = 100;
+        service.current = snapshot;
+        Album album = album(4, "Dangerous");
+
+        //Act
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.albumSaved(album);
+            album.setTitle("changed after the write");
+
+            //Assert: nothing is visible before the commit, and the commit publishes the saved state
+            assertEquals(1, service.current().getVersion());
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals("Dangerous", service.current().getAlbums().get(4).get().getTitle());
+    }
+
+    @Test
+    public void shouldNotPublishRolledBackWrite() throws Exception {
+        //Arrange
+        CatalogSnapshotService service = new CatalogSnapshotService();
+        service.enabled = true;
+        service.compactThreshold = 100;
+        service.current = snapshot;
+
+        //Act
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.albumDeleted(3);
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        //Assert
+        assertEquals(1, service.current().getVersion());
+        assertTrue(service.current().getAlbums().get(3).isPresent());
+    }
+
+    // blocks the first id lookup after it is armed until released
+    private static final class BlockingAlbum extends Album {
+        final CountDownLatch reached = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean armed;
+
+        BlockingAlbum(int albumId, String title) {
+            setAlbumId(albumId);
+            setTitle(title);
+        }
+
+        @Override
+        public Integer getAlbumId() {
+            if (armed) {
+                armed = false;
+                reached.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.getAlbumId();
+        }
+    }
+
+    private static Album album(int albumId, String title) {
+        Album album = new Album();
+        album.setAlbumId(albumId);
+        album.setTitle(title);
+        album.setArtistId(5);
+        album.setLabelId(20);
+        return album;
+    }
+
+    private static Track track(int trackId, int albumId, String title) {
+        Track track = new Track();
+        track.setTrackId(trackId);
+        track.setAlbumId(albumId);
+        track.setTitle(title);
+        track.setRunTime(200);
+        return track;
+    }
+
+    private static List<Integer> albumIds(List<Album> albums) {
+        return albums.stream().map(Album::getAlbumId).collect(Collectors.toList());
+    }
+
+    private static List<Integer> trackIds(List<Track> tracks) {
+        return tracks.stream().map(Track::getTrackId).collect(Collectors.toList());
+    }
+}
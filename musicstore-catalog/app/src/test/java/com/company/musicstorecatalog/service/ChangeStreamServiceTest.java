@@ -0,0 +1,175 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.ChangeEvent;
+import com.company.musicstorecatalog.repository.ChangeEventRepository;
+import com.company.musicstorecatalog.repository.OpenTransactionRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// the gap handling and the delivery of the relay, with the outbox and InnoDB's open transactions stubbed
+public class ChangeStreamServiceTest {
+    ChangeStreamService service;
+    ChangeEventRepository changeEventRepository;
+    OpenTransactionRepository openTransactions;
+
+    @Before
+    public void setUp() throws Exception {
+        changeEventRepository = mock(ChangeEventRepository.class);
+        openTransactions = mock(OpenTransactionRepository.class);
+        when(openTransactions.isSupported()).thenReturn(true);
+        when(openTransactions.findWriterIds()).thenReturn(Collections.singleton("42"));
+        service = new ChangeStreamService();
+        service.changeEventRepository = changeEventRepository;
+        service.openTransactions = openTransactions;
+        service.batchSize = 10;
+        service.bufferSize = 10;
+        service.gapTimeout = Duration.ZERO;
+        service.heartbeat = Duration.ofHours(1);
+        service.senders = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        service.senders.shutdownNow();
+    }
+
+    @Test
+    public void shouldWaitForGapWhileItsTransactionIsOpen() {
+        //Arrange: seq 2 is held by transaction 42, which outlives the gap timeout
+        rows(event(1), event(3));
+        when(openTransactions.countOpen(any())).thenReturn(1);
+
+        //Act
+        service.release();
+        service.release();
+
+        //Assert
+        assertEquals(1, service.getPublished());
+
+        //Act: 42 commits seq 2
+        when(openTransactions.countOpen(any())).thenReturn(0);
+        rows(event(2), event(3));
+        service.release();
+
+        //Assert
+        assertEquals(3, service.getPublished());
+    }
+
+    @Test
+    public void shouldSkipGapOnceItsTransactionHasEnded() {
+        //Arrange: seq 2 rolled back
+        rows(event(1), event(3));
+        when(openTransactions.countOpen(any())).thenReturn(0);
+
+        //Act: the first poll notes the open writers, the next one sees them gone
+        service.release();
+        service.release();
+
+        //Assert
+        assertEquals(3, service.getPublished());
+    }
+
+    @Test
+    public void shouldKeepDeliveringWhileOneSubscriberIsStuck() throws Exception {
+        //Arrange: the slow client does not take its first message until released
+        service.bufferSize = 2;
+        when(changeEventRepository.findMinSeq()).thenReturn(1L);
+        RecordingEmitter slow = new RecordingEmitter(new CountDownLatch(1));
+        RecordingEmitter fast = new RecordingEmitter(new CountDownLatch(0));
+        service.subscribe(slow, 0L);
+        service.subscribe(fast, 0L);
+
+        //Act
+        rows(event(1));
+        service.dispatch(service.release());
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+        assertEquals("1", fast.next());
+        rows(event(1), event(2), event(3));
+        service.dispatch(service.release());
+
+        //Assert
+        assertEquals("3", fast.next());
+
+        //Act: the slow client's queue is full with 2 and 3, so 4 overflows it
+        rows(event(1), event(2), event(3), event(4));
+        service.dispatch(service.release());
+
+        //Assert
+        assertEquals("4", fast.next());
+        assertNull(slow.ids.poll());
+
+        //Act
+        slow.release.countDown();
+
+        //Assert: it is caught up from the table in one batch
+        assertEquals("1", slow.next());
+        assertEquals("4", slow.next());
+        assertNull(slow.ids.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private void rows(ChangeEvent... events) {
+        List<ChangeEvent> all = Arrays.asList(events);
+        when(changeEventRepository.findBySeqGreaterThanOrderBySeqAsc(anyLong(), any())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return all.stream().filter(event -> event.getSeq() > after).collect(Collectors.toList());
+        });
+    }
+
+    // records the id of every message once the latch is open
+    private static final class RecordingEmitter extends SseEmitter {
+        private static final Pattern ID = Pattern.compile("^id:(\\d+)$", Pattern.MULTILINE);
+        final BlockingQueue<String> ids = new LinkedBlockingQueue<>();
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            String text = builder.build().stream().map(part -> part.getData().toString()).collect(Collectors.joining());
+            Matcher id = ID.matcher(text);
+            if (id.find()) ids.add(id.group(1));
+        }
+
+        String next() throws InterruptedException {
+            return ids.poll(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static ChangeEvent event(long seq) {
+        return new ChangeEvent(seq, CatalogOutbox.ALBUM, (int) seq, "saved", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,57 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.repository.IdempotencyRecordRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IdempotencyServiceTest {
+    IdempotencyService service;
+    IdempotencyRecordRepository recordRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        recordRepository = mock(IdempotencyRecordRepository.class);
+        service = new IdempotencyService();
+        service.ttl = Duration.ofHours(1);
+        service.maxKeys = 100;
+        service.wait = Duration.ofSeconds(5);
+        service.store = "jdbc";
+        service.recordRepository = recordRepository;
+        service.transactionManager = mock(PlatformTransactionManager.class);
+        service.createCache();
+    }
+
+    @Test
+    public void shouldFreeKeyWhenSharedClaimFails() throws Exception {
+        //Arrange
+        when(recordRepository.claim(eq("/album 1"), eq("abc"), any()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(1);
+        try {
+            service.claim("/album 1", "abc");
+            fail("the claim should fail");
+        } catch (DataAccessResourceFailureException e) {
+            // expected
+        }
+
+        //Act: the retry owns the key instead of waiting for the failed attempt
+        long started = System.nanoTime();
+        IdempotencyService.Claim claim = service.claim("/album 1", "abc");
+
+        //Assert
+        assertEquals(IdempotencyService.Claim.State.OWNER, claim.getState());
+        assertTrue(System.nanoTime() - started < Duration.ofSeconds(5).toNanos());
+    }
+}
@@ -0,0 +1,69 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Label;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class NdjsonExportServiceTest {
+    NdjsonExportService exportService = new NdjsonExportService();
+
+    Label label1 = new Label();
+    Label label2 = new Label();
+
+    @Before
+    public void setUp() throws Exception {
+        exportService.entityManager = mock(EntityManager.class);
+        exportService.mapper = new ObjectMapper();
+
+        label1.setLabelId(1);
+        label1.setName("Red Hill Records");
+        label1.setWebsite("www.redhillrecords.com");
+
+        label2.setLabelId(2);
+        label2.setName("Atlantic Records");
+        label2.setWebsite("www.atlanticrecords.com");
+    }
+
+    @Test
+    public void shouldWriteOneLinePerRowAndDetachIt() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //Act
+        long count = exportService.writeNdjson(() -> Stream.of(label1, label2), out);
+
+        //Assert
+        ObjectMapper mapper = new ObjectMapper();
+        String expected = mapper.writeValueAsString(label1) + "\n" + mapper.writeValueAsString(label2) + "\n";
+        assertEquals(2, count);
+        assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+        verify(exportService.entityManager).detach(label1);
+        verify(exportService.entityManager).detach(label2);
+    }
+
+    @Test
+    public void shouldWriteInMemoryRowsWithoutDetaching() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //Act
+        long count = exportService.writeNdjsonRows(Arrays.asList(label1, label2), out);
+
+        //Assert
+        ObjectMapper mapper = new ObjectMapper();
+        String expected = mapper.writeValueAsString(label1) + "\n" + mapper.writeValueAsString(label2) + "\n";
+        assertEquals(2, count);
+        assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+        verifyNoInteractions(exportService.entityManager);
+    }
+}
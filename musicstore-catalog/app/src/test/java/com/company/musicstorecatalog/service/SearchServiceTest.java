@@ -0,0 +1,152 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Album;
+import com.company.musicstorecatalog.model.Artist;
+import com.company.musicstorecatalog.model.SearchHit;
+import com.company.musicstorecatalog.model.Track;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SearchServiceTest {
+    SearchService searchService = new SearchService();
+
+    @Before
+    public void setUp() throws Exception {
+        searchService.enabled = true;
+        searchService.compactThreshold = 10_000;
+
+        searchService.albums.replaceBase(TitleIndex.build(new int[]{1, 3},
+                new String[]{"Bad", "Thriller"}), 0);
+        searchService.tracks.replaceBase(TitleIndex.build(new int[]{11, 12, 30, 31},
+                new String[]{"Bad", "Smooth Criminal", "Beat It", "The Way You Make Me Feel (Bad Mix)"}), 0);
+        searchService.artists.replaceBase(TitleIndex.build(new int[]{5},
+                new String[]{"Michael Jackson"}), 0);
+    }
+
+    @Test
+    public void shouldFoldCaseAndAccents() {
+        assertArrayEquals(new String[]{"beyonce", "deja", "vu"}, TitleIndex.tokenize("Beyoncé - Déjà Vu, DÉJÀ"));
+    }
+
+    @Test
+    public void shouldRankExactTitlesAboveLongerOnes() {
+        List<SearchHit> hits = searchService.search("BAD", 10);
+
+        // word weights come from each kind's own index, so album and track titles can tie in any order
+        assertEquals(3, hits.size());
+        assertTrue(keys(hits.subList(0, 2)).containsAll(Arrays.asList("album:1", "track:11")));
+        assertEquals("track:31", keys(hits).get(2));
+        assertEquals("The Way You Make Me Feel (Bad Mix)", hits.get(2).getTitle());
+        assertTrue(hits.get(1).getScore() > hits.get(2).getScore());
+    }
+
+    @Test
+    public void shouldRequireEveryWord() {
+        assertEquals(Arrays.asList("artist:5"), keys(searchService.search("jackson michael", 10)));
+        assertEquals(Arrays.asList(), keys(searchService.search("michael thriller", 10)));
+    }
+
+    @Test
+    public void shouldStopAtLimit() {
+        List<String> keys = keys(searchService.search("bad", 2));
+
+        assertEquals(2, keys.size());
+        assertTrue(keys.containsAll(Arrays.asList("album:1", "track:11")));
+    }
+
+    @Test
+    public void shouldSeeWritesRightAway() {
+        Album album = new Album();
+        album.setAlbumId(2);
+        album.setTitle("Dangerous");
+        searchService.albumSaved(album);
+
+        Track track = new Track();
+        track.setTrackId(11);
+        track.setTitle("Bad (Remastered)");
+        searchService.trackSaved(track);
+
+        searchService.albumDeleted(1);
+
+        Artist artist = new Artist();
+        artist.setArtistId(6);
+        artist.setName("Dangerous Minds");
+        searchService.artistSaved(artist);
+
+        assertEquals(Arrays.asList("album:2", "artist:6"), keys(searchService.search("dangerous", 10)));
+        assertEquals(Arrays.asList("track:11", "track:31"), keys(searchService.search("bad", 10)));
+        assertEquals("Bad (Remastered)", searchService.search("remastered", 10).get(0).getTitle());
+    }
+
+    @Test
+    public void shouldKeepResultsWhenCompacting() {
+        Track track = new Track();
+        track.setTrackId(20);
+        track.setTitle("Bad Boy");
+        searchService.trackSaved(track);
+        searchService.trackDeleted(12);
+
+        List<String> before = keys(searchService.search("bad", 10));
+        Collections.sort(before);
+        searchService.tracks.compact();
+
+        assertEquals(0, searchService.tracks.pendingChanges());
+        assertEquals(4, searchService.tracks.size());
+        List<String> after = keys(searchService.search("bad", 10));
+        Collections.sort(after);
+        assertEquals(before, after);
+        assertEquals(Arrays.asList(), keys(searchService.search("criminal", 10)));
+    }
+
+    @Test
+    public void shouldDropChangesPublishedOutOfOrder() {
+        //Arrange: version 2 committed last but was published first
+        Album newer = new Album();
+        newer.setAlbumId(3);
+        newer.setTitle("Thriller 25");
+        newer.setVersion(2);
+        Album older = new Album();
+        older.setAlbumId(3);
+        older.setTitle("Thriller (Special Edition)");
+        older.setVersion(1);
+
+        //Act
+        searchService.albumSaved(newer);
+        searchService.albumSaved(older);
+
+        //Assert
+        assertEquals(Arrays.asList("album:3"), keys(searchService.search("thriller 25", 10)));
+        assertEquals(Arrays.asList(), keys(searchService.search("special", 10)));
+    }
+
+    @Test
+    public void shouldKeepDeletedRowsDeletedThroughCompaction() {
+        //Arrange
+        Track saved = new Track();
+        saved.setTrackId(12);
+        saved.setTitle("Smooth Criminal (Radio Edit)");
+        saved.setVersion(3);
+
+        //Act: the save committed before the delete but is published after it and a compaction
+        searchService.trackDeleted(12);
+        searchService.tracks.compact();
+        searchService.trackSaved(saved);
+
+        //Assert
+        assertEquals(0, searchService.tracks.pendingChanges());
+        assertEquals(Arrays.asList(), keys(searchService.search("criminal", 10)));
+    }
+
+    private static List<String> keys(List<SearchHit> hits) {
+        return hits.stream().map(hit -> hit.getType() + ":" + hit.getId()).collect(Collectors.toList());
+    }
+}
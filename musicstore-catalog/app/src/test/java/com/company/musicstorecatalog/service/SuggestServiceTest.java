@@ -0,0 +1,65 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.ArtistStats;
+import com.company.musicstorecatalog.repository.ArtistStatsRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// the background weight refresh, with artist_stats stubbed
+public class SuggestServiceTest {
+    SuggestService service;
+    ArtistStatsRepository artistStatsRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        artistStatsRepository = mock(ArtistStatsRepository.class);
+        service = new SuggestService();
+        service.enabled = true;
+        service.artistStatsRepository = artistStatsRepository;
+        service.executor = Executors.newSingleThreadExecutor();
+        service.artists = SuggestTrie.build(new int[]{5, 6}, new String[]{"Michael Jackson", "Michael Bublé"}, new long[]{1, 2});
+    }
+
+    @After
+    public void tearDown() {
+        service.executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRetryTouchedIdsAfterFailedRefresh() throws Exception {
+        //Arrange
+        List<ArtistStats> stored = Arrays.asList(new ArtistStats(5, 9, BigDecimal.TEN), new ArtistStats(6, 3, BigDecimal.ONE));
+        when(artistStatsRepository.findAllById(any()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenAnswer(invocation -> {
+                    Collection<Integer> ids = invocation.getArgument(0);
+                    return stored.stream().filter(row -> ids.contains(row.getArtistId())).collect(Collectors.toList());
+                });
+
+        //Act: the first refresh fails, the next write's refresh picks up artist 5 again
+        service.weightsChanged(Collections.singleton(5), Collections.emptyList());
+        service.executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        service.weightsChanged(Collections.singleton(6), Collections.emptyList());
+        service.executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+
+        //Assert
+        assertEquals(9, service.suggestArtists("michael", 1).get(0).getWeight());
+        assertEquals("Michael Jackson", service.suggestArtists("michael", 1).get(0).getName());
+    }
+}
@@ -0,0 +1,61 @@
+package com.company.musicstorecatalog.service;
+
+import com.company.musicstorecatalog.model.Suggestion;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SuggestTrieTest {
+    SuggestTrie trie = SuggestTrie.build(
+            new int[]{1, 2, 3, 4, 5, 6},
+            new String[]{"Michael Jackson", "Metallica", "Madonna", "Mötley Crüe", "Michael  Bublé", "Eagles"},
+            new long[]{12, 10, 9, 3, 3, 7});
+
+    @Test
+    public void shouldSuggestByPrefixHeaviestFirst() {
+        assertEquals(Arrays.asList("Michael Jackson", "Metallica", "Madonna", "Michael  Bublé", "Mötley Crüe"),
+                names(trie.suggest("m", 10)));
+        assertEquals(Arrays.asList("Michael Jackson", "Michael  Bublé"), names(trie.suggest("MICHAEL", 10)));
+        assertEquals(12, trie.suggest("mi", 1).get(0).getWeight());
+    }
+
+    @Test
+    public void shouldFoldAccentsAndSpaces() {
+        assertEquals(Arrays.asList("Mötley Crüe"), names(trie.suggest("motley cr", 10)));
+        assertEquals(Arrays.asList("Michael  Bublé"), names(trie.suggest("michael  b", 10)));
+    }
+
+    @Test
+    public void shouldStopAtLimitAndMissingPrefix() {
+        assertEquals(Arrays.asList("Michael Jackson", "Metallica"), names(trie.suggest("m", 2)));
+        assertTrue(trie.suggest("x", 10).isEmpty());
+        assertTrue(SuggestTrie.EMPTY.suggest("m", 10).isEmpty());
+    }
+
+    @Test
+    public void shouldReturnEverythingForEmptyPrefix() {
+        assertEquals(6, trie.suggest("", 10).size());
+        assertEquals("Eagles", trie.suggest("", 10).get(3).getName());
+    }
+
+    @Test
+    public void shouldReorderWhenWeightsChange() {
+        //Act
+        SuggestTrie reweighted = trie.withWeights(Collections.singletonMap(5, 20L));
+
+        //Assert: the new trie ranks by the new weight, the old one is untouched
+        assertEquals(Arrays.asList("Michael  Bublé", "Michael Jackson"), names(reweighted.suggest("michael", 10)));
+        assertEquals(20, reweighted.suggest("", 1).get(0).getWeight());
+        assertEquals(Arrays.asList("Michael Jackson", "Michael  Bublé"), names(trie.suggest("michael", 10)));
+    }
+
+    private static List<String> names(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,66 @@
+#!/bin/bash
+# Throughput of the blocking controllers on Tomcat's worker pool vs. on virtual threads
+# (catalog.virtual-threads.enabled), at 1k to 10k concurrent connections.
+#
+# Needs: a -Pjava21 jar (cd app && ./mvnw -Pjava21 package -DskipTests), a JDK 21 `java`, wrk, the
+# database from db/music-store-catalog.sql with some albums in it, and `ulimit -n` above the largest
+# connection count. Every run starts a fresh app; the table printed at the end is also written to
+# bench/results-<date>.tsv.
+#
+#   SPRING_DATASOURCE_URL=jdbc:mysql://localhost:3306/music_store_catalog bench/virtual-threads.sh
+#
+# Env: CONNECTIONS ("1000 2500 5000 10000"), DURATION (30s), THREADS (wrk threads, 8), PORT (8081),
+# URLS (paths hit round-robin by wrk, default a keyset page, an album with its tracks and a filter).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=$(ls app/target/musicstore-catalog-*.jar | head -1)
+CONNECTIONS=${CONNECTIONS:-"1000 2500 5000 10000"}
+DURATION=${DURATION:-30s}
+THREADS=${THREADS:-8}
+PORT=${PORT:-8081}
+URLS=${URLS:-"/album?limit=20 /album/1/full /track?albumId=1"}
+RESULTS=bench/results-$(date +%Y%m%d-%H%M%S).tsv
+
+# wrk takes one URL, so a small script cycles through the paths
+SCRIPT=$(mktemp --suffix=.lua)
+trap 'rm -f "$SCRIPT"; [ -n "${APP:-}" ] && kill "$APP" 2>/dev/null || true' EXIT
+{
+    echo "paths = {"
+    for url in $URLS; do echo "  \"$url\","; done
+    echo "}"
+    echo 'i = 0'
+    echo 'request = function() i = i % #paths + 1; return wrk.format("GET", paths[i]) end'
+} > "$SCRIPT"
+
+start_app() {
+    java -jar "$JAR" --server.port="$PORT" --catalog.virtual-threads.enabled="$1" \
+        --server.tomcat.max-connections=20000 --server.tomcat.accept-count=10000 \
+        > "bench/app-$1.log" 2>&1 &
+    APP=$!
+    for _ in $(seq 1 120); do
+        curl -sf "http://localhost:$PORT/actuator/health" > /dev/null && return
+        sleep 1
+    done
+    echo "app did not start, see bench/app-$1.log" >&2
+    exit 1
+}
+
+printf "mode\tconnections\trequests/s\tp50\tp99\terrors\n" | tee "$RESULTS"
+for mode in false true; do
+    label=$([ "$mode" = true ] && echo virtual || echo platform)
+    start_app "$mode"
+    # warm up the JIT and the caches
+    wrk -t"$THREADS" -c200 -d15s -s "$SCRIPT" "http://localhost:$PORT" > /dev/null
+    for c in $CONNECTIONS; do
+        out=$(wrk -t"$THREADS" -c"$c" -d"$DURATION" --timeout 10s --latency -s "$SCRIPT" "http://localhost:$PORT")
+        rps=$(awk '/Requests\/sec/ {print $2}' <<< "$out")
+        p50=$(awk '$1 == "50%" {print $2}' <<< "$out")
+        p99=$(awk '$1 == "99%" {print $2}' <<< "$out")
+        errors=$(awk '/Socket errors|Non-2xx/ {printf "%s ", $0}' <<< "$out")
+        printf "%s\t%s\t%s\t%s\t%s\t%s\n" "$label" "$c" "$rps" "$p50" "$p99" "${errors:-0}" | tee -a "$RESULTS"
+    done
+    kill "$APP"
+    wait "$APP" 2>/dev/null || true
+    APP=
+done
@@ -5,14 +5,21 @@ use music_store_catalog;
 create table label (
     label_id int primary key auto_increment,
     `name` varchar(50) not null,
-    website varchar(255) null
+    website varchar(255) null,
+    version int not null default 0,
+    -- GET /catalog/changes keysets on (updated_at, id), see CatalogSyncService
+    updated_at datetime(6) not null default current_timestamp(6) on update current_timestamp(6),
+    index idx_label_updated_at (updated_at)
 );
 
 create table artist (
     artist_id int primary key auto_increment,
     `name` varchar(50) not null,
     instagram varchar(255) null,
-    twitter varchar(255) null
+    twitter varchar(255) null,
+    version int not null default 0,
+    updated_at datetime(6) not null default current_timestamp(6) on update current_timestamp(6),
+    index idx_artist_updated_at (updated_at)
 );
 
 create table album (
@@ -22,12 +29,18 @@ create table album (
     release_date date not null,
     label_id int not null,
     list_price decimal(5, 2) not null,
-    index fk_artist_id (artist_id),
+    version int not null default 0,
+    updated_at datetime(6) not null default current_timestamp(6) on update current_timestamp(6),
+    -- GET /album filters, see AlbumSpecifications; the first two also back the foreign keys
+    index idx_album_artist_release (artist_id, release_date),
     foreign key (artist_id)
         references artist(artist_id),
-    index fk_label_id (label_id),
+    index idx_album_label_price (label_id, list_price),
     foreign key (label_id)
-        references label(label_id)
+        references label(label_id),
+    index idx_album_release (release_date),
+    index idx_album_price (list_price),
+    index idx_album_updated_at (updated_at)
 );
 
 create table track (
@@ -35,7 +48,93 @@ create table track (
     album_id int not null,
     title varchar(50) not null,
     run_time int not null,
+    version int not null default 0,
+    updated_at datetime(6) not null default current_timestamp(6) on update current_timestamp(6),
     index fk_album_id (album_id),
     foreign key (album_id)
-        references album(album_id)
-);
\ No newline at end of file
+        references album(album_id),
+    -- GET /track filters, see TrackSpecifications
+    index idx_track_album_run_time (album_id, run_time),
+    index idx_track_run_time (run_time),
+    index idx_track_updated_at (updated_at)
+);
+
+-- GET /stats totals, maintained by CatalogStatsService in the same transaction as each write;
+-- POST /stats/rebuild recomputes them from the tables above
+create table artist_stats (
+    artist_id int primary key,
+    album_count int not null default 0,
+    total_list_price decimal(12, 2) not null default 0
+);
+
+create table label_stats (
+    label_id int primary key,
+    album_count int not null default 0,
+    total_list_price decimal(12, 2) not null default 0
+);
+
+create table album_stats (
+    album_id int primary key,
+    track_count int not null default 0,
+    total_run_time bigint not null default 0
+);
+
+-- GET /catalog/albums read model: each album with its artist and label names and track count,
+-- written only by AlbumListingProjector; POST /catalog/albums/rebuild re-projects it from the tables above
+create table album_listing (
+    album_id int primary key,
+    title varchar(50) not null,
+    release_date date not null,
+    list_price decimal(5, 2) not null,
+    artist_id int not null,
+    artist_name varchar(50) not null,
+    label_id int not null,
+    label_name varchar(50) not null,
+    track_count int not null default 0,
+    -- artist and label renames are copied into every row of theirs
+    index idx_album_listing_artist (artist_id),
+    index idx_album_listing_label (label_id)
+);
+
+-- change events for GET /changes/stream, appended by CatalogOutbox in the same transaction as each write;
+-- ChangeStreamService relays them in seq order and drops them after catalog.outbox.retention
+create table catalog_outbox (
+    seq bigint primary key auto_increment,
+    kind varchar(10) not null,
+    entity_id int not null,
+    action varchar(10) not null,
+    created_at datetime(6) not null,
+    index idx_catalog_outbox_created_at (created_at)
+);
+
+-- deleted ids of the four tables above, for GET /catalog/changes; written with the delete, see CatalogOutbox,
+-- and dropped after catalog.sync.tombstone-retention
+create table catalog_tombstone (
+    kind varchar(10) not null,
+    entity_id int not null,
+    deleted_at datetime(6) not null default current_timestamp(6),
+    primary key (kind, entity_id),
+    index idx_catalog_tombstone_deleted_at (deleted_at, kind, entity_id)
+);
+
+-- per-table write counters behind the collection ETags, bumped by CatalogOutbox in the writing transaction;
+-- spread over slots so concurrent writers to one table do not queue on a single row, see TableWrites
+create table catalog_table_writes (
+    table_name varchar(10) not null,
+    slot int not null,
+    writes bigint not null default 0,
+    primary key (table_name, slot)
+);
+
+-- Idempotency-Key responses shared by all nodes (catalog.idempotency.store=jdbc), see IdempotencyService;
+-- status is null while the first request is still running, rows are dropped once expires_at has passed
+create table idempotency_key (
+    idem_key varchar(255) primary key,
+    fingerprint char(64) not null,
+    status int null,
+    content_type varchar(100) null,
+    location varchar(255) null,
+    body mediumtext null,
+    expires_at datetime(6) not null,
+    index idx_idempotency_key_expires_at (expires_at)
+);
@@ -0,0 +1,15 @@
+package com.company.musicstorecatalog.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+// Read-only front for the catalog: the GET endpoints of the app's album, track, artist and label
+// controllers on WebFlux and R2DBC, for a fleet that serves reads next to the MVC app (which keeps every write).
+@SpringBootApplication
+public class ReactiveReadApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveReadApplication.class, args);
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.company.musicstorecatalog.reactive.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.resources.LoopResources;
+
+// Every request runs on one of catalog.reactive.event-loop-threads Netty event loops (reactor-netty would
+// otherwise start one per core); nothing on them blocks, so a handful is enough for the whole read fleet.
+@Configuration
+public class EventLoopConfig {
+    @Value("${catalog.reactive.event-loop-threads:4}")
+    int eventLoopThreads;
+
+    @Bean(destroyMethod = "dispose")
+    LoopResources serverLoops() {
+        return LoopResources.create("catalog-http", 1, eventLoopThreads, true);
+    }
+
+    @Bean
+    NettyServerCustomizer eventLoopCustomizer(LoopResources serverLoops) {
+        return server -> server.runOn(serverLoops);
+    }
+}
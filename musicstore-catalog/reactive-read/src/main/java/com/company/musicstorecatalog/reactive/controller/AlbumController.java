@@ -0,0 +1,115 @@
+package com.company.musicstorecatalog.reactive.controller;
+
+import com.company.musicstorecatalog.reactive.model.Album;
+import com.company.musicstorecatalog.reactive.model.AlbumDetail;
+import com.company.musicstorecatalog.reactive.model.AlbumFilter;
+import com.company.musicstorecatalog.reactive.model.AlbumSummary;
+import com.company.musicstorecatalog.reactive.model.CursorPage;
+import com.company.musicstorecatalog.reactive.repository.AlbumCriteria;
+import com.company.musicstorecatalog.reactive.repository.AlbumRepository;
+import com.company.musicstorecatalog.reactive.repository.ArtistRepository;
+import com.company.musicstorecatalog.reactive.repository.LabelRepository;
+import com.company.musicstorecatalog.reactive.repository.TrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+@RestController
+@RequestMapping("/album")
+public class AlbumController {
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    ArtistRepository artistRepository;
+    @Autowired
+    LabelRepository labelRepository;
+
+    @Value("${catalog.reactive.prefetch:256}")
+    int prefetch;
+
+    // written out as a JSON array element by element; limitRate keeps at most prefetch rows between
+    // MySQL and a slow client instead of the whole table
+    @GetMapping()
+    public Flux<Album> getAlbums(AlbumFilter filter) {
+        if (!filter.isEmpty()) {
+            AlbumCriteria.check(filter, false);
+            return albumRepository.findFiltered(filter).limitRate(prefetch);
+        }
+        return albumRepository.streamAll()
+                .switchIfEmpty(Flux.error(() -> new IllegalArgumentException("Albums data is empty!")))
+                .limitRate(prefetch);
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<CursorPage<Album>> getAlbumPage(@RequestParam(required = false) String after,
+                                                @RequestParam int limit,
+                                                AlbumFilter filter) {
+        int pageSize = CursorPage.checkLimit(limit);
+        Flux<Album> rows;
+        if (!filter.isEmpty()) {
+            AlbumCriteria.check(filter, true);
+            rows = albumRepository.findFilteredAfter(filter, CursorPage.decodeCursor(after), pageSize + 1);
+        } else {
+            rows = albumRepository.findByAlbumIdGreaterThanOrderByAlbumIdAsc(
+                    CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        }
+        return rows.collectList().map(list -> CursorPage.of(list, pageSize, Album::getAlbumId));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Album> exportAlbums() {
+        return albumRepository.streamAll().limitRate(prefetch);
+    }
+
+    @GetMapping("/summary")
+    public Mono<CursorPage<AlbumSummary>> getAlbumSummaries(@RequestParam(required = false) String after,
+                                                            @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        return albumRepository.findSummariesAfter(CursorPage.decodeCursor(after), pageSize + 1).collectList()
+                .map(rows -> CursorPage.of(rows, pageSize, AlbumSummary::getAlbumId));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Album> getAlbumById(@PathVariable Integer id, ServerWebExchange exchange) {
+        return albumRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("No album was found with Id: " + id)))
+                // a matching If-None-Match leaves a 304 with no body
+                .filter(album -> !exchange.checkNotModified(ETags.forEntity(album.getVersion())));
+    }
+
+    // artist, label and tracks are read at the same time, on connections of their own
+    @GetMapping("/{id}/full")
+    public Mono<AlbumDetail> getAlbumDetailById(@PathVariable Integer id) {
+        return albumRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("No album was found with Id: " + id)))
+                .flatMap(album -> Mono.zip(
+                        lookup(album.getArtistId(), artistRepository::findById),
+                        lookup(album.getLabelId(), labelRepository::findById),
+                        trackRepository.findByAlbumIdOrderByTrackIdAsc(id).collectList())
+                        .map(parts -> {
+                            AlbumDetail albumDetail = new AlbumDetail(album, parts.getT1().orElse(null), parts.getT2().orElse(null));
+                            albumDetail.setTracks(parts.getT3());
+                            return albumDetail;
+                        }));
+    }
+
+    // an album without an artist or label still has a page
+    private static <T> Mono<Optional<T>> lookup(Integer id, Function<Integer, Mono<T>> findById) {
+        if (id == null) return Mono.just(Optional.empty());
+        return findById.apply(id).map(Optional::of).defaultIfEmpty(Optional.empty());
+    }
+}
@@ -0,0 +1,65 @@
+package com.company.musicstorecatalog.reactive.controller;
+
+import com.company.musicstorecatalog.reactive.model.Artist;
+import com.company.musicstorecatalog.reactive.model.ArtistSummary;
+import com.company.musicstorecatalog.reactive.model.CursorPage;
+import com.company.musicstorecatalog.reactive.repository.ArtistRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// GET /artist/suggest stays on the app: it is served from the in-memory trie of its SuggestService
+@RestController
+@RequestMapping("/artist")
+public class ArtistController {
+    @Autowired
+    ArtistRepository artistRepository;
+
+    @Value("${catalog.reactive.prefetch:256}")
+    int prefetch;
+
+    @GetMapping()
+    public Flux<Artist> getArtists() {
+        return artistRepository.streamAll()
+                .switchIfEmpty(Flux.error(() -> new IllegalArgumentException("Artists data is empty!")))
+                .limitRate(prefetch);
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<CursorPage<Artist>> getArtistPage(@RequestParam(required = false) String after,
+                                                  @RequestParam int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        return artistRepository.findByArtistIdGreaterThanOrderByArtistIdAsc(
+                        CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1)).collectList()
+                .map(rows -> CursorPage.of(rows, pageSize, Artist::getArtistId));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Artist> exportArtists() {
+        return artistRepository.streamAll().limitRate(prefetch);
+    }
+
+    @GetMapping("/summary")
+    public Mono<CursorPage<ArtistSummary>> getArtistSummaries(@RequestParam(required = false) String after,
+                                                              @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        return artistRepository.findSummariesAfter(CursorPage.decodeCursor(after), pageSize + 1).collectList()
+                .map(rows -> CursorPage.of(rows, pageSize, ArtistSummary::getArtistId));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Artist> getArtistById(@PathVariable Integer id, ServerWebExchange exchange) {
+        return artistRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("No artist was found with Id: " + id)))
+                .filter(artist -> !exchange.checkNotModified(ETags.forEntity(artist.getVersion())));
+    }
+}
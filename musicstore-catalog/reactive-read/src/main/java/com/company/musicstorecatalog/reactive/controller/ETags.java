@@ -0,0 +1,10 @@
+package com.company.musicstorecatalog.reactive.controller;
+
+// Entity ETags in the app's format (see its ETags), so a client can revalidate against either fleet.
+final class ETags {
+    private ETags() {}
+
+    static String forEntity(Integer version) {
+        return "\"v" + version + "\"";
+    }
+}
@@ -0,0 +1,37 @@
+package com.company.musicstorecatalog.reactive.controller;
+
+import com.company.musicstorecatalog.reactive.model.InvalidCursorException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// the same bodies and statuses as the app's ExceptionHandlerController
+@RestControllerAdvice
+@RequestMapping(produces = "application/json")
+public class ExceptionHandlerController {
+    @ExceptionHandler({IllegalArgumentException.class})
+    public ResponseEntity<Object> handleNotFound(IllegalArgumentException ex) {
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", ex.getMessage());
+
+        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler({InvalidCursorException.class})
+    public ResponseEntity<Object> handleInvalidCursor(InvalidCursorException ex) {
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", ex.getMessage());
+
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+}
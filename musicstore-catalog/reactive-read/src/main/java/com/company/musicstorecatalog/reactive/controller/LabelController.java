@@ -0,0 +1,65 @@
+package com.company.musicstorecatalog.reactive.controller;
+
+import com.company.musicstorecatalog.reactive.model.Label;
+import com.company.musicstorecatalog.reactive.model.LabelSummary;
+import com.company.musicstorecatalog.reactive.model.CursorPage;
+import com.company.musicstorecatalog.reactive.repository.LabelRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// GET /label/suggest stays on the app too, see ArtistController
+@RestController
+@RequestMapping("/label")
+public class LabelController {
+    @Autowired
+    LabelRepository labelRepository;
+
+    @Value("${catalog.reactive.prefetch:256}")
+    int prefetch;
+
+    @GetMapping()
+    public Flux<Label> getLabels() {
+        return labelRepository.streamAll()
+                .switchIfEmpty(Flux.error(() -> new IllegalArgumentException("Labels data is empty!")))
+                .limitRate(prefetch);
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<CursorPage<Label>> getLabelPage(@RequestParam(required = false) String after,
+                                                  @RequestParam int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        return labelRepository.findByLabelIdGreaterThanOrderByLabelIdAsc(
+                        CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1)).collectList()
+                .map(rows -> CursorPage.of(rows, pageSize, Label::getLabelId));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Label> exportLabels() {
+        return labelRepository.streamAll().limitRate(prefetch);
+    }
+
+    @GetMapping("/summary")
+    public Mono<CursorPage<LabelSummary>> getLabelSummaries(@RequestParam(required = false) String after,
+                                                              @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        return labelRepository.findSummariesAfter(CursorPage.decodeCursor(after), pageSize + 1).collectList()
+                .map(rows -> CursorPage.of(rows, pageSize, LabelSummary::getLabelId));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Label> getLabelById(@PathVariable Integer id, ServerWebExchange exchange) {
+        return labelRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("No label was found with Id: " + id)))
+                .filter(label -> !exchange.checkNotModified(ETags.forEntity(label.getVersion())));
+    }
+}
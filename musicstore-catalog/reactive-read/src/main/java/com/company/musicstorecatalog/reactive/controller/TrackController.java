@@ -0,0 +1,77 @@
+package com.company.musicstorecatalog.reactive.controller;
+
+import com.company.musicstorecatalog.reactive.model.CursorPage;
+import com.company.musicstorecatalog.reactive.model.Track;
+import com.company.musicstorecatalog.reactive.model.TrackFilter;
+import com.company.musicstorecatalog.reactive.model.TrackSummary;
+import com.company.musicstorecatalog.reactive.repository.TrackCriteria;
+import com.company.musicstorecatalog.reactive.repository.TrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/track")
+public class TrackController {
+    @Autowired
+    TrackRepository trackRepository;
+
+    @Value("${catalog.reactive.prefetch:256}")
+    int prefetch;
+
+    @GetMapping()
+    public Flux<Track> getTracks(TrackFilter filter) {
+        if (!filter.isEmpty()) {
+            TrackCriteria.check(filter, false);
+            return trackRepository.findFiltered(filter).limitRate(prefetch);
+        }
+        return trackRepository.streamAll()
+                .switchIfEmpty(Flux.error(() -> new IllegalArgumentException("Tracks data is empty!")))
+                .limitRate(prefetch);
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<CursorPage<Track>> getTrackPage(@RequestParam(required = false) String after,
+                                                @RequestParam int limit,
+                                                TrackFilter filter) {
+        int pageSize = CursorPage.checkLimit(limit);
+        Flux<Track> rows;
+        if (!filter.isEmpty()) {
+            TrackCriteria.check(filter, true);
+            rows = trackRepository.findFilteredAfter(filter, CursorPage.decodeCursor(after), pageSize + 1);
+        } else {
+            rows = trackRepository.findByTrackIdGreaterThanOrderByTrackIdAsc(
+                    CursorPage.decodeCursor(after), PageRequest.of(0, pageSize + 1));
+        }
+        return rows.collectList().map(list -> CursorPage.of(list, pageSize, Track::getTrackId));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Track> exportTracks() {
+        return trackRepository.streamAll().limitRate(prefetch);
+    }
+
+    @GetMapping("/summary")
+    public Mono<CursorPage<TrackSummary>> getTrackSummaries(@RequestParam(required = false) String after,
+                                                            @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        return trackRepository.findSummariesAfter(CursorPage.decodeCursor(after), pageSize + 1).collectList()
+                .map(rows -> CursorPage.of(rows, pageSize, TrackSummary::getTrackId));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Track> getTrackById(@PathVariable Integer id, ServerWebExchange exchange) {
+        return trackRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("No track was found with Id: " + id)))
+                .filter(track -> !exchange.checkNotModified(ETags.forEntity(track.getVersion())));
+    }
+}
@@ -0,0 +1,113 @@
+package com.company.musicstorecatalog.reactive.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Read-only R2DBC mapping of the album table, serialized exactly like the app's Album entity.
+@Table("album")
+public class Album {
+    @Id
+    @Column("album_id")
+    private Integer albumId;
+    private String title;
+    @Column("list_price")
+    private BigDecimal listPrice;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    @Column("release_date")
+    private LocalDate releaseDate;
+    @Column("artist_id")
+    private Integer artistId;
+    @Column("label_id")
+    private Integer labelId;
+    private Integer version;
+
+    public Album() {}
+
+    public Integer getAlbumId() {
+        return albumId;
+    }
+
+    public void setAlbumId(Integer albumId) {
+        this.albumId = albumId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public BigDecimal getListPrice() {
+        return listPrice;
+    }
+
+    public void setListPrice(BigDecimal listPrice) {
+        this.listPrice = listPrice;
+    }
+
+    public LocalDate getReleaseDate() {
+        return releaseDate;
+    }
+
+    public void setReleaseDate(LocalDate releaseDate) {
+        this.releaseDate = releaseDate;
+    }
+
+    public Integer getArtistId() {
+        return artistId;
+    }
+
+    public void setArtistId(Integer artistId) {
+        this.artistId = artistId;
+    }
+
+    public Integer getLabelId() {
+        return labelId;
+    }
+
+    public void setLabelId(Integer labelId) {
+        this.labelId = labelId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Album album = (Album) o;
+        return Objects.equals(albumId, album.albumId) && Objects.equals(title, album.title) && Objects.equals(listPrice, album.listPrice) && Objects.equals(releaseDate, album.releaseDate) && Objects.equals(artistId, album.artistId) && Objects.equals(labelId, album.labelId) && Objects.equals(version, album.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(albumId, title, listPrice, releaseDate, artistId, labelId, version);
+    }
+
+    @Override
+    public String toString() {
+        return "Album{" +
+                "albumId=" + albumId +
+                ", title='" + title + '\'' +
+                ", listPrice=" + listPrice +
+                ", releaseDate=" + releaseDate +
+                ", artistId=" + artistId +
+                ", labelId=" + labelId +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package com.company.musicstorecatalog.reactive.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Everything an album page needs in one response: the album, its artist and label
+// (looked up side by side by AlbumController.getAlbumDetailById) and the album's tracks.
+public class AlbumDetail {
+    private Album album;
+    private Artist artist;
+    private Label label;
+    private List<Track> tracks = new ArrayList<>();
+
+    public AlbumDetail() {}
+
+    public AlbumDetail(Album album, Artist artist, Label label) {
+        this.album = album;
+        this.artist = artist;
+        this.label = label;
+    }
+
+    public Album getAlbum() {
+        return album;
+    }
+
+    public void setAlbum(Album album) {
+        this.album = album;
+    }
+
+    public Artist getArtist() {
+        return artist;
+    }
+
+    public void setArtist(Artist artist) {
+        this.artist = artist;
+    }
+
+    public Label getLabel() {
+        return label;
+    }
+
+    public void setLabel(Label label) {
+        this.label = label;
+    }
+
+    public List<Track> getTracks() {
+        return tracks;
+    }
+
+    public void setTracks(List<Track> tracks) {
+        this.tracks = tracks;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AlbumDetail that = (AlbumDetail) o;
+        return Objects.equals(album, that.album) && Objects.equals(artist, that.artist) && Objects.equals(label, that.label) && Objects.equals(tracks, that.tracks);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(album, artist, label, tracks);
+    }
+
+    @Override
+    public String toString() {
+        return "AlbumDetail{" +
+                "album=" + album +
+                ", artist=" + artist +
+                ", label=" + label +
+                ", tracks=" + tracks +
+                '}';
+    }
+}
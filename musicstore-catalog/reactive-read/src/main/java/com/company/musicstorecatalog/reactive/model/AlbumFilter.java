@@ -0,0 +1,122 @@
+package com.company.musicstorecatalog.reactive.model;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Optional filters and sort order for GET /album, bound from the query string
+// (?artistId=&labelId=&releasedFrom=&releasedTo=&minPrice=&maxPrice=&sort=&desc=).
+// Each filter has an index behind it in db/music-store-catalog.sql, see AlbumCriteria.
+public class AlbumFilter {
+    private Integer artistId;
+    private Integer labelId;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate releasedFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate releasedTo;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    // albumId (default), releaseDate or listPrice
+    private String sort;
+    private boolean desc;
+
+    public AlbumFilter() {}
+
+    public boolean isEmpty() {
+        return artistId == null && labelId == null && releasedFrom == null && releasedTo == null
+                && minPrice == null && maxPrice == null && sort == null && !desc;
+    }
+
+    public Integer getArtistId() {
+        return artistId;
+    }
+
+    public void setArtistId(Integer artistId) {
+        this.artistId = artistId;
+    }
+
+    public Integer getLabelId() {
+        return labelId;
+    }
+
+    public void setLabelId(Integer labelId) {
+        this.labelId = labelId;
+    }
+
+    public LocalDate getReleasedFrom() {
+        return releasedFrom;
+    }
+
+    public void setReleasedFrom(LocalDate releasedFrom) {
+        this.releasedFrom = releasedFrom;
+    }
+
+    public LocalDate getReleasedTo() {
+        return releasedTo;
+    }
+
+    public void setReleasedTo(LocalDate releasedTo) {
+        this.releasedTo = releasedTo;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public boolean isDesc() {
+        return desc;
+    }
+
+    public void setDesc(boolean desc) {
+        this.desc = desc;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AlbumFilter that = (AlbumFilter) o;
+        return desc == that.desc && Objects.equals(artistId, that.artistId) && Objects.equals(labelId, that.labelId) && Objects.equals(releasedFrom, that.releasedFrom) && Objects.equals(releasedTo, that.releasedTo) && Objects.equals(minPrice, that.minPrice) && Objects.equals(maxPrice, that.maxPrice) && Objects.equals(sort, that.sort);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(artistId, labelId, releasedFrom, releasedTo, minPrice, maxPrice, sort, desc);
+    }
+
+    @Override
+    public String toString() {
+        return "AlbumFilter{" +
+                "artistId=" + artistId +
+                ", labelId=" + labelId +
+                ", releasedFrom=" + releasedFrom +
+                ", releasedTo=" + releasedTo +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                ", sort='" + sort + '\'' +
+                ", desc=" + desc +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.company.musicstorecatalog.reactive.model;
+
+import java.util.Objects;
+
+// List view of an album (GET /album/summary), read from the four columns it needs.
+public class AlbumSummary {
+    private final Integer albumId;
+    private final String title;
+    private final Integer artistId;
+    private final Integer labelId;
+
+    public AlbumSummary(Integer albumId, String title, Integer artistId, Integer labelId) {
+        this.albumId = albumId;
+        this.title = title;
+        this.artistId = artistId;
+        this.labelId = labelId;
+    }
+
+    public Integer getAlbumId() {
+        return albumId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Integer getArtistId() {
+        return artistId;
+    }
+
+    public Integer getLabelId() {
+        return labelId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AlbumSummary that = (AlbumSummary) o;
+        return Objects.equals(albumId, that.albumId) && Objects.equals(title, that.title) && Objects.equals(artistId, that.artistId) && Objects.equals(labelId, that.labelId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(albumId, title, artistId, labelId);
+    }
+
+    @Override
+    public String toString() {
+        return "AlbumSummary{" +
+                "albumId=" + albumId +
+                ", title='" + title + '\'' +
+                ", artistId=" + artistId +
+                ", labelId=" + labelId +
+                '}';
+    }
+}
@@ -0,0 +1,85 @@
+package com.company.musicstorecatalog.reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.util.Objects;
+
+// Read-only mapping of the artist table, see Album.
+@Table("artist")
+public class Artist {
+    @Id
+    @Column("artist_id")
+    private Integer artistId;
+    private String name;
+    private String instagram;
+    private String twitter;
+    private Integer version;
+
+    public Artist() {}
+
+    public Integer getArtistId() {
+        return artistId;
+    }
+
+    public void setArtistId(Integer artistId) {
+        this.artistId = artistId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getInstagram() {
+        return instagram;
+    }
+
+    public void setInstagram(String instagram) {
+        this.instagram = instagram;
+    }
+
+    public String getTwitter() {
+        return twitter;
+    }
+
+    public void setTwitter(String twitter) {
+        this.twitter = twitter;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Artist artist = (Artist) o;
+        return Objects.equals(artistId, artist.artistId) && Objects.equals(name, artist.name) && Objects.equals(instagram, artist.instagram) && Objects.equals(twitter, artist.twitter) && Objects.equals(version, artist.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(artistId, name, instagram, twitter, version);
+    }
+
+    @Override
+    public String toString() {
+        return "Artist{" +
+                "artistId=" + artistId +
+                ", name='" + name + '\'' +
+                ", instagram='" + instagram + '\'' +
+                ", twitter='" + twitter + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,8 @@
+package com.company.musicstorecatalog.reactive.model;
+
+// A page cursor (?after=) that CursorPage did not hand out (400).
+public class InvalidCursorException extends IllegalArgumentException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
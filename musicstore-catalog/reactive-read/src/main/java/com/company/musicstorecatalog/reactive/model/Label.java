@@ -0,0 +1,75 @@
+package com.company.musicstorecatalog.reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.util.Objects;
+
+// Read-only mapping of the label table, see Album.
+@Table("label")
+public class Label {
+    @Id
+    @Column("label_id")
+    private Integer labelId;
+    private String name;
+    private String website;
+    private Integer version;
+
+    public Label() {}
+
+    public Integer getLabelId() {
+        return labelId;
+    }
+
+    public void setLabelId(Integer labelId) {
+        this.labelId = labelId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getWebsite() {
+        return website;
+    }
+
+    public void setWebsite(String website) {
+        this.website = website;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Label label = (Label) o;
+        return Objects.equals(labelId, label.labelId) && Objects.equals(name, label.name) && Objects.equals(website, label.website) && Objects.equals(version, label.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(labelId, name, website, version);
+    }
+
+    @Override
+    public String toString() {
+        return "Label{" +
+                "labelId=" + labelId +
+                ", name='" + name + '\'' +
+                ", website='" + website + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+package com.company.musicstorecatalog.reactive.model;
+
+import java.util.Objects;
+
+// List view of a label, see AlbumSummary.
+public class LabelSummary {
+    private final Integer labelId;
+    private final String name;
+
+    public LabelSummary(Integer labelId, String name) {
+        this.labelId = labelId;
+        this.name = name;
+    }
+
+    public Integer getLabelId() {
+        return labelId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LabelSummary that = (LabelSummary) o;
+        return Objects.equals(labelId, that.labelId) && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(labelId, name);
+    }
+
+    @Override
+    public String toString() {
+        return "LabelSummary{" +
+                "labelId=" + labelId +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
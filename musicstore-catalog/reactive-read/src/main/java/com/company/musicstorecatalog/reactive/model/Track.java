@@ -0,0 +1,87 @@
+package com.company.musicstorecatalog.reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.util.Objects;
+
+// Read-only mapping of the track table, see Album.
+@Table("track")
+public class Track {
+    @Id
+    @Column("track_id")
+    private Integer trackId;
+    private String title;
+    @Column("run_time")
+    private Integer runTime;
+    @Column("album_id")
+    private Integer albumId;
+    private Integer version;
+
+    public Track() {}
+
+    public Integer getTrackId() {
+        return trackId;
+    }
+
+    public void setTrackId(Integer trackId) {
+        this.trackId = trackId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Integer getRunTime() {
+        return runTime;
+    }
+
+    public void setRunTime(Integer runTime) {
+        this.runTime = runTime;
+    }
+
+    public Integer getAlbumId() {
+        return albumId;
+    }
+
+    public void setAlbumId(Integer albumId) {
+        this.albumId = albumId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Track track = (Track) o;
+        return Objects.equals(trackId, track.trackId) && Objects.equals(title, track.title) && Objects.equals(runTime, track.runTime) && Objects.equals(albumId, track.albumId) && Objects.equals(version, track.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(trackId, title, runTime, albumId, version);
+    }
+
+    @Override
+    public String toString() {
+        return "Track{" +
+                "trackId=" + trackId +
+                ", title='" + title + '\'' +
+                ", runTime=" + runTime +
+                ", albumId=" + albumId +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,84 @@
+package com.company.musicstorecatalog.reactive.model;
+
+import java.util.Objects;
+
+// Optional filters and sort order for GET /track (?albumId=&minRunTime=&maxRunTime=&sort=&desc=),
+// see AlbumFilter and TrackCriteria.
+public class TrackFilter {
+    private Integer albumId;
+    private Integer minRunTime;
+    private Integer maxRunTime;
+    // trackId (default) or runTime
+    private String sort;
+    private boolean desc;
+
+    public TrackFilter() {}
+
+    public boolean isEmpty() {
+        return albumId == null && minRunTime == null && maxRunTime == null && sort == null && !desc;
+    }
+
+    public Integer getAlbumId() {
+        return albumId;
+    }
+
+    public void setAlbumId(Integer albumId) {
+        this.albumId = albumId;
+    }
+
+    public Integer getMinRunTime() {
+        return minRunTime;
+    }
+
+    public void setMinRunTime(Integer minRunTime) {
+        this.minRunTime = minRunTime;
+    }
+
+    public Integer getMaxRunTime() {
+        return maxRunTime;
+    }
+
+    public void setMaxRunTime(Integer maxRunTime) {
+        this.maxRunTime = maxRunTime;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public boolean isDesc() {
+        return desc;
+    }
+
+    public void setDesc(boolean desc) {
+        this.desc = desc;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TrackFilter that = (TrackFilter) o;
+        return desc == that.desc && Objects.equals(albumId, that.albumId) && Objects.equals(minRunTime, that.minRunTime) && Objects.equals(maxRunTime, that.maxRunTime) && Objects.equals(sort, that.sort);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(albumId, minRunTime, maxRunTime, sort, desc);
+    }
+
+    @Override
+    public String toString() {
+        return "TrackFilter{" +
+                "albumId=" + albumId +
+                ", minRunTime=" + minRunTime +
+                ", maxRunTime=" + maxRunTime +
+                ", sort='" + sort + '\'' +
+                ", desc=" + desc +
+                '}';
+    }
+}
@@ -0,0 +1,61 @@
+package com.company.musicstorecatalog.reactive.repository;
+
+import com.company.musicstorecatalog.reactive.model.AlbumFilter;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.query.Criteria;
+
+import java.util.Arrays;
+import java.util.List;
+
+// The GET /album filters as R2DBC criteria: the same checks, ranges and sorts as AlbumSpecifications in
+// the app, so each filter still runs on the index listed there.
+public final class AlbumCriteria {
+    public static final List<String> SORTS = Arrays.asList("albumId", "releaseDate", "listPrice");
+
+    private AlbumCriteria() {}
+
+    public static Criteria matching(AlbumFilter filter) {
+        if (filter.getReleasedFrom() != null && filter.getReleasedTo() != null
+                && filter.getReleasedFrom().isAfter(filter.getReleasedTo()))
+            throw new IllegalArgumentException("releasedFrom is supposed to be on or before releasedTo!");
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null
+                && filter.getMinPrice().compareTo(filter.getMaxPrice()) > 0)
+            throw new IllegalArgumentException("minPrice is supposed to be less than or equal to maxPrice!");
+
+        Criteria criteria = Criteria.empty();
+        if (filter.getArtistId() != null)
+            criteria = criteria.and("artistId").is(filter.getArtistId());
+        if (filter.getLabelId() != null)
+            criteria = criteria.and("labelId").is(filter.getLabelId());
+        if (filter.getReleasedFrom() != null)
+            criteria = criteria.and("releaseDate").greaterThanOrEquals(filter.getReleasedFrom());
+        if (filter.getReleasedTo() != null)
+            criteria = criteria.and("releaseDate").lessThanOrEquals(filter.getReleasedTo());
+        if (filter.getMinPrice() != null)
+            criteria = criteria.and("listPrice").greaterThanOrEquals(filter.getMinPrice());
+        if (filter.getMaxPrice() != null)
+            criteria = criteria.and("listPrice").lessThanOrEquals(filter.getMaxPrice());
+        return criteria;
+    }
+
+    // every check the filter queries make, so controllers can fail before subscribing
+    public static void check(AlbumFilter filter, boolean paged) {
+        matching(filter);
+        if (!sortOf(filter).equals(Sort.by("albumId")) && paged)
+            throw new IllegalArgumentException("Cursor pages are always in albumId order, sort is not supported with limit!");
+    }
+
+    public static Criteria idAfter(Integer after) {
+        return Criteria.where("albumId").greaterThan(after);
+    }
+
+    // the requested order, ties broken by albumId
+    public static Sort sortOf(AlbumFilter filter) {
+        String property = filter.getSort() == null ? "albumId" : filter.getSort();
+        if (!SORTS.contains(property))
+            throw new IllegalArgumentException("sort is supposed to be one of " + SORTS + "!");
+        Sort.Direction direction = filter.isDesc() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, property);
+        return property.equals("albumId") ? sort : sort.and(Sort.by(direction, "albumId"));
+    }
+}
@@ -0,0 +1,14 @@
+package com.company.musicstorecatalog.reactive.repository;
+
+import com.company.musicstorecatalog.reactive.model.Album;
+import com.company.musicstorecatalog.reactive.model.AlbumFilter;
+import reactor.core.publisher.Flux;
+
+// filter queries of AlbumRepository, built from AlbumCriteria
+public interface AlbumFilterRepository {
+    // every matching album, in the filter's sort order
+    Flux<Album> findFiltered(AlbumFilter filter);
+
+    // keyset page of matching albums in albumId order; only the default sort can be paged this way
+    Flux<Album> findFilteredAfter(AlbumFilter filter, Integer after, int limit);
+}
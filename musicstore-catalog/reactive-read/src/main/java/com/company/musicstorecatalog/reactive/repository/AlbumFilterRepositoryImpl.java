@@ -0,0 +1,32 @@
+package com.company.musicstorecatalog.reactive.repository;
+
+import com.company.musicstorecatalog.reactive.model.Album;
+import com.company.musicstorecatalog.reactive.model.AlbumFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Query;
+import reactor.core.publisher.Flux;
+
+public class AlbumFilterRepositoryImpl implements AlbumFilterRepository {
+    @Autowired
+    R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<Album> findFiltered(AlbumFilter filter) {
+        return Flux.defer(() -> template.select(Album.class)
+                .matching(Query.query(AlbumCriteria.matching(filter)).sort(AlbumCriteria.sortOf(filter)))
+                .all());
+    }
+
+    @Override
+    public Flux<Album> findFilteredAfter(AlbumFilter filter, Integer after, int limit) {
+        return Flux.defer(() -> {
+            AlbumCriteria.check(filter, true);
+            return template.select(Album.class)
+                    .matching(Query.query(AlbumCriteria.matching(filter).and(AlbumCriteria.idAfter(after)))
+                            .sort(Sort.by("albumId")).limit(limit))
+                    .all();
+        });
+    }
+}
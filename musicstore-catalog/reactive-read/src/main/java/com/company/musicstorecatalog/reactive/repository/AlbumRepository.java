@@ -0,0 +1,21 @@
+package com.company.musicstorecatalog.reactive.repository;
+
+import com.company.musicstorecatalog.reactive.model.Album;
+import com.company.musicstorecatalog.reactive.model.AlbumSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface AlbumRepository extends ReactiveCrudRepository<Album, Integer>, AlbumFilterRepository {
+    Flux<Album> findByAlbumIdGreaterThanOrderByAlbumIdAsc(Integer albumId, Pageable pageable);
+
+    // rows are read from the connection only as fast as the subscriber requests them
+    @Query("select * from album order by album_id")
+    Flux<Album> streamAll();
+
+    @Query("select album_id, title, artist_id, label_id from album where album_id > :after order by album_id limit :limit")
+    Flux<AlbumSummary> findSummariesAfter(Integer after, int limit);
+}
@@ -0,0 +1,21 @@
+package com.company.musicstorecatalog.reactive.repository;
+
+import com.company.musicstorecatalog.reactive.model.Artist;
+import com.company.musicstorecatalog.reactive.model.ArtistSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ArtistRepository extends ReactiveCrudRepository<Artist, Integer> {
+    Flux<Artist> findByArtistIdGreaterThanOrderByArtistIdAsc(Integer artistId, Pageable pageable);
+
+    // see AlbumRepository.streamAll()
+    @Query("select * from artist order by artist_id")
+    Flux<Artist> streamAll();
+
+    @Query("select artist_id, name from artist where artist_id > :after order by artist_id limit :limit")
+    Flux<ArtistSummary> findSummariesAfter(Integer after, int limit);
+}
@@ -0,0 +1,21 @@
+package com.company.musicstorecatalog.reactive.repository;
+
+import com.company.musicstorecatalog.reactive.model.Label;
+import com.company.musicstorecatalog.reactive.model.LabelSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface LabelRepository extends ReactiveCrudRepository<Label, Integer> {
+    Flux<Label> findByLabelIdGreaterThanOrderByLabelIdAsc(Integer labelId, Pageable pageable);
+
+    // see AlbumRepository.streamAll()
+    @Query("select * from label order by label_id")
+    Flux<Label> streamAll();
+
+    @Query("select label_id, name from label where label_id > :after order by label_id limit :limit")
+    Flux<LabelSummary> findSummariesAfter(Integer after, int limit);
+}
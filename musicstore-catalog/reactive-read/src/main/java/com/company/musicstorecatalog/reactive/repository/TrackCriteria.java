@@ -0,0 +1,49 @@
+package com.company.musicstorecatalog.reactive.repository;
+
+import com.company.musicstorecatalog.reactive.model.TrackFilter;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.query.Criteria;
+
+import java.util.Arrays;
+import java.util.List;
+
+// The GET /track filters, see AlbumCriteria and the app's TrackSpecifications.
+public final class TrackCriteria {
+    public static final List<String> SORTS = Arrays.asList("trackId", "runTime");
+
+    private TrackCriteria() {}
+
+    public static Criteria matching(TrackFilter filter) {
+        if (filter.getMinRunTime() != null && filter.getMaxRunTime() != null
+                && filter.getMinRunTime() > filter.getMaxRunTime())
+            throw new IllegalArgumentException("minRunTime is supposed to be less than or equal to maxRunTime!");
+
+        Criteria criteria = Criteria.empty();
+        if (filter.getAlbumId() != null)
+            criteria = criteria.and("albumId").is(filter.getAlbumId());
+        if (filter.getMinRunTime() != null)
+            criteria = criteria.and("runTime").greaterThanOrEquals(filter.getMinRunTime());
+        if (filter.getMaxRunTime() != null)
+            criteria = criteria.and("runTime").lessThanOrEquals(filter.getMaxRunTime());
+        return criteria;
+    }
+
+    public static void check(TrackFilter filter, boolean paged) {
+        matching(filter);
+        if (!sortOf(filter).equals(Sort.by("trackId")) && paged)
+            throw new IllegalArgumentException("Cursor pages are always in trackId order, sort is not supported with limit!");
+    }
+
+    public static Criteria idAfter(Integer after) {
+        return Criteria.where("trackId").greaterThan(after);
+    }
+
+    public static Sort sortOf(TrackFilter filter) {
+        String property = filter.getSort() == null ? "trackId" : filter.getSort();
+        if (!SORTS.contains(property))
+            throw new IllegalArgumentException("sort is supposed to be one of " + SORTS + "!");
+        Sort.Direction direction = filter.isDesc() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, property);
+        return property.equals("trackId") ? sort : sort.and(Sort.by(direction, "trackId"));
+    }
+}
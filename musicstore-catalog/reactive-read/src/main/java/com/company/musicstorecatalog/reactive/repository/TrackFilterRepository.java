@@ -0,0 +1,14 @@
+package com.company.musicstorecatalog.reactive.repository;
+
+import com.company.musicstorecatalog.reactive.model.Track;
+import com.company.musicstorecatalog.reactive.model.TrackFilter;
+import reactor.core.publisher.Flux;
+
+// filter queries of TrackRepository, built from TrackCriteria
+public interface TrackFilterRepository {
+    // every matching track, in the filter's sort order
+    Flux<Track> findFiltered(TrackFilter filter);
+
+    // keyset page of matching tracks in trackId order; only the default sort can be paged this way
+    Flux<Track> findFilteredAfter(TrackFilter filter, Integer after, int limit);
+}
@@ -0,0 +1,32 @@
+package com.company.musicstorecatalog.reactive.repository;
+
+import com.company.musicstorecatalog.reactive.model.Track;
+import com.company.musicstorecatalog.reactive.model.TrackFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Query;
+import reactor.core.publisher.Flux;
+
+public class TrackFilterRepositoryImpl implements TrackFilterRepository {
+    @Autowired
+    R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<Track> findFiltered(TrackFilter filter) {
+        return Flux.defer(() -> template.select(Track.class)
+                .matching(Query.query(TrackCriteria.matching(filter)).sort(TrackCriteria.sortOf(filter)))
+                .all());
+    }
+
+    @Override
+    public Flux<Track> findFilteredAfter(TrackFilter filter, Integer after, int limit) {
+        return Flux.defer(() -> {
+            TrackCriteria.check(filter, true);
+            return template.select(Track.class)
+                    .matching(Query.query(TrackCriteria.matching(filter).and(TrackCriteria.idAfter(after)))
+                            .sort(Sort.by("trackId")).limit(limit))
+                    .all();
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.company.musicstorecatalog.reactive.repository;
+
+import com.company.musicstorecatalog.reactive.model.Track;
+import com.company.musicstorecatalog.reactive.model.TrackSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface TrackRepository extends ReactiveCrudRepository<Track, Integer>, TrackFilterRepository {
+    Flux<Track> findByTrackIdGreaterThanOrderByTrackIdAsc(Integer trackId, Pageable pageable);
+
+    // see AlbumRepository.streamAll()
+    @Query("select * from track order by track_id")
+    Flux<Track> streamAll();
+
+    @Query("select track_id, album_id, title from track where track_id > :after order by track_id limit :limit")
+    Flux<TrackSummary> findSummariesAfter(Integer after, int limit);
+
+    // the tracks of an album page, through fk_album_id
+    Flux<Track> findByAlbumIdOrderByTrackIdAsc(Integer albumId);
+}
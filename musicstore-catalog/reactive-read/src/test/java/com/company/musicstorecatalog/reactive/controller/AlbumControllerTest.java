@@ -0,0 +1,269 @@
+package com.company.musicstorecatalog.reactive.controller;
+
+import com.company.musicstorecatalog.reactive.model.Album;
+import com.company.musicstorecatalog.reactive.model.AlbumDetail;
+import com.company.musicstorecatalog.reactive.model.AlbumFilter;
+import com.company.musicstorecatalog.reactive.model.AlbumSummary;
+import com.company.musicstorecatalog.reactive.model.Artist;
+import com.company.musicstorecatalog.reactive.model.CursorPage;
+import com.company.musicstorecatalog.reactive.model.Label;
+import com.company.musicstorecatalog.reactive.model.Track;
+import com.company.musicstorecatalog.reactive.repository.AlbumRepository;
+import com.company.musicstorecatalog.reactive.repository.ArtistRepository;
+import com.company.musicstorecatalog.reactive.repository.LabelRepository;
+import com.company.musicstorecatalog.reactive.repository.TrackRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SpringRunner.class)
+@WebFluxTest(AlbumController.class)
+public class AlbumControllerTest {
+    @Autowired
+    private WebTestClient webClient;
+
+    @MockBean
+    private AlbumRepository albumRepository;
+
+    @MockBean
+    private TrackRepository trackRepository;
+
+    @MockBean
+    private ArtistRepository artistRepository;
+
+    @MockBean
+    private LabelRepository labelRepository;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private Album outputAlbum = new Album();
+    private String outputJson;
+
+    @Before
+    public void setUp() throws Exception {
+        outputAlbum.setTitle("Bad");
+        outputAlbum.setListPrice(new BigDecimal("19.99"));
+        outputAlbum.setReleaseDate(LocalDate.parse("1987-01-01"));
+        outputAlbum.setArtistId(5);
+        outputAlbum.setLabelId(20);
+        outputAlbum.setAlbumId(1);
+        outputAlbum.setVersion(0);
+
+        outputJson = "{\"albumId\":1,\"title\":\"Bad\",\"listPrice\":19.99,\"releaseDate\":\"1987-01-01\","
+                + "\"artistId\":5,\"labelId\":20,\"version\":0}";
+    }
+
+    @Test
+    public void shouldGetAllAlbums() throws Exception {
+        doReturn(Flux.just(outputAlbum)).when(albumRepository).streamAll();
+
+        //Act & Assert
+        webClient.get().uri("/album").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody().json("[" + outputJson + "]");
+    }
+
+    @Test
+    public void shouldGetFilteredAlbums() throws Exception {
+        AlbumFilter filter = new AlbumFilter();
+        filter.setArtistId(5);
+        filter.setReleasedFrom(LocalDate.parse("2010-01-01"));
+        filter.setMaxPrice(new BigDecimal("15"));
+
+        doReturn(Flux.just(outputAlbum)).when(albumRepository).findFiltered(filter);
+
+        //Act & Assert
+        webClient.get().uri("/album?artistId=5&releasedFrom=2010-01-01&maxPrice=15").exchange()
+                .expectStatus().isOk()
+                .expectBody().json("[" + outputJson + "]");
+
+        verify(albumRepository, never()).streamAll();
+    }
+
+    @Test
+    public void shouldReturn404ForUnknownAlbumSort() throws Exception {
+        //Act & Assert
+        webClient.get().uri("/album?sort=title").exchange()
+                .expectStatus().isNotFound();
+
+        verify(albumRepository, never()).findFiltered(any());
+    }
+
+    @Test
+    public void shouldStreamAlbumsAsNdjson() throws Exception {
+        Album secondAlbum = new Album();
+        secondAlbum.setAlbumId(2);
+
+        doReturn(Flux.just(outputAlbum, secondAlbum)).when(albumRepository).streamAll();
+
+        //Act & Assert
+        List<Album> streamed = webClient.get().uri("/album").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Album.class).getResponseBody().collectList().block();
+
+        List<Album> expected = new ArrayList<>();
+        expected.add(outputAlbum);
+        expected.add(secondAlbum);
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    public void shouldGetAlbumPageWithNextCursor() throws Exception {
+        Album secondAlbum = new Album();
+        secondAlbum.setAlbumId(outputAlbum.getAlbumId() + 1);
+
+        doReturn(Flux.just(outputAlbum, secondAlbum)).when(albumRepository)
+                .findByAlbumIdGreaterThanOrderByAlbumIdAsc(0, PageRequest.of(0, 2));
+
+        //Act & Assert
+        webClient.get().uri("/album?limit=1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(1)
+                .jsonPath("$.items[0].albumId").isEqualTo(outputAlbum.getAlbumId())
+                .jsonPath("$.nextCursor").isEqualTo(CursorPage.encodeCursor(outputAlbum.getAlbumId()));
+    }
+
+    @Test
+    public void shouldGetAlbumSummaries() throws Exception {
+        AlbumSummary summary = new AlbumSummary(outputAlbum.getAlbumId(), outputAlbum.getTitle(),
+                outputAlbum.getArtistId(), outputAlbum.getLabelId());
+        List<AlbumSummary> summaryList = new ArrayList<>();
+        summaryList.add(summary);
+
+        doReturn(Flux.just(summary)).when(albumRepository).findSummariesAfter(0, 101);
+
+        //Act & Assert
+        webClient.get().uri("/album/summary").exchange()
+                .expectStatus().isOk()
+                .expectBody().json(mapper.writeValueAsString(new CursorPage<>(summaryList, null)));
+    }
+
+    @Test
+    public void shouldGetAlbumDetailWithArtistLabelAndTracks() throws Exception {
+        Artist artist = new Artist();
+        artist.setArtistId(5);
+        artist.setName("Michael Jackson");
+
+        Label label = new Label();
+        label.setLabelId(20);
+        label.setName("Epic Records");
+
+        Track track = new Track();
+        track.setTrackId(11);
+        track.setTitle("Bad");
+        track.setRunTime(247);
+        track.setAlbumId(1);
+
+        doReturn(Mono.just(outputAlbum)).when(albumRepository).findById(1);
+        doReturn(Mono.just(artist)).when(artistRepository).findById(5);
+        doReturn(Mono.just(label)).when(labelRepository).findById(20);
+        doReturn(Flux.just(track)).when(trackRepository).findByAlbumIdOrderByTrackIdAsc(1);
+
+        //Act & Assert
+        AlbumDetail albumDetail = webClient.get().uri("/album/1/full").exchange()
+                .expectStatus().isOk()
+                .expectBody(AlbumDetail.class).returnResult().getResponseBody();
+
+        AlbumDetail expected = new AlbumDetail(outputAlbum, artist, label);
+        expected.getTracks().add(track);
+        assertEquals(expected, albumDetail);
+    }
+
+    @Test
+    public void shouldGetAlbumDetailWithoutLabel() throws Exception {
+        outputAlbum.setLabelId(null);
+
+        doReturn(Mono.just(outputAlbum)).when(albumRepository).findById(1);
+        doReturn(Mono.empty()).when(artistRepository).findById(5);
+        doReturn(Flux.empty()).when(trackRepository).findByAlbumIdOrderByTrackIdAsc(1);
+
+        //Act & Assert
+        webClient.get().uri("/album/1/full").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.album.albumId").isEqualTo(1)
+                .jsonPath("$.artist").doesNotExist()
+                .jsonPath("$.label").doesNotExist()
+                .jsonPath("$.tracks.length()").isEqualTo(0);
+
+        verify(labelRepository, never()).findById(any(Integer.class));
+    }
+
+    @Test
+    public void shouldReturnAlbumWithETag() throws Exception {
+        outputAlbum.setVersion(3);
+        doReturn(Mono.just(outputAlbum)).when(albumRepository).findById(1);
+
+        //Act & Assert
+        webClient.get().uri("/album/1").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v3\"")
+                .expectBody().jsonPath("$.albumId").isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReturn304ForAlbumWhenVersionMatches() throws Exception {
+        outputAlbum.setVersion(3);
+        doReturn(Mono.just(outputAlbum)).when(albumRepository).findById(1);
+
+        //Act & Assert
+        webClient.get().uri("/album/1").header(HttpHeaders.IF_NONE_MATCH, "\"v3\"").exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void shouldStatus404ForNonExistentAlbumId() throws Exception {
+        doReturn(Mono.empty()).when(albumRepository).findById(101);
+
+        webClient.get().uri("/album/101").exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("No album was found with Id: 101");
+    }
+
+    @Test
+    public void shouldStatus404ForNonExistentAlbumDetail() throws Exception {
+        doReturn(Mono.empty()).when(albumRepository).findById(101);
+
+        webClient.get().uri("/album/101/full").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void shouldReturn404WhenReadEmptyAlbumTable() throws Exception {
+        doReturn(Flux.empty()).when(albumRepository).streamAll();
+
+        webClient.get().uri("/album").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void shouldReturn400WhenAlbumCursorNotValid() throws Exception {
+        webClient.get().uri("/album?after=not-a-cursor&limit=10").exchange()
+                .expectStatus().isBadRequest();
+    }
+}
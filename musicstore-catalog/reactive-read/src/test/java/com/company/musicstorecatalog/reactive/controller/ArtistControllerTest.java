@@ -0,0 +1,84 @@
+package com.company.musicstorecatalog.reactive.controller;
+
+import com.company.musicstorecatalog.reactive.model.Artist;
+import com.company.musicstorecatalog.reactive.model.ArtistSummary;
+import com.company.musicstorecatalog.reactive.model.CursorPage;
+import com.company.musicstorecatalog.reactive.repository.ArtistRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.Mockito.doReturn;
+
+@RunWith(SpringRunner.class)
+@WebFluxTest(ArtistController.class)
+public class ArtistControllerTest {
+    @Autowired
+    private WebTestClient webClient;
+
+    @MockBean
+    private ArtistRepository artistRepository;
+
+    private Artist outputArtist = new Artist();
+
+    @Before
+    public void setUp() throws Exception {
+        outputArtist.setArtistId(5);
+        outputArtist.setName("Michael Jackson");
+        outputArtist.setInstagram("@michaeljackson");
+        outputArtist.setTwitter("@michaeljackson");
+        outputArtist.setVersion(1);
+    }
+
+    @Test
+    public void shouldGetAllArtists() throws Exception {
+        doReturn(Flux.just(outputArtist)).when(artistRepository).streamAll();
+
+        //Act & Assert
+        webClient.get().uri("/artist").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody().json("[{\"artistId\":5,\"name\":\"Michael Jackson\",\"instagram\":\"@michaeljackson\","
+                        + "\"twitter\":\"@michaeljackson\",\"version\":1}]");
+    }
+
+    @Test
+    public void shouldGetArtistSummariesWithNextCursor() throws Exception {
+        doReturn(Flux.just(new ArtistSummary(5, "Michael Jackson"), new ArtistSummary(6, "Prince")))
+                .when(artistRepository).findSummariesAfter(0, 2);
+
+        //Act & Assert
+        webClient.get().uri("/artist/summary?limit=1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items[0].name").isEqualTo("Michael Jackson")
+                .jsonPath("$.nextCursor").isEqualTo(CursorPage.encodeCursor(5));
+    }
+
+    @Test
+    public void shouldReturnArtistWithETag() throws Exception {
+        doReturn(Mono.just(outputArtist)).when(artistRepository).findById(5);
+
+        //Act & Assert
+        webClient.get().uri("/artist/5").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v1\"");
+    }
+
+    @Test
+    public void shouldReturn404WhenReadEmptyArtistTable() throws Exception {
+        doReturn(Flux.empty()).when(artistRepository).streamAll();
+
+        webClient.get().uri("/artist").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("Artists data is empty!");
+    }
+}
@@ -0,0 +1,76 @@
+package com.company.musicstorecatalog.reactive.controller;
+
+import com.company.musicstorecatalog.reactive.model.Label;
+import com.company.musicstorecatalog.reactive.repository.LabelRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.Mockito.doReturn;
+
+@RunWith(SpringRunner.class)
+@WebFluxTest(LabelController.class)
+public class LabelControllerTest {
+    @Autowired
+    private WebTestClient webClient;
+
+    @MockBean
+    private LabelRepository labelRepository;
+
+    private Label outputLabel = new Label();
+
+    @Before
+    public void setUp() throws Exception {
+        outputLabel.setLabelId(20);
+        outputLabel.setName("Epic Records");
+        outputLabel.setWebsite("www.epicrecords.com");
+        outputLabel.setVersion(0);
+    }
+
+    @Test
+    public void shouldStreamLabelsAsNdjson() throws Exception {
+        doReturn(Flux.just(outputLabel)).when(labelRepository).streamAll();
+
+        //Act & Assert
+        webClient.get().uri("/label").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).isEqualTo(
+                        "{\"labelId\":20,\"name\":\"Epic Records\",\"website\":\"www.epicrecords.com\",\"version\":0}\n");
+    }
+
+    @Test
+    public void shouldGetLabelPage() throws Exception {
+        doReturn(Flux.just(outputLabel)).when(labelRepository)
+                .findByLabelIdGreaterThanOrderByLabelIdAsc(0, PageRequest.of(0, 11));
+
+        //Act & Assert
+        webClient.get().uri("/label?limit=10").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.items[0].labelId").isEqualTo(20);
+    }
+
+    @Test
+    public void shouldReturn404WhenLabelLimitTooLarge() throws Exception {
+        webClient.get().uri("/label?limit=1001").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void shouldStatus404ForNonExistentLabelId() throws Exception {
+        doReturn(Mono.empty()).when(labelRepository).findById(101);
+
+        webClient.get().uri("/label/101").exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("No label was found with Id: 101");
+    }
+}
@@ -0,0 +1,110 @@
+package com.company.musicstorecatalog.reactive.controller;
+
+import com.company.musicstorecatalog.reactive.model.CursorPage;
+import com.company.musicstorecatalog.reactive.model.Track;
+import com.company.musicstorecatalog.reactive.model.TrackFilter;
+import com.company.musicstorecatalog.reactive.repository.TrackRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SpringRunner.class)
+@WebFluxTest(TrackController.class)
+public class TrackControllerTest {
+    @Autowired
+    private WebTestClient webClient;
+
+    @MockBean
+    private TrackRepository trackRepository;
+
+    private Track outputTrack = new Track();
+
+    @Before
+    public void setUp() throws Exception {
+        outputTrack.setTrackId(11);
+        outputTrack.setTitle("Bad");
+        outputTrack.setRunTime(247);
+        outputTrack.setAlbumId(1);
+        outputTrack.setVersion(2);
+    }
+
+    @Test
+    public void shouldGetAllTracks() throws Exception {
+        doReturn(Flux.just(outputTrack)).when(trackRepository).streamAll();
+
+        //Act & Assert
+        webClient.get().uri("/track").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody().json("[{\"trackId\":11,\"title\":\"Bad\",\"runTime\":247,\"albumId\":1,\"version\":2}]");
+    }
+
+    @Test
+    public void shouldGetFilteredTracks() throws Exception {
+        TrackFilter filter = new TrackFilter();
+        filter.setAlbumId(1);
+        filter.setSort("runTime");
+
+        doReturn(Flux.just(outputTrack)).when(trackRepository).findFiltered(filter);
+
+        //Act & Assert
+        webClient.get().uri("/track?albumId=1&sort=runTime").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].trackId").isEqualTo(11);
+    }
+
+    @Test
+    public void shouldReturn404ForSortedTrackPage() throws Exception {
+        //Act & Assert
+        webClient.get().uri("/track?albumId=1&sort=runTime&limit=10").exchange()
+                .expectStatus().isNotFound();
+
+        verify(trackRepository, never()).findFilteredAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    public void shouldGetTrackPageWithoutNextCursorOnLastPage() throws Exception {
+        doReturn(Flux.just(outputTrack)).when(trackRepository)
+                .findByTrackIdGreaterThanOrderByTrackIdAsc(10, PageRequest.of(0, 3));
+
+        //Act & Assert
+        webClient.get().uri("/track?limit=2&after=" + CursorPage.encodeCursor(10)).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(1)
+                .jsonPath("$.nextCursor").doesNotExist();
+    }
+
+    @Test
+    public void shouldReturn304ForTrackWhenVersionMatches() throws Exception {
+        doReturn(Mono.just(outputTrack)).when(trackRepository).findById(11);
+
+        //Act & Assert
+        webClient.get().uri("/track/11").header(HttpHeaders.IF_NONE_MATCH, "\"v2\"").exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void shouldStatus404ForNonExistentTrackId() throws Exception {
+        doReturn(Mono.empty()).when(trackRepository).findById(101);
+
+        webClient.get().uri("/track/101").exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,130 @@
+package com.company.musicstorecatalog.reactive.repository;
+
+import com.company.musicstorecatalog.reactive.model.Album;
+import com.company.musicstorecatalog.reactive.model.AlbumFilter;
+import com.company.musicstorecatalog.reactive.model.AlbumSummary;
+import com.company.musicstorecatalog.reactive.model.TrackFilter;
+import com.company.musicstorecatalog.reactive.model.TrackSummary;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+// the queries behind the controllers, run against H2 in MySQL mode instead of a MySQL server
+@RunWith(SpringRunner.class)
+@DataR2dbcTest(properties = "spring.r2dbc.url=r2dbc:h2:mem:///catalog;MODE=MySQL;DB_CLOSE_DELAY=-1")
+public class ReactiveRepositoryTest {
+    @Autowired
+    AlbumRepository albumRepository;
+    @Autowired
+    TrackRepository trackRepository;
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @Before
+    public void setUp() throws Exception {
+        Flux.just(
+                "drop table if exists track",
+                "drop table if exists album",
+                "create table album (album_id int primary key auto_increment, title varchar(50) not null, "
+                        + "artist_id int not null, release_date date not null, label_id int not null, "
+                        + "list_price decimal(5, 2) not null, version int not null default 0)",
+                "create table track (track_id int primary key auto_increment, album_id int not null, "
+                        + "title varchar(50) not null, run_time int not null, version int not null default 0)",
+                "insert into album (title, artist_id, release_date, label_id, list_price) values "
+                        + "('Thriller', 5, '1982-11-30', 20, 15.99), ('Bad', 5, '1987-08-31', 20, 19.99), "
+                        + "('Purple Rain', 6, '1984-06-25', 21, 12.99)",
+                "insert into track (album_id, title, run_time) values "
+                        + "(1, 'Beat It', 258), (1, 'Billie Jean', 294), (2, 'Bad', 247), (3, 'When Doves Cry', 352)")
+                .concatMap(sql -> databaseClient.sql(sql).then())
+                .blockLast();
+    }
+
+    @Test
+    public void shouldPageAlbumsAfterCursor() {
+        StepVerifier.create(albumRepository.findByAlbumIdGreaterThanOrderByAlbumIdAsc(1, PageRequest.of(0, 1)))
+                .assertNext(album -> {
+                    assertEquals(Integer.valueOf(2), album.getAlbumId());
+                    assertEquals("Bad", album.getTitle());
+                    assertEquals(new BigDecimal("19.99"), album.getListPrice());
+                    assertEquals(LocalDate.parse("1987-08-31"), album.getReleaseDate());
+                    assertEquals(Integer.valueOf(0), album.getVersion());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldStreamAllAlbumsInIdOrderOnDemand() {
+        StepVerifier.create(albumRepository.streamAll().map(Album::getAlbumId), 1)
+                .expectNext(1)
+                .thenRequest(2)
+                .expectNext(2, 3)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldReadSummariesAfterCursor() {
+        StepVerifier.create(albumRepository.findSummariesAfter(0, 2))
+                .expectNext(new AlbumSummary(1, "Thriller", 5, 20), new AlbumSummary(2, "Bad", 5, 20))
+                .verifyComplete();
+        StepVerifier.create(trackRepository.findSummariesAfter(3, 10))
+                .expectNext(new TrackSummary(4, 3, "When Doves Cry"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFilterAndSortAlbums() {
+        AlbumFilter filter = new AlbumFilter();
+        filter.setArtistId(5);
+        filter.setSort("releaseDate");
+        filter.setDesc(true);
+
+        assertEquals("[2, 1]", ids(albumRepository.findFiltered(filter)));
+
+        AlbumFilter priceFilter = new AlbumFilter();
+        priceFilter.setMaxPrice(new BigDecimal("16"));
+
+        assertEquals("[3]", ids(albumRepository.findFilteredAfter(priceFilter, 1, 10)));
+    }
+
+    @Test
+    public void shouldRejectSortedAlbumPageOnSubscribe() {
+        AlbumFilter filter = new AlbumFilter();
+        filter.setSort("listPrice");
+
+        StepVerifier.create(albumRepository.findFilteredAfter(filter, 0, 10))
+                .verifyError(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldFilterTracksOfAlbumByRunTime() {
+        TrackFilter filter = new TrackFilter();
+        filter.setAlbumId(1);
+        filter.setMinRunTime(260);
+
+        StepVerifier.create(trackRepository.findFiltered(filter).map(track -> track.getTitle()))
+                .expectNext("Billie Jean")
+                .verifyComplete();
+        StepVerifier.create(trackRepository.findByAlbumIdOrderByTrackIdAsc(1).count())
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    private static String ids(Flux<Album> albums) {
+        return albums.map(Album::getAlbumId).collectList().block().stream()
+                .map(String::valueOf).collect(Collectors.joining(", ", "[", "]"));
+    }
+}